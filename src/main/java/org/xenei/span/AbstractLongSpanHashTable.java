@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table keyed by span offset and length pairs.
+ * <p>
+ * Keys are held in parallel primitive arrays with a separate used marker so
+ * that every (offset, length) pair, including (0, 0), is a valid key. Linear
+ * probing is used and removal shifts following entries back so that no
+ * tombstones are needed. Subclasses may request a parallel value column.
+ * </p>
+ * <p>
+ * The load factor is kept at or below 3/4 at every capacity, so a table holds
+ * at most 3/4 of 2^30 entries; inserting beyond that throws
+ * IllegalStateException rather than letting probe sequences approach the
+ * whole table.
+ * </p>
+ */
+abstract class AbstractLongSpanHashTable {
+
+    /**
+     * The largest number of slots.
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The key offsets.
+     */
+    protected long[] offsets;
+    /**
+     * The key lengths.
+     */
+    protected long[] lengths;
+    /**
+     * The values or null if the table has no values.
+     */
+    protected long[] values;
+    /**
+     * True for the slots that hold an entry.
+     */
+    protected boolean[] used;
+    /**
+     * The number of entries.
+     */
+    private int size;
+    /**
+     * The slot mask, capacity - 1.
+     */
+    private int mask;
+    /**
+     * The size at which the table grows.
+     */
+    private int threshold;
+    /**
+     * True if the table has a value column.
+     */
+    private final boolean hasValues;
+
+    /**
+     * Constructor.
+     *
+     * @param expected  the expected number of entries.
+     * @param hasValues true if the table has a value column.
+     */
+    protected AbstractLongSpanHashTable(final int expected, final boolean hasValues) {
+        if (expected < 0) {
+            throw new IllegalArgumentException("Expected size may not be negative: " + expected);
+        }
+        this.hasValues = hasValues;
+        allocate(capacityFor(expected));
+    }
+
+    /**
+     * Calculates the capacity required for a number of entries.
+     *
+     * @param expected the number of entries.
+     * @return a power of 2 capacity.
+     */
+    private static int capacityFor(final int expected) {
+        final long required = Math.max(16L, ((expected * 4L) / 3) + 1);
+        if (required > MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    /**
+     * Allocates empty arrays.
+     *
+     * @param capacity the number of slots.
+     */
+    private void allocate(final int capacity) {
+        offsets = new long[capacity];
+        lengths = new long[capacity];
+        used = new boolean[capacity];
+        values = hasValues ? new long[capacity] : null;
+        mask = capacity - 1;
+        threshold = (capacity / 4) * 3;
+    }
+
+    /**
+     * Mixes the key into a slot hash.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     * @return the hash.
+     */
+    private static int mix(final long offset, final long length) {
+        long h = (offset * 0x9E3779B97F4A7C15L) + length;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        h ^= h >>> 29;
+        return (int) h;
+    }
+
+    /**
+     * Verifies the key is a valid span.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     */
+    protected static void check(final long offset, final long length) {
+        if (length < 0) {
+            throw new IndexOutOfBoundsException("Length may not be less than zero: " + length);
+        }
+        NumberUtils.checkLongAddLimit(offset, length);
+    }
+
+    /**
+     * Finds the slot for a key.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     * @return the slot holding the key, or -(slot + 1) for the free slot where it
+     *         would be inserted.
+     */
+    protected final int find(final long offset, final long length) {
+        int slot = mix(offset, length) & mask;
+        while (used[slot]) {
+            if ((offsets[slot] == offset) && (lengths[slot] == length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -(slot + 1);
+    }
+
+    /**
+     * Inserts a key that is not in the table.
+     *
+     * @param free   the result of find for the key.
+     * @param offset the offset.
+     * @param length the length.
+     * @return the slot holding the new entry.
+     * @throws IllegalStateException if the table is at its largest capacity and
+     *                               3/4 full.
+     */
+    protected final int insert(final int free, final long offset, final long length) {
+        int slot = -(free + 1);
+        if (size >= threshold) {
+            if (offsets.length == MAX_CAPACITY) {
+                throw new IllegalStateException("Hash table is full");
+            }
+            grow();
+            slot = -(find(offset, length) + 1);
+        }
+        offsets[slot] = offset;
+        lengths[slot] = length;
+        used[slot] = true;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Doubles the capacity and rehashes the entries.
+     */
+    private void grow() {
+        final long[] oldOffsets = offsets;
+        final long[] oldLengths = lengths;
+        final long[] oldValues = values;
+        final boolean[] oldUsed = used;
+        allocate(oldOffsets.length * 2);
+        for (int i = 0; i < oldOffsets.length; i++) {
+            if (oldUsed[i]) {
+                final int slot = -(find(oldOffsets[i], oldLengths[i]) + 1);
+                offsets[slot] = oldOffsets[i];
+                lengths[slot] = oldLengths[i];
+                used[slot] = true;
+                if (hasValues) {
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the entry in a slot and shifts back any following entries that
+     * would no longer be reachable.
+     *
+     * @param slot the slot to clear.
+     */
+    protected final void removeAt(final int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            final int home = mix(offsets[next], lengths[next]) & mask;
+            // move the entry back if its home is not in the cyclic range (gap, next].
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                offsets[gap] = offsets[next];
+                lengths[gap] = lengths[next];
+                if (hasValues) {
+                    values[gap] = values[next];
+                }
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+        size--;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the table has no entries.
+     *
+     * @return true if empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the entries. The capacity is retained.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of slots.
+     *
+     * @return the capacity.
+     */
+    protected final int capacity() {
+        return offsets.length;
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * A collection of LongSpans that changes representation with the workload.
+ * <p>
+ * While it is being written the spans are held in a TreeMap of span to
+ * multiplicity, so inserts and removals are O(log n). Once the collection has
+ * been read a number of times without a write, or when seal() is called, the
+ * spans are packed into a LongSpanIntervalIndex and queries use its static
+ * search tree. The next write thaws the index back into a TreeMap. Duplicate
+ * spans are allowed. This class is not thread safe.
+ * </p>
+ * <p>
+ * Each thaw caused by a write doubles the number of reads needed to seal
+ * again, up to {@value #MAX_BACKOFF} times the configured value, so a mixed
+ * workload does not repack and rebuild on every few operations. Each run of
+ * that many reads while sealed halves it again, back to the configured value.
+ * </p>
+ */
+public class AdaptiveLongSpanCollection implements Iterable<LongSpan> {
+
+    /**
+     * The default number of reads without a write after which the collection
+     * seals itself.
+     */
+    public static final int DEFAULT_READS_BEFORE_SEAL = 8;
+    /**
+     * The largest multiple of the configured reads before seal that the seal
+     * threshold grows to.
+     */
+    public static final int MAX_BACKOFF = 64;
+
+    /**
+     * Orders spans by offset then length.
+     */
+    private static final Comparator<LongSpan> ORDER = Comparator.comparingLong(LongSpan::getOffset)
+            .thenComparingLong(LongSpan::getLength);
+
+    /**
+     * The number of reads without a write that seals the collection, 0 to only
+     * seal explicitly.
+     */
+    private final int readsBeforeSeal;
+    /**
+     * The current number of reads without a write that seals the collection.
+     */
+    private int sealThreshold;
+    /**
+     * The mutable form, null while sealed.
+     */
+    private TreeMap<LongSpan, Integer> tree = new TreeMap<>(ORDER);
+    /**
+     * The sealed form, null while mutable.
+     */
+    private LongSpanIntervalIndex index;
+    /**
+     * The number of spans.
+     */
+    private int size;
+    /**
+     * The number of reads since the last write while mutable, or since the seal
+     * threshold last changed while sealed.
+     */
+    private int reads;
+
+    /**
+     * Constructor.
+     */
+    public AdaptiveLongSpanCollection() {
+        this(DEFAULT_READS_BEFORE_SEAL);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param readsBeforeSeal the number of reads without a write after which the
+     *                        collection seals itself, 0 to only seal explicitly.
+     */
+    public AdaptiveLongSpanCollection(final int readsBeforeSeal) {
+        if (readsBeforeSeal < 0) {
+            throw new IllegalArgumentException("Reads before seal may not be negative: " + readsBeforeSeal);
+        }
+        this.readsBeforeSeal = readsBeforeSeal;
+        this.sealThreshold = readsBeforeSeal;
+    }
+
+    /**
+     * Checks if the collection is in its sealed form.
+     *
+     * @return true if sealed.
+     */
+    public boolean isSealed() {
+        return index != null;
+    }
+
+    /**
+     * Packs the spans into a LongSpanIntervalIndex. Does nothing if already
+     * sealed.
+     */
+    public void seal() {
+        if (index != null) {
+            return;
+        }
+        final long[] offsets = new long[size];
+        final long[] lengths = new long[size];
+        int i = 0;
+        for (final Map.Entry<LongSpan, Integer> entry : tree.entrySet()) {
+            for (int n = entry.getValue(); n > 0; n--) {
+                offsets[i] = entry.getKey().getOffset();
+                lengths[i] = entry.getKey().getLength();
+                i++;
+            }
+        }
+        index = LongSpanIntervalIndex.fromSorted(offsets, lengths);
+        tree = null;
+        reads = 0;
+    }
+
+    /**
+     * Gets the sealed index, sealing the collection if necessary.
+     *
+     * @return the index.
+     */
+    public LongSpanIntervalIndex getIndex() {
+        seal();
+        return index;
+    }
+
+    /**
+     * Switches to the mutable form before a write and doubles the seal
+     * threshold if the index was thawed.
+     */
+    private void thaw() {
+        reads = 0;
+        if (index == null) {
+            return;
+        }
+        sealThreshold = (int) Math.min((long) sealThreshold * 2, (long) readsBeforeSeal * MAX_BACKOFF);
+        tree = new TreeMap<>(ORDER);
+        for (int i = 0; i < index.size(); i++) {
+            tree.merge(index.get(i), 1, Integer::sum);
+        }
+        index = null;
+    }
+
+    /**
+     * Records a read. Seals the collection once enough reads have been made
+     * without a write, and halves the seal threshold after each run of that
+     * many reads while sealed.
+     */
+    private void read() {
+        if (readsBeforeSeal == 0) {
+            return;
+        }
+        if (index == null) {
+            if (++reads >= sealThreshold) {
+                seal();
+            }
+        } else if ((sealThreshold > readsBeforeSeal) && (++reads >= sealThreshold)) {
+            sealThreshold = Math.max(sealThreshold / 2, readsBeforeSeal);
+            reads = 0;
+        }
+    }
+
+    /**
+     * Gets the number of reads without a write that currently seals the
+     * collection.
+     *
+     * @return the seal threshold, 0 if the collection only seals explicitly.
+     */
+    public int getSealThreshold() {
+        return sealThreshold;
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param span the span.
+     */
+    public void add(final LongSpan span) {
+        add(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     */
+    public void add(final long offset, final long length) {
+        final LongSpan span = LongSpan.fromLength(offset, length);
+        thaw();
+        tree.merge(span, 1, Integer::sum);
+        size++;
+    }
+
+    /**
+     * Removes one occurrence of a span.
+     *
+     * @param span the span.
+     * @return true if the span was present.
+     */
+    public boolean remove(final LongSpan span) {
+        if (!contains(span)) {
+            return false;
+        }
+        thaw();
+        tree.computeIfPresent(LongSpan.fromLength(span.getOffset(), span.getLength()),
+                (key, count) -> count == 1 ? null : count - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes all the spans.
+     */
+    public void clear() {
+        tree = new TreeMap<>(ORDER);
+        index = null;
+        size = 0;
+        reads = 0;
+    }
+
+    /**
+     * Gets the number of spans including duplicates.
+     *
+     * @return the number of spans.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the collection is empty.
+     *
+     * @return true if there are no spans.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks if a span with the same offset and length is present.
+     *
+     * @param span the span.
+     * @return true if present.
+     */
+    public boolean contains(final LongSpan span) {
+        if (index == null) {
+            return tree.containsKey(span);
+        }
+        int lo = 0;
+        int hi = index.size();
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if ((index.getOffset(mid) < span.getOffset())
+                    || ((index.getOffset(mid) == span.getOffset()) && (index.getLength(mid) < span.getLength()))) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return (lo < index.size()) && (index.getOffset(lo) == span.getOffset())
+                && (index.getLength(lo) == span.getLength());
+    }
+
+    /**
+     * Gets the spans that overlap the query. Empty spans never overlap.
+     *
+     * @param query the query.
+     * @return the overlapping spans in offset order.
+     */
+    public List<LongSpan> overlapping(final LongSpan query) {
+        read();
+        if (index != null) {
+            return index.overlapping(query);
+        }
+        final List<LongSpan> result = new ArrayList<>();
+        for (final Map.Entry<LongSpan, Integer> entry : scan(query)) {
+            if (overlaps(entry.getKey(), query)) {
+                for (int n = entry.getValue(); n > 0; n--) {
+                    result.add(entry.getKey());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the spans that overlap the query.
+     *
+     * @param query the query.
+     * @return the number of overlapping spans.
+     */
+    public int countOverlapping(final LongSpan query) {
+        read();
+        if (index != null) {
+            return index.countOverlapping(query);
+        }
+        int count = 0;
+        for (final Map.Entry<LongSpan, Integer> entry : scan(query)) {
+            if (overlaps(entry.getKey(), query)) {
+                count += entry.getValue();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the tree entries that start at or before the end of the query.
+     *
+     * @param query the query.
+     * @return the candidate entries.
+     */
+    private Iterable<Map.Entry<LongSpan, Integer>> scan(final LongSpan query) {
+        if (query.getLength() == 0) {
+            return Collections.emptySet();
+        }
+        return tree.headMap(LongSpan.fromLength(query.getEnd() + 1, 0), false).entrySet();
+    }
+
+    /**
+     * Checks if a candidate that starts at or before the end of the query
+     * overlaps it.
+     *
+     * @param span  the candidate.
+     * @param query the query.
+     * @return true if they overlap.
+     */
+    private static boolean overlaps(final LongSpan span, final LongSpan query) {
+        return (span.getLength() > 0) && (span.getEnd() >= query.getOffset());
+    }
+
+    /**
+     * Iterates the spans in offset then length order. The collection must not be
+     * written while iterating.
+     *
+     * @return the iterator.
+     */
+    @Override
+    public Iterator<LongSpan> iterator() {
+        read();
+        if (index != null) {
+            final LongSpanIntervalIndex sealed = index;
+            return new Iterator<LongSpan>() {
+                private int position;
+
+                @Override
+                public boolean hasNext() {
+                    return position < sealed.size();
+                }
+
+                @Override
+                public LongSpan next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return sealed.get(position++);
+                }
+            };
+        }
+        final Iterator<Map.Entry<LongSpan, Integer>> entries = tree.entrySet().iterator();
+        return new Iterator<LongSpan>() {
+            private LongSpan span;
+            private int remaining;
+
+            @Override
+            public boolean hasNext() {
+                return (remaining > 0) || entries.hasNext();
+            }
+
+            @Override
+            public LongSpan next() {
+                if (remaining == 0) {
+                    final Map.Entry<LongSpan, Integer> entry = entries.next();
+                    span = entry.getKey();
+                    remaining = entry.getValue();
+                }
+                remaining--;
+                return span;
+            }
+        };
+    }
+}
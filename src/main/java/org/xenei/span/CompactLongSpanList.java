@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A list of LongSpans that stores its columns as ints until a value needs a
+ * long.
+ * <p>
+ * Offsets are stored relative to a base offset. While every relative offset
+ * and length fits in an int the columns are int[], which halves the memory of
+ * long[] columns. The first span that does not fit promotes both columns to
+ * long[] holding absolute offsets; the list never demotes. Promotion is not
+ * visible to callers of the LongSpan API.
+ * </p>
+ */
+public class CompactLongSpanList extends AbstractList<LongSpan> implements RandomAccess {
+
+    /**
+     * The value subtracted from offsets before they are stored in the int column.
+     */
+    private final long base;
+    /**
+     * The relative offsets, null once promoted.
+     */
+    private int[] intOffsets;
+    /**
+     * The lengths, null once promoted.
+     */
+    private int[] intLengths;
+    /**
+     * The absolute offsets, null until promoted.
+     */
+    private long[] longOffsets;
+    /**
+     * The lengths, null until promoted.
+     */
+    private long[] longLengths;
+    /**
+     * The number of spans.
+     */
+    private int size;
+
+    /**
+     * Constructor with a base offset of zero.
+     */
+    public CompactLongSpanList() {
+        this(0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param base the value subtracted from offsets before they are stored.
+     */
+    public CompactLongSpanList(final long base) {
+        this.base = base;
+        this.intOffsets = new int[10];
+        this.intLengths = new int[10];
+    }
+
+    /**
+     * Constructor that copies a collection with a base offset of zero.
+     *
+     * @param spans the spans to copy.
+     */
+    public CompactLongSpanList(final Collection<? extends LongSpan> spans) {
+        this(0);
+        addAll(spans);
+    }
+
+    /**
+     * Gets the base offset.
+     *
+     * @return the base.
+     */
+    public long getBase() {
+        return base;
+    }
+
+    /**
+     * Checks if the columns have been promoted to longs.
+     *
+     * @return true if the columns are long[].
+     */
+    public boolean isPromoted() {
+        return longOffsets != null;
+    }
+
+    /**
+     * Checks if a span can be stored in the int columns.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     * @return true if it fits.
+     */
+    private boolean fits(final long offset, final long length) {
+        final long relative = offset - base;
+        // the subtraction overflowed if the signs of the operands differ and the
+        // sign of the result differs from the offset.
+        if (((offset ^ base) & (offset ^ relative)) < 0) {
+            return false;
+        }
+        return (relative >= Integer.MIN_VALUE) && (relative <= Integer.MAX_VALUE) && (length <= Integer.MAX_VALUE);
+    }
+
+    /**
+     * Verifies a span and promotes the columns if it does not fit.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     */
+    private void prepare(final long offset, final long length) {
+        if (length < 0) {
+            throw new IndexOutOfBoundsException("Length may not be less than zero: " + length);
+        }
+        NumberUtils.checkLongAddLimit(offset, length);
+        if ((longOffsets == null) && !fits(offset, length)) {
+            longOffsets = new long[intOffsets.length];
+            longLengths = new long[intOffsets.length];
+            for (int i = 0; i < size; i++) {
+                longOffsets[i] = base + intOffsets[i];
+                longLengths[i] = intLengths[i];
+            }
+            intOffsets = null;
+            intLengths = null;
+        }
+    }
+
+    /**
+     * Ensures there is room for one more span.
+     */
+    private void grow() {
+        if (longOffsets != null) {
+            if (size == longOffsets.length) {
+                longOffsets = Arrays.copyOf(longOffsets, (size * 3 / 2) + 1);
+                longLengths = Arrays.copyOf(longLengths, longOffsets.length);
+            }
+        } else if (size == intOffsets.length) {
+            intOffsets = Arrays.copyOf(intOffsets, (size * 3 / 2) + 1);
+            intLengths = Arrays.copyOf(intLengths, intOffsets.length);
+        }
+    }
+
+    /**
+     * Stores a span at a position.
+     *
+     * @param index  the position.
+     * @param offset the offset.
+     * @param length the length.
+     */
+    private void store(final int index, final long offset, final long length) {
+        if (longOffsets != null) {
+            longOffsets[index] = offset;
+            longLengths[index] = length;
+        } else {
+            intOffsets[index] = (int) (offset - base);
+            intLengths[index] = (int) length;
+        }
+    }
+
+    /**
+     * Appends a span without creating a LongSpan.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     */
+    public void add(final long offset, final long length) {
+        prepare(offset, length);
+        grow();
+        store(size++, offset, length);
+        modCount++;
+    }
+
+    @Override
+    public void add(final int index, final LongSpan span) {
+        if ((index < 0) || (index > size)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        prepare(span.getOffset(), span.getLength());
+        grow();
+        if (longOffsets != null) {
+            System.arraycopy(longOffsets, index, longOffsets, index + 1, size - index);
+            System.arraycopy(longLengths, index, longLengths, index + 1, size - index);
+        } else {
+            System.arraycopy(intOffsets, index, intOffsets, index + 1, size - index);
+            System.arraycopy(intLengths, index, intLengths, index + 1, size - index);
+        }
+        store(index, span.getOffset(), span.getLength());
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public LongSpan set(final int index, final LongSpan span) {
+        final LongSpan previous = get(index);
+        prepare(span.getOffset(), span.getLength());
+        store(index, span.getOffset(), span.getLength());
+        return previous;
+    }
+
+    @Override
+    public LongSpan remove(final int index) {
+        final LongSpan previous = get(index);
+        final int moved = size - index - 1;
+        if (longOffsets != null) {
+            System.arraycopy(longOffsets, index + 1, longOffsets, index, moved);
+            System.arraycopy(longLengths, index + 1, longLengths, index, moved);
+        } else {
+            System.arraycopy(intOffsets, index + 1, intOffsets, index, moved);
+            System.arraycopy(intLengths, index + 1, intLengths, index, moved);
+        }
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Shrinks the columns to the number of spans.
+     */
+    public void trimToSize() {
+        if (longOffsets != null) {
+            longOffsets = Arrays.copyOf(longOffsets, size);
+            longLengths = Arrays.copyOf(longLengths, size);
+        } else {
+            intOffsets = Arrays.copyOf(intOffsets, size);
+            intLengths = Arrays.copyOf(intLengths, size);
+        }
+    }
+
+    @Override
+    public LongSpan get(final int index) {
+        return LongSpan.fromLength(getOffset(index), getLength(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Verifies an index.
+     *
+     * @param index the index.
+     */
+    private void checkIndex(final int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Gets the offset of a span without creating it.
+     *
+     * @param index the list index.
+     * @return the offset.
+     */
+    public long getOffset(final int index) {
+        checkIndex(index);
+        return longOffsets != null ? longOffsets[index] : base + intOffsets[index];
+    }
+
+    /**
+     * Gets the length of a span without creating it.
+     *
+     * @param index the list index.
+     * @return the length.
+     */
+    public long getLength(final int index) {
+        checkIndex(index);
+        return longOffsets != null ? longLengths[index] : intLengths[index];
+    }
+
+    /**
+     * Gets the end of a span without creating it.
+     *
+     * @param index the list index.
+     * @return the end.
+     */
+    public long getEnd(final int index) {
+        return (getOffset(index) + getLength(index)) - 1;
+    }
+}
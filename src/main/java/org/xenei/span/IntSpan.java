@@ -26,6 +26,18 @@ import java.util.function.Function;
 /**
  * Describes a span of data. Starting offset and ending index, or the starting
  * offset and the length.
+ * <p>
+ * The length may not be negative and offset + length may not be greater than
+ * Integer.MAX_VALUE, so the end is at most Integer.MAX_VALUE - 1. Every IntSpan
+ * factory and MutableIntSpan enforce this limit.
+ * </p>
+ * <p>
+ * IntSpans have value equality: any two IntSpans with the same offset and
+ * length are equal, whatever their class. Implementations must override equals
+ * and hashCode with {@link #equals(IntSpan, Object)} and
+ * {@link #hashCode(IntSpan)}; every implementation in this package, the
+ * cursors included, does so.
+ * </p>
  */
 public interface IntSpan extends Span {
 
@@ -87,6 +99,36 @@ public interface IntSpan extends Span {
         return (span.getEnd() - span.getOffset()) + 1;
     }
 
+    /**
+     * Determines if an object is a IntSpan with the same offset and length. Used
+     * by span implementations to provide value equality.
+     *
+     * @param span  the span.
+     * @param other the object to compare with.
+     * @return true if other is a IntSpan with the same offset and length.
+     */
+    public static boolean equals(final IntSpan span, final Object other) {
+        if (span == other) {
+            return true;
+        }
+        if (!(other instanceof IntSpan)) {
+            return false;
+        }
+        final IntSpan that = (IntSpan) other;
+        return (span.getOffset() == that.getOffset()) && (span.getLength() == that.getLength());
+    }
+
+    /**
+     * Calculates the hash code for a span from its offset and length. Used by span
+     * implementations to provide value equality.
+     *
+     * @param span the span.
+     * @return the hash code.
+     */
+    public static int hashCode(final IntSpan span) {
+        return (31 * Integer.hashCode(span.getOffset())) + Integer.hashCode(span.getLength());
+    }
+
     /**
      * create the default string representation for the span.
      *
@@ -94,8 +136,14 @@ public interface IntSpan extends Span {
      * @return The printable string
      */
     public static String toString(final IntSpan span) {
-        return String.format("%s[%s,%s]", span.getClass().getName(), span.getOffset(),
-                span.getLength() > 0 ? span.getEnd() : "-empty-");
+        final StringBuilder sb = new StringBuilder(span.getClass().getName()).append('[')
+                .append(span.getOffset()).append(',');
+        if (span.getLength() > 0) {
+            sb.append(span.getEnd());
+        } else {
+            sb.append("-empty-");
+        }
+        return sb.append(']').toString();
 
     }
 
@@ -161,6 +209,17 @@ public interface IntSpan extends Span {
         return true;
     }
 
+    /**
+     * Return true if the spans share any positions. Computed without converting
+     * either span.
+     *
+     * @param other The other span
+     * @return true if overlap
+     */
+    public default boolean overlaps(final LongSpan other) {
+        return (getEnd() >= other.getOffset()) && (getOffset() <= other.getEnd());
+    }
+
     /**
      * Return true if this span contains the position.
      *
@@ -181,6 +240,130 @@ public interface IntSpan extends Span {
         return contains(other.getOffset()) && contains(other.getEnd());
     }
 
+    /**
+     * Return true if this span contains both the offset and the end of a LongSpan.
+     *
+     * @param other the other span.
+     * @return true if this span contains the other span.
+     */
+    public default boolean contains(final LongSpan other) {
+        return (getOffset() <= other.getOffset()) && (getEnd() >= other.getOffset()) && (getOffset() <= other.getEnd())
+                && (getEnd() >= other.getEnd());
+    }
+
+    /**
+     * Gets the positions common to this span and the other span.
+     *
+     * @param other the other span.
+     * @return the intersection or EMPTY if the spans do not overlap.
+     * @see IntSpanArithmetic#intersect(int, int, int, int)
+     */
+    public default IntSpan intersect(final IntSpan other) {
+        return IntSpanArithmetic.intersect(getOffset(), getLength(), other.getOffset(), other.getLength());
+    }
+
+    /**
+     * Gets the positions common to this span and a LongSpan. The intersection
+     * always fits in an IntSpan.
+     *
+     * @param other the other span.
+     * @return the intersection or EMPTY if the spans do not overlap.
+     * @see LongSpanArithmetic#intersect(long, long, long, long, LongSpanSink)
+     */
+    public default IntSpan intersect(final LongSpan other) {
+        final SpanPieces<IntSpan> pieces = SpanPieces.intSpans();
+        LongSpanArithmetic.intersect(getOffset(), getLength(), other.getOffset(), other.getLength(), pieces);
+        return pieces.single(IntSpan.EMPTY);
+    }
+
+    /**
+     * Gets the smallest span that covers this span and the other span. Empty
+     * spans are ignored.
+     *
+     * @param other the other span.
+     * @return the hull or EMPTY if both spans are empty.
+     * @see IntSpanArithmetic#hull(int, int, int, int)
+     */
+    public default IntSpan hull(final IntSpan other) {
+        return IntSpanArithmetic.hull(getOffset(), getLength(), other.getOffset(), other.getLength());
+    }
+
+    /**
+     * Gets the smallest span that covers this span and a LongSpan. Empty spans are
+     * ignored. The hull may not fit in an int so it is a LongSpan.
+     *
+     * @param other the other span.
+     * @return the hull or LongSpan.EMPTY if both spans are empty.
+     * @see LongSpanArithmetic#hull(long, long, long, long)
+     */
+    public default LongSpan hull(final LongSpan other) {
+        return LongSpanArithmetic.hull(getOffset(), getLength(), other.getOffset(), other.getLength());
+    }
+
+    /**
+     * Gets the parts of this span that are not in the other span.
+     *
+     * @param other the span to remove.
+     * @return a fixed size list of zero, one or two non empty spans in offset
+     *         order.
+     * @see IntSpanArithmetic#subtract(int, int, int, int)
+     */
+    public default List<IntSpan> subtract(final IntSpan other) {
+        return IntSpanArithmetic.subtract(getOffset(), getLength(), other.getOffset(), other.getLength());
+    }
+
+    /**
+     * Gets the parts of this span that are not in a LongSpan. The parts always fit
+     * in IntSpans.
+     *
+     * @param other the span to remove.
+     * @return a fixed size list of zero, one or two non empty spans in offset
+     *         order.
+     * @see LongSpanArithmetic#subtract(long, long, long, long, LongSpanSink)
+     */
+    public default List<IntSpan> subtract(final LongSpan other) {
+        final SpanPieces<IntSpan> pieces = SpanPieces.intSpans();
+        LongSpanArithmetic.subtract(getOffset(), getLength(), other.getOffset(), other.getLength(), pieces);
+        return pieces.toList();
+    }
+
+    /**
+     * Splits this span so that the position is the first position of the second
+     * piece.
+     *
+     * @param position the position to split at.
+     * @return an array of two spans, either may be empty.
+     * @see IntSpanArithmetic#split(int, int, int)
+     */
+    public default IntSpan[] split(final int position) {
+        return IntSpanArithmetic.split(getOffset(), getLength(), position);
+    }
+
+    /**
+     * Gets this span moved by delta positions.
+     *
+     * @param delta the distance to move the span.
+     * @return the moved span.
+     * @throws IllegalArgumentException if offset + length of the moved span does
+     *                                  not fit in an int.
+     * @see IntSpanArithmetic#shift(int, int, int)
+     */
+    public default IntSpan shift(final int delta) {
+        return IntSpanArithmetic.shift(getOffset(), getLength(), delta);
+    }
+
+    /**
+     * Gets the part of this span that lies within the bounds.
+     *
+     * @param bounds the bounds.
+     * @return the clamped span, an empty span at the nearest edge of the bounds if
+     *         this span is outside them.
+     * @see IntSpanArithmetic#clamp(int, int, int, int)
+     */
+    public default IntSpan clamp(final IntSpan bounds) {
+        return IntSpanArithmetic.clamp(getOffset(), getLength(), bounds.getOffset(), bounds.getLength());
+    }
+
     /**
      * An implementation of and IntSpan.
      *
@@ -204,10 +387,10 @@ public interface IntSpan extends Span {
          * @param length The length.
          */
         /* package private */ Impl(final int offset, final int length) {
-            NumberUtils.checkLongAddLimit(offset, length);
             if (length < 0) {
                 throw new IndexOutOfBoundsException("Length may not be less than zero: " + length);
             }
+            NumberUtils.checkIntLimit("offset + length", (long) offset + length);
             this.offset = offset;
             this.length = length;
         }
@@ -232,6 +415,16 @@ public interface IntSpan extends Span {
             return IntSpan.toString(this);
         }
 
+        @Override
+        public boolean equals(final Object other) {
+            return IntSpan.equals(this, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return IntSpan.hashCode(this);
+        }
+
     }
 
     /**
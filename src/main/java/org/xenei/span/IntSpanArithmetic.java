@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.List;
+
+/**
+ * Span arithmetic on primitive offset and length pairs.
+ * <p>
+ * The methods that take an IntSpanSink write their results to it so that inner
+ * loops do not create IntSpan objects. The methods without a sink collect the
+ * output of the sink methods so each operation has a single implementation.
+ * The calculations are performed with long intermediates and the results
+ * checked against the int limits.
+ * </p>
+ *
+ * @see IntSpanSink.Packed
+ */
+public final class IntSpanArithmetic {
+
+    /**
+     * Do not instantiate.
+     */
+    private IntSpanArithmetic() {
+    }
+
+    /**
+     * Writes the positions common to both spans.
+     *
+     * @param aOffset the offset of the first span.
+     * @param aLength the length of the first span.
+     * @param bOffset the offset of the second span.
+     * @param bLength the length of the second span.
+     * @param sink    receives the intersection if it is not empty.
+     * @return true if a span was written.
+     */
+    public static boolean intersect(final int aOffset, final int aLength, final int bOffset, final int bLength,
+            final IntSpanSink sink) {
+        final int start = Math.max(aOffset, bOffset);
+        final long limit = Math.min((long) aOffset + aLength, (long) bOffset + bLength);
+        if ((aLength == 0) || (bLength == 0) || (limit <= start)) {
+            return false;
+        }
+        sink.accept(start, (int) (limit - start));
+        return true;
+    }
+
+    /**
+     * Writes the smallest span that covers both spans. Empty spans are ignored.
+     *
+     * @param aOffset the offset of the first span.
+     * @param aLength the length of the first span.
+     * @param bOffset the offset of the second span.
+     * @param bLength the length of the second span.
+     * @param sink    receives the hull if either span is not empty.
+     * @return true if a span was written.
+     * @throws IllegalArgumentException if the hull is longer than
+     *                                  Integer.MAX_VALUE.
+     */
+    public static boolean hull(final int aOffset, final int aLength, final int bOffset, final int bLength,
+            final IntSpanSink sink) {
+        if (aLength == 0) {
+            if (bLength == 0) {
+                return false;
+            }
+            sink.accept(bOffset, bLength);
+            return true;
+        }
+        if (bLength == 0) {
+            sink.accept(aOffset, aLength);
+            return true;
+        }
+        final int start = Math.min(aOffset, bOffset);
+        final long length = Math.max((long) aOffset + aLength, (long) bOffset + bLength) - start;
+        sink.accept(start, NumberUtils.checkIntLimit("length", length));
+        return true;
+    }
+
+    /**
+     * Writes the positions of the first span that are not in the second span.
+     * The result is zero, one or two spans in offset order. Empty pieces are not
+     * written.
+     *
+     * @param aOffset the offset of the span to subtract from.
+     * @param aLength the length of the span to subtract from.
+     * @param bOffset the offset of the span to remove.
+     * @param bLength the length of the span to remove.
+     * @param sink    receives the remaining pieces.
+     * @return the number of spans written.
+     */
+    public static int subtract(final int aOffset, final int aLength, final int bOffset, final int bLength,
+            final IntSpanSink sink) {
+        if (aLength == 0) {
+            return 0;
+        }
+        final long aLimit = (long) aOffset + aLength;
+        final long bLimit = (long) bOffset + bLength;
+        if ((bLength == 0) || (bLimit <= aOffset) || (bOffset >= aLimit)) {
+            sink.accept(aOffset, aLength);
+            return 1;
+        }
+        int count = 0;
+        if (bOffset > aOffset) {
+            sink.accept(aOffset, bOffset - aOffset);
+            count++;
+        }
+        if (bLimit < aLimit) {
+            sink.accept((int) bLimit, (int) (aLimit - bLimit));
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Splits a span so that the position is the first position of the second
+     * piece. Both pieces are always written, either may be empty.
+     *
+     * @param offset   the offset of the span.
+     * @param length   the length of the span.
+     * @param position the position to split at.
+     * @param sink     receives the two pieces.
+     */
+    public static void split(final int offset, final int length, final int position, final IntSpanSink sink) {
+        final int left;
+        if (position <= offset) {
+            left = 0;
+        } else if (position >= ((long) offset + length)) {
+            left = length;
+        } else {
+            left = position - offset;
+        }
+        sink.accept(offset, left);
+        sink.accept(offset + left, length - left);
+    }
+
+    /**
+     * Writes the span moved by delta positions.
+     *
+     * @param offset the offset of the span.
+     * @param length the length of the span.
+     * @param delta  the distance to move the span.
+     * @param sink   receives the moved span.
+     * @throws IllegalArgumentException if offset + length of the moved span does
+     *                                  not fit in an int.
+     */
+    public static void shift(final int offset, final int length, final int delta, final IntSpanSink sink) {
+        final int moved = NumberUtils.checkIntLimit("offset", (long) offset + delta);
+        NumberUtils.checkIntLimit("offset + length", (long) moved + length);
+        sink.accept(moved, length);
+    }
+
+    /**
+     * Writes the part of the span that lies within the bounds. Exactly one span is
+     * written; if the span is outside the bounds the result is an empty span at
+     * the nearest edge of the bounds.
+     *
+     * @param offset       the offset of the span.
+     * @param length       the length of the span.
+     * @param boundsOffset the offset of the bounds.
+     * @param boundsLength the length of the bounds.
+     * @param sink         receives the clamped span.
+     */
+    public static void clamp(final int offset, final int length, final int boundsOffset, final int boundsLength,
+            final IntSpanSink sink) {
+        final long boundsLimit = (long) boundsOffset + boundsLength;
+        final long start = Math.min(Math.max(offset, boundsOffset), boundsLimit);
+        final long limit = Math.min(Math.max((long) offset + length, boundsOffset), boundsLimit);
+        sink.accept((int) start, (int) (limit - start));
+    }
+
+    /**
+     * Gets the positions common to both spans.
+     *
+     * @param aOffset the offset of the first span.
+     * @param aLength the length of the first span.
+     * @param bOffset the offset of the second span.
+     * @param bLength the length of the second span.
+     * @return the intersection or IntSpan.EMPTY if the spans do not overlap.
+     */
+    public static IntSpan intersect(final int aOffset, final int aLength, final int bOffset, final int bLength) {
+        final SpanPieces<IntSpan> pieces = SpanPieces.intSpans();
+        intersect(aOffset, aLength, bOffset, bLength, pieces);
+        return pieces.single(IntSpan.EMPTY);
+    }
+
+    /**
+     * Gets the smallest span that covers both spans. Empty spans are ignored.
+     *
+     * @param aOffset the offset of the first span.
+     * @param aLength the length of the first span.
+     * @param bOffset the offset of the second span.
+     * @param bLength the length of the second span.
+     * @return the hull or IntSpan.EMPTY if both spans are empty.
+     * @throws IllegalArgumentException if the hull is longer than
+     *                                  Integer.MAX_VALUE.
+     */
+    public static IntSpan hull(final int aOffset, final int aLength, final int bOffset, final int bLength) {
+        final SpanPieces<IntSpan> pieces = SpanPieces.intSpans();
+        hull(aOffset, aLength, bOffset, bLength, pieces);
+        return pieces.single(IntSpan.EMPTY);
+    }
+
+    /**
+     * Gets the positions of the first span that are not in the second span.
+     *
+     * @param aOffset the offset of the span to subtract from.
+     * @param aLength the length of the span to subtract from.
+     * @param bOffset the offset of the span to remove.
+     * @param bLength the length of the span to remove.
+     * @return a fixed size list of zero, one or two non empty spans in offset
+     *         order.
+     */
+    public static List<IntSpan> subtract(final int aOffset, final int aLength, final int bOffset,
+            final int bLength) {
+        final SpanPieces<IntSpan> pieces = SpanPieces.intSpans();
+        subtract(aOffset, aLength, bOffset, bLength, pieces);
+        return pieces.toList();
+    }
+
+    /**
+     * Splits a span so that the position is the first position of the second
+     * piece.
+     *
+     * @param offset   the offset of the span.
+     * @param length   the length of the span.
+     * @param position the position to split at.
+     * @return an array of two spans, either may be empty.
+     */
+    public static IntSpan[] split(final int offset, final int length, final int position) {
+        final SpanPieces<IntSpan> pieces = SpanPieces.intSpans();
+        split(offset, length, position, pieces);
+        return pieces.pair(new IntSpan[2]);
+    }
+
+    /**
+     * Gets the span moved by delta positions.
+     *
+     * @param offset the offset of the span.
+     * @param length the length of the span.
+     * @param delta  the distance to move the span.
+     * @return the moved span.
+     * @throws IllegalArgumentException if offset + length of the moved span does
+     *                                  not fit in an int.
+     */
+    public static IntSpan shift(final int offset, final int length, final int delta) {
+        final SpanPieces<IntSpan> pieces = SpanPieces.intSpans();
+        shift(offset, length, delta, pieces);
+        return pieces.single(IntSpan.EMPTY);
+    }
+
+    /**
+     * Gets the part of the span that lies within the bounds.
+     *
+     * @param offset       the offset of the span.
+     * @param length       the length of the span.
+     * @param boundsOffset the offset of the bounds.
+     * @param boundsLength the length of the bounds.
+     * @return the clamped span, an empty span at the nearest edge of the bounds if
+     *         the span is outside them.
+     */
+    public static IntSpan clamp(final int offset, final int length, final int boundsOffset,
+            final int boundsLength) {
+        final SpanPieces<IntSpan> pieces = SpanPieces.intSpans();
+        clamp(offset, length, boundsOffset, boundsLength, pieces);
+        return pieces.single(IntSpan.EMPTY);
+    }
+}
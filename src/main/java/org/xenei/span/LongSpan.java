@@ -22,10 +22,24 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.function.Function;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 /**
  * Describes a span of data unsing long values for the starting offset and ending index, or the starting
  * offset and the length.
+ * <p>
+ * The length may not be negative and offset + length may not be greater than
+ * Long.MAX_VALUE, so the end is at most Long.MAX_VALUE - 1. Every LongSpan
+ * factory and MutableLongSpan enforce this limit.
+ * </p>
+ * <p>
+ * LongSpans have value equality: any two LongSpans with the same offset and
+ * length are equal, whatever their class. Implementations must override equals
+ * and hashCode with {@link #equals(LongSpan, Object)} and
+ * {@link #hashCode(LongSpan)}; every implementation in this package, the
+ * cursors included, does so.
+ * </p>
  */
 public interface LongSpan extends Span {
 
@@ -92,6 +106,36 @@ public interface LongSpan extends Span {
                 NumberUtils.checkIntLimit("length", longSpan.getLength()));
     }
 
+    /**
+     * Determines if an object is a LongSpan with the same offset and length. Used
+     * by span implementations to provide value equality.
+     *
+     * @param span  the span.
+     * @param other the object to compare with.
+     * @return true if other is a LongSpan with the same offset and length.
+     */
+    public static boolean equals(final LongSpan span, final Object other) {
+        if (span == other) {
+            return true;
+        }
+        if (!(other instanceof LongSpan)) {
+            return false;
+        }
+        final LongSpan that = (LongSpan) other;
+        return (span.getOffset() == that.getOffset()) && (span.getLength() == that.getLength());
+    }
+
+    /**
+     * Calculates the hash code for a span from its offset and length. Used by span
+     * implementations to provide value equality.
+     *
+     * @param span the span.
+     * @return the hash code.
+     */
+    public static int hashCode(final LongSpan span) {
+        return (31 * Long.hashCode(span.getOffset())) + Long.hashCode(span.getLength());
+    }
+
     /**
      * create the default string for the span.
      *
@@ -99,8 +143,14 @@ public interface LongSpan extends Span {
      * @return The printable string
      */
     public static String toString(final LongSpan span) {
-        return String.format("%s[%s,%s]", span.getClass().getName(), span.getOffset(),
-                span.getLength() > 0 ? span.getEnd() : "-empty-");
+        final StringBuilder sb = new StringBuilder(span.getClass().getName()).append('[')
+                .append(span.getOffset()).append(',');
+        if (span.getLength() > 0) {
+            sb.append(span.getEnd());
+        } else {
+            sb.append("-empty-");
+        }
+        return sb.append(']').toString();
 
     }
 
@@ -166,6 +216,17 @@ public interface LongSpan extends Span {
         return true;
     }
 
+    /**
+     * Return true if the spans share any positions. Computed without converting
+     * the IntSpan.
+     *
+     * @param other The other span
+     * @return true if overlap
+     */
+    public default boolean overlaps(final IntSpan other) {
+        return (getEnd() >= other.getOffset()) && (getOffset() <= other.getEnd());
+    }
+
     /**
      * Return true if this span contains the position.
      *
@@ -186,6 +247,136 @@ public interface LongSpan extends Span {
         return contains(other.getOffset()) & contains(other.getEnd());
     }
 
+    /**
+     * Divides this span into chunks whose boundaries fall on multiples of the
+     * chunk size. The chunk size is rounded up to a multiple of the alignment.
+     *
+     * @param chunkSize the target size of each chunk.
+     * @param alignment the alignment boundary.
+     * @return a stream of chunks in offset order.
+     * @see LongSpanSpliterator
+     */
+    public default Stream<LongSpan> chunks(final long chunkSize, final long alignment) {
+        return LongSpanSpliterator.stream(this, chunkSize, alignment, false);
+    }
+
+    /**
+     * Gets a stream of every position in this span. The stream is SIZED and
+     * SUBSIZED so that it splits evenly when made parallel.
+     *
+     * @return a stream of positions from offset to end inclusive.
+     */
+    public default LongStream positions() {
+        return LongSpanSpliterator.positions(this);
+    }
+
+    /**
+     * Gets the positions common to this span and the other span.
+     *
+     * @param other the other span.
+     * @return the intersection or EMPTY if the spans do not overlap.
+     * @see LongSpanArithmetic#intersect(long, long, long, long)
+     */
+    public default LongSpan intersect(final LongSpan other) {
+        return LongSpanArithmetic.intersect(getOffset(), getLength(), other.getOffset(), other.getLength());
+    }
+
+    /**
+     * Gets the positions common to this span and an IntSpan.
+     *
+     * @param other the other span.
+     * @return the intersection or EMPTY if the spans do not overlap.
+     * @see LongSpanArithmetic#intersect(long, long, long, long)
+     */
+    public default LongSpan intersect(final IntSpan other) {
+        return LongSpanArithmetic.intersect(getOffset(), getLength(), other.getOffset(), other.getLength());
+    }
+
+    /**
+     * Gets the smallest span that covers this span and the other span. Empty
+     * spans are ignored.
+     *
+     * @param other the other span.
+     * @return the hull or EMPTY if both spans are empty.
+     * @see LongSpanArithmetic#hull(long, long, long, long)
+     */
+    public default LongSpan hull(final LongSpan other) {
+        return LongSpanArithmetic.hull(getOffset(), getLength(), other.getOffset(), other.getLength());
+    }
+
+    /**
+     * Gets the smallest span that covers this span and an IntSpan. Empty spans are
+     * ignored.
+     *
+     * @param other the other span.
+     * @return the hull or EMPTY if both spans are empty.
+     * @see LongSpanArithmetic#hull(long, long, long, long)
+     */
+    public default LongSpan hull(final IntSpan other) {
+        return LongSpanArithmetic.hull(getOffset(), getLength(), other.getOffset(), other.getLength());
+    }
+
+    /**
+     * Gets the parts of this span that are not in the other span.
+     *
+     * @param other the span to remove.
+     * @return a fixed size list of zero, one or two non empty spans in offset
+     *         order.
+     * @see LongSpanArithmetic#subtract(long, long, long, long)
+     */
+    public default List<LongSpan> subtract(final LongSpan other) {
+        return LongSpanArithmetic.subtract(getOffset(), getLength(), other.getOffset(), other.getLength());
+    }
+
+    /**
+     * Gets the parts of this span that are not in an IntSpan.
+     *
+     * @param other the span to remove.
+     * @return a fixed size list of zero, one or two non empty spans in offset
+     *         order.
+     * @see LongSpanArithmetic#subtract(long, long, long, long)
+     */
+    public default List<LongSpan> subtract(final IntSpan other) {
+        return LongSpanArithmetic.subtract(getOffset(), getLength(), other.getOffset(), other.getLength());
+    }
+
+    /**
+     * Splits this span so that the position is the first position of the second
+     * piece.
+     *
+     * @param position the position to split at.
+     * @return an array of two spans, either may be empty.
+     * @see LongSpanArithmetic#split(long, long, long)
+     */
+    public default LongSpan[] split(final long position) {
+        return LongSpanArithmetic.split(getOffset(), getLength(), position);
+    }
+
+    /**
+     * Gets this span moved by delta positions.
+     *
+     * @param delta the distance to move the span.
+     * @return the moved span.
+     * @throws IllegalArgumentException if offset + length of the moved span does
+     *                                  not fit in a long.
+     * @see LongSpanArithmetic#shift(long, long, long)
+     */
+    public default LongSpan shift(final long delta) {
+        return LongSpanArithmetic.shift(getOffset(), getLength(), delta);
+    }
+
+    /**
+     * Gets the part of this span that lies within the bounds.
+     *
+     * @param bounds the bounds.
+     * @return the clamped span, an empty span at the nearest edge of the bounds if
+     *         this span is outside them.
+     * @see LongSpanArithmetic#clamp(long, long, long, long)
+     */
+    public default LongSpan clamp(final LongSpan bounds) {
+        return LongSpanArithmetic.clamp(getOffset(), getLength(), bounds.getOffset(), bounds.getLength());
+    }
+
     /**
      * An implementation of LongSpan.
      *
@@ -237,6 +428,16 @@ public interface LongSpan extends Span {
             return LongSpan.toString(this);
         }
 
+        @Override
+        public boolean equals(final Object other) {
+            return LongSpan.equals(this, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return LongSpan.hashCode(this);
+        }
+
     }
 
     /**
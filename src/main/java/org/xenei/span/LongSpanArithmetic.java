@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.List;
+
+/**
+ * Span arithmetic on primitive offset and length pairs.
+ * <p>
+ * The methods that take a LongSpanSink write their results to it so that inner
+ * loops do not create LongSpan objects. The methods without a sink collect the
+ * output of the sink methods so each operation has a single implementation.
+ * Internally the calculations use exclusive ends (offset + length) which can
+ * not overflow for valid spans.
+ * </p>
+ *
+ * @see LongSpanSink.Packed
+ */
+public final class LongSpanArithmetic {
+
+    /**
+     * Do not instantiate.
+     */
+    private LongSpanArithmetic() {
+    }
+
+    /**
+     * Writes the positions common to both spans.
+     *
+     * @param aOffset the offset of the first span.
+     * @param aLength the length of the first span.
+     * @param bOffset the offset of the second span.
+     * @param bLength the length of the second span.
+     * @param sink    receives the intersection if it is not empty.
+     * @return true if a span was written.
+     */
+    public static boolean intersect(final long aOffset, final long aLength, final long bOffset, final long bLength,
+            final LongSpanSink sink) {
+        final long start = Math.max(aOffset, bOffset);
+        final long limit = Math.min(aOffset + aLength, bOffset + bLength);
+        if ((aLength == 0) || (bLength == 0) || (limit <= start)) {
+            return false;
+        }
+        sink.accept(start, limit - start);
+        return true;
+    }
+
+    /**
+     * Writes the smallest span that covers both spans. Empty spans are ignored.
+     *
+     * @param aOffset the offset of the first span.
+     * @param aLength the length of the first span.
+     * @param bOffset the offset of the second span.
+     * @param bLength the length of the second span.
+     * @param sink    receives the hull if either span is not empty.
+     * @return true if a span was written.
+     * @throws IllegalArgumentException if the hull is longer than Long.MAX_VALUE.
+     */
+    public static boolean hull(final long aOffset, final long aLength, final long bOffset, final long bLength,
+            final LongSpanSink sink) {
+        if (aLength == 0) {
+            if (bLength == 0) {
+                return false;
+            }
+            sink.accept(bOffset, bLength);
+            return true;
+        }
+        if (bLength == 0) {
+            sink.accept(aOffset, aLength);
+            return true;
+        }
+        final long start = Math.min(aOffset, bOffset);
+        final long length = Math.max(aOffset + aLength, bOffset + bLength) - start;
+        if (length < 0) {
+            throw new IllegalArgumentException("Hull length exceeds Long.MAX_VALUE");
+        }
+        sink.accept(start, length);
+        return true;
+    }
+
+    /**
+     * Writes the positions of the first span that are not in the second span.
+     * The result is zero, one or two spans in offset order. Empty pieces are not
+     * written.
+     *
+     * @param aOffset the offset of the span to subtract from.
+     * @param aLength the length of the span to subtract from.
+     * @param bOffset the offset of the span to remove.
+     * @param bLength the length of the span to remove.
+     * @param sink    receives the remaining pieces.
+     * @return the number of spans written.
+     */
+    public static int subtract(final long aOffset, final long aLength, final long bOffset, final long bLength,
+            final LongSpanSink sink) {
+        if (aLength == 0) {
+            return 0;
+        }
+        final long aLimit = aOffset + aLength;
+        final long bLimit = bOffset + bLength;
+        if ((bLength == 0) || (bLimit <= aOffset) || (bOffset >= aLimit)) {
+            sink.accept(aOffset, aLength);
+            return 1;
+        }
+        int count = 0;
+        if (bOffset > aOffset) {
+            sink.accept(aOffset, bOffset - aOffset);
+            count++;
+        }
+        if (bLimit < aLimit) {
+            sink.accept(bLimit, aLimit - bLimit);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Splits a span so that the position is the first position of the second
+     * piece. Both pieces are always written, either may be empty.
+     *
+     * @param offset   the offset of the span.
+     * @param length   the length of the span.
+     * @param position the position to split at.
+     * @param sink     receives the two pieces.
+     */
+    public static void split(final long offset, final long length, final long position, final LongSpanSink sink) {
+        final long left;
+        if (position <= offset) {
+            left = 0;
+        } else if (position >= (offset + length)) {
+            left = length;
+        } else {
+            left = position - offset;
+        }
+        sink.accept(offset, left);
+        sink.accept(offset + left, length - left);
+    }
+
+    /**
+     * Writes the span moved by delta positions.
+     *
+     * @param offset the offset of the span.
+     * @param length the length of the span.
+     * @param delta  the distance to move the span.
+     * @param sink   receives the moved span.
+     * @throws IllegalArgumentException if offset + length of the moved span does
+     *                                  not fit in a long.
+     */
+    public static void shift(final long offset, final long length, final long delta, final LongSpanSink sink) {
+        final long moved = NumberUtils.checkLongAddLimit(offset, delta);
+        NumberUtils.checkLongAddLimit(moved, length);
+        sink.accept(moved, length);
+    }
+
+    /**
+     * Writes the part of the span that lies within the bounds. Exactly one span is
+     * written; if the span is outside the bounds the result is an empty span at
+     * the nearest edge of the bounds.
+     *
+     * @param offset       the offset of the span.
+     * @param length       the length of the span.
+     * @param boundsOffset the offset of the bounds.
+     * @param boundsLength the length of the bounds.
+     * @param sink         receives the clamped span.
+     */
+    public static void clamp(final long offset, final long length, final long boundsOffset, final long boundsLength,
+            final LongSpanSink sink) {
+        final long boundsLimit = boundsOffset + boundsLength;
+        final long start = Math.min(Math.max(offset, boundsOffset), boundsLimit);
+        final long limit = Math.min(Math.max(offset + length, boundsOffset), boundsLimit);
+        sink.accept(start, limit - start);
+    }
+
+    /**
+     * Gets the positions common to both spans.
+     *
+     * @param aOffset the offset of the first span.
+     * @param aLength the length of the first span.
+     * @param bOffset the offset of the second span.
+     * @param bLength the length of the second span.
+     * @return the intersection or LongSpan.EMPTY if the spans do not overlap.
+     */
+    public static LongSpan intersect(final long aOffset, final long aLength, final long bOffset,
+            final long bLength) {
+        final SpanPieces<LongSpan> pieces = SpanPieces.longSpans();
+        intersect(aOffset, aLength, bOffset, bLength, pieces);
+        return pieces.single(LongSpan.EMPTY);
+    }
+
+    /**
+     * Gets the smallest span that covers both spans. Empty spans are ignored.
+     *
+     * @param aOffset the offset of the first span.
+     * @param aLength the length of the first span.
+     * @param bOffset the offset of the second span.
+     * @param bLength the length of the second span.
+     * @return the hull or LongSpan.EMPTY if both spans are empty.
+     * @throws IllegalArgumentException if the hull is longer than Long.MAX_VALUE.
+     */
+    public static LongSpan hull(final long aOffset, final long aLength, final long bOffset, final long bLength) {
+        final SpanPieces<LongSpan> pieces = SpanPieces.longSpans();
+        hull(aOffset, aLength, bOffset, bLength, pieces);
+        return pieces.single(LongSpan.EMPTY);
+    }
+
+    /**
+     * Gets the positions of the first span that are not in the second span.
+     *
+     * @param aOffset the offset of the span to subtract from.
+     * @param aLength the length of the span to subtract from.
+     * @param bOffset the offset of the span to remove.
+     * @param bLength the length of the span to remove.
+     * @return a fixed size list of zero, one or two non empty spans in offset
+     *         order.
+     */
+    public static List<LongSpan> subtract(final long aOffset, final long aLength, final long bOffset,
+            final long bLength) {
+        final SpanPieces<LongSpan> pieces = SpanPieces.longSpans();
+        subtract(aOffset, aLength, bOffset, bLength, pieces);
+        return pieces.toList();
+    }
+
+    /**
+     * Splits a span so that the position is the first position of the second
+     * piece.
+     *
+     * @param offset   the offset of the span.
+     * @param length   the length of the span.
+     * @param position the position to split at.
+     * @return an array of two spans, either may be empty.
+     */
+    public static LongSpan[] split(final long offset, final long length, final long position) {
+        final SpanPieces<LongSpan> pieces = SpanPieces.longSpans();
+        split(offset, length, position, pieces);
+        return pieces.pair(new LongSpan[2]);
+    }
+
+    /**
+     * Gets the span moved by delta positions.
+     *
+     * @param offset the offset of the span.
+     * @param length the length of the span.
+     * @param delta  the distance to move the span.
+     * @return the moved span.
+     * @throws IllegalArgumentException if offset + length of the moved span does
+     *                                  not fit in a long.
+     */
+    public static LongSpan shift(final long offset, final long length, final long delta) {
+        final SpanPieces<LongSpan> pieces = SpanPieces.longSpans();
+        shift(offset, length, delta, pieces);
+        return pieces.single(LongSpan.EMPTY);
+    }
+
+    /**
+     * Gets the part of the span that lies within the bounds.
+     *
+     * @param offset       the offset of the span.
+     * @param length       the length of the span.
+     * @param boundsOffset the offset of the bounds.
+     * @param boundsLength the length of the bounds.
+     * @return the clamped span, an empty span at the nearest edge of the bounds if
+     *         the span is outside them.
+     */
+    public static LongSpan clamp(final long offset, final long length, final long boundsOffset,
+            final long boundsLength) {
+        final SpanPieces<LongSpan> pieces = SpanPieces.longSpans();
+        clamp(offset, length, boundsOffset, boundsLength, pieces);
+        return pieces.single(LongSpan.EMPTY);
+    }
+}
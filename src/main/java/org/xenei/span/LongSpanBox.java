@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Arrays;
+
+/**
+ * An immutable N-dimensional box made of one LongSpan per axis.
+ * <p>
+ * A box is empty if any of its axes is empty. Two boxes overlap when they
+ * overlap on every axis, and empty boxes overlap nothing.
+ * </p>
+ *
+ * @see LongSpanRTree
+ */
+public final class LongSpanBox {
+
+    /**
+     * The offset of each axis.
+     */
+    private final long[] offsets;
+    /**
+     * The length of each axis.
+     */
+    private final long[] lengths;
+
+    /**
+     * Constructor.
+     *
+     * @param offsets the offset of each axis.
+     * @param lengths the length of each axis.
+     */
+    private LongSpanBox(final long[] offsets, final long[] lengths) {
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Creates a box from one span per axis.
+     *
+     * @param axes the spans.
+     * @return the box.
+     * @throws IllegalArgumentException if there are no axes.
+     */
+    public static LongSpanBox of(final LongSpan... axes) {
+        if (axes.length == 0) {
+            throw new IllegalArgumentException("A box must have at least one axis");
+        }
+        final long[] offsets = new long[axes.length];
+        final long[] lengths = new long[axes.length];
+        for (int i = 0; i < axes.length; i++) {
+            offsets[i] = axes[i].getOffset();
+            lengths[i] = axes[i].getLength();
+        }
+        return new LongSpanBox(offsets, lengths);
+    }
+
+    /**
+     * Creates a box that covers a single point.
+     *
+     * @param coordinates the coordinate on each axis.
+     * @return the box.
+     * @throws IllegalArgumentException if there are no coordinates.
+     */
+    public static LongSpanBox point(final long... coordinates) {
+        if (coordinates.length == 0) {
+            throw new IllegalArgumentException("A box must have at least one axis");
+        }
+        final long[] lengths = new long[coordinates.length];
+        Arrays.fill(lengths, 1);
+        return new LongSpanBox(coordinates.clone(), lengths);
+    }
+
+    /**
+     * Gets the number of axes.
+     *
+     * @return the number of dimensions.
+     */
+    public int getDimensions() {
+        return offsets.length;
+    }
+
+    /**
+     * Gets the span of an axis.
+     *
+     * @param axis the axis.
+     * @return the span.
+     */
+    public LongSpan getAxis(final int axis) {
+        return LongSpan.fromLength(offsets[axis], lengths[axis]);
+    }
+
+    /**
+     * Gets the offset of an axis.
+     *
+     * @param axis the axis.
+     * @return the offset.
+     */
+    public long getOffset(final int axis) {
+        return offsets[axis];
+    }
+
+    /**
+     * Gets the length of an axis.
+     *
+     * @param axis the axis.
+     * @return the length.
+     */
+    public long getLength(final int axis) {
+        return lengths[axis];
+    }
+
+    /**
+     * Gets the end of an axis.
+     *
+     * @param axis the axis.
+     * @return the end.
+     */
+    public long getEnd(final int axis) {
+        return (offsets[axis] + lengths[axis]) - 1;
+    }
+
+    /**
+     * Checks if any axis is empty.
+     *
+     * @return true if the box is empty.
+     */
+    public boolean isEmpty() {
+        for (final long length : lengths) {
+            if (length == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if this box overlaps another on every axis.
+     *
+     * @param other the other box.
+     * @return true if the boxes overlap.
+     * @throws IllegalArgumentException if the boxes differ in dimensions.
+     */
+    public boolean overlaps(final LongSpanBox other) {
+        checkDimensions(other.offsets.length);
+        for (int i = 0; i < offsets.length; i++) {
+            if ((lengths[i] == 0) || (other.lengths[i] == 0) || (offsets[i] > other.getEnd(i))
+                    || (getEnd(i) < other.offsets[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the box contains a point.
+     *
+     * @param coordinates the coordinate on each axis.
+     * @return true if the point is inside the box.
+     * @throws IllegalArgumentException if the point differs in dimensions.
+     */
+    public boolean contains(final long... coordinates) {
+        checkDimensions(coordinates.length);
+        for (int i = 0; i < offsets.length; i++) {
+            if ((lengths[i] == 0) || (coordinates[i] < offsets[i]) || (coordinates[i] > getEnd(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verifies the number of dimensions.
+     *
+     * @param dimensions the number of dimensions of the other argument.
+     */
+    private void checkDimensions(final int dimensions) {
+        if (dimensions != offsets.length) {
+            throw new IllegalArgumentException(
+                    String.format("Expected %s dimensions but was %s", offsets.length, dimensions));
+        }
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof LongSpanBox)) {
+            return false;
+        }
+        final LongSpanBox box = (LongSpanBox) other;
+        return Arrays.equals(offsets, box.offsets) && Arrays.equals(lengths, box.lengths);
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * Arrays.hashCode(offsets)) + Arrays.hashCode(lengths);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LongSpanBox[");
+        for (int i = 0; i < offsets.length; i++) {
+            if (i > 0) {
+                sb.append(" x ");
+            }
+            sb.append(LongSpan.toString(getAxis(i)));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Groups spans into clusters where any chain of overlapping spans connects
+ * them.
+ * <p>
+ * The spans are sorted by offset and swept once: a span starts a new cluster
+ * when its offset is after the greatest end seen so far. The parallel version
+ * sorts in parallel, sweeps partitions of the sorted order independently and
+ * then joins the leading runs of each partition to the cluster carried in from
+ * the partitions before it using union-find roots.
+ * </p>
+ * <p>
+ * Cluster ids are dense, from 0 to the number of clusters - 1, and numbered in
+ * order of the lowest offset in each cluster. Empty spans overlap nothing and
+ * are each given their own cluster.
+ * </p>
+ */
+public final class LongSpanClusters {
+
+    /**
+     * The smallest partition used by the parallel version.
+     */
+    private static final int MIN_PARTITION = 1 << 14;
+
+    /**
+     * Do not instantiate.
+     */
+    private LongSpanClusters() {
+    }
+
+    /**
+     * Clusters spans.
+     *
+     * @param spans the spans.
+     * @return the cluster id of each span.
+     */
+    public static int[] cluster(final LongSpan... spans) {
+        return cluster(offsetsOf(spans), lengthsOf(spans));
+    }
+
+    /**
+     * Clusters spans held in columns.
+     *
+     * @param offsets the span offsets.
+     * @param lengths the span lengths.
+     * @return the cluster id of each span.
+     */
+    public static int[] cluster(final long[] offsets, final long[] lengths) {
+        checkColumns(offsets, lengths);
+        final int[] perm = SpanArrays.identity(offsets.length);
+        SpanArrays.sort(perm, 0, perm.length, SpanArrays.byOffset(offsets, lengths));
+        final int[] ids = new int[offsets.length];
+        int next = 0;
+        int current = -1;
+        long maxEnd = 0;
+        for (final int i : perm) {
+            if (lengths[i] == 0) {
+                ids[i] = next++;
+                continue;
+            }
+            final long end = (offsets[i] + lengths[i]) - 1;
+            if ((current < 0) || (offsets[i] > maxEnd)) {
+                current = next++;
+                maxEnd = end;
+            } else if (end > maxEnd) {
+                maxEnd = end;
+            }
+            ids[i] = current;
+        }
+        return ids;
+    }
+
+    /**
+     * Clusters spans using the common fork join pool.
+     *
+     * @param spans the spans.
+     * @return the cluster id of each span.
+     */
+    public static int[] parallelCluster(final LongSpan... spans) {
+        return parallelCluster(offsetsOf(spans), lengthsOf(spans));
+    }
+
+    /**
+     * Clusters spans held in columns using the common fork join pool.
+     *
+     * @param offsets the span offsets.
+     * @param lengths the span lengths.
+     * @return the cluster id of each span.
+     */
+    public static int[] parallelCluster(final long[] offsets, final long[] lengths) {
+        checkColumns(offsets, lengths);
+        final int n = offsets.length;
+        final int partitions = (int) Math.min(Math.max(1, n / MIN_PARTITION),
+                ForkJoinPool.getCommonPoolParallelism() * 4L);
+        if (partitions < 2) {
+            return cluster(offsets, lengths);
+        }
+        final int[] perm = SpanArrays.identity(n);
+        SpanArrays.parallelSort(perm, SpanArrays.byOffset(offsets, lengths));
+        final Partition[] parts = new Partition[partitions];
+        for (int p = 0; p < partitions; p++) {
+            parts[p] = new Partition((int) (((long) n * p) / partitions),
+                    (int) (((long) n * (p + 1)) / partitions));
+        }
+
+        // parent holds, for each sorted position, the sorted position of the first
+        // span of its run. Run starts are roots until joined to a carried cluster.
+        final int[] parent = new int[n];
+        IntStream.range(0, partitions).parallel().forEach(p -> parts[p].sweep(perm, offsets, lengths, parent));
+
+        // join the leading runs of each partition to the cluster carried in.
+        long carryEnd = 0;
+        int carryRoot = -1;
+        for (final Partition part : parts) {
+            part.join(carryRoot, carryEnd, perm, offsets);
+            if (part.lastRoot >= 0) {
+                carryRoot = part.joinedAll() ? carryRoot : part.lastRoot;
+                carryEnd = carryRoot == part.lastRoot ? part.maxEnd : Math.max(carryEnd, part.maxEnd);
+            }
+        }
+
+        // resolve the roots and count them per partition.
+        IntStream.range(0, partitions).parallel().forEach(p -> parts[p].resolve(perm, lengths, parent));
+        int base = 0;
+        for (final Partition part : parts) {
+            part.firstId = base;
+            base += part.roots;
+        }
+
+        // number the roots in sorted order, then label each span with its root's id.
+        final int[] rootIds = new int[n];
+        IntStream.range(0, partitions).parallel().forEach(p -> parts[p].number(parent, rootIds));
+        final int[] ids = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> ids[perm[i]] = rootIds[parent[i]]);
+        return ids;
+    }
+
+    /**
+     * Counts the clusters in a result.
+     *
+     * @param ids the cluster ids returned by cluster or parallelCluster.
+     * @return the number of clusters.
+     */
+    public static int clusterCount(final int[] ids) {
+        int max = -1;
+        for (final int id : ids) {
+            max = Math.max(max, id);
+        }
+        return max + 1;
+    }
+
+    /**
+     * Verifies the columns are the same size.
+     *
+     * @param offsets the offsets.
+     * @param lengths the lengths.
+     */
+    private static void checkColumns(final long[] offsets, final long[] lengths) {
+        if (offsets.length != lengths.length) {
+            throw new IllegalArgumentException("Offsets and lengths must be the same size");
+        }
+    }
+
+    /**
+     * Extracts the offsets.
+     *
+     * @param spans the spans.
+     * @return the offsets.
+     */
+    private static long[] offsetsOf(final LongSpan[] spans) {
+        final long[] result = new long[spans.length];
+        for (int i = 0; i < spans.length; i++) {
+            result[i] = spans[i].getOffset();
+        }
+        return result;
+    }
+
+    /**
+     * Extracts the lengths.
+     *
+     * @param spans the spans.
+     * @return the lengths.
+     */
+    private static long[] lengthsOf(final LongSpan[] spans) {
+        final long[] result = new long[spans.length];
+        for (int i = 0; i < spans.length; i++) {
+            result[i] = spans[i].getLength();
+        }
+        return result;
+    }
+
+    /**
+     * A range of the sorted order swept by one task.
+     */
+    private static class Partition {
+        /**
+         * The first sorted position.
+         */
+        private final int from;
+        /**
+         * The end of the sorted positions, exclusive.
+         */
+        private final int to;
+        /**
+         * The greatest end of the non empty spans.
+         */
+        private long maxEnd;
+        /**
+         * The root of the last non empty run, or -1.
+         */
+        private int lastRoot = -1;
+        /**
+         * Runs that start before this sorted position join the carried cluster.
+         */
+        private int joinLimit;
+        /**
+         * The carried cluster root.
+         */
+        private int carryRoot = -1;
+        /**
+         * The number of roots in the partition.
+         */
+        private int roots;
+        /**
+         * The id of the first root in the partition.
+         */
+        private int firstId;
+
+        /**
+         * Constructor.
+         *
+         * @param from the first sorted position.
+         * @param to   the end of the sorted positions, exclusive.
+         */
+        Partition(final int from, final int to) {
+            this.from = from;
+            this.to = to;
+            this.joinLimit = from;
+        }
+
+        /**
+         * Sweeps the partition assigning each position the start of its run.
+         *
+         * @param perm    the sorted order.
+         * @param offsets the offsets.
+         * @param lengths the lengths.
+         * @param parent  receives the run start of each position.
+         */
+        void sweep(final int[] perm, final long[] offsets, final long[] lengths, final int[] parent) {
+            for (int pos = from; pos < to; pos++) {
+                final int i = perm[pos];
+                if (lengths[i] == 0) {
+                    parent[pos] = pos;
+                    continue;
+                }
+                final long end = (offsets[i] + lengths[i]) - 1;
+                if ((lastRoot < 0) || (offsets[i] > maxEnd)) {
+                    lastRoot = pos;
+                    maxEnd = end;
+                } else if (end > maxEnd) {
+                    maxEnd = end;
+                }
+                parent[pos] = lastRoot;
+            }
+        }
+
+        /**
+         * Finds the leading runs that overlap the carried cluster. Runs are
+         * separated by offsets beyond every earlier end, so the runs that join
+         * are a prefix of the partition.
+         *
+         * @param root    the carried cluster root, or -1 if there is none.
+         * @param end     the greatest end of the carried spans.
+         * @param perm    the sorted order.
+         * @param offsets the offsets.
+         */
+        void join(final int root, final long end, final int[] perm, final long[] offsets) {
+            carryRoot = root;
+            if ((root < 0) || (lastRoot < 0)) {
+                return;
+            }
+            // binary search the sorted offsets for the first offset after the carried end.
+            int lo = from;
+            int hi = to;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (offsets[perm[mid]] <= end) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            // a run joins if its start, the lowest offset in the run, is within the
+            // carried end.
+            joinLimit = lo;
+        }
+
+        /**
+         * Returns true if every non empty run joined the carried cluster.
+         *
+         * @return true if the last run joined.
+         */
+        boolean joinedAll() {
+            return (carryRoot >= 0) && (lastRoot >= 0) && (lastRoot < joinLimit);
+        }
+
+        /**
+         * Points joined positions at the carried root and counts the roots.
+         *
+         * @param perm    the sorted order.
+         * @param lengths the lengths.
+         * @param parent  the run starts, updated to the final roots.
+         */
+        void resolve(final int[] perm, final long[] lengths, final int[] parent) {
+            for (int pos = from; pos < to; pos++) {
+                if ((lengths[perm[pos]] > 0) && (parent[pos] < joinLimit)) {
+                    parent[pos] = carryRoot;
+                } else if (parent[pos] == pos) {
+                    roots++;
+                }
+            }
+        }
+
+        /**
+         * Numbers the roots in sorted order.
+         *
+         * @param parent  the roots.
+         * @param rootIds receives the id of each root.
+         */
+        void number(final int[] parent, final int[] rootIds) {
+            int id = firstId;
+            for (int pos = from; pos < to; pos++) {
+                if (parent[pos] == pos) {
+                    rootIds[pos] = id++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads and writes the compact binary encoding of a LongSpan.
+ * <p>
+ * A record is the offset followed by the length, each as a big-endian long.
+ * This is the same layout as {@link Span#asByteBuffer()} produces for a
+ * LongSpan.
+ * </p>
+ */
+public class LongSpanCodec {
+
+    /**
+     * The number of bytes in an encoded span.
+     */
+    public static final int BYTES = Long.BYTES * 2;
+
+    /**
+     * Writes a span.
+     *
+     * @param out    the output to write to.
+     * @param offset the offset of the span.
+     * @param length the length of the span.
+     * @throws IOException on error.
+     */
+    public static void write(final DataOutput out, final long offset, final long length) throws IOException {
+        out.writeLong(offset);
+        out.writeLong(length);
+    }
+
+    /**
+     * Writes a span.
+     *
+     * @param out  the output to write to.
+     * @param span the span to write.
+     * @throws IOException on error.
+     */
+    public static void write(final DataOutput out, final LongSpan span) throws IOException {
+        write(out, span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Reads a span.
+     *
+     * @param in the input to read from.
+     * @return the span.
+     * @throws IOException on error or if the record is not a valid span.
+     */
+    public static LongSpan read(final DataInput in) throws IOException {
+        final long offset = in.readLong();
+        final long length = in.readLong();
+        validate(offset, length);
+        return LongSpan.fromLength(offset, length);
+    }
+
+    /**
+     * Reads a span into a two element array of offset and length. Used when
+     * reading a stream of records where the end of the stream is expected.
+     *
+     * @param in     the input to read from.
+     * @param buffer a buffer of at least {@link #BYTES} bytes.
+     * @param result the array to place the offset and length in.
+     * @return true if a record was read, false if the input was at the end.
+     * @throws IOException on error, on a partial record or if the record is not a
+     *                     valid span.
+     */
+    public static boolean read(final InputStream in, final byte[] buffer, final long[] result) throws IOException {
+        int count = 0;
+        while (count < BYTES) {
+            final int read = in.read(buffer, count, BYTES - count);
+            if (read < 0) {
+                if (count == 0) {
+                    return false;
+                }
+                throw new EOFException("Partial span record");
+            }
+            count += read;
+        }
+        result[0] = getLong(buffer, 0);
+        result[1] = getLong(buffer, Long.BYTES);
+        validate(result[0], result[1]);
+        return true;
+    }
+
+    /**
+     * Verifies that the offset and length describe a valid span.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     * @throws IOException if the values are not a valid span.
+     */
+    public static void validate(final long offset, final long length) throws IOException {
+        if ((length < 0) || ((Long.MAX_VALUE - length) < offset)) {
+            throw new IOException(String.format("Invalid span record [%s,%s]", offset, length));
+        }
+    }
+
+    /**
+     * Decodes a big-endian long.
+     *
+     * @param buffer the buffer to read.
+     * @param pos    the position of the first byte.
+     * @return the long value.
+     */
+    private static long getLong(final byte[] buffer, final int pos) {
+        long result = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            result = (result << 8) | (buffer[pos + i] & 0xFF);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,493 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A mergeable, fixed size sketch of the coverage of a stream of LongSpans.
+ * <p>
+ * The domain [origin, origin + bucketWidth * bucketCount) is cut into equal
+ * buckets. Each span adds O(1) to a handful of per bucket counters: the bucket
+ * it starts in, the bucket it ends in, how much of its partially covered edge
+ * buckets it covers, and a difference entry for the run of buckets it covers
+ * completely. Spans are clipped to the domain and spans entirely outside it are
+ * only counted as dropped. Memory is five longs per bucket regardless of the
+ * number of spans, plus two more once countOverlapping() has been called.
+ * </p>
+ * <p>
+ * countOverlapping() uses prefix sums of the start and end counters. They are
+ * rebuilt in O(bucketCount) by the first query after an add or merge, and each
+ * query is O(1) while they are current.
+ * </p>
+ * <p>
+ * Error bounds:
+ * </p>
+ * <ul>
+ * <li>countOverlapping() answers for the query widened to whole buckets, so it
+ * is never less than the true count. The excess is at most the number of spans
+ * that start in the last bucket of the query after its end plus those that end
+ * in the first bucket of the query before its start.</li>
+ * <li>getCoveredLowerBound() &lt;= the number of distinct covered positions
+ * &lt;= getCoveredUpperBound(). They are equal for completely covered or
+ * uncovered buckets, and differ by less than bucketWidth for each bucket that
+ * is only partially covered.</li>
+ * </ul>
+ * <p>
+ * Sketches with the same origin, bucket width and bucket count can be merged,
+ * so each thread or node can keep its own sketch and combine them. The result
+ * is the same as a single sketch of all the spans. Sketches are not thread
+ * safe.
+ * </p>
+ */
+public class LongSpanCoverageSketch {
+
+    /**
+     * The largest number of buckets.
+     */
+    public static final int MAX_BUCKET_COUNT = Integer.MAX_VALUE - 8;
+    /**
+     * The number of buckets readFrom() allocates before it has read them.
+     */
+    private static final int READ_CHUNK = 1024;
+
+    /**
+     * The first position of the domain.
+     */
+    private final long origin;
+    /**
+     * The number of positions in a bucket.
+     */
+    private final long bucketWidth;
+    /**
+     * The number of spans that start in each bucket.
+     */
+    private final long[] starts;
+    /**
+     * The number of spans that end in each bucket.
+     */
+    private final long[] ends;
+    /**
+     * The difference array of the number of spans covering each bucket
+     * completely.
+     */
+    private final long[] fullDelta;
+    /**
+     * The sum of the partial coverage of each bucket.
+     */
+    private final long[] partialSum;
+    /**
+     * The largest partial coverage of each bucket.
+     */
+    private final long[] partialMax;
+    /**
+     * The number of spans that start in or before each bucket, null when it must
+     * be rebuilt.
+     */
+    private long[] startPrefix;
+    /**
+     * The number of spans that end before each bucket, null when it must be
+     * rebuilt.
+     */
+    private long[] endPrefix;
+    /**
+     * The number of spans in the sketch.
+     */
+    private long count;
+    /**
+     * The number of non-empty spans entirely outside of the domain.
+     */
+    private long dropped;
+
+    /**
+     * Constructor.
+     *
+     * @param origin      the first position of the domain.
+     * @param bucketWidth the number of positions in a bucket.
+     * @param bucketCount the number of buckets.
+     * @throws IllegalArgumentException if the width or count is less than 1, the
+     *                                  count is greater than MAX_BUCKET_COUNT or
+     *                                  the domain does not fit in a long.
+     */
+    public LongSpanCoverageSketch(final long origin, final long bucketWidth, final int bucketCount) {
+        // checkDomain() is evaluated before any of the arrays are allocated.
+        this(origin, bucketWidth, new long[checkDomain(origin, bucketWidth, bucketCount)], new long[bucketCount],
+                new long[bucketCount + 1], new long[bucketCount], new long[bucketCount]);
+    }
+
+    /**
+     * Constructor from counters that have already been validated.
+     *
+     * @param origin      the first position of the domain.
+     * @param bucketWidth the number of positions in a bucket.
+     * @param starts      the number of spans that start in each bucket.
+     * @param ends        the number of spans that end in each bucket.
+     * @param fullDelta   the difference array of completely covered buckets.
+     * @param partialSum  the sum of the partial coverage of each bucket.
+     * @param partialMax  the largest partial coverage of each bucket.
+     */
+    private LongSpanCoverageSketch(final long origin, final long bucketWidth, final long[] starts,
+            final long[] ends, final long[] fullDelta, final long[] partialSum, final long[] partialMax) {
+        this.origin = origin;
+        this.bucketWidth = bucketWidth;
+        this.starts = starts;
+        this.ends = ends;
+        this.fullDelta = fullDelta;
+        this.partialSum = partialSum;
+        this.partialMax = partialMax;
+    }
+
+    /**
+     * Verifies the domain of a sketch.
+     *
+     * @param origin      the first position of the domain.
+     * @param bucketWidth the number of positions in a bucket.
+     * @param bucketCount the number of buckets.
+     * @return the bucket count.
+     * @throws IllegalArgumentException if the width or count is less than 1, the
+     *                                  count is greater than MAX_BUCKET_COUNT or
+     *                                  the domain does not fit in a long.
+     */
+    private static int checkDomain(final long origin, final long bucketWidth, final int bucketCount) {
+        if (bucketWidth < 1) {
+            throw new IllegalArgumentException("Bucket width must be greater than zero: " + bucketWidth);
+        }
+        if ((bucketCount < 1) || (bucketCount > MAX_BUCKET_COUNT)) {
+            throw new IllegalArgumentException(
+                    String.format("Bucket count must be between 1 and %s: %s", MAX_BUCKET_COUNT, bucketCount));
+        }
+        final long domain;
+        try {
+            domain = Math.multiplyExact(bucketWidth, bucketCount);
+        } catch (final ArithmeticException e) {
+            throw new IllegalArgumentException("Domain length exceeds Long.MAX_VALUE", e);
+        }
+        NumberUtils.checkLongAddLimit(origin, domain);
+        return bucketCount;
+    }
+
+    /**
+     * Gets the first position of the domain.
+     *
+     * @return the origin.
+     */
+    public long getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Gets the number of positions in a bucket.
+     *
+     * @return the bucket width.
+     */
+    public long getBucketWidth() {
+        return bucketWidth;
+    }
+
+    /**
+     * Gets the number of buckets.
+     *
+     * @return the bucket count.
+     */
+    public int getBucketCount() {
+        return starts.length;
+    }
+
+    /**
+     * Gets the span of positions the sketch tracks.
+     *
+     * @return the domain.
+     */
+    public LongSpan getDomain() {
+        return LongSpan.fromLength(origin, bucketWidth * starts.length);
+    }
+
+    /**
+     * Gets the number of non-empty spans added, including dropped spans.
+     *
+     * @return the number of spans.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of non-empty spans that were entirely outside of the domain.
+     *
+     * @return the number of dropped spans.
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param span the span.
+     */
+    public void add(final LongSpan span) {
+        add(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Adds a span. Empty spans are ignored.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     */
+    public void add(final long offset, final long length) {
+        if (length < 0) {
+            throw new IndexOutOfBoundsException("Length may not be less than zero: " + length);
+        }
+        NumberUtils.checkLongAddLimit(offset, length);
+        if (length == 0) {
+            return;
+        }
+        count++;
+        final long limit = origin + (bucketWidth * starts.length);
+        final long start = Math.max(offset, origin);
+        final long stop = Math.min(offset + length, limit);
+        if (start >= stop) {
+            dropped++;
+            return;
+        }
+        final int first = bucket(start);
+        final int last = bucket(stop - 1);
+        starts[first]++;
+        ends[last]++;
+        startPrefix = null;
+        // find the run of completely covered buckets.
+        int fullFirst = first;
+        int fullLast = last;
+        if (start > bucketStart(first)) {
+            addPartial(first, Math.min(stop, bucketStart(first) + bucketWidth) - start);
+            fullFirst++;
+        }
+        if ((last >= fullFirst) && (stop < (bucketStart(last) + bucketWidth))) {
+            addPartial(last, stop - Math.max(start, bucketStart(last)));
+            fullLast--;
+        }
+        if (fullFirst <= fullLast) {
+            fullDelta[fullFirst]++;
+            fullDelta[fullLast + 1]--;
+        }
+    }
+
+    /**
+     * Records partial coverage of a bucket.
+     *
+     * @param bucket the bucket.
+     * @param length the number of positions covered.
+     */
+    private void addPartial(final int bucket, final long length) {
+        partialSum[bucket] += length;
+        partialMax[bucket] = Math.max(partialMax[bucket], length);
+    }
+
+    /**
+     * Gets the bucket for a position in the domain.
+     *
+     * @param pos the position.
+     * @return the bucket.
+     */
+    private int bucket(final long pos) {
+        return (int) ((pos - origin) / bucketWidth);
+    }
+
+    /**
+     * Gets the first position of a bucket.
+     *
+     * @param bucket the bucket.
+     * @return the first position.
+     */
+    private long bucketStart(final int bucket) {
+        return origin + (bucket * bucketWidth);
+    }
+
+    /**
+     * Counts the spans that overlap the query widened to whole buckets. The result
+     * is never less than the number of spans that overlap the query.
+     *
+     * @param query the query.
+     * @return the approximate number of overlapping spans.
+     */
+    public long countOverlapping(final LongSpan query) {
+        final long limit = origin + (bucketWidth * starts.length);
+        final long start = Math.max(query.getOffset(), origin);
+        final long stop = Math.min(query.getOffset() + query.getLength(), limit);
+        if ((query.getLength() == 0) || (start >= stop)) {
+            return 0;
+        }
+        if (startPrefix == null) {
+            buildPrefixSums();
+        }
+        // spans that started at or before the last bucket less those that ended
+        // before the first.
+        return startPrefix[bucket(stop - 1) + 1] - endPrefix[bucket(start)];
+    }
+
+    /**
+     * Rebuilds the prefix sums of the start and end counters.
+     */
+    private void buildPrefixSums() {
+        final long[] startSums = new long[starts.length + 1];
+        final long[] endSums = new long[starts.length + 1];
+        for (int i = 0; i < starts.length; i++) {
+            startSums[i + 1] = startSums[i] + starts[i];
+            endSums[i + 1] = endSums[i] + ends[i];
+        }
+        endPrefix = endSums;
+        startPrefix = startSums;
+    }
+
+    /**
+     * Gets a lower bound for the number of distinct covered positions in the
+     * domain.
+     *
+     * @return the lower bound.
+     */
+    public long getCoveredLowerBound() {
+        long result = 0;
+        long full = 0;
+        for (int i = 0; i < starts.length; i++) {
+            full += fullDelta[i];
+            result += full > 0 ? bucketWidth : partialMax[i];
+        }
+        return result;
+    }
+
+    /**
+     * Gets an upper bound for the number of distinct covered positions in the
+     * domain.
+     *
+     * @return the upper bound.
+     */
+    public long getCoveredUpperBound() {
+        long result = 0;
+        long full = 0;
+        for (int i = 0; i < starts.length; i++) {
+            full += fullDelta[i];
+            result += full > 0 ? bucketWidth : Math.min(bucketWidth, partialSum[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the counters of another sketch to this one.
+     *
+     * @param other the other sketch.
+     * @return this sketch.
+     * @throws IllegalArgumentException if the sketches have different origins,
+     *                                  widths or bucket counts.
+     */
+    public LongSpanCoverageSketch merge(final LongSpanCoverageSketch other) {
+        if ((other.origin != origin) || (other.bucketWidth != bucketWidth)
+                || (other.starts.length != starts.length)) {
+            throw new IllegalArgumentException("Sketches have different domains");
+        }
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] += other.starts[i];
+            ends[i] += other.ends[i];
+            fullDelta[i] += other.fullDelta[i];
+            partialSum[i] += other.partialSum[i];
+            partialMax[i] = Math.max(partialMax[i], other.partialMax[i]);
+        }
+        fullDelta[starts.length] += other.fullDelta[starts.length];
+        startPrefix = null;
+        count += other.count;
+        dropped += other.dropped;
+        return this;
+    }
+
+    /**
+     * Writes the sketch so that it can be sent to another node.
+     *
+     * @param out the output.
+     * @throws IOException on error.
+     */
+    public void writeTo(final DataOutput out) throws IOException {
+        out.writeLong(origin);
+        out.writeLong(bucketWidth);
+        out.writeInt(starts.length);
+        out.writeLong(count);
+        out.writeLong(dropped);
+        for (int i = 0; i < starts.length; i++) {
+            out.writeLong(starts[i]);
+            out.writeLong(ends[i]);
+            out.writeLong(fullDelta[i]);
+            out.writeLong(partialSum[i]);
+            out.writeLong(partialMax[i]);
+        }
+        out.writeLong(fullDelta[starts.length]);
+    }
+
+    /**
+     * Reads a sketch written by writeTo(). The counters are allocated as they are
+     * read so that a corrupt bucket count fails at the end of the input instead
+     * of allocating memory for buckets that are not there.
+     *
+     * @param in the input.
+     * @return the sketch.
+     * @throws IOException on error or if the input is not a valid sketch.
+     */
+    public static LongSpanCoverageSketch readFrom(final DataInput in) throws IOException {
+        final long origin = in.readLong();
+        final long bucketWidth = in.readLong();
+        final int bucketCount = in.readInt();
+        try {
+            checkDomain(origin, bucketWidth, bucketCount);
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Invalid sketch header", e);
+        }
+        final long count = in.readLong();
+        final long dropped = in.readLong();
+        if ((count < 0) || (dropped < 0) || (dropped > count)) {
+            throw new IOException(String.format("Invalid sketch counts %s and %s", count, dropped));
+        }
+        int capacity = Math.min(bucketCount, READ_CHUNK);
+        long[] starts = new long[capacity];
+        long[] ends = new long[capacity];
+        long[] fullDelta = new long[capacity + 1];
+        long[] partialSum = new long[capacity];
+        long[] partialMax = new long[capacity];
+        for (int i = 0; i < bucketCount; i++) {
+            if (i == capacity) {
+                capacity = (int) Math.min(bucketCount, 2L * capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                fullDelta = Arrays.copyOf(fullDelta, capacity + 1);
+                partialSum = Arrays.copyOf(partialSum, capacity);
+                partialMax = Arrays.copyOf(partialMax, capacity);
+            }
+            starts[i] = in.readLong();
+            ends[i] = in.readLong();
+            fullDelta[i] = in.readLong();
+            partialSum[i] = in.readLong();
+            partialMax[i] = in.readLong();
+        }
+        fullDelta[bucketCount] = in.readLong();
+        final LongSpanCoverageSketch sketch = new LongSpanCoverageSketch(origin, bucketWidth, starts, ends,
+                fullDelta, partialSum, partialMax);
+        sketch.count = count;
+        sketch.dropped = dropped;
+        return sketch;
+    }
+}
@@ -0,0 +1,514 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A dynamic multiset of LongSpans that answers overlap count and covered length
+ * queries for any range.
+ * <p>
+ * The span boundaries (offsets and exclusive ends) are coordinate compressed.
+ * Two Fenwick trees count the spans starting and ending at each coordinate, so
+ * the number of spans overlapping [a,b] is the total less those ending before
+ * a and those starting after b. A segment tree over the elementary intervals
+ * between coordinates holds a cover count and covered length per node for the
+ * covered length queries.
+ * </p>
+ * <p>
+ * A span with a boundary that has not been registered is held in a small
+ * offset sorted pending list that queries merge in exactly. When the list
+ * grows past roughly the square root of the size the boundaries are
+ * registered and the structure rebuilt.
+ * </p>
+ * <p>
+ * With n spans and p pending spans, a query costs O(log n + p), which is
+ * O(log n + sqrt n) in the worst case. Adding a span with registered
+ * boundaries costs O(log n) and removing a span costs O(log n + p). Adding a
+ * span with a new boundary costs amortized O(sqrt n log n) because of the
+ * rebuilds. Queries are O(log n) only when every boundary is registered, so
+ * callers that know the spans, or a superset of their boundaries, in advance
+ * should pass them to {@link #LongSpanCoverageTree(Collection)}. Empty spans
+ * are ignored. A covered length greater than Long.MAX_VALUE cannot be returned
+ * and throws an ArithmeticException. This class is not thread safe.
+ * </p>
+ */
+public class LongSpanCoverageTree {
+
+    /**
+     * The multiplicity of each span.
+     */
+    private final LongSpanLongHashMap spans = new LongSpanLongHashMap();
+    /**
+     * The sorted distinct boundaries.
+     */
+    private long[] coords = new long[0];
+    /**
+     * Fenwick tree of span counts by offset coordinate.
+     */
+    private long[] starts = new long[1];
+    /**
+     * Fenwick tree of span counts by exclusive end coordinate.
+     */
+    private long[] ends = new long[1];
+    /**
+     * Segment tree cover counts.
+     */
+    private int[] cover = new int[0];
+    /**
+     * Segment tree covered lengths.
+     */
+    private long[] covered = new long[0];
+    /**
+     * The offsets of the pending spans in offset order.
+     */
+    private long[] pendingOffsets = new long[16];
+    /**
+     * The lengths of the pending spans.
+     */
+    private long[] pendingLengths = new long[16];
+    /**
+     * The number of pending spans.
+     */
+    private int pendingCount;
+    /**
+     * The number of spans.
+     */
+    private long size;
+
+    /**
+     * Constructor.
+     */
+    public LongSpanCoverageTree() {
+    }
+
+    /**
+     * Constructor that registers the boundaries of the expected spans. The spans
+     * are not added.
+     *
+     * @param expected the spans whose boundaries should be registered.
+     */
+    public LongSpanCoverageTree(final Collection<? extends LongSpan> expected) {
+        final long[] boundaries = new long[expected.size() * 2];
+        int count = 0;
+        for (final LongSpan span : expected) {
+            if (span.getLength() > 0) {
+                boundaries[count++] = span.getOffset();
+                boundaries[count++] = span.getOffset() + span.getLength();
+            }
+        }
+        rebuild(Arrays.copyOf(boundaries, count));
+    }
+
+    /**
+     * Registers the boundaries of the pending spans and rebuilds the structure.
+     */
+    private void flushPending() {
+        final long[] extra = new long[pendingCount * 2];
+        for (int i = 0; i < pendingCount; i++) {
+            extra[i * 2] = pendingOffsets[i];
+            extra[(i * 2) + 1] = pendingOffsets[i] + pendingLengths[i];
+        }
+        pendingCount = 0;
+        rebuild(extra);
+    }
+
+    /**
+     * Rebuilds the structure with additional boundaries. Every span in the spans
+     * map is applied so the pending list must be empty.
+     *
+     * @param extra the boundaries to add.
+     */
+    private void rebuild(final long[] extra) {
+        final long[] all = Arrays.copyOf(coords, coords.length + extra.length);
+        System.arraycopy(extra, 0, all, coords.length, extra.length);
+        Arrays.sort(all);
+        int distinct = 0;
+        for (int i = 0; i < all.length; i++) {
+            if ((distinct == 0) || (all[i] != all[distinct - 1])) {
+                all[distinct++] = all[i];
+            }
+        }
+        coords = Arrays.copyOf(all, distinct);
+        starts = new long[coords.length + 1];
+        ends = new long[coords.length + 1];
+        final int leaves = Math.max(0, coords.length - 1);
+        cover = new int[leaves * 4];
+        covered = new long[leaves * 4];
+        spans.forEach((offset, length, count) -> apply(offset, offset + length, count));
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param span the span.
+     * @return true if the span was added, false if it is empty.
+     */
+    public boolean add(final LongSpan span) {
+        return add(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     * @return true if the span was added, false if it is empty.
+     */
+    public boolean add(final long offset, final long length) {
+        if (length < 0) {
+            throw new IndexOutOfBoundsException("Length may not be less than zero: " + length);
+        }
+        final long limit = NumberUtils.checkLongAddLimit(offset, length);
+        if (length == 0) {
+            return false;
+        }
+        spans.addTo(offset, length, 1);
+        size++;
+        if ((Arrays.binarySearch(coords, offset) < 0) || (Arrays.binarySearch(coords, limit) < 0)) {
+            addPending(offset, length);
+            if (pendingCount > Math.max(64, (long) Math.sqrt(size))) {
+                flushPending();
+            }
+        } else {
+            apply(offset, limit, 1);
+        }
+        return true;
+    }
+
+    /**
+     * Removes one occurrence of a span.
+     *
+     * @param span the span.
+     * @return true if the span was present.
+     */
+    public boolean remove(final LongSpan span) {
+        return remove(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Removes one occurrence of a span.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     * @return true if the span was present.
+     */
+    public boolean remove(final long offset, final long length) {
+        final long count = spans.get(offset, length, 0);
+        if (count == 0) {
+            return false;
+        }
+        if (count == 1) {
+            spans.remove(offset, length);
+        } else {
+            spans.put(offset, length, count - 1);
+        }
+        if (!removePending(offset, length)) {
+            apply(offset, offset + length, -1);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Inserts a span into the pending list in offset order.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     */
+    private void addPending(final long offset, final long length) {
+        if (pendingCount == pendingOffsets.length) {
+            pendingOffsets = Arrays.copyOf(pendingOffsets, pendingCount * 2);
+            pendingLengths = Arrays.copyOf(pendingLengths, pendingCount * 2);
+        }
+        int pos = Arrays.binarySearch(pendingOffsets, 0, pendingCount, offset);
+        pos = pos < 0 ? -(pos + 1) : pos;
+        System.arraycopy(pendingOffsets, pos, pendingOffsets, pos + 1, pendingCount - pos);
+        System.arraycopy(pendingLengths, pos, pendingLengths, pos + 1, pendingCount - pos);
+        pendingOffsets[pos] = offset;
+        pendingLengths[pos] = length;
+        pendingCount++;
+    }
+
+    /**
+     * Removes a span from the pending list.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     * @return true if the span was pending.
+     */
+    private boolean removePending(final long offset, final long length) {
+        for (int i = 0; i < pendingCount; i++) {
+            if ((pendingOffsets[i] == offset) && (pendingLengths[i] == length)) {
+                System.arraycopy(pendingOffsets, i + 1, pendingOffsets, i, pendingCount - i - 1);
+                System.arraycopy(pendingLengths, i + 1, pendingLengths, i, pendingCount - i - 1);
+                pendingCount--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies a change in the count of a span whose boundaries are registered.
+     *
+     * @param offset the offset.
+     * @param limit  the exclusive end.
+     * @param delta  the change in count.
+     */
+    private void apply(final long offset, final long limit, final long delta) {
+        final int from = Arrays.binarySearch(coords, offset);
+        final int to = Arrays.binarySearch(coords, limit);
+        fenwickAdd(starts, from, delta);
+        fenwickAdd(ends, to, delta);
+        update(0, 0, coords.length - 1, from, to, (int) delta);
+    }
+
+    /**
+     * Adds to a Fenwick tree.
+     *
+     * @param tree  the tree.
+     * @param index the zero based index.
+     * @param delta the amount to add.
+     */
+    private static void fenwickAdd(final long[] tree, final int index, final long delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Sums a prefix of a Fenwick tree.
+     *
+     * @param tree  the tree.
+     * @param count the number of leading entries to sum.
+     * @return the sum.
+     */
+    private static long fenwickSum(final long[] tree, final int count) {
+        long sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Counts the coordinates less than or equal to a value.
+     *
+     * @param value the value.
+     * @return the number of coordinates &lt;= value.
+     */
+    private int countAtOrBelow(final long value) {
+        final int pos = Arrays.binarySearch(coords, value);
+        return pos >= 0 ? pos + 1 : -(pos + 1);
+    }
+
+    /**
+     * Changes the cover count of the elementary intervals [from,to).
+     *
+     * @param node  the segment tree node.
+     * @param lo    the first elementary interval of the node.
+     * @param hi    the end of the node's intervals, exclusive.
+     * @param from  the first interval to change.
+     * @param to    the end of the intervals to change, exclusive.
+     * @param delta the change in count.
+     */
+    private void update(final int node, final int lo, final int hi, final int from, final int to, final int delta) {
+        if ((to <= lo) || (hi <= from)) {
+            return;
+        }
+        if ((from <= lo) && (hi <= to)) {
+            cover[node] += delta;
+        } else {
+            final int mid = (lo + hi) >>> 1;
+            update((2 * node) + 1, lo, mid, from, to, delta);
+            update((2 * node) + 2, mid, hi, from, to, delta);
+        }
+        if (cover[node] > 0) {
+            covered[node] = coords[hi] - coords[lo];
+        } else if ((hi - lo) == 1) {
+            covered[node] = 0;
+        } else {
+            covered[node] = covered[(2 * node) + 1] + covered[(2 * node) + 2];
+        }
+    }
+
+    /**
+     * Gets the number of spans, counting duplicates.
+     *
+     * @return the number of spans.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Counts the spans that overlap the query.
+     *
+     * @param query the query.
+     * @return the number of overlapping spans, counting duplicates.
+     */
+    public long countOverlapping(final LongSpan query) {
+        if ((query.getLength() == 0) || (size == 0)) {
+            return 0;
+        }
+        final long limit = query.getOffset() + query.getLength();
+        final long indexed = size - pendingCount;
+        final long endedBefore = fenwickSum(ends, countAtOrBelow(query.getOffset()));
+        final long startedAfter = indexed - fenwickSum(starts, countAtOrBelow(limit - 1));
+        long result = indexed - endedBefore - startedAfter;
+        for (int i = 0; (i < pendingCount) && (pendingOffsets[i] < limit); i++) {
+            if ((pendingOffsets[i] + pendingLengths[i]) > query.getOffset()) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the positions in the query that are covered by at least one span.
+     *
+     * @param query the query.
+     * @return the covered length.
+     * @throws ArithmeticException if the covered length exceeds Long.MAX_VALUE.
+     */
+    public long coveredLength(final LongSpan query) {
+        if (query.getLength() == 0) {
+            return 0;
+        }
+        return checkCoveredLength(coveredLength(query.getOffset(), query.getOffset() + query.getLength()));
+    }
+
+    /**
+     * Gets the number of positions covered by at least one span.
+     *
+     * @return the covered length.
+     * @throws ArithmeticException if the covered length exceeds Long.MAX_VALUE.
+     */
+    public long coveredLength() {
+        long result = covered.length == 0 ? 0 : covered[0];
+        if (pendingCount > 0) {
+            result += pendingCoveredLength(Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        return checkCoveredLength(result);
+    }
+
+    /**
+     * Verifies that a covered length did not overflow. The covered lengths are
+     * built only by adding and subtracting, so they are exact modulo 2^64, and
+     * the true value is always less than 2^64. A negative result therefore means
+     * the true value exceeds Long.MAX_VALUE.
+     *
+     * @param length the covered length.
+     * @return the covered length.
+     * @throws ArithmeticException if the covered length exceeds Long.MAX_VALUE.
+     */
+    private static long checkCoveredLength(final long length) {
+        if (length < 0) {
+            throw new ArithmeticException("Covered length exceeds Long.MAX_VALUE");
+        }
+        return length;
+    }
+
+    /**
+     * Counts the covered positions in [start,limit).
+     *
+     * @param start the first position.
+     * @param limit the end, exclusive.
+     * @return the covered length.
+     */
+    private long coveredLength(final long start, final long limit) {
+        return indexedCoveredLength(start, limit) + pendingCoveredLength(start, limit);
+    }
+
+    /**
+     * Counts the positions in [start,limit) covered by the indexed spans.
+     *
+     * @param start the first position.
+     * @param limit the end, exclusive.
+     * @return the covered length.
+     */
+    private long indexedCoveredLength(final long start, final long limit) {
+        return coords.length < 2 ? 0 : query(0, 0, coords.length - 1, start, limit);
+    }
+
+    /**
+     * Counts the positions in [start,limit) covered by pending spans but not by
+     * the indexed spans. The pending spans are merged into disjoint pieces and
+     * the indexed coverage of each piece subtracted.
+     *
+     * @param start the first position.
+     * @param limit the end, exclusive.
+     * @return the additional covered length.
+     */
+    private long pendingCoveredLength(final long start, final long limit) {
+        long result = 0;
+        long pieceStart = 0;
+        long pieceLimit = 0;
+        boolean hasPiece = false;
+        for (int i = 0; (i < pendingCount) && (pendingOffsets[i] < limit); i++) {
+            final long s = Math.max(pendingOffsets[i], start);
+            final long l = Math.min(pendingOffsets[i] + pendingLengths[i], limit);
+            if (l <= s) {
+                continue;
+            }
+            if (hasPiece && (s <= pieceLimit)) {
+                pieceLimit = Math.max(pieceLimit, l);
+            } else {
+                if (hasPiece) {
+                    result += (pieceLimit - pieceStart) - indexedCoveredLength(pieceStart, pieceLimit);
+                }
+                pieceStart = s;
+                pieceLimit = l;
+                hasPiece = true;
+            }
+        }
+        if (hasPiece) {
+            result += (pieceLimit - pieceStart) - indexedCoveredLength(pieceStart, pieceLimit);
+        }
+        return result;
+    }
+
+    /**
+     * Sums the covered length of a node within [start,limit).
+     *
+     * @param node  the segment tree node.
+     * @param lo    the first elementary interval of the node.
+     * @param hi    the end of the node's intervals, exclusive.
+     * @param start the query start.
+     * @param limit the query end, exclusive.
+     * @return the covered length.
+     */
+    private long query(final int node, final int lo, final int hi, final long start, final long limit) {
+        if ((coords[hi] <= start) || (coords[lo] >= limit)) {
+            return 0;
+        }
+        if (cover[node] > 0) {
+            return Math.min(coords[hi], limit) - Math.max(coords[lo], start);
+        }
+        if ((start <= coords[lo]) && (coords[hi] <= limit)) {
+            return covered[node];
+        }
+        if ((hi - lo) == 1) {
+            return 0;
+        }
+        final int mid = (lo + hi) >>> 1;
+        return query((2 * node) + 1, lo, mid, start, limit) + query((2 * node) + 2, mid, hi, start, limit);
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Computes the difference between two span sets and ships it as a stream of
+ * add and remove records.
+ * <p>
+ * The inputs are spans in offset order; overlapping and adjacent spans are
+ * coalesced as they are read, so the diff is of the positions covered. A
+ * single merge pass over both inputs produces the positions only in the new
+ * set (added) and those only in the old set (removed). The ranges are maximal
+ * and are produced in offset order, so the delta is never larger than the
+ * change.
+ * </p>
+ * <p>
+ * The delta stream is a sequence of records, each a type byte
+ * ({@link LongSpanJournal#ADD} or {@link LongSpanJournal#REMOVE}) followed by
+ * the span in the {@link LongSpanCodec} encoding, ended by a single
+ * {@link #END} byte.
+ * </p>
+ */
+public final class LongSpanDiff {
+
+    /**
+     * The type byte that ends a delta stream.
+     */
+    public static final byte END = 0;
+
+    /**
+     * Do not instantiate.
+     */
+    private LongSpanDiff() {
+    }
+
+    /**
+     * Computes the difference between two sets of spans.
+     *
+     * @param from    the old spans in offset order.
+     * @param to      the new spans in offset order.
+     * @param added   receives the ranges covered by to but not by from.
+     * @param removed receives the ranges covered by from but not by to.
+     * @return the number of ranges written.
+     * @throws IllegalArgumentException if either input is not sorted by offset.
+     */
+    public static int diff(final Iterable<? extends LongSpan> from, final Iterable<? extends LongSpan> to,
+            final LongSpanSink added, final LongSpanSink removed) {
+        final RunCursor a = new RunCursor(from.iterator());
+        final RunCursor b = new RunCursor(to.iterator());
+        boolean hasA = a.next();
+        boolean hasB = b.next();
+        int count = 0;
+        while (hasA || hasB) {
+            if (!hasB || (hasA && (a.limit <= b.start))) {
+                removed.accept(a.start, a.limit - a.start);
+                count++;
+                hasA = a.next();
+            } else if (!hasA || (b.limit <= a.start)) {
+                added.accept(b.start, b.limit - b.start);
+                count++;
+                hasB = b.next();
+            } else {
+                // the runs overlap: emit the part before the common start.
+                if (a.start < b.start) {
+                    removed.accept(a.start, b.start - a.start);
+                    count++;
+                    a.start = b.start;
+                } else if (b.start < a.start) {
+                    added.accept(b.start, a.start - b.start);
+                    count++;
+                    b.start = a.start;
+                }
+                // skip the common part.
+                if (a.limit == b.limit) {
+                    hasA = a.next();
+                    hasB = b.next();
+                } else if (a.limit < b.limit) {
+                    b.start = a.limit;
+                    hasA = a.next();
+                } else {
+                    a.start = b.limit;
+                    hasB = b.next();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the delta that turns one set of spans into another.
+     *
+     * @param from the old spans in offset order.
+     * @param to   the new spans in offset order.
+     * @param out  the output.
+     * @return the number of records written, not counting the end marker.
+     * @throws IOException              on error.
+     * @throws IllegalArgumentException if either input is not sorted by offset.
+     */
+    public static int write(final Iterable<? extends LongSpan> from, final Iterable<? extends LongSpan> to,
+            final DataOutput out) throws IOException {
+        final IOException[] error = new IOException[1];
+        final int count = diff(from, to,
+                (offset, length) -> writeRecord(out, LongSpanJournal.ADD, offset, length, error),
+                (offset, length) -> writeRecord(out, LongSpanJournal.REMOVE, offset, length, error));
+        if (error[0] != null) {
+            throw error[0];
+        }
+        out.writeByte(END);
+        return count;
+    }
+
+    /**
+     * Writes one record unless an earlier write failed.
+     *
+     * @param out    the output.
+     * @param type   the record type.
+     * @param offset the offset.
+     * @param length the length.
+     * @param error  holds the first write failure.
+     */
+    private static void writeRecord(final DataOutput out, final byte type, final long offset, final long length,
+            final IOException[] error) {
+        if (error[0] == null) {
+            try {
+                out.writeByte(type);
+                LongSpanCodec.write(out, offset, length);
+            } catch (final IOException e) {
+                error[0] = e;
+            }
+        }
+    }
+
+    /**
+     * Applies a delta stream to a span set.
+     *
+     * @param in     the delta stream.
+     * @param target the set to patch.
+     * @return the number of records applied.
+     * @throws IOException on error, on an unknown record type or an invalid span.
+     */
+    public static int apply(final DataInput in, final LongSpanSet target) throws IOException {
+        int count = 0;
+        while (true) {
+            final byte type = in.readByte();
+            if (type == END) {
+                return count;
+            }
+            if ((type != LongSpanJournal.ADD) && (type != LongSpanJournal.REMOVE)) {
+                throw new IOException("Unknown delta record type: " + type);
+            }
+            final long offset = in.readLong();
+            final long length = in.readLong();
+            LongSpanCodec.validate(offset, length);
+            if (type == LongSpanJournal.ADD) {
+                target.add(offset, length);
+            } else {
+                target.remove(offset, length);
+            }
+            count++;
+        }
+    }
+
+    /**
+     * Reads spans in offset order and returns the coalesced runs.
+     */
+    private static class RunCursor {
+        /**
+         * The spans.
+         */
+        private final Iterator<? extends LongSpan> spans;
+        /**
+         * The first position of the current run.
+         */
+        private long start;
+        /**
+         * The position after the current run.
+         */
+        private long limit;
+        /**
+         * The offset of the last span read, to check the order.
+         */
+        private long lastOffset = Long.MIN_VALUE;
+        /**
+         * True if a span has been read ahead of the current run.
+         */
+        private boolean pending;
+        /**
+         * The offset of the span read ahead.
+         */
+        private long pendingStart;
+        /**
+         * The limit of the span read ahead.
+         */
+        private long pendingLimit;
+
+        /**
+         * Constructor.
+         *
+         * @param spans the spans in offset order.
+         */
+        RunCursor(final Iterator<? extends LongSpan> spans) {
+            this.spans = spans;
+        }
+
+        /**
+         * Reads the next non-empty span into the pending fields.
+         *
+         * @return true if a span was read.
+         */
+        private boolean readAhead() {
+            while (spans.hasNext()) {
+                final LongSpan span = spans.next();
+                if (span.getOffset() < lastOffset) {
+                    throw new IllegalArgumentException(
+                            String.format("Spans are not sorted: %s < %s", span.getOffset(), lastOffset));
+                }
+                lastOffset = span.getOffset();
+                if (span.getLength() > 0) {
+                    pendingStart = span.getOffset();
+                    pendingLimit = span.getOffset() + span.getLength();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Moves to the next run.
+         *
+         * @return true if there is a run.
+         */
+        boolean next() {
+            if (!pending && !readAhead()) {
+                return false;
+            }
+            start = pendingStart;
+            limit = pendingLimit;
+            pending = false;
+            while (readAhead()) {
+                if (pendingStart > limit) {
+                    pending = true;
+                    break;
+                }
+                limit = Math.max(limit, pendingLimit);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,571 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A lazily evaluated expression over sets of positions described by LongSpans.
+ * <p>
+ * Sources are offset sorted spans which may overlap. Operators compose into a
+ * pipeline of cursors that is evaluated in a single streaming pass when a
+ * terminal method is called, so memory use is proportional to the depth of the
+ * expression rather than the number of spans. Every cursor produces disjoint,
+ * non-adjacent, non empty spans in offset order.
+ * </p>
+ * <p>
+ * Expressions are immutable and may be evaluated many times provided the
+ * sources can be iterated many times.
+ * </p>
+ */
+public abstract class LongSpanExpression {
+
+    /**
+     * Creates an expression from offset sorted spans. Overlapping and adjacent
+     * spans are merged and empty spans ignored.
+     *
+     * @param spans the spans in offset order.
+     * @return the expression.
+     */
+    public static LongSpanExpression of(final Iterable<? extends LongSpan> spans) {
+        return new LongSpanExpression() {
+            @Override
+            public Cursor cursor() {
+                return new SourceCursor(spans.iterator());
+            }
+        };
+    }
+
+    /**
+     * Creates an expression for the positions of the spans.
+     *
+     * @param spans the spans in offset order.
+     * @return the expression.
+     */
+    public static LongSpanExpression of(final LongSpan... spans) {
+        final List<LongSpan> list = new ArrayList<>(spans.length);
+        Collections.addAll(list, spans);
+        return of(list);
+    }
+
+    /**
+     * Creates a cursor that evaluates the expression.
+     *
+     * @return a new cursor positioned before the first span.
+     */
+    public abstract Cursor cursor();
+
+    /**
+     * Creates an expression for the positions in either expression.
+     *
+     * @param other the other expression.
+     * @return the union.
+     */
+    public LongSpanExpression union(final LongSpanExpression other) {
+        final LongSpanExpression self = this;
+        return new LongSpanExpression() {
+            @Override
+            public Cursor cursor() {
+                return new UnionCursor(self.cursor(), other.cursor());
+            }
+        };
+    }
+
+    /**
+     * Creates an expression for the positions in both expressions.
+     *
+     * @param other the other expression.
+     * @return the intersection.
+     */
+    public LongSpanExpression intersect(final LongSpanExpression other) {
+        final LongSpanExpression self = this;
+        return new LongSpanExpression() {
+            @Override
+            public Cursor cursor() {
+                return new IntersectCursor(self.cursor(), other.cursor());
+            }
+        };
+    }
+
+    /**
+     * Creates an expression for the positions in this expression that are not in
+     * the other expression.
+     *
+     * @param other the expression to remove.
+     * @return the difference.
+     */
+    public LongSpanExpression difference(final LongSpanExpression other) {
+        final LongSpanExpression self = this;
+        return new LongSpanExpression() {
+            @Override
+            public Cursor cursor() {
+                return new DifferenceCursor(self.cursor(), other.cursor());
+            }
+        };
+    }
+
+    /**
+     * Creates an expression for the positions within the bounds that are not in
+     * this expression.
+     *
+     * @param bounds the limits of the complement.
+     * @return the complement.
+     */
+    public LongSpanExpression complement(final LongSpan bounds) {
+        return of(bounds).difference(this);
+    }
+
+    /**
+     * Determines if the expression contains no positions. Stops at the first
+     * span found.
+     *
+     * @return true if the expression is empty.
+     */
+    public boolean isEmpty() {
+        return !cursor().next();
+    }
+
+    /**
+     * Gets the first span of the expression. Stops at the first span found.
+     *
+     * @return the first span or LongSpan.EMPTY if the expression is empty.
+     */
+    public LongSpan firstMatch() {
+        final Cursor cursor = cursor();
+        return cursor.next() ? LongSpan.fromEnd(cursor.getOffset(), cursor.getEnd()) : LongSpan.EMPTY;
+    }
+
+    /**
+     * Gets the first part of the expression that lies within the bounds. Stops at
+     * the first span found.
+     *
+     * @param bounds the bounds to search.
+     * @return the first span within the bounds or LongSpan.EMPTY if there is
+     *         none.
+     */
+    public LongSpan firstMatch(final LongSpan bounds) {
+        return intersect(of(bounds)).firstMatch();
+    }
+
+    /**
+     * Writes each span of the expression to the sink.
+     *
+     * @param sink receives the spans in offset order.
+     * @return the number of spans written.
+     */
+    public long forEach(final LongSpanSink sink) {
+        final Cursor cursor = cursor();
+        long count = 0;
+        while (cursor.next()) {
+            sink.accept(cursor.getOffset(), cursor.getLength());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of positions in the expression.
+     *
+     * @return the number of positions.
+     */
+    public long coveredLength() {
+        final Cursor cursor = cursor();
+        long total = 0;
+        while (cursor.next()) {
+            total += cursor.getLength();
+        }
+        return total;
+    }
+
+    /**
+     * Evaluates the expression into a list.
+     *
+     * @return the spans in offset order.
+     */
+    public List<LongSpan> toList() {
+        final List<LongSpan> result = new ArrayList<>();
+        forEach((offset, length) -> result.add(LongSpan.fromLength(offset, length)));
+        return result;
+    }
+
+    /**
+     * Returns true if the position touches or directly follows the end.
+     *
+     * @param offset the offset to check.
+     * @param end    the end of the current span.
+     * @return true if a span starting at offset can be merged.
+     */
+    private static boolean touches(final long offset, final long end) {
+        return (offset <= end) || ((offset - 1) == end);
+    }
+
+    /**
+     * A cursor over the spans produced by an expression. The cursor is itself the
+     * current span.
+     */
+    public abstract static class Cursor implements LongSpan {
+        /**
+         * The offset of the current span.
+         */
+        private long offset;
+        /**
+         * The end of the current span.
+         */
+        private long end;
+
+        /**
+         * Moves to the next span.
+         *
+         * @return true if there is a span, false when the expression is exhausted.
+         */
+        public abstract boolean next();
+
+        /**
+         * Sets the current span.
+         *
+         * @param offset the offset.
+         * @param end    the end.
+         * @return true.
+         */
+        protected final boolean set(final long offset, final long end) {
+            this.offset = offset;
+            this.end = end;
+            return true;
+        }
+
+        @Override
+        public final long getOffset() {
+            return offset;
+        }
+
+        @Override
+        public final long getLength() {
+            return LongSpan.calcLength(this);
+        }
+
+        @Override
+        public final long getEnd() {
+            return end;
+        }
+
+        @Override
+        public String toString() {
+            return LongSpan.toString(this);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return LongSpan.equals(this, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return LongSpan.hashCode(this);
+        }
+    }
+
+    /**
+     * Merges the spans of an offset sorted iterator.
+     */
+    private static class SourceCursor extends Cursor {
+        /**
+         * The source spans.
+         */
+        private final Iterator<? extends LongSpan> iter;
+        /**
+         * The span read ahead of the current span, or null.
+         */
+        private LongSpan pending;
+        /**
+         * True once the first span has been read.
+         */
+        private boolean started;
+
+        /**
+         * Constructor.
+         *
+         * @param iter the source spans.
+         */
+        SourceCursor(final Iterator<? extends LongSpan> iter) {
+            this.iter = iter;
+        }
+
+        /**
+         * Reads the next non empty span.
+         *
+         * @param previous the offset of the previous span.
+         * @return the span or null if the iterator is exhausted.
+         */
+        private LongSpan read(final long previous) {
+            while (iter.hasNext()) {
+                final LongSpan span = iter.next();
+                if (span.getOffset() < previous) {
+                    throw new IllegalArgumentException(
+                            String.format("Spans are not sorted: %s < %s", span.getOffset(), previous));
+                }
+                if (span.getLength() > 0) {
+                    return span;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean next() {
+            if (!started) {
+                started = true;
+                pending = read(Long.MIN_VALUE);
+            }
+            if (pending == null) {
+                return false;
+            }
+            final long start = pending.getOffset();
+            long stop = pending.getEnd();
+            pending = read(start);
+            while ((pending != null) && touches(pending.getOffset(), stop)) {
+                stop = Math.max(stop, pending.getEnd());
+                pending = read(pending.getOffset());
+            }
+            return set(start, stop);
+        }
+    }
+
+    /**
+     * Base for cursors that combine two cursors.
+     */
+    private abstract static class BinaryCursor extends Cursor {
+        /**
+         * The left cursor.
+         */
+        protected final Cursor left;
+        /**
+         * The right cursor.
+         */
+        protected final Cursor right;
+        /**
+         * True if the left cursor is on a span.
+         */
+        protected boolean leftValid;
+        /**
+         * True if the right cursor is on a span.
+         */
+        protected boolean rightValid;
+        /**
+         * True once the cursors have been positioned on their first spans.
+         */
+        private boolean started;
+
+        /**
+         * Constructor.
+         *
+         * @param left  the left cursor.
+         * @param right the right cursor.
+         */
+        BinaryCursor(final Cursor left, final Cursor right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public final boolean next() {
+            if (!started) {
+                started = true;
+                leftValid = left.next();
+                if (leftValid || !skipRightWhenLeftEmpty()) {
+                    rightValid = right.next();
+                }
+            }
+            return advance();
+        }
+
+        /**
+         * Determines if the right cursor need not be read when the left is empty.
+         *
+         * @return true if an empty left cursor means an empty result.
+         */
+        protected abstract boolean skipRightWhenLeftEmpty();
+
+        /**
+         * Moves to the next span once the cursors have been started.
+         *
+         * @return true if there is a span.
+         */
+        protected abstract boolean advance();
+    }
+
+    /**
+     * The union of two cursors.
+     */
+    private static class UnionCursor extends BinaryCursor {
+
+        /**
+         * Constructor.
+         *
+         * @param left  the left cursor.
+         * @param right the right cursor.
+         */
+        UnionCursor(final Cursor left, final Cursor right) {
+            super(left, right);
+        }
+
+        @Override
+        protected boolean skipRightWhenLeftEmpty() {
+            return false;
+        }
+
+        @Override
+        protected boolean advance() {
+            final long start;
+            long stop;
+            if (leftValid && (!rightValid || (left.getOffset() <= right.getOffset()))) {
+                start = left.getOffset();
+                stop = left.getEnd();
+                leftValid = left.next();
+            } else if (rightValid) {
+                start = right.getOffset();
+                stop = right.getEnd();
+                rightValid = right.next();
+            } else {
+                return false;
+            }
+            boolean merged = true;
+            while (merged) {
+                merged = false;
+                if (leftValid && touches(left.getOffset(), stop)) {
+                    stop = Math.max(stop, left.getEnd());
+                    leftValid = left.next();
+                    merged = true;
+                }
+                if (rightValid && touches(right.getOffset(), stop)) {
+                    stop = Math.max(stop, right.getEnd());
+                    rightValid = right.next();
+                    merged = true;
+                }
+            }
+            return set(start, stop);
+        }
+    }
+
+    /**
+     * The intersection of two cursors.
+     */
+    private static class IntersectCursor extends BinaryCursor {
+
+        /**
+         * Constructor.
+         *
+         * @param left  the left cursor.
+         * @param right the right cursor.
+         */
+        IntersectCursor(final Cursor left, final Cursor right) {
+            super(left, right);
+        }
+
+        @Override
+        protected boolean skipRightWhenLeftEmpty() {
+            return true;
+        }
+
+        @Override
+        protected boolean advance() {
+            while (leftValid && rightValid) {
+                final long start = Math.max(left.getOffset(), right.getOffset());
+                final long stop = Math.min(left.getEnd(), right.getEnd());
+                if (left.getEnd() < right.getEnd()) {
+                    leftValid = left.next();
+                } else {
+                    rightValid = right.next();
+                }
+                if (start <= stop) {
+                    return set(start, stop);
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The positions of the left cursor that are not in the right cursor.
+     */
+    private static class DifferenceCursor extends BinaryCursor {
+        /**
+         * The start of the unprocessed part of the current left span.
+         */
+        private long start;
+        /**
+         * True if part of the current left span remains to be processed.
+         */
+        private boolean partial;
+
+        /**
+         * Constructor.
+         *
+         * @param left  the left cursor.
+         * @param right the right cursor.
+         */
+        DifferenceCursor(final Cursor left, final Cursor right) {
+            super(left, right);
+        }
+
+        @Override
+        protected boolean skipRightWhenLeftEmpty() {
+            return true;
+        }
+
+        @Override
+        protected boolean advance() {
+            while (partial || leftValid) {
+                if (!partial) {
+                    start = left.getOffset();
+                    partial = true;
+                }
+                final long stop = left.getEnd();
+                while (rightValid && (right.getEnd() < start)) {
+                    rightValid = right.next();
+                }
+                if (!rightValid || (right.getOffset() > stop)) {
+                    finishLeft();
+                    return set(start, stop);
+                }
+                final long cutStart = right.getOffset();
+                final long cutEnd = right.getEnd();
+                final long pieceStart = start;
+                if (cutEnd >= stop) {
+                    finishLeft();
+                } else {
+                    start = cutEnd + 1;
+                }
+                if (cutStart > pieceStart) {
+                    return set(pieceStart, cutStart - 1);
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Marks the current left span as processed and moves the left cursor.
+         */
+        private void finishLeft() {
+            partial = false;
+            leftValid = left.next();
+        }
+    }
+}
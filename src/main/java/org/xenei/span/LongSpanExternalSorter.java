@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts streams of binary encoded spans that are larger than memory.
+ * <p>
+ * The input is read in runs that fit within the memory budget. Each run is
+ * sorted by offset then length and written to a temporary file. The runs are
+ * then merged, in several passes if there are more runs than can be opened
+ * within the budget. The final merge may optionally coalesce overlapping and
+ * adjacent spans.
+ * </p>
+ * <p>
+ * Input and output use the encoding of {@link LongSpanCodec}.
+ * </p>
+ */
+public class LongSpanExternalSorter {
+
+    /**
+     * The memory used per span during the run phase: offset and length columns
+     * plus the sort permutation and its auxiliary array.
+     */
+    private static final int BYTES_PER_SPAN = LongSpanCodec.BYTES + (2 * Integer.BYTES);
+
+    /**
+     * The size of the buffer for each run during a merge.
+     */
+    private static final int MERGE_BUFFER = 1 << 16;
+
+    /**
+     * The maximum number of runs merged at once.
+     */
+    private static final int MAX_FAN_IN = 1024;
+
+    /**
+     * The number of spans per run.
+     */
+    private final int runSize;
+    /**
+     * The number of runs merged at once.
+     */
+    private final int fanIn;
+    /**
+     * The directory for temporary files, null for the system default.
+     */
+    private final File tempDir;
+
+    /**
+     * Constructor.
+     *
+     * @param memoryBudget the approximate number of bytes of memory to use.
+     * @param tempDir      the directory for temporary files, may be null to use the
+     *                     system default.
+     * @throws IllegalArgumentException if the budget is too small to hold a run
+     *                                  of 2 spans.
+     */
+    public LongSpanExternalSorter(final long memoryBudget, final File tempDir) {
+        if (memoryBudget < (2 * BYTES_PER_SPAN)) {
+            throw new IllegalArgumentException("Memory budget too small: " + memoryBudget);
+        }
+        this.runSize = (int) Math.min(Integer.MAX_VALUE - 8, memoryBudget / BYTES_PER_SPAN);
+        this.fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, memoryBudget / MERGE_BUFFER));
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Gets the number of spans sorted in memory for each run.
+     *
+     * @return the run size.
+     */
+    public int getRunSize() {
+        return runSize;
+    }
+
+    /**
+     * Gets the maximum number of runs merged at once.
+     *
+     * @return the fan in.
+     */
+    public int getFanIn() {
+        return fanIn;
+    }
+
+    /**
+     * Sorts the spans from the input to the output.
+     *
+     * @param in       the encoded spans to sort.
+     * @param out      the destination for the sorted spans.
+     * @param coalesce if true overlapping and adjacent spans are merged and empty
+     *                 spans are dropped.
+     * @return the number of spans written.
+     * @throws IOException on error.
+     */
+    public long sort(final InputStream in, final OutputStream out, final boolean coalesce) throws IOException {
+        List<File> runs = new ArrayList<>();
+        // the runs being written by the current pass, deleted with runs on failure.
+        List<File> next = new ArrayList<>();
+        try {
+            createRuns(in, runs);
+            while (runs.size() > fanIn) {
+                next = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += fanIn) {
+                    final List<File> group = runs.subList(i, Math.min(runs.size(), i + fanIn));
+                    final File merged = createTempFile();
+                    next.add(merged);
+                    try (OutputStream os = new FileOutputStream(merged)) {
+                        merge(group, os, false);
+                    }
+                    delete(group);
+                }
+                runs = next;
+            }
+            return merge(runs, out, coalesce);
+        } finally {
+            delete(runs);
+            delete(next);
+        }
+    }
+
+    /**
+     * Reads the input and writes sorted runs.
+     *
+     * @param in   the input.
+     * @param runs the list to add the run files to.
+     * @throws IOException on error.
+     */
+    private void createRuns(final InputStream in, final List<File> runs) throws IOException {
+        final InputStream input = in instanceof BufferedInputStream ? in : new BufferedInputStream(in, MERGE_BUFFER);
+        final byte[] buffer = new byte[LongSpanCodec.BYTES];
+        final long[] record = new long[2];
+        long[] offsets = new long[Math.min(runSize, 1024)];
+        long[] lengths = new long[offsets.length];
+        boolean more = true;
+        while (more) {
+            int count = 0;
+            while ((count < runSize) && (more = LongSpanCodec.read(input, buffer, record))) {
+                if (count == offsets.length) {
+                    final int size = (int) Math.min(runSize, offsets.length * 2L);
+                    offsets = Arrays.copyOf(offsets, size);
+                    lengths = Arrays.copyOf(lengths, size);
+                }
+                offsets[count] = record[0];
+                lengths[count] = record[1];
+                count++;
+            }
+            if (count > 0) {
+                final int[] perm = SpanArrays.identity(count);
+                SpanArrays.sort(perm, 0, count, SpanArrays.byOffset(offsets, lengths));
+                final File run = createTempFile();
+                runs.add(run);
+                try (DataOutputStream dos = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(run), MERGE_BUFFER))) {
+                    for (int i = 0; i < count; i++) {
+                        LongSpanCodec.write(dos, offsets[perm[i]], lengths[perm[i]]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges sorted runs.
+     *
+     * @param runs     the runs to merge.
+     * @param out      the output.
+     * @param coalesce true if spans should be coalesced.
+     * @return the number of spans written.
+     * @throws IOException on error.
+     */
+    private long merge(final List<File> runs, final OutputStream out, final boolean coalesce) throws IOException {
+        final PriorityQueue<RunReader> queue = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> {
+            final int result = Long.compare(a.offset, b.offset);
+            return result == 0 ? Long.compare(a.length, b.length) : result;
+        });
+        final DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out, MERGE_BUFFER));
+        final List<RunReader> readers = new ArrayList<>(runs.size());
+        long written = 0;
+        try {
+            for (final File run : runs) {
+                final RunReader reader = new RunReader(run);
+                readers.add(reader);
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+            boolean pending = false;
+            long curOffset = 0;
+            long curEnd = 0;
+            while (!queue.isEmpty()) {
+                final RunReader reader = queue.poll();
+                final long offset = reader.offset;
+                final long length = reader.length;
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+                if (!coalesce) {
+                    LongSpanCodec.write(dos, offset, length);
+                    written++;
+                } else if (length > 0) {
+                    final long end = (offset + length) - 1;
+                    if (pending && (offset <= (curEnd + 1))) {
+                        curEnd = Math.max(curEnd, end);
+                    } else {
+                        if (pending) {
+                            LongSpanCodec.write(dos, curOffset, (curEnd - curOffset) + 1);
+                            written++;
+                        }
+                        pending = true;
+                        curOffset = offset;
+                        curEnd = end;
+                    }
+                }
+            }
+            if (pending) {
+                LongSpanCodec.write(dos, curOffset, (curEnd - curOffset) + 1);
+                written++;
+            }
+            dos.flush();
+        } finally {
+            for (final RunReader reader : readers) {
+                reader.close();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Creates a temporary run file.
+     *
+     * @return the file.
+     * @throws IOException on error.
+     */
+    private File createTempFile() throws IOException {
+        return File.createTempFile("span", ".run", tempDir);
+    }
+
+    /**
+     * Deletes the files.
+     *
+     * @param files the files to delete.
+     */
+    private static void delete(final List<File> files) {
+        for (final File file : files) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Reads the spans of a sorted run.
+     */
+    private static class RunReader implements Closeable {
+        private final InputStream in;
+        private final byte[] buffer = new byte[LongSpanCodec.BYTES];
+        private final long[] record = new long[2];
+        private long offset;
+        private long length;
+
+        RunReader(final File file) throws IOException {
+            in = new BufferedInputStream(new FileInputStream(file), MERGE_BUFFER);
+        }
+
+        /**
+         * Reads the next span.
+         *
+         * @return false if there are no more spans.
+         * @throws IOException on error.
+         */
+        boolean advance() throws IOException {
+            if (LongSpanCodec.read(in, buffer, record)) {
+                offset = record[0];
+                length = record[1];
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
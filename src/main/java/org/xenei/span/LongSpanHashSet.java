@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+/**
+ * A set of distinct spans keyed by offset and length, stored in primitive
+ * arrays without per entry objects.
+ * <p>
+ * Unlike LongSpanSet this compares spans exactly; overlapping spans are
+ * distinct entries. This class is not thread safe.
+ * </p>
+ */
+public class LongSpanHashSet extends AbstractLongSpanHashTable {
+
+    /**
+     * Constructor.
+     */
+    public LongSpanHashSet() {
+        this(16);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param expected the expected number of spans.
+     */
+    public LongSpanHashSet(final int expected) {
+        super(expected, false);
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param span the span.
+     * @return true if the span was not already in the set.
+     */
+    public boolean add(final LongSpan span) {
+        return add(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     * @return true if the span was not already in the set.
+     */
+    public boolean add(final long offset, final long length) {
+        check(offset, length);
+        final int slot = find(offset, length);
+        if (slot >= 0) {
+            return false;
+        }
+        insert(slot, offset, length);
+        return true;
+    }
+
+    /**
+     * Returns true if the span is in the set.
+     *
+     * @param span the span.
+     * @return true if the set contains the span.
+     */
+    public boolean contains(final LongSpan span) {
+        return contains(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Returns true if the span is in the set.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     * @return true if the set contains the span.
+     */
+    public boolean contains(final long offset, final long length) {
+        return find(offset, length) >= 0;
+    }
+
+    /**
+     * Removes a span.
+     *
+     * @param span the span.
+     * @return true if the span was in the set.
+     */
+    public boolean remove(final LongSpan span) {
+        return remove(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Removes a span.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     * @return true if the span was in the set.
+     */
+    public boolean remove(final long offset, final long length) {
+        final int slot = find(offset, length);
+        if (slot < 0) {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+
+    /**
+     * Writes each span to the sink in no particular order.
+     *
+     * @param sink the sink.
+     */
+    public void forEach(final LongSpanSink sink) {
+        for (int i = 0; i < capacity(); i++) {
+            if (used[i]) {
+                sink.accept(offsets[i], lengths[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A LongSpanIntervalIndex stored in a file that is queried through read only
+ * memory maps, so several processes can share one page cached copy without
+ * deserializing it.
+ * <p>
+ * All values are big endian. The file is a 64 byte header followed by 8 byte
+ * aligned columns:
+ * </p>
+ * <ul>
+ * <li>int magic ("LSIX"), int version, long span count</li>
+ * <li>int block size, int block count</li>
+ * <li>the segment summary: long bounds offset, long bounds length, long
+ * covered length</li>
+ * <li>long total file length, long reserved</li>
+ * <li>count offsets, count lengths and count max ends as held by
+ * LongSpanIntervalIndex</li>
+ * <li>per block: long span count, long bounds offset, long bounds length, long
+ * covered length</li>
+ * </ul>
+ */
+public final class LongSpanIndexFile {
+
+    /**
+     * The magic number at the start of the file.
+     */
+    public static final int MAGIC = 0x4C534958;
+    /**
+     * The file format version.
+     */
+    public static final int VERSION = 1;
+    /**
+     * The number of bytes in the header.
+     */
+    public static final int HEADER_BYTES = 64;
+    /**
+     * The number of longs in each block summary.
+     */
+    private static final int BLOCK_LONGS = 4;
+
+    /**
+     * The number of spans.
+     */
+    private final int count;
+    /**
+     * The number of spans summarized by each block.
+     */
+    private final int blockSize;
+    /**
+     * The summary of all spans.
+     */
+    private final LongSpanSummary segment;
+    /**
+     * The mapped offsets.
+     */
+    private final LongBuffer offsets;
+    /**
+     * The mapped lengths.
+     */
+    private final LongBuffer lengths;
+    /**
+     * The mapped max ends.
+     */
+    private final LongBuffer maxEnds;
+    /**
+     * The mapped block summaries.
+     */
+    private final LongBuffer blocks;
+
+    /**
+     * Constructor.
+     *
+     * @param count     the number of spans.
+     * @param blockSize the block size.
+     * @param segment   the segment summary.
+     * @param offsets   the mapped offsets.
+     * @param lengths   the mapped lengths.
+     * @param maxEnds   the mapped max ends.
+     * @param blocks    the mapped block summaries.
+     */
+    private LongSpanIndexFile(final int count, final int blockSize, final LongSpanSummary segment,
+            final LongBuffer offsets, final LongBuffer lengths, final LongBuffer maxEnds, final LongBuffer blocks) {
+        this.count = count;
+        this.blockSize = blockSize;
+        this.segment = segment;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.maxEnds = maxEnds;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Calculates the number of blocks for the span count.
+     *
+     * @param count     the number of spans.
+     * @param blockSize the block size.
+     * @return the number of blocks.
+     */
+    private static int blockCount(final int count, final int blockSize) {
+        return (int) (((long) count + blockSize - 1) / blockSize);
+    }
+
+    /**
+     * Calculates the length of a file.
+     *
+     * @param count      the number of spans.
+     * @param blockCount the number of blocks.
+     * @return the file length in bytes.
+     */
+    private static long fileLength(final long count, final long blockCount) {
+        return HEADER_BYTES + (count * 3 * Long.BYTES) + (blockCount * BLOCK_LONGS * Long.BYTES);
+    }
+
+    /**
+     * Writes an index to a file.
+     *
+     * @param index     the index to write.
+     * @param blockSize the number of spans summarized by each block.
+     * @param file      the file to write.
+     * @throws IOException on error.
+     */
+    public static void write(final LongSpanIntervalIndex index, final int blockSize, final File file)
+            throws IOException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be greater than zero: " + blockSize);
+        }
+        final long[] offsets = index.offsets();
+        final long[] lengths = index.lengths();
+        final int blockCount = blockCount(offsets.length, blockSize);
+        final LongSpanSummary.Builder segmentBuilder = new LongSpanSummary.Builder();
+        final LongSpanSummary[] summaries = new LongSpanSummary[blockCount];
+        for (int block = 0; block < blockCount; block++) {
+            final LongSpanSummary.Builder builder = new LongSpanSummary.Builder();
+            final int limit = Math.min(offsets.length, (block + 1) * blockSize);
+            for (int i = block * blockSize; i < limit; i++) {
+                builder.add(offsets[i], lengths[i]);
+                segmentBuilder.add(offsets[i], lengths[i]);
+            }
+            summaries[block] = builder.build();
+        }
+        final LongSpanSummary segment = segmentBuilder.build();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(offsets.length);
+            out.writeInt(blockSize);
+            out.writeInt(blockCount);
+            writeSummary(out, segment, false);
+            out.writeLong(fileLength(offsets.length, blockCount));
+            out.writeLong(0);
+            for (final long value : offsets) {
+                out.writeLong(value);
+            }
+            for (final long value : lengths) {
+                out.writeLong(value);
+            }
+            for (final long value : index.maxEnds()) {
+                out.writeLong(value);
+            }
+            for (final LongSpanSummary summary : summaries) {
+                writeSummary(out, summary, true);
+            }
+        }
+    }
+
+    /**
+     * Writes a summary.
+     *
+     * @param out       the output.
+     * @param summary   the summary to write.
+     * @param withCount true if the span count should be written.
+     * @throws IOException on error.
+     */
+    private static void writeSummary(final DataOutputStream out, final LongSpanSummary summary,
+            final boolean withCount) throws IOException {
+        if (withCount) {
+            out.writeLong(summary.getCount());
+        }
+        out.writeLong(summary.getBounds().getOffset());
+        out.writeLong(summary.getBounds().getLength());
+        out.writeLong(summary.getCoveredLength());
+    }
+
+    /**
+     * Opens and maps an index file. The header is validated before the columns
+     * are mapped. The maps remain valid after the file is closed.
+     *
+     * @param file the file to open.
+     * @return the mapped index.
+     * @throws IOException if the file can not be read or is not a valid index
+     *                     file.
+     */
+    public static LongSpanIndexFile open(final File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("File too short for index header: " + file);
+            }
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a span index file: " + file);
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException(String.format("Unsupported index version %s in %s", header.getInt(4), file));
+            }
+            final long count = header.getLong(8);
+            final int blockSize = header.getInt(16);
+            final int blockCount = header.getInt(20);
+            if ((count < 0) || ((count * Long.BYTES) > Integer.MAX_VALUE)) {
+                throw new IOException(String.format("Invalid span count %s in %s", count, file));
+            }
+            if ((blockSize < 1) || (blockCount != blockCount((int) count, blockSize))) {
+                throw new IOException(String.format("Invalid block size %s or count %s in %s", blockSize,
+                        blockCount, file));
+            }
+            final long length = fileLength(count, blockCount);
+            if ((header.getLong(48) != length) || (channel.size() != length)) {
+                throw new IOException(String.format("Index file length %s does not match header length %s in %s",
+                        channel.size(), header.getLong(48), file));
+            }
+            checkSummary(file, "segment", count, header.getLong(24), header.getLong(32), header.getLong(40));
+            final LongSpanSummary segment = readSummary(count, header.getLong(24), header.getLong(32),
+                    header.getLong(40));
+            final long columnBytes = count * Long.BYTES;
+            long position = HEADER_BYTES;
+            final LongBuffer offsets = map(channel, position, columnBytes);
+            position += columnBytes;
+            final LongBuffer lengths = map(channel, position, columnBytes);
+            position += columnBytes;
+            final LongBuffer maxEnds = map(channel, position, columnBytes);
+            position += columnBytes;
+            final LongBuffer blocks = map(channel, position, (long) blockCount * BLOCK_LONGS * Long.BYTES);
+            for (int block = 0; block < blockCount; block++) {
+                final int base = block * BLOCK_LONGS;
+                checkSummary(file, "block " + block, blocks.get(base), blocks.get(base + 1), blocks.get(base + 2),
+                        blocks.get(base + 3));
+            }
+            return new LongSpanIndexFile((int) count, blockSize, segment, offsets, lengths, maxEnds, blocks);
+        }
+    }
+
+    /**
+     * Maps a column as a LongBuffer.
+     *
+     * @param channel  the file channel.
+     * @param position the start of the column.
+     * @param size     the number of bytes in the column.
+     * @return the column.
+     * @throws IOException on error.
+     */
+    private static LongBuffer map(final FileChannel channel, final long position, final long size)
+            throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Column too large to map: " + size);
+        }
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        return buffer.asLongBuffer();
+    }
+
+    /**
+     * Verifies that stored summary values describe a valid summary.
+     *
+     * @param file         the file being read.
+     * @param name         the name of the summary for the error message.
+     * @param count        the span count.
+     * @param boundsOffset the bounds offset.
+     * @param boundsLength the bounds length.
+     * @param covered      the covered length.
+     * @throws IOException if the values are not a valid summary.
+     */
+    private static void checkSummary(final File file, final String name, final long count, final long boundsOffset,
+            final long boundsLength, final long covered) throws IOException {
+        try {
+            LongSpanCodec.validate(boundsOffset, boundsLength);
+        } catch (final IOException e) {
+            throw new IOException(String.format("Invalid %s bounds in %s", name, file), e);
+        }
+        if ((count < 0) || (covered < 0) || (covered > boundsLength)) {
+            throw new IOException(String.format("Invalid %s count %s or covered length %s in %s", name, count,
+                    covered, file));
+        }
+    }
+
+    /**
+     * Creates a summary from stored values.
+     *
+     * @param count        the span count.
+     * @param boundsOffset the bounds offset.
+     * @param boundsLength the bounds length.
+     * @param covered      the covered length.
+     * @return the summary.
+     */
+    private static LongSpanSummary readSummary(final long count, final long boundsOffset, final long boundsLength,
+            final long covered) {
+        return new LongSpanSummary(count, LongSpan.fromLength(boundsOffset, boundsLength), covered);
+    }
+
+    /**
+     * Gets the number of spans in the index.
+     *
+     * @return the number of spans.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets a span by its position in offset order.
+     *
+     * @param index the position.
+     * @return the span.
+     */
+    public LongSpan get(final int index) {
+        return LongSpan.fromLength(offsets.get(index), lengths.get(index));
+    }
+
+    /**
+     * Gets the offset of a span without creating it.
+     *
+     * @param index the position.
+     * @return the offset.
+     */
+    public long getOffset(final int index) {
+        return offsets.get(index);
+    }
+
+    /**
+     * Gets the length of a span without creating it.
+     *
+     * @param index the position.
+     * @return the length.
+     */
+    public long getLength(final int index) {
+        return lengths.get(index);
+    }
+
+    /**
+     * Gets the end of a span without creating it.
+     *
+     * @param index the position.
+     * @return the end.
+     */
+    public long getEnd(final int index) {
+        return (offsets.get(index) + lengths.get(index)) - 1;
+    }
+
+    /**
+     * Gets the summary of all the spans.
+     *
+     * @return the segment summary.
+     */
+    public LongSpanSummary getSegmentSummary() {
+        return segment;
+    }
+
+    /**
+     * Gets the number of spans summarized by each block.
+     *
+     * @return the block size.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Gets the number of block summaries.
+     *
+     * @return the number of blocks.
+     */
+    public int getBlockCount() {
+        return blocks.limit() / BLOCK_LONGS;
+    }
+
+    /**
+     * Gets the summary of a block.
+     *
+     * @param block the block index.
+     * @return the summary of the block.
+     */
+    public LongSpanSummary getBlockSummary(final int block) {
+        final int base = block * BLOCK_LONGS;
+        return readSummary(blocks.get(base), blocks.get(base + 1), blocks.get(base + 2), blocks.get(base + 3));
+    }
+
+    /**
+     * Creates a zone map from the stored block summaries so the file can be used
+     * with a LongSpanQueryPlanner.
+     *
+     * @return the zone map.
+     */
+    public LongSpanZoneMap toZoneMap() {
+        final LongSpanSummary[] summaries = new LongSpanSummary[getBlockCount()];
+        for (int i = 0; i < summaries.length; i++) {
+            summaries[i] = getBlockSummary(i);
+        }
+        return new LongSpanZoneMap(blockSize, segment, summaries);
+    }
+
+    /**
+     * Visits the positions of the spans that overlap the query, in offset order.
+     * Empty spans never overlap.
+     *
+     * @param query  the query.
+     * @param action receives the position of each overlapping span.
+     * @return the number of overlapping spans.
+     */
+    public int overlapping(final LongSpan query, final IntConsumer action) {
+        if ((query.getLength() == 0) || !segment.mayOverlap(query)) {
+            return 0;
+        }
+        return search(0, count, query.getOffset(), query.getEnd(), action);
+    }
+
+    /**
+     * Gets the spans that overlap the query.
+     *
+     * @param query the query.
+     * @return the overlapping spans in offset order.
+     */
+    public List<LongSpan> overlapping(final LongSpan query) {
+        final List<LongSpan> result = new ArrayList<>();
+        overlapping(query, i -> result.add(get(i)));
+        return result;
+    }
+
+    /**
+     * Counts the spans that overlap the query.
+     *
+     * @param query the query.
+     * @return the number of overlapping spans.
+     */
+    public int countOverlapping(final LongSpan query) {
+        return overlapping(query, i -> {
+        });
+    }
+
+    /**
+     * Searches the subtree for the range.
+     *
+     * @param lo     the start of the range, inclusive.
+     * @param hi     the end of the range, exclusive.
+     * @param start  the query start.
+     * @param end    the query end.
+     * @param action receives each overlapping position.
+     * @return the number of overlapping spans.
+     */
+    private int search(final int lo, final int hi, final long start, final long end, final IntConsumer action) {
+        if (lo >= hi) {
+            return 0;
+        }
+        final int mid = (lo + hi) >>> 1;
+        if (maxEnds.get(mid) < start) {
+            return 0;
+        }
+        int result = search(lo, mid, start, end, action);
+        if (offsets.get(mid) <= end) {
+            if ((lengths.get(mid) > 0) && (getEnd(mid) >= start)) {
+                action.accept(mid);
+                result++;
+            }
+            result += search(mid + 1, hi, start, end, action);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable interval index over LongSpans.
+ * <p>
+ * The spans are stored in offset order in primitive columns. The columns form
+ * an implicit balanced binary tree: the root of the range [lo,hi) is the middle
+ * element and its subtrees are the halves either side. A third column holds
+ * the greatest end within each subtree so that overlap queries can prune
+ * subtrees that end before the query starts.
+ * </p>
+ * <p>
+ * Building from offset sorted input is O(n). Unsorted input is sorted in
+ * parallel and the augmentation is computed with fork join tasks.
+ * </p>
+ */
+public class LongSpanIntervalIndex {
+
+    /**
+     * Ranges smaller than this are augmented on a single thread.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * The span offsets in sorted order.
+     */
+    private final long[] offsets;
+    /**
+     * The span lengths.
+     */
+    private final long[] lengths;
+    /**
+     * The greatest end in the subtree rooted at each position.
+     */
+    private final long[] maxEnds;
+
+    /**
+     * Constructor.
+     *
+     * @param offsets  the sorted offsets.
+     * @param lengths  the matching lengths.
+     * @param parallel true if the augmentation should be computed in parallel.
+     */
+    private LongSpanIntervalIndex(final long[] offsets, final long[] lengths, final boolean parallel) {
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.maxEnds = new long[offsets.length];
+        if (parallel && (offsets.length >= PARALLEL_THRESHOLD)) {
+            ForkJoinPool.commonPool().invoke(new AugmentTask(0, offsets.length));
+        } else {
+            augment(0, offsets.length);
+        }
+    }
+
+    /**
+     * Creates an index from columns sorted by offset. The arrays are copied.
+     *
+     * @param offsets the sorted offsets.
+     * @param lengths the matching lengths.
+     * @return the index.
+     * @throws IllegalArgumentException if the offsets are not sorted or the
+     *                                  columns differ in size.
+     */
+    public static LongSpanIntervalIndex fromSorted(final long[] offsets, final long[] lengths) {
+        if (offsets.length != lengths.length) {
+            throw new IllegalArgumentException("Offsets and lengths must be the same size");
+        }
+        for (int i = 0; i < offsets.length; i++) {
+            checkSpan(i > 0 ? offsets[i - 1] : Long.MIN_VALUE, offsets[i], lengths[i]);
+        }
+        return new LongSpanIntervalIndex(offsets.clone(), lengths.clone(), false);
+    }
+
+    /**
+     * Creates an index from spans supplied in offset order.
+     *
+     * @param spans the spans in offset order.
+     * @return the index.
+     * @throws IllegalArgumentException if the spans are not sorted.
+     */
+    public static LongSpanIntervalIndex fromSorted(final Iterator<? extends LongSpan> spans) {
+        long[] offsets = new long[16];
+        long[] lengths = new long[16];
+        int count = 0;
+        while (spans.hasNext()) {
+            final LongSpan span = spans.next();
+            checkSpan(count > 0 ? offsets[count - 1] : Long.MIN_VALUE, span.getOffset(), span.getLength());
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            offsets[count] = span.getOffset();
+            lengths[count] = span.getLength();
+            count++;
+        }
+        return new LongSpanIntervalIndex(Arrays.copyOf(offsets, count), Arrays.copyOf(lengths, count), false);
+    }
+
+    /**
+     * Creates an index from spans in any order. The spans are sorted and the index
+     * built using the common fork join pool.
+     *
+     * @param spans the spans.
+     * @return the index.
+     */
+    public static LongSpanIntervalIndex build(final Collection<? extends LongSpan> spans) {
+        final long[] offsets = new long[spans.size()];
+        final long[] lengths = new long[offsets.length];
+        int i = 0;
+        for (final LongSpan span : spans) {
+            offsets[i] = span.getOffset();
+            lengths[i] = span.getLength();
+            i++;
+        }
+        final int[] perm = SpanArrays.identity(offsets.length);
+        SpanArrays.parallelSort(perm, SpanArrays.byOffset(offsets, lengths));
+        final long[] sortedOffsets = new long[offsets.length];
+        final long[] sortedLengths = new long[offsets.length];
+        IntStream.range(0, perm.length).parallel().forEach(j -> {
+            sortedOffsets[j] = offsets[perm[j]];
+            sortedLengths[j] = lengths[perm[j]];
+        });
+        return new LongSpanIntervalIndex(sortedOffsets, sortedLengths, true);
+    }
+
+    /**
+     * Verifies a span is valid and in order.
+     *
+     * @param previous the previous offset.
+     * @param offset   the offset.
+     * @param length   the length.
+     */
+    private static void checkSpan(final long previous, final long offset, final long length) {
+        if (length < 0) {
+            throw new IndexOutOfBoundsException("Length may not be less than zero: " + length);
+        }
+        NumberUtils.checkLongAddLimit(offset, length);
+        if (offset < previous) {
+            throw new IllegalArgumentException(String.format("Spans are not sorted: %s < %s", offset, previous));
+        }
+    }
+
+    /**
+     * Computes the max end of the subtree for the range.
+     *
+     * @param lo the start of the range, inclusive.
+     * @param hi the end of the range, exclusive.
+     * @return the max end of the range or Long.MIN_VALUE if it is empty.
+     */
+    private long augment(final int lo, final int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        final int mid = (lo + hi) >>> 1;
+        final long max = Math.max(getEnd(mid), Math.max(augment(lo, mid), augment(mid + 1, hi)));
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    /**
+     * Gets the number of spans in the index.
+     *
+     * @return the number of spans.
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Gets a span by its position in offset order.
+     *
+     * @param index the position.
+     * @return the span.
+     */
+    public LongSpan get(final int index) {
+        return LongSpan.fromLength(offsets[index], lengths[index]);
+    }
+
+    /**
+     * Gets the offset of a span without creating it.
+     *
+     * @param index the position.
+     * @return the offset.
+     */
+    public long getOffset(final int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Gets the length of a span without creating it.
+     *
+     * @param index the position.
+     * @return the length.
+     */
+    public long getLength(final int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Gets the end of a span without creating it.
+     *
+     * @param index the position.
+     * @return the end.
+     */
+    public long getEnd(final int index) {
+        return (offsets[index] + lengths[index]) - 1;
+    }
+
+    /**
+     * Gets the offset column. Used when writing the index.
+     *
+     * @return the offsets, not a copy.
+     */
+    /* package private */ long[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * Gets the length column. Used when writing the index.
+     *
+     * @return the lengths, not a copy.
+     */
+    /* package private */ long[] lengths() {
+        return lengths;
+    }
+
+    /**
+     * Gets the max end augmentation column. Used when writing the index.
+     *
+     * @return the max ends, not a copy.
+     */
+    /* package private */ long[] maxEnds() {
+        return maxEnds;
+    }
+
+    /**
+     * Visits the positions of the spans that overlap the query, in offset order.
+     * Empty spans never overlap.
+     *
+     * @param query  the query.
+     * @param action receives the position of each overlapping span.
+     * @return the number of overlapping spans.
+     */
+    public int overlapping(final LongSpan query, final IntConsumer action) {
+        if (query.getLength() == 0) {
+            return 0;
+        }
+        return search(0, offsets.length, query.getOffset(), query.getEnd(), action);
+    }
+
+    /**
+     * Gets the spans that overlap the query.
+     *
+     * @param query the query.
+     * @return the overlapping spans in offset order.
+     */
+    public List<LongSpan> overlapping(final LongSpan query) {
+        final List<LongSpan> result = new ArrayList<>();
+        overlapping(query, i -> result.add(get(i)));
+        return result;
+    }
+
+    /**
+     * Counts the spans that overlap the query.
+     *
+     * @param query the query.
+     * @return the number of overlapping spans.
+     */
+    public int countOverlapping(final LongSpan query) {
+        return overlapping(query, i -> {
+        });
+    }
+
+    /**
+     * Searches the subtree for the range.
+     *
+     * @param lo     the start of the range, inclusive.
+     * @param hi     the end of the range, exclusive.
+     * @param start  the query start.
+     * @param end    the query end.
+     * @param action receives each overlapping position.
+     * @return the number of overlapping spans.
+     */
+    private int search(final int lo, final int hi, final long start, final long end, final IntConsumer action) {
+        if (lo >= hi) {
+            return 0;
+        }
+        final int mid = (lo + hi) >>> 1;
+        if (maxEnds[mid] < start) {
+            return 0;
+        }
+        int count = search(lo, mid, start, end, action);
+        if (offsets[mid] <= end) {
+            if ((lengths[mid] > 0) && (getEnd(mid) >= start)) {
+                action.accept(mid);
+                count++;
+            }
+            count += search(mid + 1, hi, start, end, action);
+        }
+        return count;
+    }
+
+    /**
+     * Fork join version of the augmentation.
+     */
+    private class AugmentTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        /**
+         * The start of the range, inclusive.
+         */
+        private final int lo;
+        /**
+         * The end of the range, exclusive.
+         */
+        private final int hi;
+
+        /**
+         * Constructor.
+         *
+         * @param lo the start of the range, inclusive.
+         * @param hi the end of the range, exclusive.
+         */
+        AugmentTask(final int lo, final int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Long compute() {
+            if ((hi - lo) < PARALLEL_THRESHOLD) {
+                return augment(lo, hi);
+            }
+            final int mid = (lo + hi) >>> 1;
+            final AugmentTask left = new AugmentTask(lo, mid);
+            left.fork();
+            final long right = new AugmentTask(mid + 1, hi).compute();
+            final long max = Math.max(getEnd(mid), Math.max(left.join(), right));
+            maxEnds[mid] = max;
+            return max;
+        }
+    }
+}
@@ -0,0 +1,630 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A durable LongSpanSet backed by an append only journal of add and remove
+ * records.
+ * <p>
+ * Each record is a type byte, the span in the LongSpanCodec encoding and a
+ * CRC32 of the preceding bytes. Records are buffered and forced to disk every
+ * {@code syncInterval} records, on {@link #sync()} and on close; records after
+ * the last sync may be lost in a crash. On open the snapshot is loaded and the
+ * journal replayed, and the journal is truncated at the first torn or corrupt
+ * record.
+ * </p>
+ * <p>
+ * Compaction runs on a background thread. The journal is renamed to
+ * {@value #COMPACTING_FILE} and a new journal started, then the set as it was at
+ * the rename is written to a temporary file that is renamed over the snapshot,
+ * and finally the renamed journal is deleted. Replaying add and remove records
+ * is idempotent so a crash between any two steps recovers the same set. If a
+ * compaction fails, the journal stays open and the renamed journal is kept
+ * until a later compaction writes a snapshot.
+ * </p>
+ * <p>
+ * A failure of an automatic compaction is reported by the next add, remove or
+ * close. A compaction started with {@link #compact()} reports its failure
+ * through the returned Future.
+ * </p>
+ */
+public class LongSpanJournal implements Closeable {
+
+    /**
+     * Record type for an added span.
+     */
+    public static final byte ADD = 1;
+    /**
+     * Record type for a removed span.
+     */
+    public static final byte REMOVE = 2;
+    /**
+     * The number of bytes in a journal record.
+     */
+    public static final int RECORD_BYTES = 1 + LongSpanCodec.BYTES + Integer.BYTES;
+    /**
+     * The name of the journal file.
+     */
+    public static final String LOG_FILE = "spans.log";
+    /**
+     * The name of a journal that is being compacted.
+     */
+    public static final String COMPACTING_FILE = "spans.log.compacting";
+    /**
+     * The name of the snapshot file.
+     */
+    public static final String SNAPSHOT_FILE = "spans.snapshot";
+    /**
+     * The name of a snapshot that is being written.
+     */
+    private static final String SNAPSHOT_TEMP_FILE = "spans.snapshot.tmp";
+    /**
+     * The magic number at the start of a snapshot ("LSSN").
+     */
+    private static final int SNAPSHOT_MAGIC = 0x4C53534E;
+    /**
+     * The snapshot format version.
+     */
+    private static final int SNAPSHOT_VERSION = 1;
+    /**
+     * The default number of records between forced writes.
+     */
+    public static final int DEFAULT_SYNC_INTERVAL = 64;
+    /**
+     * The default number of journal records that triggers a compaction.
+     */
+    public static final long DEFAULT_COMPACT_THRESHOLD = 1 << 16;
+
+    /**
+     * The directory holding the files.
+     */
+    private final File directory;
+    /**
+     * The number of records between forced writes.
+     */
+    private final int syncInterval;
+    /**
+     * The number of journal records that triggers a compaction.
+     */
+    private final long compactThreshold;
+    /**
+     * The current set.
+     */
+    private final LongSpanSet set = new LongSpanSet();
+    /**
+     * The buffer used to encode a record.
+     */
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    /**
+     * The checksum used to encode a record.
+     */
+    private final CRC32 crc = new CRC32();
+    /**
+     * The thread that runs compactions.
+     */
+    private final ExecutorService compactor;
+    /**
+     * The journal file stream.
+     */
+    private FileOutputStream logStream;
+    /**
+     * The buffered journal output.
+     */
+    private BufferedOutputStream logOut;
+    /**
+     * The number of records written since the last sync.
+     */
+    private int unsynced;
+    /**
+     * The number of records in the current journal.
+     */
+    private long logRecords;
+    /**
+     * The most recently scheduled compaction.
+     */
+    private Future<?> pendingCompaction;
+    /**
+     * The failure of the last automatic compaction, not yet reported.
+     */
+    private IOException compactionFailure;
+    /**
+     * True once the journal is closed.
+     */
+    private boolean closed;
+
+    /**
+     * Constructor using the default sync interval and compaction threshold.
+     *
+     * @param directory the directory holding the files.
+     * @throws IOException on error.
+     */
+    public LongSpanJournal(final File directory) throws IOException {
+        this(directory, DEFAULT_SYNC_INTERVAL, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    /**
+     * Constructor. Recovers the set from any files in the directory.
+     *
+     * @param directory        the directory holding the files.
+     * @param syncInterval     the number of records between forced writes.
+     * @param compactThreshold the number of journal records that triggers a
+     *                         background compaction.
+     * @throws IOException on error.
+     */
+    public LongSpanJournal(final File directory, final int syncInterval, final long compactThreshold)
+            throws IOException {
+        if (syncInterval < 1) {
+            throw new IllegalArgumentException("Sync interval must be greater than zero: " + syncInterval);
+        }
+        if (compactThreshold < 1) {
+            throw new IllegalArgumentException("Compact threshold must be greater than zero: " + compactThreshold);
+        }
+        this.directory = directory;
+        this.syncInterval = syncInterval;
+        this.compactThreshold = compactThreshold;
+        recover();
+        compactor = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "LongSpanJournal compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the snapshot and replays the journals.
+     *
+     * @throws IOException on error.
+     */
+    private void recover() throws IOException {
+        Files.deleteIfExists(file(SNAPSHOT_TEMP_FILE).toPath());
+        final File snapshot = file(SNAPSHOT_FILE);
+        if (snapshot.exists()) {
+            readSnapshot(snapshot);
+        }
+        final File compacting = file(COMPACTING_FILE);
+        if (compacting.exists()) {
+            replay(compacting, false);
+        }
+        final File log = file(LOG_FILE);
+        if (log.exists()) {
+            logRecords = replay(log, true);
+        }
+        if (compacting.exists()) {
+            // finish the interrupted compaction; the current journal is replayed
+            // over the new snapshot on the next open.
+            writeSnapshot(set.toList());
+            Files.delete(compacting.toPath());
+        }
+        openLog();
+    }
+
+    /**
+     * Gets a file in the journal directory.
+     *
+     * @param name the file name.
+     * @return the file.
+     */
+    private File file(final String name) {
+        return new File(directory, name);
+    }
+
+    /**
+     * Opens the journal for appending.
+     *
+     * @throws IOException on error.
+     */
+    private void openLog() throws IOException {
+        logStream = new FileOutputStream(file(LOG_FILE), true);
+        logOut = new BufferedOutputStream(logStream, RECORD_BYTES * Math.min(syncInterval, 1024));
+    }
+
+    /**
+     * Replays a journal into the set.
+     *
+     * @param log      the journal.
+     * @param truncate true if the journal should be truncated at a torn record.
+     * @return the number of valid records.
+     * @throws IOException on error.
+     */
+    private long replay(final File log, final boolean truncate) throws IOException {
+        final byte[] buffer = new byte[RECORD_BYTES];
+        final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+        long count = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(log))) {
+            while (readFully(in, buffer)) {
+                crc.reset();
+                crc.update(buffer, 0, RECORD_BYTES - Integer.BYTES);
+                final byte type = wrapped.get(0);
+                final long offset = wrapped.getLong(1);
+                final long length = wrapped.getLong(1 + Long.BYTES);
+                if ((wrapped.getInt(RECORD_BYTES - Integer.BYTES) != (int) crc.getValue())
+                        || ((type != ADD) && (type != REMOVE)) || (length < 0)
+                        || ((Long.MAX_VALUE - length) < offset)) {
+                    break;
+                }
+                apply(type, offset, length);
+                count++;
+            }
+        }
+        final long valid = count * RECORD_BYTES;
+        if (truncate && (log.length() > valid)) {
+            try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+                raf.setLength(valid);
+                raf.getFD().sync();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads a full record.
+     *
+     * @param in     the input.
+     * @param buffer the record buffer.
+     * @return true if a full record was read, false at end of file or on a partial
+     *         record.
+     * @throws IOException on error.
+     */
+    private static boolean readFully(final InputStream in, final byte[] buffer) throws IOException {
+        int pos = 0;
+        while (pos < buffer.length) {
+            final int read = in.read(buffer, pos, buffer.length - pos);
+            if (read < 0) {
+                return false;
+            }
+            pos += read;
+        }
+        return true;
+    }
+
+    /**
+     * Applies a record to the set.
+     *
+     * @param type   the record type.
+     * @param offset the span offset.
+     * @param length the span length.
+     * @return true if the set changed.
+     */
+    private boolean apply(final byte type, final long offset, final long length) {
+        return type == ADD ? set.add(offset, length) : set.remove(offset, length);
+    }
+
+    /**
+     * Reads a snapshot into the set.
+     *
+     * @param snapshot the snapshot file.
+     * @throws IOException if the snapshot can not be read or is corrupt.
+     */
+    private void readSnapshot(final File snapshot) throws IOException {
+        final CRC32 checksum = new CRC32();
+        try (DataInputStream in = new DataInputStream(
+                new CheckedInputStream(new BufferedInputStream(new FileInputStream(snapshot)), checksum))) {
+            if ((in.readInt() != SNAPSHOT_MAGIC) || (in.readInt() != SNAPSHOT_VERSION)) {
+                throw new IOException("Not a span snapshot: " + snapshot);
+            }
+            final long count = in.readLong();
+            for (long i = 0; i < count; i++) {
+                final long offset = in.readLong();
+                final long length = in.readLong();
+                LongSpanCodec.validate(offset, length);
+                set.add(offset, length);
+            }
+            final long expected = checksum.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + snapshot);
+            }
+        } catch (final EOFException e) {
+            throw new IOException("Truncated snapshot: " + snapshot, e);
+        }
+    }
+
+    /**
+     * Writes a snapshot to a temporary file and renames it over the snapshot.
+     *
+     * @param spans the normalized spans.
+     * @throws IOException on error.
+     */
+    private void writeSnapshot(final List<LongSpan> spans) throws IOException {
+        final File temp = file(SNAPSHOT_TEMP_FILE);
+        final CRC32 checksum = new CRC32();
+        try (FileOutputStream fos = new FileOutputStream(temp)) {
+            final DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(fos), checksum));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(spans.size());
+            for (final LongSpan span : spans) {
+                LongSpanCodec.write(out, span);
+            }
+            out.writeLong(checksum.getValue());
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(temp.toPath(), file(SNAPSHOT_FILE).toPath(), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+    }
+
+    /**
+     * Forces the directory entries to disk so that a rename survives a crash.
+     * Platforms that cannot open a directory as a channel are ignored.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (final IOException e) {
+            // not supported on this platform.
+        }
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param span the span to add.
+     * @return true if the set changed.
+     * @throws IOException on error.
+     */
+    public boolean add(final LongSpan span) throws IOException {
+        return add(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param offset the offset of the span.
+     * @param length the length of the span.
+     * @return true if the set changed.
+     * @throws IOException on error.
+     */
+    public synchronized boolean add(final long offset, final long length) throws IOException {
+        append(ADD, offset, length);
+        return set.add(offset, length);
+    }
+
+    /**
+     * Removes a span.
+     *
+     * @param span the span to remove.
+     * @return true if the set changed.
+     * @throws IOException on error.
+     */
+    public boolean remove(final LongSpan span) throws IOException {
+        return remove(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Removes a span.
+     *
+     * @param offset the offset of the span.
+     * @param length the length of the span.
+     * @return true if the set changed.
+     * @throws IOException on error.
+     */
+    public synchronized boolean remove(final long offset, final long length) throws IOException {
+        append(REMOVE, offset, length);
+        return set.remove(offset, length);
+    }
+
+    /**
+     * Appends a record to the journal.
+     *
+     * @param type   the record type.
+     * @param offset the span offset.
+     * @param length the span length.
+     * @throws IOException on error.
+     */
+    private void append(final byte type, final long offset, final long length) throws IOException {
+        checkOpen();
+        reportCompactionFailure();
+        if (length < 0) {
+            throw new IndexOutOfBoundsException("Length may not be less than zero: " + length);
+        }
+        NumberUtils.checkLongAddLimit(offset, length);
+        record.clear();
+        record.put(type).putLong(offset).putLong(length);
+        crc.reset();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue());
+        logOut.write(record.array(), 0, RECORD_BYTES);
+        logRecords++;
+        if (++unsynced >= syncInterval) {
+            sync();
+        }
+        if ((logRecords >= compactThreshold) && !compactor.isShutdown()
+                && ((pendingCompaction == null) || pendingCompaction.isDone())) {
+            pendingCompaction = compactor.submit(() -> {
+                try {
+                    runCompaction();
+                } catch (final IOException | RuntimeException e) {
+                    synchronized (this) {
+                        compactionFailure = e instanceof IOException ? (IOException) e
+                                : new IOException("Compaction failed", e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Throws the failure of the last automatic compaction, if any, once.
+     *
+     * @throws IOException the compaction failure.
+     */
+    private void reportCompactionFailure() throws IOException {
+        final IOException failure = compactionFailure;
+        if (failure != null) {
+            compactionFailure = null;
+            throw new IOException("Background compaction failed", failure);
+        }
+    }
+
+    /**
+     * Forces buffered records to disk.
+     *
+     * @throws IOException on error.
+     */
+    public synchronized void sync() throws IOException {
+        checkOpen();
+        logOut.flush();
+        logStream.getChannel().force(false);
+        unsynced = 0;
+    }
+
+    /**
+     * Verifies the journal is open.
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    /**
+     * Schedules a compaction on the background thread.
+     *
+     * @return the future for the compaction.
+     * @throws IllegalStateException if the journal is closing or closed.
+     */
+    public synchronized Future<?> compact() {
+        checkOpen();
+        if (compactor.isShutdown()) {
+            throw new IllegalStateException("Journal is closing");
+        }
+        return compactor.submit(this::runCompaction);
+    }
+
+    /**
+     * Renames the journal, starts a new one and writes the snapshot. If the
+     * renamed journal of a failed compaction is still present it is not replaced;
+     * the snapshot covers it and the current journal replays idempotently over
+     * the snapshot.
+     *
+     * @return null.
+     * @throws IOException on error.
+     */
+    private Void runCompaction() throws IOException {
+        final List<LongSpan> spans;
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+            if (!file(COMPACTING_FILE).exists()) {
+                sync();
+                logOut.close();
+                try {
+                    Files.move(file(LOG_FILE).toPath(), file(COMPACTING_FILE).toPath(),
+                            StandardCopyOption.ATOMIC_MOVE);
+                    logRecords = 0;
+                } finally {
+                    openLog();
+                }
+                syncDirectory();
+            }
+            spans = set.toList();
+        }
+        writeSnapshot(spans);
+        Files.delete(file(COMPACTING_FILE).toPath());
+        return null;
+    }
+
+    /**
+     * Returns true if the position is in the set.
+     *
+     * @param pos the position.
+     * @return true if the position is in the set.
+     */
+    public synchronized boolean contains(final long pos) {
+        return set.contains(pos);
+    }
+
+    /**
+     * Gets the normalized spans.
+     *
+     * @return a copy of the spans in offset order.
+     */
+    public synchronized List<LongSpan> getSpans() {
+        return set.toList();
+    }
+
+    /**
+     * Gets the number of positions in the set.
+     *
+     * @return the covered length.
+     */
+    public synchronized long getCoveredLength() {
+        return set.getCoveredLength();
+    }
+
+    /**
+     * Gets the number of records in the current journal.
+     *
+     * @return the number of records since the last compaction.
+     */
+    public synchronized long getLogRecords() {
+        return logRecords;
+    }
+
+    /**
+     * Waits for any running compaction, then syncs and closes the journal.
+     *
+     * @throws IOException on error.
+     */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (!closed) {
+                sync();
+                closed = true;
+                logOut.close();
+                reportCompactionFailure();
+            }
+        }
+    }
+}
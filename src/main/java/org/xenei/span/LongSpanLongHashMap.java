@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+/**
+ * A map from spans, keyed by offset and length, to long values stored in
+ * primitive arrays without per entry objects. Typical uses are counting
+ * duplicate spans or mapping spans to record numbers. This class is not thread
+ * safe.
+ */
+public class LongSpanLongHashMap extends AbstractLongSpanHashTable {
+
+    /**
+     * Receives map entries.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Accepts an entry.
+         *
+         * @param offset the key offset.
+         * @param length the key length.
+         * @param value  the value.
+         */
+        void accept(long offset, long length, long value);
+    }
+
+    /**
+     * Constructor.
+     */
+    public LongSpanLongHashMap() {
+        this(16);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param expected the expected number of entries.
+     */
+    public LongSpanLongHashMap(final int expected) {
+        super(expected, true);
+    }
+
+    /**
+     * Gets the value for a span.
+     *
+     * @param offset       the key offset.
+     * @param length       the key length.
+     * @param defaultValue the value to return if the span is not in the map.
+     * @return the value or defaultValue.
+     */
+    public long get(final long offset, final long length, final long defaultValue) {
+        final int slot = find(offset, length);
+        return slot < 0 ? defaultValue : values[slot];
+    }
+
+    /**
+     * Gets the value for a span.
+     *
+     * @param span         the key.
+     * @param defaultValue the value to return if the span is not in the map.
+     * @return the value or defaultValue.
+     */
+    public long get(final LongSpan span, final long defaultValue) {
+        return get(span.getOffset(), span.getLength(), defaultValue);
+    }
+
+    /**
+     * Returns true if the span is a key in the map.
+     *
+     * @param offset the key offset.
+     * @param length the key length.
+     * @return true if the map contains the span.
+     */
+    public boolean containsKey(final long offset, final long length) {
+        return find(offset, length) >= 0;
+    }
+
+    /**
+     * Sets the value for a span.
+     *
+     * @param offset the key offset.
+     * @param length the key length.
+     * @param value  the value.
+     * @return true if the span was not already in the map.
+     */
+    public boolean put(final long offset, final long length, final long value) {
+        check(offset, length);
+        int slot = find(offset, length);
+        final boolean added = slot < 0;
+        if (added) {
+            slot = insert(slot, offset, length);
+        }
+        values[slot] = value;
+        return added;
+    }
+
+    /**
+     * Sets the value for a span.
+     *
+     * @param span  the key.
+     * @param value the value.
+     * @return true if the span was not already in the map.
+     */
+    public boolean put(final LongSpan span, final long value) {
+        return put(span.getOffset(), span.getLength(), value);
+    }
+
+    /**
+     * Adds to the value for a span. A span not in the map starts at zero.
+     *
+     * @param offset the key offset.
+     * @param length the key length.
+     * @param delta  the amount to add.
+     * @return the new value.
+     */
+    public long addTo(final long offset, final long length, final long delta) {
+        check(offset, length);
+        int slot = find(offset, length);
+        if (slot < 0) {
+            slot = insert(slot, offset, length);
+            values[slot] = 0;
+        }
+        values[slot] += delta;
+        return values[slot];
+    }
+
+    /**
+     * Removes a span.
+     *
+     * @param offset the key offset.
+     * @param length the key length.
+     * @return true if the span was in the map.
+     */
+    public boolean remove(final long offset, final long length) {
+        final int slot = find(offset, length);
+        if (slot < 0) {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+
+    /**
+     * Passes each entry to the consumer in no particular order.
+     *
+     * @param consumer the consumer.
+     */
+    public void forEach(final EntryConsumer consumer) {
+        for (int i = 0; i < capacity(); i++) {
+            if (used[i]) {
+                consumer.accept(offsets[i], lengths[i], values[i]);
+            }
+        }
+    }
+}
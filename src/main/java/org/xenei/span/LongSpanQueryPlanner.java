@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plans overlap queries over a collection of span segments using their zone
+ * maps.
+ * <p>
+ * Segments are registered with their {@link LongSpanZoneMap}. A plan lists only
+ * the segments, and the blocks within them, that may hold a span overlapping
+ * the query; everything else can be skipped without being read.
+ * </p>
+ *
+ * @param <S> the type that identifies a segment, for example a file.
+ */
+public class LongSpanQueryPlanner<S> {
+
+    /**
+     * The registered segments.
+     */
+    private final List<S> segments = new ArrayList<>();
+    /**
+     * The zone maps of the registered segments.
+     */
+    private final List<LongSpanZoneMap> zoneMaps = new ArrayList<>();
+
+    /**
+     * Registers a segment.
+     *
+     * @param segment the segment identifier.
+     * @param zoneMap the zone map for the segment.
+     */
+    public void add(final S segment, final LongSpanZoneMap zoneMap) {
+        segments.add(segment);
+        zoneMaps.add(zoneMap);
+    }
+
+    /**
+     * Gets the number of registered segments.
+     *
+     * @return the number of segments.
+     */
+    public int size() {
+        return segments.size();
+    }
+
+    /**
+     * Plans a query.
+     *
+     * @param query the query span.
+     * @return the segments and blocks to scan, in registration order.
+     */
+    public List<Candidate<S>> plan(final LongSpan query) {
+        final List<Candidate<S>> result = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            final LongSpanZoneMap zoneMap = zoneMaps.get(i);
+            if (zoneMap.mayOverlap(query)) {
+                final int[] blocks = zoneMap.candidateBlocks(query);
+                if (blocks.length > 0) {
+                    result.add(new Candidate<>(segments.get(i), zoneMap, blocks));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A segment that must be scanned for a query.
+     *
+     * @param <S> the type that identifies a segment.
+     */
+    public static class Candidate<S> {
+        /**
+         * The segment.
+         */
+        private final S segment;
+        /**
+         * The zone map of the segment.
+         */
+        private final LongSpanZoneMap zoneMap;
+        /**
+         * The blocks to scan.
+         */
+        private final int[] blocks;
+
+        /**
+         * Constructor.
+         *
+         * @param segment the segment.
+         * @param zoneMap the zone map of the segment.
+         * @param blocks  the blocks to scan.
+         */
+        Candidate(final S segment, final LongSpanZoneMap zoneMap, final int[] blocks) {
+            this.segment = segment;
+            this.zoneMap = zoneMap;
+            this.blocks = blocks;
+        }
+
+        /**
+         * Gets the segment.
+         *
+         * @return the segment.
+         */
+        public S getSegment() {
+            return segment;
+        }
+
+        /**
+         * Gets the zone map for the segment.
+         *
+         * @return the zone map.
+         */
+        public LongSpanZoneMap getZoneMap() {
+            return zoneMap;
+        }
+
+        /**
+         * Gets the indexes of the blocks to scan.
+         *
+         * @return the block indexes in order.
+         */
+        public int[] getBlocks() {
+            return blocks.clone();
+        }
+
+        /**
+         * Gets the index of the first span in a block.
+         *
+         * @param block the block index.
+         * @return the index of the first span of the block within the segment.
+         */
+        public long getFirstSpanIndex(final int block) {
+            return (long) block * zoneMap.getBlockSize();
+        }
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable R-tree over LongSpanBoxes, bulk loaded with Sort-Tile-Recursive
+ * packing.
+ * <p>
+ * Each level is sorted into tiles: the items are sorted by the center of the
+ * first axis and cut into slabs, each slab is sorted by the next axis and so
+ * on, and runs of nodeCapacity items become the children of one node. The
+ * bounds of every level are held in primitive columns, so a query only reads
+ * arrays. Queries report the positions of the matching boxes in the build
+ * collection. Empty boxes are counted by size() but never match.
+ * </p>
+ */
+public class LongSpanRTree {
+
+    /**
+     * The default number of children per node.
+     */
+    public static final int DEFAULT_NODE_CAPACITY = 16;
+
+    /**
+     * The boxes in build order.
+     */
+    private final LongSpanBox[] boxes;
+    /**
+     * The number of dimensions.
+     */
+    private final int dimensions;
+    /**
+     * The low bound of each item on each level, indexed by item * dimensions +
+     * axis. Level 0 holds the boxes.
+     */
+    private final long[][] mins;
+    /**
+     * The high bound of each item on each level.
+     */
+    private final long[][] maxs;
+    /**
+     * The position of the first child of each item on each level. On level 0 it
+     * is the position of the box in the build collection.
+     */
+    private final int[][] firstChild;
+    /**
+     * The position after the last child of each item on each level above 0.
+     */
+    private final int[][] lastChild;
+
+    /**
+     * Constructor.
+     *
+     * @param boxes        the boxes.
+     * @param nodeCapacity the number of children per node.
+     */
+    private LongSpanRTree(final LongSpanBox[] boxes, final int nodeCapacity) {
+        this.boxes = boxes;
+        this.dimensions = boxes.length == 0 ? 0 : boxes[0].getDimensions();
+        int count = 0;
+        for (final LongSpanBox box : boxes) {
+            if (box.getDimensions() != dimensions) {
+                throw new IllegalArgumentException(
+                        String.format("Expected %s dimensions but was %s", dimensions, box.getDimensions()));
+            }
+            if (!box.isEmpty()) {
+                count++;
+            }
+        }
+        final List<long[]> levelMins = new ArrayList<>();
+        final List<long[]> levelMaxs = new ArrayList<>();
+        final List<int[]> levelFirst = new ArrayList<>();
+        final List<int[]> levelLast = new ArrayList<>();
+
+        long[] lo = new long[count * dimensions];
+        long[] hi = new long[count * dimensions];
+        int[] first = new int[count];
+        int[] last = null;
+        int item = 0;
+        for (int i = 0; i < boxes.length; i++) {
+            if (!boxes[i].isEmpty()) {
+                for (int d = 0; d < dimensions; d++) {
+                    lo[(item * dimensions) + d] = boxes[i].getOffset(d);
+                    hi[(item * dimensions) + d] = boxes[i].getEnd(d);
+                }
+                first[item++] = i;
+            }
+        }
+        while (count > 0) {
+            // tile the level and reorder its columns to match.
+            final int[] perm = SpanArrays.identity(count);
+            tile(perm, 0, count, 0, lo, hi, nodeCapacity);
+            final long[] sortedLo = new long[lo.length];
+            final long[] sortedHi = new long[hi.length];
+            final int[] sortedFirst = new int[count];
+            final int[] sortedLast = last == null ? null : new int[count];
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(lo, perm[i] * dimensions, sortedLo, i * dimensions, dimensions);
+                System.arraycopy(hi, perm[i] * dimensions, sortedHi, i * dimensions, dimensions);
+                sortedFirst[i] = first[perm[i]];
+                if (last != null) {
+                    sortedLast[i] = last[perm[i]];
+                }
+            }
+            levelMins.add(sortedLo);
+            levelMaxs.add(sortedHi);
+            levelFirst.add(sortedFirst);
+            levelLast.add(sortedLast);
+            if (count == 1) {
+                break;
+            }
+            // build the parent level.
+            final int parents = ((count - 1) / nodeCapacity) + 1;
+            lo = new long[parents * dimensions];
+            hi = new long[parents * dimensions];
+            first = new int[parents];
+            last = new int[parents];
+            for (int p = 0; p < parents; p++) {
+                first[p] = p * nodeCapacity;
+                last[p] = Math.min(count, first[p] + nodeCapacity);
+                for (int d = 0; d < dimensions; d++) {
+                    long min = Long.MAX_VALUE;
+                    long max = Long.MIN_VALUE;
+                    for (int c = first[p]; c < last[p]; c++) {
+                        min = Math.min(min, sortedLo[(c * dimensions) + d]);
+                        max = Math.max(max, sortedHi[(c * dimensions) + d]);
+                    }
+                    lo[(p * dimensions) + d] = min;
+                    hi[(p * dimensions) + d] = max;
+                }
+            }
+            count = parents;
+        }
+        mins = levelMins.toArray(new long[levelMins.size()][]);
+        maxs = levelMaxs.toArray(new long[levelMaxs.size()][]);
+        firstChild = levelFirst.toArray(new int[levelFirst.size()][]);
+        lastChild = levelLast.toArray(new int[levelLast.size()][]);
+    }
+
+    /**
+     * Builds a tree with the default node capacity.
+     *
+     * @param boxes the boxes, all with the same number of dimensions.
+     * @return the tree.
+     * @throws IllegalArgumentException if the boxes differ in dimensions.
+     */
+    public static LongSpanRTree build(final Collection<LongSpanBox> boxes) {
+        return build(boxes, DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * Builds a tree.
+     *
+     * @param boxes        the boxes, all with the same number of dimensions.
+     * @param nodeCapacity the number of children per node.
+     * @return the tree.
+     * @throws IllegalArgumentException if the boxes differ in dimensions or the
+     *                                  node capacity is less than 2.
+     */
+    public static LongSpanRTree build(final Collection<LongSpanBox> boxes, final int nodeCapacity) {
+        if (nodeCapacity < 2) {
+            throw new IllegalArgumentException("Node capacity must be at least 2: " + nodeCapacity);
+        }
+        return new LongSpanRTree(boxes.toArray(new LongSpanBox[boxes.size()]), nodeCapacity);
+    }
+
+    /**
+     * Sorts a range of the permutation into Sort-Tile-Recursive order.
+     *
+     * @param perm         the permutation of the level items.
+     * @param from         the first position, inclusive.
+     * @param to           the last position, exclusive.
+     * @param axis         the axis to sort on.
+     * @param lo           the low bounds of the items.
+     * @param hi           the high bounds of the items.
+     * @param nodeCapacity the number of children per node.
+     */
+    private void tile(final int[] perm, final int from, final int to, final int axis, final long[] lo,
+            final long[] hi, final int nodeCapacity) {
+        final int dims = dimensions;
+        SpanArrays.sort(perm, from, to, (a, b) -> Long.compare(center(lo, hi, (a * dims) + axis),
+                center(lo, hi, (b * dims) + axis)));
+        if ((axis + 1) == dimensions) {
+            return;
+        }
+        final int nodes = (((to - from) - 1) / nodeCapacity) + 1;
+        final int slabs = (int) Math.ceil(Math.pow(nodes, 1.0 / (dimensions - axis)));
+        final int slabSize = (((nodes - 1) / slabs) + 1) * nodeCapacity;
+        for (int start = from; start < to; start += slabSize) {
+            tile(perm, start, Math.min(to, start + slabSize), axis + 1, lo, hi, nodeCapacity);
+        }
+    }
+
+    /**
+     * Calculates the center of an item on an axis without overflow.
+     *
+     * @param lo    the low bounds.
+     * @param hi    the high bounds.
+     * @param index the item and axis index.
+     * @return the center.
+     */
+    private static long center(final long[] lo, final long[] hi, final int index) {
+        return (lo[index] >> 1) + (hi[index] >> 1) + (lo[index] & hi[index] & 1);
+    }
+
+    /**
+     * Gets the number of boxes in the tree.
+     *
+     * @return the number of boxes.
+     */
+    public int size() {
+        return boxes.length;
+    }
+
+    /**
+     * Gets a box by its position in the build collection.
+     *
+     * @param index the position.
+     * @return the box.
+     */
+    public LongSpanBox get(final int index) {
+        return boxes[index];
+    }
+
+    /**
+     * Gets the number of levels in the tree.
+     *
+     * @return the height, 0 if there are no non-empty boxes.
+     */
+    public int getHeight() {
+        return mins.length;
+    }
+
+    /**
+     * Visits the positions of the boxes that overlap the query.
+     *
+     * @param query  the query box.
+     * @param action receives the build position of each overlapping box.
+     * @return the number of overlapping boxes.
+     * @throws IllegalArgumentException if the query differs in dimensions.
+     */
+    public int overlapping(final LongSpanBox query, final IntConsumer action) {
+        checkDimensions(query.getDimensions());
+        if ((mins.length == 0) || query.isEmpty()) {
+            return 0;
+        }
+        final long[] qlo = new long[dimensions];
+        final long[] qhi = new long[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            qlo[d] = query.getOffset(d);
+            qhi[d] = query.getEnd(d);
+        }
+        final int root = mins.length - 1;
+        return intersects(root, 0, qlo, qhi) ? search(root, 0, qlo, qhi, action) : 0;
+    }
+
+    /**
+     * Gets the boxes that overlap the query.
+     *
+     * @param query the query box.
+     * @return the overlapping boxes.
+     */
+    public List<LongSpanBox> overlapping(final LongSpanBox query) {
+        final List<LongSpanBox> result = new ArrayList<>();
+        overlapping(query, i -> result.add(boxes[i]));
+        return result;
+    }
+
+    /**
+     * Counts the boxes that overlap the query.
+     *
+     * @param query the query box.
+     * @return the number of overlapping boxes.
+     */
+    public int countOverlapping(final LongSpanBox query) {
+        return overlapping(query, i -> {
+        });
+    }
+
+    /**
+     * Visits the positions of the boxes that contain a point.
+     *
+     * @param action      receives the build position of each containing box.
+     * @param coordinates the coordinate on each axis.
+     * @return the number of containing boxes.
+     */
+    public int containing(final IntConsumer action, final long... coordinates) {
+        return overlapping(LongSpanBox.point(coordinates), action);
+    }
+
+    /**
+     * Gets the boxes that contain a point.
+     *
+     * @param coordinates the coordinate on each axis.
+     * @return the containing boxes.
+     */
+    public List<LongSpanBox> containing(final long... coordinates) {
+        return overlapping(LongSpanBox.point(coordinates));
+    }
+
+    /**
+     * Verifies the number of dimensions of a query.
+     *
+     * @param queryDimensions the number of dimensions of the query.
+     */
+    private void checkDimensions(final int queryDimensions) {
+        if ((boxes.length > 0) && (queryDimensions != dimensions)) {
+            throw new IllegalArgumentException(
+                    String.format("Expected %s dimensions but was %s", dimensions, queryDimensions));
+        }
+    }
+
+    /**
+     * Checks if an item overlaps the query.
+     *
+     * @param level the level.
+     * @param item  the item on the level.
+     * @param qlo   the query low bounds.
+     * @param qhi   the query high bounds.
+     * @return true if they overlap.
+     */
+    private boolean intersects(final int level, final int item, final long[] qlo, final long[] qhi) {
+        final long[] lo = mins[level];
+        final long[] hi = maxs[level];
+        final int base = item * dimensions;
+        for (int d = 0; d < dimensions; d++) {
+            if ((lo[base + d] > qhi[d]) || (hi[base + d] < qlo[d])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Searches the children of an item that overlaps the query.
+     *
+     * @param level  the level.
+     * @param item   the item on the level.
+     * @param qlo    the query low bounds.
+     * @param qhi    the query high bounds.
+     * @param action receives the build position of each overlapping box.
+     * @return the number of overlapping boxes.
+     */
+    private int search(final int level, final int item, final long[] qlo, final long[] qhi,
+            final IntConsumer action) {
+        if (level == 0) {
+            action.accept(firstChild[0][item]);
+            return 1;
+        }
+        int count = 0;
+        for (int child = firstChild[level][item]; child < lastChild[level][item]; child++) {
+            if (intersects(level - 1, child, qlo, qhi)) {
+                count += search(level - 1, child, qlo, qhi, action);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A mutable set of positions stored as normalized LongSpans: the spans are
+ * non empty, do not overlap, are not adjacent and are kept in offset order.
+ * <p>
+ * Adding a span merges it with any spans it overlaps or touches. Removing a
+ * span trims or splits the spans it overlaps. Both operations are idempotent.
+ * This class is not thread safe.
+ * </p>
+ */
+public class LongSpanSet implements Iterable<LongSpan> {
+
+    /**
+     * The spans as offset to end.
+     */
+    private final TreeMap<Long, Long> spans = new TreeMap<>();
+    /**
+     * The number of positions in the set.
+     */
+    private long coveredLength;
+
+    /**
+     * Constructor.
+     */
+    public LongSpanSet() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param spans the spans to add.
+     */
+    public LongSpanSet(final Iterable<? extends LongSpan> spans) {
+        for (final LongSpan span : spans) {
+            add(span);
+        }
+    }
+
+    /**
+     * Adds the positions of a span.
+     *
+     * @param span the span to add.
+     * @return true if the set changed.
+     */
+    public boolean add(final LongSpan span) {
+        return add(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Adds the positions of a span.
+     *
+     * @param offset the offset of the span.
+     * @param length the length of the span.
+     * @return true if the set changed.
+     */
+    public boolean add(final long offset, final long length) {
+        check(offset, length);
+        if (length == 0) {
+            return false;
+        }
+        long start = offset;
+        long end = (offset + length) - 1;
+        final Map.Entry<Long, Long> floor = spans.floorEntry(offset);
+        if (floor != null) {
+            if (floor.getValue() >= end) {
+                return false;
+            }
+            if ((floor.getValue() >= offset) || (floor.getValue() == (offset - 1))) {
+                start = floor.getKey();
+            }
+        }
+        // absorb every span from the merged floor onward that starts within or
+        // directly after the new span.
+        Map.Entry<Long, Long> entry = spans.ceilingEntry(start);
+        while ((entry != null) && ((entry.getKey() <= end) || ((entry.getKey() - 1) == end))) {
+            end = Math.max(end, entry.getValue());
+            coveredLength -= (entry.getValue() - entry.getKey()) + 1;
+            spans.remove(entry.getKey());
+            entry = spans.higherEntry(entry.getKey());
+        }
+        spans.put(start, end);
+        coveredLength += (end - start) + 1;
+        return true;
+    }
+
+    /**
+     * Removes the positions of a span.
+     *
+     * @param span the span to remove.
+     * @return true if the set changed.
+     */
+    public boolean remove(final LongSpan span) {
+        return remove(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Removes the positions of a span.
+     *
+     * @param offset the offset of the span.
+     * @param length the length of the span.
+     * @return true if the set changed.
+     */
+    public boolean remove(final long offset, final long length) {
+        check(offset, length);
+        if (length == 0) {
+            return false;
+        }
+        final long end = (offset + length) - 1;
+        boolean changed = false;
+        final Map.Entry<Long, Long> floor = spans.lowerEntry(offset);
+        if ((floor != null) && (floor.getValue() >= offset)) {
+            // trim the span that starts before the removed span.
+            spans.put(floor.getKey(), offset - 1);
+            coveredLength -= (floor.getValue() - offset) + 1;
+            if (floor.getValue() > end) {
+                spans.put(end + 1, floor.getValue());
+                coveredLength += floor.getValue() - end;
+                return true;
+            }
+            changed = true;
+        }
+        Map.Entry<Long, Long> entry = spans.ceilingEntry(offset);
+        while ((entry != null) && (entry.getKey() <= end)) {
+            spans.remove(entry.getKey());
+            coveredLength -= (entry.getValue() - entry.getKey()) + 1;
+            if (entry.getValue() > end) {
+                spans.put(end + 1, entry.getValue());
+                coveredLength += entry.getValue() - end;
+            }
+            changed = true;
+            entry = spans.higherEntry(entry.getKey());
+        }
+        return changed;
+    }
+
+    /**
+     * Verifies the span values.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     */
+    private static void check(final long offset, final long length) {
+        if (length < 0) {
+            throw new IndexOutOfBoundsException("Length may not be less than zero: " + length);
+        }
+        NumberUtils.checkLongAddLimit(offset, length);
+    }
+
+    /**
+     * Returns true if the position is in the set.
+     *
+     * @param pos the position.
+     * @return true if a span contains the position.
+     */
+    public boolean contains(final long pos) {
+        final Map.Entry<Long, Long> floor = spans.floorEntry(pos);
+        return (floor != null) && (floor.getValue() >= pos);
+    }
+
+    /**
+     * Gets the number of normalized spans.
+     *
+     * @return the number of spans.
+     */
+    public int size() {
+        return spans.size();
+    }
+
+    /**
+     * Returns true if the set contains no positions.
+     *
+     * @return true if empty.
+     */
+    public boolean isEmpty() {
+        return spans.isEmpty();
+    }
+
+    /**
+     * Gets the number of positions in the set.
+     *
+     * @return the covered length.
+     */
+    public long getCoveredLength() {
+        return coveredLength;
+    }
+
+    /**
+     * Removes all the positions.
+     */
+    public void clear() {
+        spans.clear();
+        coveredLength = 0;
+    }
+
+    /**
+     * Writes each span to the sink in offset order.
+     *
+     * @param sink the sink.
+     */
+    public void forEach(final LongSpanSink sink) {
+        for (final Map.Entry<Long, Long> entry : spans.entrySet()) {
+            sink.accept(entry.getKey(), (entry.getValue() - entry.getKey()) + 1);
+        }
+    }
+
+    /**
+     * Creates a list of the spans.
+     *
+     * @return the spans in offset order.
+     */
+    public List<LongSpan> toList() {
+        final List<LongSpan> result = new ArrayList<>(spans.size());
+        forEach((offset, length) -> result.add(LongSpan.fromLength(offset, length)));
+        return result;
+    }
+
+    @Override
+    public Iterator<LongSpan> iterator() {
+        final Iterator<Map.Entry<Long, Long>> iter = spans.entrySet().iterator();
+        return new Iterator<LongSpan>() {
+            @Override
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            @Override
+            public LongSpan next() {
+                final Map.Entry<Long, Long> entry = iter.next();
+                return LongSpan.fromEnd(entry.getKey(), entry.getValue());
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return spans.toString();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Receives spans as primitive offset and length pairs so that results can be
+ * produced without creating LongSpan objects.
+ */
+@FunctionalInterface
+public interface LongSpanSink {
+
+    /**
+     * Accepts a span.
+     *
+     * @param offset the offset of the span.
+     * @param length the length of the span.
+     */
+    void accept(long offset, long length);
+
+    /**
+     * A sink that packs the spans into a reusable long array as offset, length
+     * pairs.
+     */
+    public static class Packed implements LongSpanSink {
+
+        /**
+         * The packed offset and length pairs.
+         */
+        private long[] buffer;
+        /**
+         * The number of spans in the buffer.
+         */
+        private int count;
+
+        /**
+         * Constructor.
+         */
+        public Packed() {
+            this(4);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param capacity the initial number of spans the sink can hold.
+         */
+        public Packed(final int capacity) {
+            buffer = new long[Math.max(1, capacity) * 2];
+        }
+
+        @Override
+        public void accept(final long offset, final long length) {
+            if ((count * 2) == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[count * 2] = offset;
+            buffer[(count * 2) + 1] = length;
+            count++;
+        }
+
+        /**
+         * Gets the number of spans in the sink.
+         *
+         * @return the number of spans.
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Removes all the spans. The buffer is retained.
+         */
+        public void clear() {
+            count = 0;
+        }
+
+        /**
+         * Gets the offset of a span.
+         *
+         * @param index the span index.
+         * @return the offset.
+         */
+        public long getOffset(final int index) {
+            checkIndex(index);
+            return buffer[index * 2];
+        }
+
+        /**
+         * Gets the length of a span.
+         *
+         * @param index the span index.
+         * @return the length.
+         */
+        public long getLength(final int index) {
+            checkIndex(index);
+            return buffer[(index * 2) + 1];
+        }
+
+        /**
+         * Gets the packed offset and length pairs.
+         *
+         * @return a copy of the pairs.
+         */
+        public long[] toArray() {
+            return Arrays.copyOf(buffer, count * 2);
+        }
+
+        /**
+         * Creates LongSpans for the contents of the sink.
+         *
+         * @return the spans.
+         */
+        public List<LongSpan> toList() {
+            final List<LongSpan> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(LongSpan.fromLength(buffer[i * 2], buffer[(i * 2) + 1]));
+            }
+            return result;
+        }
+
+        /**
+         * Verifies the index is within the sink.
+         *
+         * @param index the index to check.
+         */
+        private void checkIndex(final int index) {
+            if ((index < 0) || (index >= count)) {
+                throw new IndexOutOfBoundsException(String.format("Index %s not in [0,%s)", index, count));
+            }
+        }
+    }
+}
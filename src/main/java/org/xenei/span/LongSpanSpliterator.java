@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A Spliterator that divides a LongSpan into aligned chunks.
+ * <p>
+ * Chunk boundaries fall on multiples of the chunk size, where the chunk size is
+ * the requested size rounded up to a multiple of the alignment. The first and
+ * last chunks may therefore be shorter than the chunk size. Splitting divides
+ * the remaining chunks in half so that fork-join tasks are evenly balanced.
+ * </p>
+ */
+public class LongSpanSpliterator implements Spliterator<LongSpan> {
+
+    /**
+     * The offset of the span being chunked.
+     */
+    private final long offset;
+    /**
+     * The end of the span being chunked.
+     */
+    private final long end;
+    /**
+     * The effective chunk size.
+     */
+    private final long chunkSize;
+    /**
+     * The index of the next chunk to return.
+     */
+    private long lo;
+    /**
+     * The index of the last chunk to return.
+     */
+    private long hi;
+
+    /**
+     * Constructor.
+     *
+     * @param span      The span to divide.
+     * @param chunkSize The target size of each chunk.
+     * @param alignment The alignment boundary. The chunk size is rounded up to a
+     *                  multiple of this value.
+     * @throws IllegalArgumentException if chunkSize or alignment is not positive.
+     */
+    public LongSpanSpliterator(final LongSpan span, final long chunkSize, final long alignment) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be greater than zero: " + chunkSize);
+        }
+        if (alignment < 1) {
+            throw new IllegalArgumentException("Alignment must be greater than zero: " + alignment);
+        }
+        final long remainder = chunkSize % alignment;
+        this.chunkSize = remainder == 0 ? chunkSize
+                : NumberUtils.checkLongAddLimit(chunkSize, alignment - remainder);
+        this.offset = span.getOffset();
+        this.end = span.getEnd();
+        if (span.getLength() == 0) {
+            this.lo = 0;
+            this.hi = -1;
+        } else {
+            this.lo = Math.floorDiv(offset, this.chunkSize);
+            this.hi = Math.floorDiv(end, this.chunkSize);
+        }
+    }
+
+    /**
+     * Private constructor used when splitting.
+     */
+    private LongSpanSpliterator(final long offset, final long end, final long chunkSize, final long lo,
+            final long hi) {
+        this.offset = offset;
+        this.end = end;
+        this.chunkSize = chunkSize;
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    /**
+     * Creates a stream of aligned chunks covering the span.
+     *
+     * @param span      The span to divide.
+     * @param chunkSize The target size of each chunk.
+     * @param alignment The alignment boundary.
+     * @param parallel  if true the stream is parallel.
+     * @return A stream of chunks in offset order.
+     */
+    public static Stream<LongSpan> stream(final LongSpan span, final long chunkSize, final long alignment,
+            final boolean parallel) {
+        return StreamSupport.stream(new LongSpanSpliterator(span, chunkSize, alignment), parallel);
+    }
+
+    /**
+     * Creates a stream of every position within the span. The stream is SIZED and
+     * SUBSIZED so that parallel streams split evenly.
+     *
+     * @param span The span to iterate.
+     * @return a stream of positions from the offset to the end inclusive.
+     */
+    public static LongStream positions(final LongSpan span) {
+        if (span.getLength() == 0) {
+            return LongStream.empty();
+        }
+        return LongStream.rangeClosed(span.getOffset(), span.getEnd());
+    }
+
+    /**
+     * Gets the effective chunk size after alignment.
+     *
+     * @return the chunk size.
+     */
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Create the chunk at the index.
+     *
+     * @param idx the chunk index.
+     * @return the chunk span.
+     */
+    private LongSpan chunk(final long idx) {
+        // idx * chunkSize can not overflow for any chunk that starts inside the span.
+        final long chunkOffset = idx == Math.floorDiv(offset, chunkSize) ? offset : idx * chunkSize;
+        final long chunkEnd = idx == Math.floorDiv(end, chunkSize) ? end : (idx * chunkSize) + (chunkSize - 1);
+        return LongSpan.fromEnd(chunkOffset, chunkEnd);
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super LongSpan> action) {
+        if (lo > hi) {
+            return false;
+        }
+        action.accept(chunk(lo++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super LongSpan> action) {
+        while (lo <= hi) {
+            action.accept(chunk(lo++));
+        }
+    }
+
+    @Override
+    public Spliterator<LongSpan> trySplit() {
+        final long remaining = estimateSize();
+        if (remaining < 2) {
+            return null;
+        }
+        final long mid = lo + (remaining / 2);
+        final LongSpanSpliterator prefix = new LongSpanSpliterator(offset, end, chunkSize, lo, mid - 1);
+        lo = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return hi < lo ? 0 : (hi - lo) + 1;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL
+                | Spliterator.IMMUTABLE | Spliterator.DISTINCT;
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+/**
+ * A summary of a group of spans: the number of spans, the lowest offset, the
+ * highest end and the number of positions covered by at least one span.
+ * <p>
+ * Summaries are used as zone maps. A query that does not overlap the bounds of
+ * a summary can not overlap any of the spans it summarizes.
+ * </p>
+ */
+public class LongSpanSummary {
+
+    /**
+     * The summary of no spans.
+     */
+    public static final LongSpanSummary EMPTY = new LongSpanSummary(0, LongSpan.EMPTY, 0);
+
+    /**
+     * The number of spans.
+     */
+    private final long count;
+    /**
+     * The span from the lowest offset to the highest end.
+     */
+    private final LongSpan bounds;
+    /**
+     * The number of covered positions.
+     */
+    private final long coveredLength;
+
+    /**
+     * Constructor.
+     *
+     * @param count         the number of spans.
+     * @param bounds        the span from the lowest offset to the highest end.
+     * @param coveredLength the number of covered positions.
+     */
+    public LongSpanSummary(final long count, final LongSpan bounds, final long coveredLength) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count may not be less than zero: " + count);
+        }
+        if ((coveredLength < 0) || (coveredLength > bounds.getLength())) {
+            throw new IllegalArgumentException("Covered length must be between 0 and the bounds length");
+        }
+        this.count = count;
+        this.bounds = bounds;
+        this.coveredLength = coveredLength;
+    }
+
+    /**
+     * Gets the number of spans summarized.
+     *
+     * @return the number of spans.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the lowest offset.
+     *
+     * @return the lowest offset.
+     */
+    public long getMinOffset() {
+        return bounds.getOffset();
+    }
+
+    /**
+     * Gets the highest end.
+     *
+     * @return the highest end.
+     */
+    public long getMaxEnd() {
+        return bounds.getEnd();
+    }
+
+    /**
+     * Gets the span from the lowest offset to the highest end. Empty spans do not
+     * contribute to the bounds.
+     *
+     * @return the bounds.
+     */
+    public LongSpan getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Gets the number of positions covered by at least one span.
+     *
+     * @return the covered length.
+     */
+    public long getCoveredLength() {
+        return coveredLength;
+    }
+
+    /**
+     * Return true if any of the summarized spans may overlap the query.
+     *
+     * @param query the query span.
+     * @return false if no summarized span can overlap the query.
+     */
+    public boolean mayOverlap(final LongSpan query) {
+        return (bounds.getLength() > 0) && (query.getLength() > 0) && bounds.overlaps(query);
+    }
+
+    /**
+     * Return true if every position in the query is covered by a summarized span.
+     * This can only be determined when the summarized spans cover their bounds
+     * completely.
+     *
+     * @param query the query span.
+     * @return true if the query is known to be covered.
+     */
+    public boolean covers(final LongSpan query) {
+        return (bounds.getLength() > 0) && (coveredLength == bounds.getLength())
+                && bounds.contains(query.getOffset()) && bounds.contains(query.getEnd());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[count=%s, bounds=%s, covered=%s]", getClass().getSimpleName(), count, bounds,
+                coveredLength);
+    }
+
+    /**
+     * Builds a summary from spans added in offset order.
+     */
+    public static class Builder {
+        /**
+         * The number of spans.
+         */
+        private long count;
+        /**
+         * True if a non empty span has been added.
+         */
+        private boolean hasBounds;
+        /**
+         * The lowest offset.
+         */
+        private long minOffset;
+        /**
+         * The highest end.
+         */
+        private long maxEnd;
+        /**
+         * The offset of the last span added.
+         */
+        private long lastOffset = Long.MIN_VALUE;
+        /**
+         * The covered length.
+         */
+        private long covered;
+
+        /**
+         * Adds a span.
+         *
+         * @param span the span to add.
+         * @return this builder for chaining.
+         * @throws IllegalArgumentException if the span offset is less than the
+         *                                  previous offset.
+         */
+        public Builder add(final LongSpan span) {
+            return add(span.getOffset(), span.getLength());
+        }
+
+        /**
+         * Adds a span.
+         *
+         * @param offset the offset of the span.
+         * @param length the length of the span.
+         * @return this builder for chaining.
+         * @throws IllegalArgumentException if the offset is less than the previous
+         *                                  offset.
+         */
+        public Builder add(final long offset, final long length) {
+            if (offset < lastOffset) {
+                throw new IllegalArgumentException(
+                        String.format("Spans must be added in offset order: %s < %s", offset, lastOffset));
+            }
+            lastOffset = offset;
+            count++;
+            if (length == 0) {
+                return this;
+            }
+            final long end = (offset + length) - 1;
+            if (!hasBounds) {
+                hasBounds = true;
+                minOffset = offset;
+                maxEnd = end;
+                covered = length;
+            } else if (end > maxEnd) {
+                // only the part after the current max end is newly covered.
+                covered += offset <= maxEnd ? end - maxEnd : length;
+                maxEnd = end;
+            }
+            return this;
+        }
+
+        /**
+         * Gets the number of spans added.
+         *
+         * @return the count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Builds the summary.
+         *
+         * @return the summary of the spans added.
+         */
+        public LongSpanSummary build() {
+            return new LongSpanSummary(count, hasBounds ? LongSpan.fromEnd(minOffset, maxEnd) : LongSpan.EMPTY,
+                    covered);
+        }
+    }
+}
@@ -0,0 +1,469 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A streaming parser for text span records.
+ * <p>
+ * Each line holds one record in one of two forms:
+ * </p>
+ * <ul>
+ * <li>{@code offset,length}</li>
+ * <li>{@code [offset,end]} optionally preceded by a name, as produced by
+ * {@link LongSpan#toString(LongSpan)}. An end of {@code -empty-} denotes a zero
+ * length span.</li>
+ * </ul>
+ * <p>
+ * Blank lines are skipped. The parser reads through a fixed character buffer
+ * and does not create a String per line. The current record is exposed through
+ * {@link #getOffset()} and {@link #getLength()} and is replaced by each call to
+ * {@link #next()}.
+ * </p>
+ * <p>
+ * Byte channels are decoded one byte per character so only ASCII text is
+ * supported from that source.
+ * </p>
+ */
+public class LongSpanTextReader implements Closeable {
+
+    /**
+     * The default size of the character buffer.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The text used to denote an empty span.
+     */
+    private static final String EMPTY = "-empty-";
+
+    /**
+     * The character source.
+     */
+    private final Source source;
+    /**
+     * The character buffer.
+     */
+    private final char[] buffer;
+    /**
+     * The next position to read in the buffer.
+     */
+    private int pos;
+    /**
+     * The number of valid characters in the buffer.
+     */
+    private int limit;
+    /**
+     * The line number of the current record, 1 based.
+     */
+    private long lineNumber;
+    /**
+     * The current offset.
+     */
+    private long offset;
+    /**
+     * The current length.
+     */
+    private long length;
+
+    /**
+     * Constructor.
+     *
+     * @param reader The reader to parse.
+     */
+    public LongSpanTextReader(final Reader reader) {
+        this(new Source() {
+            @Override
+            public int fill(final char[] buff, final int off, final int len) throws IOException {
+                return reader.read(buff, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        });
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param charBuffer The character buffer to parse.
+     */
+    public LongSpanTextReader(final CharBuffer charBuffer) {
+        this(new Source() {
+            @Override
+            public int fill(final char[] buff, final int off, final int len) {
+                if (!charBuffer.hasRemaining()) {
+                    return -1;
+                }
+                final int count = Math.min(len, charBuffer.remaining());
+                charBuffer.get(buff, off, count);
+                return count;
+            }
+
+            @Override
+            public void close() {
+                // nothing to close.
+            }
+        });
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param channel The ASCII byte channel to parse.
+     */
+    public LongSpanTextReader(final ReadableByteChannel channel) {
+        this(new Source() {
+            private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+            @Override
+            public int fill(final char[] buff, final int off, final int len) throws IOException {
+                bytes.clear();
+                bytes.limit(Math.min(len, bytes.capacity()));
+                int count = 0;
+                while (count == 0) {
+                    count = channel.read(bytes);
+                }
+                if (count < 0) {
+                    return -1;
+                }
+                bytes.flip();
+                for (int i = 0; i < count; i++) {
+                    buff[off + i] = (char) (bytes.get() & 0xFF);
+                }
+                return count;
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        });
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param source the character source.
+     */
+    private LongSpanTextReader(final Source source) {
+        this.source = source;
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return true if a record was read, false at the end of the input.
+     * @throws IOException on read error or if the record is malformed.
+     */
+    public boolean next() throws IOException {
+        int c;
+        do {
+            c = skipSpace();
+            if (c == '\n') {
+                lineNumber++;
+                pos++;
+            }
+        } while (c == '\n');
+        if (c < 0) {
+            return false;
+        }
+        lineNumber++;
+        if (isNumberStart(c)) {
+            offset = parseLong();
+            expect(',');
+            skipSpace();
+            length = parseLong();
+            if (length < 0) {
+                throw error("Length may not be less than zero");
+            }
+        } else {
+            while ((c = peek()) != '[') {
+                if ((c < 0) || (c == '\n')) {
+                    throw error("Missing '['");
+                }
+                pos++;
+            }
+            pos++;
+            skipSpace();
+            offset = parseLong();
+            expect(',');
+            c = skipSpace();
+            if (c == EMPTY.charAt(0) && !isNumberStart(peekAhead())) {
+                for (int i = 0; i < EMPTY.length(); i++) {
+                    if (read() != EMPTY.charAt(i)) {
+                        throw error("Invalid end");
+                    }
+                }
+                length = 0;
+            } else {
+                final long end = parseLong();
+                try {
+                    length = Math.addExact(Math.subtractExact(end, offset), 1);
+                } catch (final ArithmeticException e) {
+                    throw error("Length exceeds Long.MAX_VALUE");
+                }
+                if (length < 0) {
+                    throw error("End may not be less than offset - 1");
+                }
+            }
+            expect(']');
+        }
+        if ((length > 0) && ((Long.MAX_VALUE - length) < offset)) {
+            throw error("Length + offset > Long.MAX_VALUE");
+        }
+        c = skipSpace();
+        if (c == '\n') {
+            pos++;
+        } else if (c >= 0) {
+            throw error("Unexpected character '" + (char) c + "'");
+        }
+        return true;
+    }
+
+    /**
+     * Gets the offset of the current record.
+     *
+     * @return the offset.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the length of the current record.
+     *
+     * @return the length.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the end of the current record.
+     *
+     * @return the end.
+     */
+    public long getEnd() {
+        return (offset + length) - 1;
+    }
+
+    /**
+     * Gets the line number of the current record.
+     *
+     * @return the 1 based line number.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Creates a LongSpan from the current record.
+     *
+     * @return a new LongSpan.
+     */
+    public LongSpan toSpan() {
+        return LongSpan.fromLength(offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Create the exception for a malformed record.
+     *
+     * @param msg the message.
+     * @return the exception to throw.
+     */
+    private IOException error(final String msg) {
+        return new IOException(String.format("%s at line %s", msg, lineNumber));
+    }
+
+    /**
+     * Determines if the character can begin a number.
+     *
+     * @param c the character
+     * @return true if it is a sign or a digit.
+     */
+    private static boolean isNumberStart(final int c) {
+        return (c == '-') || (c == '+') || ((c >= '0') && (c <= '9'));
+    }
+
+    /**
+     * Ensures the buffer has data.
+     *
+     * @return true if there is data to read.
+     * @throws IOException on read error.
+     */
+    private boolean ensure() throws IOException {
+        while (pos >= limit) {
+            final int count = source.fill(buffer, 0, buffer.length);
+            if (count < 0) {
+                return false;
+            }
+            pos = 0;
+            limit = count;
+        }
+        return true;
+    }
+
+    /**
+     * Peek at the next character.
+     *
+     * @return the next character or -1 at the end of input.
+     * @throws IOException on read error.
+     */
+    private int peek() throws IOException {
+        return ensure() ? buffer[pos] : -1;
+    }
+
+    /**
+     * Peek at the character after the next character. Used to distinguish a
+     * negative number from {@code -empty-}.
+     *
+     * @return the character after the next or -1 if not available.
+     * @throws IOException on read error.
+     */
+    private int peekAhead() throws IOException {
+        if (!ensure()) {
+            return -1;
+        }
+        if ((pos + 1) >= limit) {
+            // move the remaining character to the front and fill the rest.
+            buffer[0] = buffer[pos];
+            pos = 0;
+            limit = 1;
+            final int count = source.fill(buffer, 1, buffer.length - 1);
+            if (count < 0) {
+                return -1;
+            }
+            limit += count;
+        }
+        return buffer[pos + 1];
+    }
+
+    /**
+     * Read the next character.
+     *
+     * @return the next character or -1 at the end of input.
+     * @throws IOException on read error.
+     */
+    private int read() throws IOException {
+        return ensure() ? buffer[pos++] : -1;
+    }
+
+    /**
+     * Skips spaces, tabs and carriage returns.
+     *
+     * @return the next non space character without consuming it.
+     * @throws IOException on read error.
+     */
+    private int skipSpace() throws IOException {
+        int c = peek();
+        while ((c == ' ') || (c == '\t') || (c == '\r')) {
+            pos++;
+            c = peek();
+        }
+        return c;
+    }
+
+    /**
+     * Verifies that the next non space character is the expected one and consumes
+     * it.
+     *
+     * @param expected the expected character.
+     * @throws IOException if the character is not found.
+     */
+    private void expect(final char expected) throws IOException {
+        if (skipSpace() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        pos++;
+    }
+
+    /**
+     * Parses a signed long value.
+     *
+     * @return the value.
+     * @throws IOException if the value is malformed or out of range.
+     */
+    private long parseLong() throws IOException {
+        int c = peek();
+        boolean negative = false;
+        if ((c == '-') || (c == '+')) {
+            negative = c == '-';
+            pos++;
+            c = peek();
+        }
+        if ((c < '0') || (c > '9')) {
+            throw error("Expected digit");
+        }
+        // accumulate negatively so that Long.MIN_VALUE can be parsed.
+        long result = 0;
+        while ((c >= '0') && (c <= '9')) {
+            final int digit = c - '0';
+            if ((result < (Long.MIN_VALUE / 10)) || ((result * 10) < (Long.MIN_VALUE + digit))) {
+                throw error("Number out of range");
+            }
+            result = (result * 10) - digit;
+            pos++;
+            c = peek();
+        }
+        if (negative) {
+            return result;
+        }
+        if (result == Long.MIN_VALUE) {
+            throw error("Number out of range");
+        }
+        return -result;
+    }
+
+    /**
+     * The source of characters.
+     */
+    private interface Source {
+        /**
+         * Fills a region of the buffer.
+         *
+         * @param buff the buffer to fill.
+         * @param off  the position of the first character to fill.
+         * @param len  the maximum number of characters to fill.
+         * @return the number of characters read or -1 at the end of input.
+         * @throws IOException on read error.
+         */
+        int fill(char[] buff, int off, int len) throws IOException;
+
+        /**
+         * Closes the source.
+         *
+         * @throws IOException on error.
+         */
+        void close() throws IOException;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Writes span records in the text formats read by {@link LongSpanTextReader}.
+ * <p>
+ * Numbers are formatted into a reusable character array so no Strings are
+ * created per record. Each record is followed by a newline.
+ * </p>
+ */
+public class LongSpanTextWriter implements Flushable {
+
+    /**
+     * The record formats.
+     */
+    public enum Format {
+        /**
+         * {@code offset,length}
+         */
+        OFFSET_LENGTH,
+        /**
+         * {@code [offset,end]} with {@code -empty-} as the end of an empty span.
+         */
+        OFFSET_END
+    }
+
+    /**
+     * The text used to denote an empty span.
+     */
+    private static final String EMPTY = "-empty-";
+
+    /**
+     * The destination.
+     */
+    private final Appendable out;
+    /**
+     * The format to write.
+     */
+    private final Format format;
+    /**
+     * The scratch buffer for formatting numbers.
+     */
+    private final char[] digits = new char[20];
+
+    /**
+     * Constructor.
+     *
+     * @param out    The destination for the records.
+     * @param format The format to write.
+     */
+    public LongSpanTextWriter(final Appendable out, final Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * Writes a span record.
+     *
+     * @param span the span to write.
+     * @throws IOException on error.
+     */
+    public void write(final LongSpan span) throws IOException {
+        write(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Writes a span record.
+     *
+     * @param offset the offset of the span.
+     * @param length the length of the span.
+     * @throws IOException on error.
+     */
+    public void write(final long offset, final long length) throws IOException {
+        if (format == Format.OFFSET_LENGTH) {
+            append(offset);
+            out.append(',');
+            append(length);
+        } else {
+            out.append('[');
+            append(offset);
+            out.append(',');
+            if (length > 0) {
+                append((offset + length) - 1);
+            } else {
+                out.append(EMPTY);
+            }
+            out.append(']');
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Appends a long value to the destination.
+     *
+     * @param value the value to append.
+     * @throws IOException on error.
+     */
+    private void append(final long value) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+            return;
+        }
+        // work with negative values so that Long.MIN_VALUE is handled.
+        long v = value > 0 ? -value : value;
+        int pos = digits.length;
+        do {
+            digits[--pos] = (char) ('0' - (v % 10));
+            v /= 10;
+        } while (v != 0);
+        if (value < 0) {
+            out.append('-');
+        }
+        for (int i = pos; i < digits.length; i++) {
+            out.append(digits[i]);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out instanceof Flushable) {
+            ((Flushable) out).flush();
+        }
+    }
+
+}
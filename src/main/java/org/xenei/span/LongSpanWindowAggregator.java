@@ -0,0 +1,380 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Arrays;
+
+/**
+ * Aggregates a stream of LongSpans over a sliding window that ends at a
+ * watermark.
+ * <p>
+ * The window is [watermark - windowLength + 1, watermark]. Spans are expected
+ * in roughly increasing offset order; adding a span with an offset beyond the
+ * watermark moves the watermark to that offset. A span expires when its end is
+ * before the start of the window. Unexpired spans are held in a primitive
+ * min-heap on their ends so that eviction costs O(log n) per expired span and
+ * the active count is O(1).
+ * </p>
+ * <p>
+ * Coverage is held as a deque of disjoint, non adjacent runs in offset order.
+ * Only the first run can start before the window and only the last run can
+ * extend past the watermark, so the covered length of the window is O(1). A
+ * late span only touches the runs at the tail that it overlaps. This class is
+ * not thread safe.
+ * </p>
+ */
+public class LongSpanWindowAggregator {
+
+    /**
+     * The number of positions in the window.
+     */
+    private final long windowLength;
+    /**
+     * Receives expired spans, may be null.
+     */
+    private final LongSpanSink expiryListener;
+    /**
+     * The last position in the window.
+     */
+    private long watermark = Long.MIN_VALUE;
+    /**
+     * True once the watermark has been set.
+     */
+    private boolean started;
+
+    /**
+     * The heap of span ends.
+     */
+    private long[] heapEnds = new long[16];
+    /**
+     * The span offsets, parallel to heapEnds.
+     */
+    private long[] heapOffsets = new long[16];
+    /**
+     * The number of spans in the heap.
+     */
+    private int heapSize;
+
+    /**
+     * The run starts as a ring buffer.
+     */
+    private long[] runStarts = new long[16];
+    /**
+     * The run ends, parallel to runStarts.
+     */
+    private long[] runEnds = new long[16];
+    /**
+     * The index of the first run.
+     */
+    private int runHead;
+    /**
+     * The number of runs.
+     */
+    private int runCount;
+    /**
+     * The sum of the full lengths of the runs.
+     */
+    private long runLength;
+    /**
+     * Holds runs set aside while a late span is merged.
+     */
+    private long[] scratch = new long[8];
+
+    /**
+     * Constructor.
+     *
+     * @param windowLength the number of positions in the window.
+     */
+    public LongSpanWindowAggregator(final long windowLength) {
+        this(windowLength, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param windowLength   the number of positions in the window.
+     * @param expiryListener receives each span as it expires, may be null.
+     */
+    public LongSpanWindowAggregator(final long windowLength, final LongSpanSink expiryListener) {
+        if (windowLength < 1) {
+            throw new IllegalArgumentException("Window length must be greater than zero: " + windowLength);
+        }
+        this.windowLength = windowLength;
+        this.expiryListener = expiryListener;
+    }
+
+    /**
+     * Gets the number of positions in the window.
+     *
+     * @return the window length.
+     */
+    public long getWindowLength() {
+        return windowLength;
+    }
+
+    /**
+     * Gets the last position in the window.
+     *
+     * @return the watermark.
+     */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Gets the first position in the window.
+     *
+     * @return the window start.
+     */
+    public long getWindowStart() {
+        final long start = watermark - (windowLength - 1);
+        return start > watermark ? Long.MIN_VALUE : start;
+    }
+
+    /**
+     * Gets the number of spans that have not expired.
+     *
+     * @return the active count.
+     */
+    public int getActiveCount() {
+        return heapSize;
+    }
+
+    /**
+     * Gets the end of the next span to expire.
+     *
+     * @return the smallest end of the active spans, or Long.MAX_VALUE if there are
+     *         none.
+     */
+    public long getNextExpiry() {
+        return heapSize == 0 ? Long.MAX_VALUE : heapEnds[0];
+    }
+
+    /**
+     * Gets the number of positions in the window covered by at least one span.
+     *
+     * @return the covered length.
+     */
+    public long getCoveredLength() {
+        if (runCount == 0) {
+            return 0;
+        }
+        final long windowStart = getWindowStart();
+        final long first = runStarts[runHead];
+        final long last = runEnds[(runHead + runCount - 1) & (runStarts.length - 1)];
+        long result = runLength;
+        if (first < windowStart) {
+            result -= windowStart - first;
+        }
+        if (last > watermark) {
+            result -= last - watermark;
+        }
+        return result;
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param span the span.
+     * @return true if the span was added, false if it is empty or has already
+     *         expired.
+     */
+    public boolean add(final LongSpan span) {
+        return add(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     * @return true if the span was added, false if it is empty or has already
+     *         expired.
+     */
+    public boolean add(final long offset, final long length) {
+        if (length < 0) {
+            throw new IndexOutOfBoundsException("Length may not be less than zero: " + length);
+        }
+        NumberUtils.checkLongAddLimit(offset, length);
+        if (length == 0) {
+            return false;
+        }
+        if (!started || (offset > watermark)) {
+            advance(offset);
+        }
+        final long end = (offset + length) - 1;
+        if (end < getWindowStart()) {
+            return false;
+        }
+        push(offset, end);
+        addRun(offset, end);
+        return true;
+    }
+
+    /**
+     * Moves the watermark forward and expires the spans that end before the new
+     * window start. A watermark before the current one is ignored.
+     *
+     * @param newWatermark the new watermark.
+     * @return the number of spans expired.
+     */
+    public int advance(final long newWatermark) {
+        if (started && (newWatermark <= watermark)) {
+            return 0;
+        }
+        started = true;
+        watermark = newWatermark;
+        final long windowStart = getWindowStart();
+        int expired = 0;
+        while ((heapSize > 0) && (heapEnds[0] < windowStart)) {
+            final long end = heapEnds[0];
+            final long offset = heapOffsets[0];
+            pop();
+            expired++;
+            if (expiryListener != null) {
+                expiryListener.accept(offset, (end - offset) + 1);
+            }
+        }
+        final int mask = runStarts.length - 1;
+        while ((runCount > 0) && (runEnds[runHead] < windowStart)) {
+            runLength -= (runEnds[runHead] - runStarts[runHead]) + 1;
+            runHead = (runHead + 1) & mask;
+            runCount--;
+        }
+        return expired;
+    }
+
+    /**
+     * Pushes a span onto the heap.
+     *
+     * @param offset the offset.
+     * @param end    the end.
+     */
+    private void push(final long offset, final long end) {
+        if (heapSize == heapEnds.length) {
+            heapEnds = Arrays.copyOf(heapEnds, heapSize * 2);
+            heapOffsets = Arrays.copyOf(heapOffsets, heapSize * 2);
+        }
+        int pos = heapSize++;
+        while (pos > 0) {
+            final int parent = (pos - 1) >>> 1;
+            if (heapEnds[parent] <= end) {
+                break;
+            }
+            heapEnds[pos] = heapEnds[parent];
+            heapOffsets[pos] = heapOffsets[parent];
+            pos = parent;
+        }
+        heapEnds[pos] = end;
+        heapOffsets[pos] = offset;
+    }
+
+    /**
+     * Removes the smallest end from the heap.
+     */
+    private void pop() {
+        heapSize--;
+        final long end = heapEnds[heapSize];
+        final long offset = heapOffsets[heapSize];
+        int pos = 0;
+        while (true) {
+            int child = (pos * 2) + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (((child + 1) < heapSize) && (heapEnds[child + 1] < heapEnds[child])) {
+                child++;
+            }
+            if (heapEnds[child] >= end) {
+                break;
+            }
+            heapEnds[pos] = heapEnds[child];
+            heapOffsets[pos] = heapOffsets[child];
+            pos = child;
+        }
+        heapEnds[pos] = end;
+        heapOffsets[pos] = offset;
+    }
+
+    /**
+     * Merges a span into the coverage runs.
+     *
+     * @param offset the offset.
+     * @param end    the end.
+     */
+    private void addRun(final long offset, final long end) {
+        final int mask = runStarts.length - 1;
+        // set aside the runs entirely after the span and not touching it. A run
+        // that starts at Long.MIN_VALUE can not be after the span.
+        int kept = 0;
+        while ((runCount > 0) && (runStarts[(runHead + runCount - 1) & mask] != Long.MIN_VALUE)
+                && ((runStarts[(runHead + runCount - 1) & mask] - 1) > end)) {
+            final int tail = (runHead + runCount - 1) & mask;
+            if ((kept * 2) == scratch.length) {
+                scratch = Arrays.copyOf(scratch, scratch.length * 2);
+            }
+            scratch[kept * 2] = runStarts[tail];
+            scratch[(kept * 2) + 1] = runEnds[tail];
+            runLength -= (runEnds[tail] - runStarts[tail]) + 1;
+            kept++;
+            runCount--;
+        }
+        // merge the runs that overlap or touch the span. Every remaining run
+        // touches a span that starts at Long.MIN_VALUE.
+        long start = offset;
+        long stop = end;
+        while ((runCount > 0) && ((start == Long.MIN_VALUE)
+                || (runEnds[(runHead + runCount - 1) & mask] >= (start - 1)))) {
+            final int tail = (runHead + runCount - 1) & mask;
+            start = Math.min(start, runStarts[tail]);
+            stop = Math.max(stop, runEnds[tail]);
+            runLength -= (runEnds[tail] - runStarts[tail]) + 1;
+            runCount--;
+        }
+        appendRun(start, stop);
+        for (int i = kept - 1; i >= 0; i--) {
+            appendRun(scratch[i * 2], scratch[(i * 2) + 1]);
+        }
+    }
+
+    /**
+     * Appends a run to the tail of the deque.
+     *
+     * @param start the run start.
+     * @param end   the run end.
+     */
+    private void appendRun(final long start, final long end) {
+        if (runCount == runStarts.length) {
+            final long[] starts = new long[runCount * 2];
+            final long[] ends = new long[runCount * 2];
+            for (int i = 0; i < runCount; i++) {
+                starts[i] = runStarts[(runHead + i) & (runStarts.length - 1)];
+                ends[i] = runEnds[(runHead + i) & (runStarts.length - 1)];
+            }
+            runStarts = starts;
+            runEnds = ends;
+            runHead = 0;
+        }
+        final int mask = runStarts.length - 1;
+        final int tail = (runHead + runCount) & mask;
+        runStarts[tail] = start;
+        runEnds[tail] = end;
+        runCount++;
+        runLength += (end - start) + 1;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The zone map for a segment of offset sorted spans.
+ * <p>
+ * The segment is divided into blocks of a fixed number of spans. A
+ * {@link LongSpanSummary} is kept for the segment and for each block so that
+ * queries can skip the segment, or the blocks within it, that can not contain
+ * an overlapping span.
+ * </p>
+ */
+public class LongSpanZoneMap {
+
+    /**
+     * The number of spans in each block.
+     */
+    private final int blockSize;
+    /**
+     * The summary of the whole segment.
+     */
+    private final LongSpanSummary segment;
+    /**
+     * The summary of each block.
+     */
+    private final LongSpanSummary[] blocks;
+
+    /**
+     * Constructor.
+     *
+     * @param blockSize the number of spans in each block.
+     * @param segment   the summary of the whole segment.
+     * @param blocks    the summary of each block.
+     */
+    public LongSpanZoneMap(final int blockSize, final LongSpanSummary segment, final LongSpanSummary[] blocks) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be greater than zero: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.segment = segment;
+        this.blocks = blocks.clone();
+    }
+
+    /**
+     * Builds the zone map for a segment.
+     *
+     * @param blockSize the number of spans in each block.
+     * @param spans     the spans of the segment in offset order.
+     * @return the zone map.
+     * @throws IllegalArgumentException if the spans are not in offset order.
+     */
+    public static LongSpanZoneMap build(final int blockSize, final Iterator<? extends LongSpan> spans) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be greater than zero: " + blockSize);
+        }
+        final LongSpanSummary.Builder segmentBuilder = new LongSpanSummary.Builder();
+        final List<LongSpanSummary> blockList = new ArrayList<>();
+        LongSpanSummary.Builder blockBuilder = new LongSpanSummary.Builder();
+        while (spans.hasNext()) {
+            final LongSpan span = spans.next();
+            segmentBuilder.add(span);
+            blockBuilder.add(span);
+            if (blockBuilder.getCount() == blockSize) {
+                blockList.add(blockBuilder.build());
+                blockBuilder = new LongSpanSummary.Builder();
+            }
+        }
+        if (blockBuilder.getCount() > 0) {
+            blockList.add(blockBuilder.build());
+        }
+        return new LongSpanZoneMap(blockSize, segmentBuilder.build(),
+                blockList.toArray(new LongSpanSummary[blockList.size()]));
+    }
+
+    /**
+     * Gets the number of spans in each block.
+     *
+     * @return the block size.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Gets the summary of the segment.
+     *
+     * @return the segment summary.
+     */
+    public LongSpanSummary getSegmentSummary() {
+        return segment;
+    }
+
+    /**
+     * Gets the number of blocks.
+     *
+     * @return the number of blocks.
+     */
+    public int getBlockCount() {
+        return blocks.length;
+    }
+
+    /**
+     * Gets the summary of a block.
+     *
+     * @param block the block index.
+     * @return the block summary.
+     */
+    public LongSpanSummary getBlockSummary(final int block) {
+        return blocks[block];
+    }
+
+    /**
+     * Return true if the segment may contain a span that overlaps the query.
+     *
+     * @param query the query span.
+     * @return false if the segment can be skipped.
+     */
+    public boolean mayOverlap(final LongSpan query) {
+        return segment.mayOverlap(query);
+    }
+
+    /**
+     * Gets the blocks that may contain a span that overlaps the query.
+     *
+     * @param query the query span.
+     * @return the indexes of the blocks that must be scanned, in order.
+     */
+    public int[] candidateBlocks(final LongSpan query) {
+        if (!segment.mayOverlap(query)) {
+            return new int[0];
+        }
+        final int[] result = new int[blocks.length];
+        int count = 0;
+        for (int i = 0; i < blocks.length; i++) {
+            // blocks are in offset order so no later block can overlap.
+            if ((blocks[i].getBounds().getLength() > 0) && (blocks[i].getMinOffset() > query.getEnd())) {
+                break;
+            }
+            if (blocks[i].mayOverlap(query)) {
+                result[count++] = i;
+            }
+        }
+        return count < result.length ? Arrays.copyOf(result, count) : result;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+/**
+ * An IntSpan whose values can be changed so that a single instance can be
+ * reused. The values are subject to the limit described in {@link IntSpan}.
+ * <p>
+ * A MutableIntSpan is also an IntSpanSink so that it can receive the single
+ * span results of IntSpanArithmetic directly. Use {@link #freeze()} to retain
+ * a value. This class is not thread safe.
+ * </p>
+ */
+public class MutableIntSpan implements IntSpan, IntSpanSink {
+
+    /**
+     * The offset for the span.
+     */
+    private int offset;
+    /**
+     * The length of the span.
+     */
+    private int length;
+
+    /**
+     * Constructor for an empty span at 0.
+     */
+    public MutableIntSpan() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param offset The offset position.
+     * @param length The length.
+     */
+    public MutableIntSpan(final int offset, final int length) {
+        set(offset, length);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param span the span to copy.
+     */
+    public MutableIntSpan(final IntSpan span) {
+        set(span);
+    }
+
+    /**
+     * Sets the offset and length.
+     *
+     * @param offset The offset position.
+     * @param length The length.
+     * @return this span for chaining.
+     * @throws IndexOutOfBoundsException if the length is less than zero.
+     * @throws IllegalArgumentException  if offset + length does not fit in an
+     *                                   int.
+     */
+    public MutableIntSpan set(final int offset, final int length) {
+        if (length < 0) {
+            throw new IndexOutOfBoundsException("Length may not be less than zero: " + length);
+        }
+        NumberUtils.checkIntLimit("offset + length", (long) offset + length);
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * Sets the values from another span.
+     *
+     * @param span the span to copy.
+     * @return this span for chaining.
+     * @throws IndexOutOfBoundsException if the length is less than zero.
+     * @throws IllegalArgumentException  if offset + length does not fit in an
+     *                                   int.
+     */
+    public MutableIntSpan set(final IntSpan span) {
+        return set(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Sets the end position, keeping the offset.
+     *
+     * @param end The end position, offset - 1 for an empty span.
+     * @return this span for chaining.
+     * @throws IndexOutOfBoundsException if the end is before offset - 1.
+     */
+    public MutableIntSpan setEnd(final int end) {
+        return set(offset, NumberUtils.checkIntLimit("length", ((long) end - offset) + 1));
+    }
+
+    /**
+     * Sets the offset and end.
+     *
+     * @param offset The offset position.
+     * @param end    The end position.
+     * @return this span for chaining.
+     */
+    public MutableIntSpan setFromEnd(final int offset, final int end) {
+        return set(offset, NumberUtils.checkIntLimit("length", ((long) end - offset) + 1));
+    }
+
+    @Override
+    public void accept(final int offset, final int length) {
+        set(offset, length);
+    }
+
+    /**
+     * Creates an immutable copy of the current values.
+     *
+     * @return the immutable span.
+     */
+    public IntSpan freeze() {
+        return IntSpan.fromLength(offset, length);
+    }
+
+    @Override
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public int getEnd() {
+        return IntSpan.calcEnd(this);
+    }
+
+    @Override
+    public String toString() {
+        return IntSpan.toString(this);
+    }
+
+    /**
+     * Compares by value. A span used as a hash key must not be changed while it is
+     * in the collection.
+     *
+     * @param other the object to compare with.
+     * @return true if other is a IntSpan with the same offset and length.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        return IntSpan.equals(this, other);
+    }
+
+    @Override
+    public int hashCode() {
+        return IntSpan.hashCode(this);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+/**
+ * Static operations on IntSpans packed into a single long.
+ * <p>
+ * The offset is held in the high 32 bits and the length in the low 32 bits.
+ * Since the length is never negative, comparing packed values as signed longs
+ * orders them by offset then length, so a long[] of packed spans can be sorted
+ * with Arrays.sort(). Packed spans can be held in primitive arrays, primitive
+ * collections and atomics without creating IntSpan objects.
+ * </p>
+ */
+public final class PackedIntSpan {
+
+    /**
+     * The packed value of IntSpan.EMPTY.
+     */
+    public static final long EMPTY = 0L;
+
+    /**
+     * Do not instantiate.
+     */
+    private PackedIntSpan() {
+    }
+
+    /**
+     * Packs an offset and length.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     * @return the packed span.
+     * @throws IndexOutOfBoundsException if the length is negative.
+     * @throws IllegalArgumentException  if offset + length is not a valid int.
+     */
+    public static long pack(final int offset, final int length) {
+        if (length < 0) {
+            throw new IndexOutOfBoundsException("Length may not be less than zero: " + length);
+        }
+        NumberUtils.checkIntLimit("offset + length", (long) offset + length);
+        return ((long) offset << 32) | length;
+    }
+
+    /**
+     * Packs an offset and end.
+     *
+     * @param offset the offset.
+     * @param end    the end.
+     * @return the packed span.
+     */
+    public static long fromEnd(final int offset, final int end) {
+        return pack(offset, NumberUtils.checkIntLimit("length", ((long) end - offset) + 1));
+    }
+
+    /**
+     * Packs an IntSpan.
+     *
+     * @param span the span.
+     * @return the packed span.
+     */
+    public static long pack(final IntSpan span) {
+        return pack(span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Creates an IntSpan from a packed span.
+     *
+     * @param packed the packed span.
+     * @return the IntSpan.
+     */
+    public static IntSpan toIntSpan(final long packed) {
+        return IntSpan.fromLength(offset(packed), length(packed));
+    }
+
+    /**
+     * Gets the offset.
+     *
+     * @param packed the packed span.
+     * @return the offset.
+     */
+    public static int offset(final long packed) {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * Gets the length.
+     *
+     * @param packed the packed span.
+     * @return the length.
+     */
+    public static int length(final long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Gets the end.
+     *
+     * @param packed the packed span.
+     * @return the end.
+     */
+    public static int end(final long packed) {
+        return (offset(packed) + length(packed)) - 1;
+    }
+
+    /**
+     * Checks if the span is empty.
+     *
+     * @param packed the packed span.
+     * @return true if the length is zero.
+     */
+    public static boolean isEmpty(final long packed) {
+        return length(packed) == 0;
+    }
+
+    /**
+     * Checks if two spans overlap.
+     *
+     * @param a the first packed span.
+     * @param b the second packed span.
+     * @return true if the spans overlap.
+     * @see IntSpan#overlaps(IntSpan)
+     */
+    public static boolean overlaps(final long a, final long b) {
+        return (end(a) >= offset(b)) && (offset(a) <= end(b));
+    }
+
+    /**
+     * Checks if a span contains a position.
+     *
+     * @param packed the packed span.
+     * @param pos    the position.
+     * @return true if offset &lt;= pos &lt;= end.
+     * @see IntSpan#contains(int)
+     */
+    public static boolean contains(final long packed, final int pos) {
+        return (offset(packed) <= pos) && (end(packed) >= pos);
+    }
+
+    /**
+     * Checks if a span contains both the offset and end of another span.
+     *
+     * @param packed the packed span.
+     * @param other  the other packed span.
+     * @return true if the other span is contained.
+     * @see IntSpan#contains(IntSpan)
+     */
+    public static boolean containsSpan(final long packed, final long other) {
+        return contains(packed, offset(other)) && contains(packed, end(other));
+    }
+
+    /**
+     * Compares two spans by offset.
+     *
+     * @param a the first packed span.
+     * @param b the second packed span.
+     * @return negative, zero or positive as the first offset is less than, equal
+     *         to or greater than the second.
+     * @see IntSpan#COMPARATOR_BY_OFFSET
+     */
+    public static int compareByOffset(final long a, final long b) {
+        return Integer.compare(offset(a), offset(b));
+    }
+
+    /**
+     * Compares two spans by length.
+     *
+     * @param a the first packed span.
+     * @param b the second packed span.
+     * @return negative, zero or positive as the first length is less than, equal
+     *         to or greater than the second.
+     * @see IntSpan#COMPARATOR_BY_LENGTH
+     */
+    public static int compareByLength(final long a, final long b) {
+        return Integer.compare(length(a), length(b));
+    }
+
+    /**
+     * Creates the string representation of a packed span.
+     *
+     * @param packed the packed span.
+     * @return the string, the same as IntSpan.toString() would produce.
+     */
+    public static String toString(final long packed) {
+        return IntSpan.toString(toIntSpan(packed));
+    }
+}
@@ -0,0 +1,520 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A thread safe index of LongSpans partitioned into shards by offset.
+ * <p>
+ * Each span is stored in the shard whose offset range contains the span's
+ * offset. Each shard tracks the highest end and greatest length of its spans
+ * so that spans crossing into later shards are still found by queries. Shards
+ * have their own read/write locks so inserts and queries on different shards
+ * do not contend. Queries that touch several shards are fanned out in
+ * parallel over a snapshot of the shards taken under the topology lock; spans
+ * added after the snapshot may not be seen by that query.
+ * </p>
+ * <p>
+ * When one shard grows beyond the skew factor times the average shard size the
+ * shard boundaries are recalculated from the offset quantiles and the spans are
+ * redistributed. If there are fewer distinct offsets than shards the shard
+ * count may be reduced. Empty spans are stored but never overlap a query.
+ * </p>
+ */
+public class ShardedLongSpanIndex {
+
+    /**
+     * The default skew factor.
+     */
+    public static final double DEFAULT_SKEW_FACTOR = 4.0;
+
+    /**
+     * The minimum number of spans per shard before rebalancing is considered.
+     */
+    private static final int MIN_REBALANCE_SIZE = 64;
+
+    /**
+     * Guards the shard topology. Held for read by all operations and for write
+     * while rebalancing.
+     */
+    private final ReadWriteLock topology = new ReentrantReadWriteLock();
+    /**
+     * The number of spans in the index.
+     */
+    private final AtomicLong size = new AtomicLong();
+    /**
+     * The shard size, relative to the average, that triggers a rebalance.
+     */
+    private final double skewFactor;
+    /**
+     * The lowest offset of each shard. The first is always Long.MIN_VALUE.
+     */
+    private volatile long[] lowerBounds;
+    /**
+     * The shards.
+     */
+    private volatile Shard[] shards;
+    /**
+     * The index size at which an automatic rebalance may next occur. Prevents
+     * repeated rebalancing when a single offset holds most of the spans.
+     */
+    private volatile long nextRebalance;
+
+    /**
+     * Constructor. The offset range is initially divided evenly between the
+     * shards.
+     *
+     * @param shardCount the number of shards.
+     */
+    public ShardedLongSpanIndex(final int shardCount) {
+        this(shardCount, DEFAULT_SKEW_FACTOR);
+    }
+
+    /**
+     * Constructor. The offset range is initially divided evenly between the
+     * shards.
+     *
+     * @param shardCount the number of shards.
+     * @param skewFactor the shard size, relative to the average, that triggers a
+     *                   rebalance. Use {@code Double.POSITIVE_INFINITY} to only
+     *                   rebalance on request.
+     */
+    public ShardedLongSpanIndex(final int shardCount, final double skewFactor) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be greater than zero: " + shardCount);
+        }
+        if (!(skewFactor > 1.0)) {
+            throw new IllegalArgumentException("Skew factor must be greater than one: " + skewFactor);
+        }
+        this.skewFactor = skewFactor;
+        final long step = (Long.MAX_VALUE / shardCount) * 2;
+        final long[] bounds = new long[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            bounds[i] = Long.MIN_VALUE + (i * step);
+        }
+        setShards(bounds);
+    }
+
+    /**
+     * Creates empty shards for the bounds.
+     *
+     * @param bounds the lower bounds.
+     */
+    private void setShards(final long[] bounds) {
+        final Shard[] newShards = new Shard[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            newShards[i] = new Shard();
+        }
+        lowerBounds = bounds;
+        shards = newShards;
+    }
+
+    /**
+     * Finds the shard for an offset.
+     *
+     * @param bounds the lower bounds.
+     * @param offset the offset.
+     * @return the shard index.
+     */
+    private static int shardIndex(final long[] bounds, final long offset) {
+        final int idx = Arrays.binarySearch(bounds, offset);
+        return idx >= 0 ? idx : -idx - 2;
+    }
+
+    /**
+     * Gets the number of shards.
+     *
+     * @return the number of shards.
+     */
+    public int getShardCount() {
+        return lowerBounds.length;
+    }
+
+    /**
+     * Gets the lowest offset of each shard.
+     *
+     * @return a copy of the shard lower bounds.
+     */
+    public long[] getBoundaries() {
+        topology.readLock().lock();
+        try {
+            return lowerBounds.clone();
+        } finally {
+            topology.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of spans in each shard.
+     *
+     * @return the shard sizes.
+     */
+    public long[] getShardSizes() {
+        topology.readLock().lock();
+        try {
+            final Shard[] current = shards;
+            final long[] result = new long[current.length];
+            for (int i = 0; i < current.length; i++) {
+                result[i] = current[i].size();
+            }
+            return result;
+        } finally {
+            topology.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of spans in the index.
+     *
+     * @return the number of spans.
+     */
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param span the span to add.
+     */
+    public void add(final LongSpan span) {
+        final long shardSize;
+        topology.readLock().lock();
+        try {
+            final Shard shard = shards[shardIndex(lowerBounds, span.getOffset())];
+            shardSize = shard.add(span);
+            size.incrementAndGet();
+        } finally {
+            topology.readLock().unlock();
+        }
+        final int count = lowerBounds.length;
+        final long total = size.get();
+        if ((count > 1) && (total >= nextRebalance) && (shardSize > MIN_REBALANCE_SIZE)
+                && (shardSize > ((skewFactor * total) / count))) {
+            if (topology.writeLock().tryLock()) {
+                try {
+                    redistribute();
+                } finally {
+                    topology.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes one span with the same offset and length.
+     *
+     * @param span the span to remove.
+     * @return true if a span was removed.
+     */
+    public boolean remove(final LongSpan span) {
+        topology.readLock().lock();
+        try {
+            if (shards[shardIndex(lowerBounds, span.getOffset())].remove(span)) {
+                size.decrementAndGet();
+                return true;
+            }
+            return false;
+        } finally {
+            topology.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the shards that may hold a span overlapping the query. Called with
+     * the topology read lock held; the returned shards can be searched after the
+     * lock is released because a rebalance replaces shards rather than emptying
+     * them.
+     *
+     * @param query the query.
+     * @return the candidate shards.
+     */
+    private Shard[] candidates(final LongSpan query) {
+        topology.readLock().lock();
+        try {
+            final Shard[] current = shards;
+            final int last = shardIndex(lowerBounds, query.getEnd());
+            return IntStream.rangeClosed(0, last).filter(i -> current[i].mayOverlap(query)).mapToObj(i -> current[i])
+                    .toArray(Shard[]::new);
+        } finally {
+            topology.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the spans that overlap the query. Shards are searched in parallel when
+     * more than one may hold a result.
+     *
+     * @param query the query.
+     * @return the overlapping spans in offset order.
+     */
+    public List<LongSpan> overlapping(final LongSpan query) {
+        if (query.getLength() == 0) {
+            return new ArrayList<>();
+        }
+        // the parallel search runs without the topology lock so that fork join
+        // workers never hold it while a rebalance is waiting.
+        final Shard[] candidates = candidates(query);
+        if (candidates.length == 1) {
+            final List<LongSpan> result = new ArrayList<>();
+            candidates[0].overlapping(query, result);
+            return result;
+        }
+        return Arrays.stream(candidates).parallel().map(shard -> {
+            final List<LongSpan> result = new ArrayList<>();
+            shard.overlapping(query, result);
+            return result;
+        }).flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    /**
+     * Counts the spans that overlap the query.
+     *
+     * @param query the query.
+     * @return the number of overlapping spans.
+     */
+    public long countOverlapping(final LongSpan query) {
+        if (query.getLength() == 0) {
+            return 0;
+        }
+        return Arrays.stream(candidates(query)).parallel().mapToLong(shard -> shard.countOverlapping(query)).sum();
+    }
+
+    /**
+     * Recalculates the shard boundaries so that each shard holds about the same
+     * number of spans.
+     */
+    public void rebalance() {
+        topology.writeLock().lock();
+        try {
+            redistribute();
+        } finally {
+            topology.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Redistributes the spans. The topology write lock must be held.
+     */
+    private void redistribute() {
+        final Shard[] old = shards;
+        final long total = size.get();
+        final int count = old.length;
+        if (total == 0) {
+            return;
+        }
+        // the shards are in offset order so the quantiles can be read off in one pass.
+        final long[] bounds = new long[count];
+        bounds[0] = Long.MIN_VALUE;
+        int next = 1;
+        long seen = 0;
+        for (final Shard shard : old) {
+            for (final Map.Entry<Long, List<LongSpan>> entry : shard.spans.entrySet()) {
+                final long offset = entry.getKey();
+                if ((next < count) && (seen >= ((total * next) / count)) && (offset > bounds[next - 1])) {
+                    bounds[next++] = offset;
+                }
+                seen += entry.getValue().size();
+            }
+        }
+        // when there are too few distinct offsets divide the space above the last one.
+        final int parts = (count - next) + 1;
+        final long step = Math.max(1, (Long.MAX_VALUE / parts) - (bounds[next - 1] / parts));
+        while ((next < count) && ((Long.MAX_VALUE - step) >= bounds[next - 1])) {
+            bounds[next] = bounds[next - 1] + step;
+            next++;
+        }
+        setShards(Arrays.copyOf(bounds, next));
+        nextRebalance = total + Math.max(MIN_REBALANCE_SIZE * (long) count, total / 4);
+        final Shard[] current = shards;
+        for (final Shard shard : old) {
+            for (final List<LongSpan> list : shard.spans.values()) {
+                for (final LongSpan span : list) {
+                    current[shardIndex(lowerBounds, span.getOffset())].add(span);
+                }
+            }
+        }
+    }
+
+    /**
+     * A single shard.
+     */
+    private static class Shard {
+        /**
+         * The shard lock.
+         */
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        /**
+         * The spans keyed by offset.
+         */
+        private final TreeMap<Long, List<LongSpan>> spans = new TreeMap<>();
+        /**
+         * The number of spans.
+         */
+        private long count;
+        /**
+         * The greatest length of any span ever added.
+         */
+        private volatile long maxLength;
+        /**
+         * The highest end of any span ever added.
+         */
+        private volatile long maxEnd = Long.MIN_VALUE;
+
+        /**
+         * Adds a span.
+         *
+         * @param span the span.
+         * @return the size of the shard after the add.
+         */
+        long add(final LongSpan span) {
+            lock.writeLock().lock();
+            try {
+                spans.computeIfAbsent(span.getOffset(), k -> new ArrayList<>(1)).add(span);
+                if (span.getLength() > 0) {
+                    maxLength = Math.max(maxLength, span.getLength());
+                    maxEnd = Math.max(maxEnd, span.getEnd());
+                }
+                return ++count;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Removes a span with the same offset and length.
+         *
+         * @param span the span.
+         * @return true if a span was removed.
+         */
+        boolean remove(final LongSpan span) {
+            lock.writeLock().lock();
+            try {
+                final List<LongSpan> list = spans.get(span.getOffset());
+                if (list != null) {
+                    final Iterator<LongSpan> iter = list.iterator();
+                    while (iter.hasNext()) {
+                        if (iter.next().getLength() == span.getLength()) {
+                            iter.remove();
+                            if (list.isEmpty()) {
+                                spans.remove(span.getOffset());
+                            }
+                            count--;
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Gets the number of spans.
+         *
+         * @return the number of spans.
+         */
+        long size() {
+            lock.readLock().lock();
+            try {
+                return count;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Return true if a span in the shard may overlap the query.
+         *
+         * @param query the query.
+         * @return false if no span in the shard can overlap the query.
+         */
+        boolean mayOverlap(final LongSpan query) {
+            return (maxLength > 0) && (maxEnd >= query.getOffset());
+        }
+
+        /**
+         * Gets the candidate spans for the query: those that start late enough to
+         * reach the query and no later than its end.
+         *
+         * @param query the query.
+         * @return the candidate spans keyed by offset.
+         */
+        private Map<Long, List<LongSpan>> window(final LongSpan query) {
+            final long from = query.getOffset() > (Long.MIN_VALUE + maxLength) ? (query.getOffset() - maxLength) + 1
+                    : Long.MIN_VALUE;
+            return spans.subMap(from, true, query.getEnd(), true);
+        }
+
+        /**
+         * Adds the spans that overlap the query to the result.
+         *
+         * @param query  the query.
+         * @param result the list to add to.
+         */
+        void overlapping(final LongSpan query, final List<LongSpan> result) {
+            lock.readLock().lock();
+            try {
+                for (final List<LongSpan> list : window(query).values()) {
+                    for (final LongSpan span : list) {
+                        if ((span.getLength() > 0) && span.overlaps(query)) {
+                            result.add(span);
+                        }
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Counts the spans that overlap the query.
+         *
+         * @param query the query.
+         * @return the number of overlapping spans.
+         */
+        long countOverlapping(final LongSpan query) {
+            lock.readLock().lock();
+            try {
+                long result = 0;
+                for (final List<LongSpan> list : window(query).values()) {
+                    for (final LongSpan span : list) {
+                        if ((span.getLength() > 0) && span.overlaps(query)) {
+                            result++;
+                        }
+                    }
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,645 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of LongSpans sorted by offset then length.
+ * <p>
+ * The spans are held in primitive columns. In addition to list access the
+ * class answers neighbour and gap queries in O(log n):
+ * </p>
+ * <ul>
+ * <li>{@link #nextStartingAfter(long)}</li>
+ * <li>{@link #previousEndingBefore(long)}</li>
+ * <li>{@link #largestGap(LongSpan)}</li>
+ * </ul>
+ * <p>
+ * {@link #gaps(LongSpan)} iterates the positions not covered by any span
+ * without allocating per step.
+ * </p>
+ * <p>
+ * {@link #resolve(long[], int[])} finds the containing span for a batch of
+ * positions in a single pass over the sorted spans.
+ * </p>
+ */
+public class SortedLongSpanList extends AbstractList<LongSpan> implements RandomAccess {
+
+    /**
+     * Batches of positions larger than this are sorted in parallel.
+     */
+    private static final int PARALLEL_SORT_SIZE = 1 << 16;
+
+    /**
+     * The span offsets in sorted order.
+     */
+    private final long[] offsets;
+    /**
+     * The span lengths in sorted order.
+     */
+    private final long[] lengths;
+    /**
+     * The span ends in ascending order.
+     */
+    private final long[] sortedEnds;
+    /**
+     * The list index of each entry in sortedEnds.
+     */
+    private final int[] byEnd;
+    /**
+     * The greatest end of the spans from the start of the list to each index.
+     */
+    private final long[] prefixMaxEnd;
+    /**
+     * The list index of the span with the greatest end up to each index.
+     */
+    private final int[] prefixMaxIndex;
+    /**
+     * The starts of the coalesced coverage runs.
+     */
+    private final long[] runStarts;
+    /**
+     * The ends of the coalesced coverage runs.
+     */
+    private final long[] runEnds;
+    /**
+     * Segment tree over the gaps between runs. Each node holds the index of the
+     * largest gap in its range.
+     */
+    private final int[] gapTree;
+    /**
+     * The number of leaves in the gap tree.
+     */
+    private final int gapLeaves;
+
+    /**
+     * Constructor.
+     *
+     * @param offsets the offsets sorted by offset then length.
+     * @param lengths the matching lengths.
+     */
+    private SortedLongSpanList(final long[] offsets, final long[] lengths) {
+        this.offsets = offsets;
+        this.lengths = lengths;
+        final int size = offsets.length;
+
+        final long[] ends = new long[size];
+        for (int i = 0; i < size; i++) {
+            ends[i] = (offsets[i] + lengths[i]) - 1;
+        }
+        byEnd = SpanArrays.identity(size);
+        SpanArrays.sort(byEnd, 0, size, (a, b) -> Long.compare(ends[a], ends[b]));
+        sortedEnds = new long[size];
+        for (int i = 0; i < size; i++) {
+            sortedEnds[i] = ends[byEnd[i]];
+        }
+
+        prefixMaxEnd = new long[size];
+        prefixMaxIndex = new int[size];
+        for (int i = 0; i < size; i++) {
+            if ((i == 0) || (ends[i] > prefixMaxEnd[i - 1])) {
+                prefixMaxEnd[i] = ends[i];
+                prefixMaxIndex[i] = i;
+            } else {
+                prefixMaxEnd[i] = prefixMaxEnd[i - 1];
+                prefixMaxIndex[i] = prefixMaxIndex[i - 1];
+            }
+        }
+
+        // coalesce overlapping and adjacent spans into runs.
+        long[] starts = new long[size];
+        long[] stops = new long[size];
+        int runs = 0;
+        for (int i = 0; i < size; i++) {
+            if (lengths[i] == 0) {
+                continue;
+            }
+            if ((runs > 0) && (offsets[i] <= (stops[runs - 1] + 1))) {
+                stops[runs - 1] = Math.max(stops[runs - 1], ends[i]);
+            } else {
+                starts[runs] = offsets[i];
+                stops[runs] = ends[i];
+                runs++;
+            }
+        }
+        runStarts = Arrays.copyOf(starts, runs);
+        runEnds = Arrays.copyOf(stops, runs);
+
+        int leaves = 1;
+        while (leaves < Math.max(1, runs - 1)) {
+            leaves <<= 1;
+        }
+        gapLeaves = leaves;
+        gapTree = new int[2 * leaves];
+        Arrays.fill(gapTree, -1);
+        for (int i = 0; i < (runs - 1); i++) {
+            gapTree[leaves + i] = i;
+        }
+        for (int i = leaves - 1; i > 0; i--) {
+            gapTree[i] = largerGap(gapTree[2 * i], gapTree[(2 * i) + 1]);
+        }
+    }
+
+    /**
+     * Creates a list from spans in any order.
+     *
+     * @param spans the spans.
+     * @return the sorted list.
+     */
+    public static SortedLongSpanList of(final LongSpan... spans) {
+        return of(Arrays.asList(spans));
+    }
+
+    /**
+     * Creates a list from spans in any order.
+     *
+     * @param spans the spans.
+     * @return the sorted list.
+     */
+    public static SortedLongSpanList of(final Collection<? extends LongSpan> spans) {
+        final long[] offsets = new long[spans.size()];
+        final long[] lengths = new long[offsets.length];
+        int i = 0;
+        for (final LongSpan span : spans) {
+            offsets[i] = span.getOffset();
+            lengths[i] = span.getLength();
+            i++;
+        }
+        final int[] perm = SpanArrays.identity(offsets.length);
+        SpanArrays.sort(perm, 0, perm.length, SpanArrays.byOffset(offsets, lengths));
+        final long[] sortedOffsets = new long[offsets.length];
+        final long[] sortedLengths = new long[offsets.length];
+        for (i = 0; i < perm.length; i++) {
+            sortedOffsets[i] = offsets[perm[i]];
+            sortedLengths[i] = lengths[perm[i]];
+        }
+        return new SortedLongSpanList(sortedOffsets, sortedLengths);
+    }
+
+    /**
+     * Creates a list from columns that are already sorted by offset then length.
+     * The arrays are copied.
+     *
+     * @param offsets the sorted offsets.
+     * @param lengths the matching lengths.
+     * @return the list.
+     * @throws IllegalArgumentException if the columns are not sorted, differ in
+     *                                  size or contain an invalid span.
+     */
+    public static SortedLongSpanList fromSorted(final long[] offsets, final long[] lengths) {
+        if (offsets.length != lengths.length) {
+            throw new IllegalArgumentException("Offsets and lengths must be the same size");
+        }
+        for (int i = 0; i < offsets.length; i++) {
+            if (lengths[i] < 0) {
+                throw new IndexOutOfBoundsException("Length may not be less than zero: " + lengths[i]);
+            }
+            NumberUtils.checkLongAddLimit(offsets[i], lengths[i]);
+            if ((i > 0) && ((offsets[i - 1] > offsets[i])
+                    || ((offsets[i - 1] == offsets[i]) && (lengths[i - 1] > lengths[i])))) {
+                throw new IllegalArgumentException("Spans are not sorted at index " + i);
+            }
+        }
+        return new SortedLongSpanList(offsets.clone(), lengths.clone());
+    }
+
+    /**
+     * Selects the larger of two gaps, preferring the first on a tie.
+     *
+     * @param a the first gap index or -1.
+     * @param b the second gap index or -1.
+     * @return the index of the larger gap.
+     */
+    private int largerGap(final int a, final int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        return gapLength(b) > gapLength(a) ? b : a;
+    }
+
+    /**
+     * Gets the length of the gap after a run.
+     *
+     * @param gap the gap index.
+     * @return the gap length.
+     */
+    private long gapLength(final int gap) {
+        return runStarts[gap + 1] - runEnds[gap] - 1;
+    }
+
+    @Override
+    public LongSpan get(final int index) {
+        return LongSpan.fromLength(offsets[index], lengths[index]);
+    }
+
+    @Override
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Gets the offset of a span without creating it.
+     *
+     * @param index the list index.
+     * @return the offset.
+     */
+    public long getOffset(final int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Gets the length of a span without creating it.
+     *
+     * @param index the list index.
+     * @return the length.
+     */
+    public long getLength(final int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Gets the end of a span without creating it.
+     *
+     * @param index the list index.
+     * @return the end.
+     */
+    public long getEnd(final int index) {
+        return (offsets[index] + lengths[index]) - 1;
+    }
+
+    /**
+     * Finds the first span that starts after the position.
+     *
+     * @param pos the position.
+     * @return the list index of the span or -1 if there is none.
+     */
+    public int nextStartingAfter(final long pos) {
+        int lo = 0;
+        int hi = offsets.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (offsets[mid] <= pos) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo < offsets.length ? lo : -1;
+    }
+
+    /**
+     * Finds the span with the greatest end that ends before the position.
+     *
+     * @param pos the position.
+     * @return the list index of the span or -1 if there is none.
+     */
+    public int previousEndingBefore(final long pos) {
+        int lo = 0;
+        int hi = sortedEnds.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (sortedEnds[mid] < pos) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo > 0 ? byEnd[lo - 1] : -1;
+    }
+
+    /**
+     * Finds the last span that starts at or before the position, searching
+     * forward from a known index. The search gallops so that sparse positions
+     * cost O(log distance) rather than a linear scan.
+     *
+     * @param from an index known to start at or before the position, or -1.
+     * @param pos  the position.
+     * @return the index of the last span starting at or before the position or
+     *         -1 if there is none.
+     */
+    private int lastStartingAtOrBefore(final int from, final long pos) {
+        int lo = from;
+        int step = 1;
+        int hi = from + 1;
+        while ((hi < offsets.length) && (offsets[hi] <= pos)) {
+            lo = hi;
+            hi = lo + step;
+            step <<= 1;
+        }
+        hi = Math.min(hi, offsets.length);
+        // offsets[lo] <= pos (or lo == -1) and offsets[hi] > pos (or hi == length)
+        while ((hi - lo) > 1) {
+            final int mid = (lo + hi) >>> 1;
+            if (offsets[mid] <= pos) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Finds a span that contains the position. When several spans contain the
+     * position the one with the greatest end is returned.
+     *
+     * @param pos the position.
+     * @return the list index of a containing span or -1 if there is none.
+     */
+    public int indexOf(final long pos) {
+        final int idx = lastStartingAtOrBefore(-1, pos);
+        return (idx >= 0) && (prefixMaxEnd[idx] >= pos) ? prefixMaxIndex[idx] : -1;
+    }
+
+    /**
+     * Finds a containing span for each of a batch of positions. The positions are
+     * resolved in ascending order with a single forward pass over the spans. If
+     * the positions are not already sorted a sorted permutation is built; the
+     * positions array itself is not modified.
+     * <p>
+     * When several spans contain a position the one with the greatest end is
+     * returned, as for {@link #indexOf(long)}.
+     * </p>
+     *
+     * @param positions the positions to resolve.
+     * @param result    receives the list index of a containing span, or -1, for
+     *                  each position. Must be at least as long as positions.
+     * @return the number of positions contained by a span.
+     */
+    public int resolve(final long[] positions, final int[] result) {
+        if (result.length < positions.length) {
+            throw new IllegalArgumentException("Result array is shorter than positions array");
+        }
+        boolean sorted = true;
+        for (int i = 1; sorted && (i < positions.length); i++) {
+            sorted = positions[i - 1] <= positions[i];
+        }
+        int[] perm = null;
+        if (!sorted) {
+            perm = SpanArrays.identity(positions.length);
+            final SpanArrays.IndexComparator cmp = (a, b) -> Long.compare(positions[a], positions[b]);
+            if (positions.length > PARALLEL_SORT_SIZE) {
+                SpanArrays.parallelSort(perm, cmp);
+            } else {
+                SpanArrays.sort(perm, 0, perm.length, cmp);
+            }
+        }
+        int found = 0;
+        int idx = -1;
+        for (int i = 0; i < positions.length; i++) {
+            final int p = perm == null ? i : perm[i];
+            final long pos = positions[p];
+            idx = lastStartingAtOrBefore(idx, pos);
+            if ((idx >= 0) && (prefixMaxEnd[idx] >= pos)) {
+                result[p] = prefixMaxIndex[idx];
+                found++;
+            } else {
+                result[p] = -1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the first run that ends at or after the position.
+     *
+     * @param pos the position.
+     * @return the run index, equal to the number of runs if there is none.
+     */
+    private int firstRunEndingAtOrAfter(final long pos) {
+        int lo = 0;
+        int hi = runEnds.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (runEnds[mid] < pos) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Finds the last run that starts at or before the position.
+     *
+     * @param pos the position.
+     * @return the run index or -1 if there is none.
+     */
+    private int lastRunStartingAtOrBefore(final long pos) {
+        int lo = 0;
+        int hi = runStarts.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (runStarts[mid] <= pos) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo - 1;
+    }
+
+    /**
+     * Finds the largest gap in the gap tree between two gap indexes.
+     *
+     * @param from the first gap, inclusive.
+     * @param to   the last gap, inclusive.
+     * @return the index of the largest gap or -1 if the range is empty.
+     */
+    private int largestGap(final int from, final int to) {
+        int result = -1;
+        int lo = from + gapLeaves;
+        int hi = to + gapLeaves + 1;
+        // collect the right hand nodes separately so that ties resolve to the first gap.
+        int right = -1;
+        while (lo < hi) {
+            if ((lo & 1) == 1) {
+                result = largerGap(result, gapTree[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                right = largerGap(gapTree[--hi], right);
+            }
+            lo >>= 1;
+            hi >>= 1;
+        }
+        return largerGap(result, right);
+    }
+
+    /**
+     * Finds the longest range of positions within the bounds that is not covered
+     * by any span. On a tie the lowest gap is returned.
+     *
+     * @param bounds the range to search.
+     * @return the largest gap or {@code LongSpan.EMPTY} if the bounds are fully
+     *         covered.
+     */
+    public LongSpan largestGap(final LongSpan bounds) {
+        if (bounds.getLength() == 0) {
+            return LongSpan.EMPTY;
+        }
+        final long a = bounds.getOffset();
+        final long b = bounds.getEnd();
+        final int first = firstRunEndingAtOrAfter(a);
+        final int last = lastRunStartingAtOrBefore(b);
+        if ((first >= runStarts.length) || (last < first)) {
+            return bounds;
+        }
+        long bestOffset = 0;
+        long bestLength = 0;
+        if (runStarts[first] > a) {
+            bestOffset = a;
+            bestLength = runStarts[first] - a;
+        }
+        if (last > first) {
+            final int gap = largestGap(first, last - 1);
+            if (gapLength(gap) > bestLength) {
+                bestOffset = runEnds[gap] + 1;
+                bestLength = gapLength(gap);
+            }
+        }
+        if ((runEnds[last] < b) && ((b - runEnds[last]) > bestLength)) {
+            bestOffset = runEnds[last] + 1;
+            bestLength = b - runEnds[last];
+        }
+        return bestLength == 0 ? LongSpan.EMPTY : LongSpan.fromLength(bestOffset, bestLength);
+    }
+
+    /**
+     * Creates a cursor over the positions within the bounds that are not covered
+     * by any span.
+     *
+     * @param bounds the range to search.
+     * @return a cursor over the gaps in offset order.
+     */
+    public GapCursor gaps(final LongSpan bounds) {
+        return new GapCursor(bounds);
+    }
+
+    /**
+     * A cursor over the gaps within a range. The cursor is itself the current gap
+     * and is updated in place by each call to {@link #next()}.
+     */
+    public class GapCursor implements LongSpan {
+        /**
+         * The first position not yet examined.
+         */
+        private long cur;
+        /**
+         * The end of the bounds.
+         */
+        private final long end;
+        /**
+         * The next run to examine.
+         */
+        private int run;
+        /**
+         * True when the bounds have been exhausted.
+         */
+        private boolean done;
+        /**
+         * The offset of the current gap.
+         */
+        private long gapOffset;
+        /**
+         * The length of the current gap.
+         */
+        private long gapLength;
+
+        /**
+         * Constructor.
+         *
+         * @param bounds the range to search.
+         */
+        GapCursor(final LongSpan bounds) {
+            cur = bounds.getOffset();
+            end = bounds.getEnd();
+            done = bounds.getLength() == 0;
+            run = done ? 0 : firstRunEndingAtOrAfter(cur);
+        }
+
+        /**
+         * Moves to the next gap.
+         *
+         * @return true if there is a gap, false when the bounds are exhausted.
+         */
+        public boolean next() {
+            while (!done) {
+                if ((run >= runStarts.length) || (runStarts[run] > end)) {
+                    done = true;
+                    if (cur <= end) {
+                        gapOffset = cur;
+                        gapLength = (end - cur) + 1;
+                        return true;
+                    }
+                    return false;
+                }
+                final long start = runStarts[run];
+                final long stop = runEnds[run++];
+                if (stop >= end) {
+                    done = true;
+                }
+                if (start > cur) {
+                    gapOffset = cur;
+                    gapLength = start - cur;
+                    cur = stop + 1;
+                    return true;
+                }
+                cur = Math.max(cur, stop + 1);
+            }
+            return false;
+        }
+
+        @Override
+        public long getOffset() {
+            return gapOffset;
+        }
+
+        @Override
+        public long getLength() {
+            return gapLength;
+        }
+
+        @Override
+        public long getEnd() {
+            return LongSpan.calcEnd(this);
+        }
+
+        @Override
+        public String toString() {
+            return LongSpan.toString(this);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return LongSpan.equals(this, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return LongSpan.hashCode(this);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.xenei.span;
 
 import java.nio.ByteBuffer;
+import java.util.Comparator;
 
 /**
  * An interface tha defines a span.
@@ -8,6 +9,156 @@ import java.nio.ByteBuffer;
  */
 public interface Span {
 
+    /**
+     * Orders a mixed collection of IntSpans and LongSpans by offset then length
+     * without converting them.
+     * <p>
+     * Note: this comparator imposes orderings that are inconsistent with equals.
+     * An IntSpan and a LongSpan with the same offset and length compare as 0 but
+     * are not equal, so a TreeSet or TreeMap ordered by it keeps only one of
+     * them.
+     * </p>
+     */
+    public static final Comparator<Span> COMPARATOR = Span::compare;
+
+    /**
+     * Gets the offset of an IntSpan or LongSpan without converting it.
+     *
+     * @param span the span.
+     * @return the offset.
+     * @throws IllegalArgumentException if the span is neither an IntSpan nor a
+     *                                  LongSpan.
+     */
+    public static long offsetOf(final Span span) {
+        if (span instanceof LongSpan) {
+            return ((LongSpan) span).getOffset();
+        } else if (span instanceof IntSpan) {
+            return ((IntSpan) span).getOffset();
+        }
+        throw new IllegalArgumentException("Unknown span type: " + span.getClass().getName());
+    }
+
+    /**
+     * Gets the length of an IntSpan or LongSpan without converting it.
+     *
+     * @param span the span.
+     * @return the length.
+     * @throws IllegalArgumentException if the span is neither an IntSpan nor a
+     *                                  LongSpan.
+     */
+    public static long lengthOf(final Span span) {
+        if (span instanceof LongSpan) {
+            return ((LongSpan) span).getLength();
+        } else if (span instanceof IntSpan) {
+            return ((IntSpan) span).getLength();
+        }
+        throw new IllegalArgumentException("Unknown span type: " + span.getClass().getName());
+    }
+
+    /**
+     * Gets the end of an IntSpan or LongSpan without converting it.
+     *
+     * @param span the span.
+     * @return the end.
+     * @throws IllegalArgumentException if the span is neither an IntSpan nor a
+     *                                  LongSpan.
+     */
+    public static long endOf(final Span span) {
+        return (offsetOf(span) + lengthOf(span)) - 1;
+    }
+
+    /**
+     * Return true if two spans of either type share any positions.
+     *
+     * @param a the first span.
+     * @param b the second span.
+     * @return true if overlap.
+     * @throws IllegalArgumentException if a span is neither an IntSpan nor a
+     *                                  LongSpan.
+     */
+    public static boolean overlaps(final Span a, final Span b) {
+        return overlaps(offsetOf(a), lengthOf(a), b);
+    }
+
+    /**
+     * Return true if the span described by an offset and length shares any
+     * positions with a span of either type.
+     *
+     * @param offset the offset of the first span.
+     * @param length the length of the first span.
+     * @param span   the second span.
+     * @return true if overlap.
+     * @throws IllegalArgumentException if the span is neither an IntSpan nor a
+     *                                  LongSpan.
+     */
+    public static boolean overlaps(final long offset, final long length, final Span span) {
+        return (((offset + length) - 1) >= offsetOf(span)) && (offset <= endOf(span));
+    }
+
+    /**
+     * Return true if the first span contains both the offset and the end of the
+     * second. The spans may be of either type.
+     *
+     * @param a the containing span.
+     * @param b the contained span.
+     * @return true if a contains b.
+     * @throws IllegalArgumentException if a span is neither an IntSpan nor a
+     *                                  LongSpan.
+     */
+    public static boolean contains(final Span a, final Span b) {
+        return contains(offsetOf(a), lengthOf(a), b);
+    }
+
+    /**
+     * Return true if the span described by an offset and length contains both the
+     * offset and the end of a span of either type.
+     *
+     * @param offset the offset of the containing span.
+     * @param length the length of the containing span.
+     * @param span   the contained span.
+     * @return true if the containing span contains the span.
+     * @throws IllegalArgumentException if the span is neither an IntSpan nor a
+     *                                  LongSpan.
+     */
+    public static boolean contains(final long offset, final long length, final Span span) {
+        final long otherOffset = offsetOf(span);
+        final long otherEnd = endOf(span);
+        final long end = (offset + length) - 1;
+        return (offset <= otherOffset) && (end >= otherOffset) && (offset <= otherEnd) && (end >= otherEnd);
+    }
+
+    /**
+     * Compares two spans of either type by offset then length.
+     *
+     * @param a the first span.
+     * @param b the second span.
+     * @return negative, zero or positive as a is less than, equal to or greater
+     *         than b.
+     * @throws IllegalArgumentException if a span is neither an IntSpan nor a
+     *                                  LongSpan.
+     * @see #COMPARATOR
+     */
+    public static int compare(final Span a, final Span b) {
+        return compare(offsetOf(a), lengthOf(a), b);
+    }
+
+    /**
+     * Compares the span described by an offset and length with a span of either
+     * type by offset then length.
+     *
+     * @param offset the offset of the first span.
+     * @param length the length of the first span.
+     * @param span   the second span.
+     * @return negative, zero or positive as the first span is less than, equal to
+     *         or greater than the span.
+     * @throws IllegalArgumentException if the span is neither an IntSpan nor a
+     *                                  LongSpan.
+     */
+    public static int compare(final long offset, final long length, final Span span) {
+        final int result = Long.compare(offset, offsetOf(span));
+        return result == 0 ? Long.compare(length, lengthOf(span)) : result;
+    }
+
     /**
      * Converts the span to a LongSpan.
      * @return A LongSpan representation of the span.
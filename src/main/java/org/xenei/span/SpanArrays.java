@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorting support for spans stored in primitive columns.
+ * <p>
+ * Columns are not moved; instead an index permutation is sorted using a
+ * comparator over the column positions. The sort is a stable merge sort.
+ * </p>
+ */
+/* package private */ final class SpanArrays {
+
+    /**
+     * Ranges smaller than this are insertion sorted.
+     */
+    private static final int INSERTION_THRESHOLD = 16;
+
+    /**
+     * Ranges smaller than this are not split across threads.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    /**
+     * Compares two column positions.
+     */
+    @FunctionalInterface
+    interface IndexComparator {
+        /**
+         * Compares the values at two column positions.
+         *
+         * @param a the first position.
+         * @param b the second position.
+         * @return negative, zero or positive as a is less than, equal to or greater
+         *         than b.
+         */
+        int compare(int a, int b);
+    }
+
+    private SpanArrays() {
+        // do not instantiate
+    }
+
+    /**
+     * Creates the identity permutation.
+     *
+     * @param size the number of entries.
+     * @return an array where each entry holds its own index.
+     */
+    static int[] identity(final int size) {
+        final int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = i;
+        }
+        return result;
+    }
+
+    /**
+     * Creates a comparator that orders columns by offset then length.
+     *
+     * @param offsets the offset column.
+     * @param lengths the length column.
+     * @return the comparator.
+     */
+    static IndexComparator byOffset(final long[] offsets, final long[] lengths) {
+        return (a, b) -> {
+            final int result = Long.compare(offsets[a], offsets[b]);
+            return result == 0 ? Long.compare(lengths[a], lengths[b]) : result;
+        };
+    }
+
+    /**
+     * Sorts the permutation.
+     *
+     * @param perm the permutation to sort.
+     * @param from the first position to sort, inclusive.
+     * @param to   the last position to sort, exclusive.
+     * @param cmp  the comparator for the entries.
+     */
+    static void sort(final int[] perm, final int from, final int to, final IndexComparator cmp) {
+        final int[] range = Arrays.copyOfRange(perm, from, to);
+        mergeSort(range.clone(), range, 0, range.length, cmp);
+        System.arraycopy(range, 0, perm, from, range.length);
+    }
+
+    /**
+     * Sorts the permutation using the common fork join pool.
+     *
+     * @param perm the permutation to sort.
+     * @param cmp  the comparator for the entries.
+     */
+    static void parallelSort(final int[] perm, final IndexComparator cmp) {
+        final int[] aux = perm.clone();
+        ForkJoinPool.commonPool().invoke(new SortTask(aux, perm, 0, perm.length, cmp));
+    }
+
+    /**
+     * Sorts src into dest. On entry src and dest hold the same values in the range.
+     */
+    private static void mergeSort(final int[] src, final int[] dest, final int lo, final int hi,
+            final IndexComparator cmp) {
+        if ((hi - lo) < INSERTION_THRESHOLD) {
+            insertionSort(dest, lo, hi, cmp);
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        mergeSort(dest, src, lo, mid, cmp);
+        mergeSort(dest, src, mid, hi, cmp);
+        merge(src, dest, lo, mid, hi, cmp);
+    }
+
+    /**
+     * Insertion sort of a small range.
+     */
+    private static void insertionSort(final int[] values, final int lo, final int hi, final IndexComparator cmp) {
+        for (int i = lo + 1; i < hi; i++) {
+            final int value = values[i];
+            int j = i;
+            while ((j > lo) && (cmp.compare(values[j - 1], value) > 0)) {
+                values[j] = values[j - 1];
+                j--;
+            }
+            values[j] = value;
+        }
+    }
+
+    /**
+     * Merges the sorted ranges [lo,mid) and [mid,hi) of src into dest.
+     */
+    private static void merge(final int[] src, final int[] dest, final int lo, final int mid, final int hi,
+            final IndexComparator cmp) {
+        if (cmp.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, lo, dest, lo, hi - lo);
+            return;
+        }
+        int p = lo;
+        int q = mid;
+        for (int i = lo; i < hi; i++) {
+            if ((q >= hi) || ((p < mid) && (cmp.compare(src[p], src[q]) <= 0))) {
+                dest[i] = src[p++];
+            } else {
+                dest[i] = src[q++];
+            }
+        }
+    }
+
+    /**
+     * Fork join version of the merge sort.
+     */
+    private static class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] src;
+        private final int[] dest;
+        private final int lo;
+        private final int hi;
+        private final transient IndexComparator cmp;
+
+        SortTask(final int[] src, final int[] dest, final int lo, final int hi, final IndexComparator cmp) {
+            this.src = src;
+            this.dest = dest;
+            this.lo = lo;
+            this.hi = hi;
+            this.cmp = cmp;
+        }
+
+        @Override
+        protected void compute() {
+            if ((hi - lo) < PARALLEL_THRESHOLD) {
+                mergeSort(src, dest, lo, hi, cmp);
+                return;
+            }
+            final int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(dest, src, lo, mid, cmp), new SortTask(dest, src, mid, hi, cmp));
+            merge(src, dest, lo, mid, hi, cmp);
+        }
+    }
+}
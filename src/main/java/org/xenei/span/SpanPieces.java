@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the at most two spans written by a single arithmetic operation so
+ * that the object returning forms of IntSpanArithmetic and LongSpanArithmetic
+ * share the sink based implementation.
+ *
+ * @param <T> the type of span created.
+ */
+final class SpanPieces<T extends Span> implements LongSpanSink, IntSpanSink {
+
+    /**
+     * Creates a span from an offset and length.
+     *
+     * @param <T> the type of span created.
+     */
+    @FunctionalInterface
+    interface Factory<T> {
+        /**
+         * Creates a span.
+         *
+         * @param offset the offset.
+         * @param length the length.
+         * @return the span.
+         */
+        T create(long offset, long length);
+    }
+
+    /**
+     * Creates the spans.
+     */
+    private final Factory<T> factory;
+    /**
+     * The first span written.
+     */
+    private T first;
+    /**
+     * The second span written.
+     */
+    private T second;
+    /**
+     * The number of spans written.
+     */
+    private int count;
+
+    /**
+     * Constructor.
+     *
+     * @param factory creates the spans.
+     */
+    private SpanPieces(final Factory<T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Creates a collector of LongSpans.
+     *
+     * @return the collector.
+     */
+    static SpanPieces<LongSpan> longSpans() {
+        return new SpanPieces<>(LongSpan::fromLength);
+    }
+
+    /**
+     * Creates a collector of IntSpans. Written values are narrowed to int, so it
+     * may only receive spans known to fit in an IntSpan.
+     *
+     * @return the collector.
+     */
+    static SpanPieces<IntSpan> intSpans() {
+        return new SpanPieces<>((offset, length) -> IntSpan.fromLength((int) offset, (int) length));
+    }
+
+    @Override
+    public void accept(final long offset, final long length) {
+        final T span = factory.create(offset, length);
+        if (count == 0) {
+            first = span;
+        } else if (count == 1) {
+            second = span;
+        } else {
+            throw new IllegalStateException("More than two spans written");
+        }
+        count++;
+    }
+
+    @Override
+    public void accept(final int offset, final int length) {
+        accept((long) offset, (long) length);
+    }
+
+    /**
+     * Gets the only span written, or the empty span if none was.
+     *
+     * @param empty the empty span of the result type.
+     * @return the span.
+     */
+    T single(final T empty) {
+        return count == 0 ? empty : first;
+    }
+
+    /**
+     * Gets the two spans written by a split.
+     *
+     * @param result an array of at least two elements to fill.
+     * @return the array.
+     */
+    T[] pair(final T[] result) {
+        result[0] = first;
+        result[1] = second;
+        return result;
+    }
+
+    /**
+     * Gets the spans written.
+     *
+     * @return a fixed size list of the spans in the order written.
+     */
+    List<T> toList() {
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        return count == 1 ? Collections.singletonList(first) : Arrays.asList(first, second);
+    }
+}
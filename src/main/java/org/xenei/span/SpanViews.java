@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Comparator;
+
+/**
+ * Zero copy views of the content addressed by spans.
+ * <p>
+ * IntSpans address a CharSequence or a ByteBuffer by index; the views share
+ * the source content rather than copying it. Byte buffer views use absolute
+ * indexes and ignore the position and limit of the source. LongSpans address a
+ * file channel and are mapped into memory. The bulk methods apply an array of
+ * spans to one source and the comparators compare span content in place.
+ * </p>
+ */
+public final class SpanViews {
+
+    /**
+     * Do not instantiate.
+     */
+    private SpanViews() {
+    }
+
+    /**
+     * Verifies that a span fits in a source of the given size.
+     *
+     * @param span the span.
+     * @param size the size of the source.
+     */
+    private static void checkBounds(final IntSpan span, final long size) {
+        if ((span.getOffset() < 0) || (((long) span.getOffset() + span.getLength()) > size)) {
+            throw new IndexOutOfBoundsException(
+                    String.format("%s is outside of the source of size %s", IntSpan.toString(span), size));
+        }
+    }
+
+    /**
+     * Creates a CharSequence view of the characters covered by the span. The
+     * source must not change while the view is in use.
+     *
+     * @param source the source characters.
+     * @param span   the span to view.
+     * @return the view.
+     * @throws IndexOutOfBoundsException if the span is outside of the source.
+     */
+    public static CharSequence view(final CharSequence source, final IntSpan span) {
+        checkBounds(span, source.length());
+        return new CharSequenceView(source, span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Creates CharSequence views for each span over one source.
+     *
+     * @param source the source characters.
+     * @param spans  the spans to view.
+     * @return the views in span order.
+     * @throws IndexOutOfBoundsException if a span is outside of the source.
+     */
+    public static CharSequence[] view(final CharSequence source, final IntSpan[] spans) {
+        final CharSequence[] result = new CharSequence[spans.length];
+        for (int i = 0; i < spans.length; i++) {
+            result[i] = view(source, spans[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a ByteBuffer that shares the bytes covered by the span. The slice
+     * has the byte order and read only state of the source.
+     *
+     * @param source the source buffer.
+     * @param span   the span of absolute indexes to slice.
+     * @return the slice.
+     * @throws IndexOutOfBoundsException if the span is outside of the source
+     *                                   capacity.
+     */
+    public static ByteBuffer slice(final ByteBuffer source, final IntSpan span) {
+        checkBounds(span, source.capacity());
+        final ByteBuffer dup = source.duplicate();
+        dup.limit(span.getOffset() + span.getLength()).position(span.getOffset());
+        return dup.slice().order(source.order());
+    }
+
+    /**
+     * Creates ByteBuffer slices for each span over one source.
+     *
+     * @param source the source buffer.
+     * @param spans  the spans of absolute indexes to slice.
+     * @return the slices in span order.
+     * @throws IndexOutOfBoundsException if a span is outside of the source
+     *                                   capacity.
+     */
+    public static ByteBuffer[] slice(final ByteBuffer source, final IntSpan[] spans) {
+        final ByteBuffer[] result = new ByteBuffer[spans.length];
+        final ByteBuffer dup = source.duplicate();
+        for (int i = 0; i < spans.length; i++) {
+            checkBounds(spans[i], source.capacity());
+            dup.clear();
+            dup.limit(spans[i].getOffset() + spans[i].getLength()).position(spans[i].getOffset());
+            result[i] = dup.slice().order(source.order());
+        }
+        return result;
+    }
+
+    /**
+     * Maps the bytes of a file covered by the span as read only.
+     *
+     * @param channel the file channel.
+     * @param span    the span of file positions.
+     * @return the mapped bytes.
+     * @throws IOException              on error.
+     * @throws IllegalArgumentException if the span is longer than
+     *                                  Integer.MAX_VALUE or has a negative offset.
+     */
+    public static ByteBuffer map(final FileChannel channel, final LongSpan span) throws IOException {
+        checkMappable(span.getOffset(), span.getLength());
+        return channel.map(FileChannel.MapMode.READ_ONLY, span.getOffset(), span.getLength());
+    }
+
+    /**
+     * Maps the bytes of a file covered by each span as read only. When the hull
+     * of the spans fits in a single mapping it is mapped once and each span is a
+     * slice of it, otherwise each span is mapped separately.
+     *
+     * @param channel the file channel.
+     * @param spans   the spans of file positions.
+     * @return the mapped bytes in span order.
+     * @throws IOException              on error.
+     * @throws IllegalArgumentException if a span is longer than Integer.MAX_VALUE
+     *                                  or has a negative offset.
+     */
+    public static ByteBuffer[] map(final FileChannel channel, final LongSpan[] spans) throws IOException {
+        final ByteBuffer[] result = new ByteBuffer[spans.length];
+        long start = Long.MAX_VALUE;
+        long limit = Long.MIN_VALUE;
+        for (final LongSpan span : spans) {
+            checkMappable(span.getOffset(), span.getLength());
+            if (span.getLength() > 0) {
+                start = Math.min(start, span.getOffset());
+                limit = Math.max(limit, span.getOffset() + span.getLength());
+            }
+        }
+        if ((start != Long.MAX_VALUE) && ((limit - start) <= Integer.MAX_VALUE)) {
+            final ByteBuffer hull = channel.map(FileChannel.MapMode.READ_ONLY, start, limit - start);
+            for (int i = 0; i < spans.length; i++) {
+                if (spans[i].getLength() == 0) {
+                    result[i] = ByteBuffer.allocate(0);
+                } else {
+                    hull.clear();
+                    final int position = (int) (spans[i].getOffset() - start);
+                    hull.limit(position + (int) spans[i].getLength()).position(position);
+                    result[i] = hull.slice();
+                }
+            }
+        } else {
+            for (int i = 0; i < spans.length; i++) {
+                result[i] = map(channel, spans[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Verifies that a span can be mapped.
+     *
+     * @param offset the offset.
+     * @param length the length.
+     */
+    private static void checkMappable(final long offset, final long length) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset may not be negative: " + offset);
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Length may not exceed Integer.MAX_VALUE: " + length);
+        }
+    }
+
+    /**
+     * Compares the characters covered by two spans lexicographically without
+     * copying them.
+     *
+     * @param a     the first source.
+     * @param aSpan the span of the first source.
+     * @param b     the second source.
+     * @param bSpan the span of the second source.
+     * @return negative, zero or positive as the first content is less than, equal
+     *         to or greater than the second.
+     */
+    public static int compare(final CharSequence a, final IntSpan aSpan, final CharSequence b, final IntSpan bSpan) {
+        checkBounds(aSpan, a.length());
+        checkBounds(bSpan, b.length());
+        final int count = Math.min(aSpan.getLength(), bSpan.getLength());
+        for (int i = 0; i < count; i++) {
+            final int result = Character.compare(a.charAt(aSpan.getOffset() + i), b.charAt(bSpan.getOffset() + i));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(aSpan.getLength(), bSpan.getLength());
+    }
+
+    /**
+     * Compares the bytes covered by two spans without copying them. Bytes are
+     * compared as signed values, the same as ByteBuffer.compareTo() on the slices.
+     *
+     * @param a     the first source.
+     * @param aSpan the span of absolute indexes in the first source.
+     * @param b     the second source.
+     * @param bSpan the span of absolute indexes in the second source.
+     * @return negative, zero or positive as the first content is less than, equal
+     *         to or greater than the second.
+     */
+    public static int compare(final ByteBuffer a, final IntSpan aSpan, final ByteBuffer b, final IntSpan bSpan) {
+        checkBounds(aSpan, a.capacity());
+        checkBounds(bSpan, b.capacity());
+        final int count = Math.min(aSpan.getLength(), bSpan.getLength());
+        for (int i = 0; i < count; i++) {
+            final int result = Byte.compare(a.get(aSpan.getOffset() + i), b.get(bSpan.getOffset() + i));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(aSpan.getLength(), bSpan.getLength());
+    }
+
+    /**
+     * Creates a comparator that orders spans by the characters they cover in one
+     * source.
+     *
+     * @param source the source characters.
+     * @return the comparator.
+     */
+    public static Comparator<IntSpan> contentComparator(final CharSequence source) {
+        return (a, b) -> compare(source, a, source, b);
+    }
+
+    /**
+     * Creates a comparator that orders spans by the bytes they cover in one
+     * source.
+     *
+     * @param source the source buffer.
+     * @return the comparator.
+     */
+    public static Comparator<IntSpan> contentComparator(final ByteBuffer source) {
+        return (a, b) -> compare(source, a, source, b);
+    }
+
+    /**
+     * A CharSequence over part of another CharSequence.
+     */
+    private static class CharSequenceView implements CharSequence {
+        /**
+         * The source characters.
+         */
+        private final CharSequence source;
+        /**
+         * The index of the first character in the source.
+         */
+        private final int offset;
+        /**
+         * The number of characters.
+         */
+        private final int length;
+
+        /**
+         * Constructor.
+         *
+         * @param source the source characters.
+         * @param offset the index of the first character in the source.
+         * @param length the number of characters.
+         */
+        CharSequenceView(final CharSequence source, final int offset, final int length) {
+            this.source = source;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if ((index < 0) || (index >= length)) {
+                throw new IndexOutOfBoundsException("Index out of range: " + index);
+            }
+            return source.charAt(offset + index);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            if ((start < 0) || (end > length) || (start > end)) {
+                throw new IndexOutOfBoundsException(String.format("Range [%s,%s) out of range", start, end));
+            }
+            return new CharSequenceView(source, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return source.subSequence(offset, offset + length).toString();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveLongSpanCollectionTest {
+
+    @Test
+    public void testSealAndThaw() {
+        final AdaptiveLongSpanCollection collection = new AdaptiveLongSpanCollection(3);
+        collection.add(LongSpan.fromEnd(10, 19));
+        collection.add(LongSpan.fromEnd(0, 9));
+        collection.add(LongSpan.fromEnd(0, 9));
+        collection.add(LongSpan.fromLength(5, 0));
+        Assert.assertEquals(4, collection.size());
+        Assert.assertFalse(collection.isSealed());
+
+        Assert.assertEquals(3, collection.countOverlapping(LongSpan.fromEnd(5, 10)));
+        Assert.assertEquals(2, collection.overlapping(LongSpan.fromEnd(5, 9)).size());
+        Assert.assertFalse(collection.isSealed());
+        Assert.assertEquals(1, collection.countOverlapping(LongSpan.fromEnd(19, 30)));
+        Assert.assertTrue(collection.isSealed());
+        Assert.assertEquals(4, collection.getIndex().size());
+        Assert.assertTrue(collection.contains(LongSpan.fromLength(5, 0)));
+        Assert.assertFalse(collection.contains(LongSpan.fromLength(5, 1)));
+
+        Assert.assertTrue(collection.remove(LongSpan.fromEnd(0, 9)));
+        Assert.assertFalse(collection.isSealed());
+        Assert.assertEquals(3, collection.size());
+        Assert.assertEquals(2, collection.countOverlapping(LongSpan.fromEnd(5, 10)));
+        Assert.assertFalse(collection.remove(LongSpan.fromEnd(0, 8)));
+
+        final List<LongSpan> spans = new ArrayList<>();
+        collection.forEach(spans::add);
+        Assert.assertEquals(0, spans.get(0).getOffset());
+        Assert.assertEquals(5, spans.get(1).getOffset());
+        Assert.assertEquals(10, spans.get(2).getOffset());
+    }
+
+    @Test
+    public void testExplicitSealOnly() {
+        final AdaptiveLongSpanCollection collection = new AdaptiveLongSpanCollection(0);
+        collection.add(LongSpan.fromEnd(0, 9));
+        for (int i = 0; i < 100; i++) {
+            collection.countOverlapping(LongSpan.fromEnd(0, 0));
+        }
+        Assert.assertFalse(collection.isSealed());
+        collection.seal();
+        Assert.assertTrue(collection.isSealed());
+        collection.clear();
+        Assert.assertTrue(collection.isEmpty());
+        Assert.assertFalse(collection.iterator().hasNext());
+    }
+
+    @Test
+    public void testSealBackoff() {
+        final AdaptiveLongSpanCollection collection = new AdaptiveLongSpanCollection(2);
+        collection.add(LongSpan.fromEnd(0, 9));
+        collection.countOverlapping(LongSpan.fromEnd(0, 0));
+        collection.countOverlapping(LongSpan.fromEnd(0, 0));
+        Assert.assertTrue(collection.isSealed());
+
+        // a write after sealing doubles the reads needed to seal again.
+        collection.add(LongSpan.fromEnd(20, 29));
+        Assert.assertEquals(4, collection.getSealThreshold());
+        for (int i = 0; i < 3; i++) {
+            collection.countOverlapping(LongSpan.fromEnd(0, 0));
+        }
+        Assert.assertFalse(collection.isSealed());
+        collection.countOverlapping(LongSpan.fromEnd(0, 0));
+        Assert.assertTrue(collection.isSealed());
+
+        // reads while sealed decay the threshold back to the configured value.
+        for (int i = 0; i < 4; i++) {
+            collection.countOverlapping(LongSpan.fromEnd(0, 0));
+        }
+        Assert.assertEquals(2, collection.getSealThreshold());
+
+        // the threshold stops growing at MAX_BACKOFF times the configured value.
+        for (int i = 0; i < 20; i++) {
+            collection.seal();
+            collection.add(LongSpan.fromEnd(i, i));
+        }
+        Assert.assertEquals(2 * AdaptiveLongSpanCollection.MAX_BACKOFF, collection.getSealThreshold());
+    }
+
+    @Test
+    public void testClearWhileSealed() {
+        final AdaptiveLongSpanCollection collection = new AdaptiveLongSpanCollection(2);
+        collection.add(LongSpan.fromEnd(0, 9));
+        collection.seal();
+        collection.clear();
+        Assert.assertFalse(collection.isSealed());
+        Assert.assertEquals(2, collection.getSealThreshold());
+        Assert.assertEquals(0, collection.countOverlapping(LongSpan.fromEnd(0, 9)));
+        collection.add(LongSpan.fromEnd(0, 9));
+        Assert.assertEquals(1, collection.countOverlapping(LongSpan.fromEnd(0, 9)));
+    }
+
+    @Test
+    public void testFormsAgree() {
+        final Random random = new Random(11);
+        final AdaptiveLongSpanCollection collection = new AdaptiveLongSpanCollection(5);
+        final List<LongSpan> spans = new ArrayList<>();
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 200; i++) {
+                final LongSpan span = LongSpan.fromLength(random.nextInt(10000), random.nextInt(100));
+                collection.add(span);
+                spans.add(span);
+            }
+            if (random.nextBoolean() && !spans.isEmpty()) {
+                Assert.assertTrue(collection.remove(spans.remove(random.nextInt(spans.size()))));
+            }
+            for (int q = 0; q < 10; q++) {
+                final LongSpan query = LongSpan.fromLength(random.nextInt(10000), random.nextInt(200));
+                int expected = 0;
+                for (final LongSpan span : spans) {
+                    if (query.getLength() > 0 && span.getLength() > 0 && span.overlaps(query)) {
+                        expected++;
+                    }
+                }
+                Assert.assertEquals(expected, collection.countOverlapping(query));
+            }
+            Assert.assertEquals(spans.size(), collection.size());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompactLongSpanListTest {
+
+    @Test
+    public void testIntColumns() {
+        final CompactLongSpanList list = new CompactLongSpanList(1L << 40);
+        list.add(LongSpan.fromLength((1L << 40) + 5, 10));
+        list.add((1L << 40) - 5, 3);
+        list.add(0, LongSpan.fromLength(1L << 40, 0));
+        Assert.assertFalse(list.isPromoted());
+        Assert.assertEquals(3, list.size());
+        Assert.assertEquals(LongSpan.fromLength(1L << 40, 0), list.get(0));
+        Assert.assertEquals((1L << 40) + 5, list.getOffset(1));
+        Assert.assertEquals((1L << 40) - 3, list.getEnd(2));
+
+        Assert.assertEquals(LongSpan.fromLength((1L << 40) + 5, 10), list.remove(1));
+        Assert.assertEquals(2, list.size());
+        Assert.assertEquals(3, list.getLength(1));
+    }
+
+    @Test
+    public void testPromotion() {
+        final CompactLongSpanList list = new CompactLongSpanList();
+        list.add(LongSpan.fromLength(-5, 10));
+        list.add(LongSpan.fromLength(Integer.MAX_VALUE, 1));
+        Assert.assertFalse(list.isPromoted());
+        list.add(LongSpan.fromLength(7, Integer.MAX_VALUE + 1L));
+        Assert.assertTrue(list.isPromoted());
+        list.add(LongSpan.fromLength(Long.MIN_VALUE, 3));
+        Assert.assertEquals(Arrays.asList(LongSpan.fromLength(-5, 10), LongSpan.fromLength(Integer.MAX_VALUE, 1),
+                LongSpan.fromLength(7, Integer.MAX_VALUE + 1L), LongSpan.fromLength(Long.MIN_VALUE, 3)), list);
+
+        final CompactLongSpanList set = new CompactLongSpanList();
+        set.add(LongSpan.fromLength(1, 1));
+        Assert.assertEquals(LongSpan.fromLength(1, 1), set.set(0, LongSpan.fromLength(Long.MAX_VALUE - 1, 1)));
+        Assert.assertTrue(set.isPromoted());
+        Assert.assertEquals(Long.MAX_VALUE - 1, set.getOffset(0));
+    }
+
+    @Test
+    public void testBaseOverflowPromotes() {
+        final CompactLongSpanList list = new CompactLongSpanList(Long.MAX_VALUE - 10);
+        list.add(LongSpan.fromLength(Long.MIN_VALUE, 1));
+        Assert.assertTrue(list.isPromoted());
+        Assert.assertEquals(Long.MIN_VALUE, list.getOffset(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfRange() {
+        final CompactLongSpanList list = new CompactLongSpanList();
+        list.add(1, 1);
+        list.clear();
+        list.getOffset(0);
+    }
+
+    @Test
+    public void testMatchesArrayList() {
+        final Random random = new Random(19);
+        final CompactLongSpanList list = new CompactLongSpanList();
+        final List<LongSpan> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            final long offset = i == 4000 ? Long.MAX_VALUE / 2 : random.nextInt(100000);
+            final LongSpan span = LongSpan.fromLength(offset, random.nextInt(100));
+            if (random.nextInt(5) == 0 && !expected.isEmpty()) {
+                final int index = random.nextInt(expected.size());
+                Assert.assertEquals(expected.remove(index), list.remove(index));
+            } else {
+                final int index = random.nextInt(expected.size() + 1);
+                expected.add(index, span);
+                list.add(index, span);
+            }
+        }
+        Assert.assertTrue(list.isPromoted());
+        list.trimToSize();
+        Assert.assertEquals(expected, list);
+        Assert.assertEquals(expected.hashCode(), list.hashCode());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntSpanArithmeticTest {
+
+    private final IntSpanSink.Packed sink = new IntSpanSink.Packed(1);
+
+    @Test
+    public void testIntersect() {
+        Assert.assertTrue(IntSpanArithmetic.intersect(0, 10, 5, 10, sink));
+        Assert.assertArrayEquals(new int[] { 5, 5 }, sink.toArray());
+        sink.clear();
+        Assert.assertFalse(IntSpanArithmetic.intersect(0, 10, 10, 10, sink));
+        Assert.assertFalse(IntSpanArithmetic.intersect(0, 10, 5, 0, sink));
+        Assert.assertEquals(0, sink.size());
+    }
+
+    @Test
+    public void testHull() {
+        Assert.assertTrue(IntSpanArithmetic.hull(20, 5, 0, 2, sink));
+        Assert.assertTrue(IntSpanArithmetic.hull(0, 0, 7, 3, sink));
+        Assert.assertFalse(IntSpanArithmetic.hull(0, 0, 7, 0, sink));
+        Assert.assertArrayEquals(new int[] { 0, 25, 7, 3 }, sink.toArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHullOverflow() {
+        IntSpanArithmetic.hull(Integer.MIN_VALUE, 1, Integer.MAX_VALUE - 1, 1, sink);
+    }
+
+    @Test
+    public void testSubtract() {
+        Assert.assertEquals(2, IntSpanArithmetic.subtract(0, 10, 3, 2, sink));
+        Assert.assertEquals(1, IntSpanArithmetic.subtract(0, 10, -5, 7, sink));
+        Assert.assertEquals(1, IntSpanArithmetic.subtract(0, 10, 20, 7, sink));
+        Assert.assertEquals(0, IntSpanArithmetic.subtract(0, 10, -1, 12, sink));
+        Assert.assertEquals(0, IntSpanArithmetic.subtract(0, 0, -1, 12, sink));
+        Assert.assertArrayEquals(new int[] { 0, 3, 5, 5, 2, 8, 0, 10 }, sink.toArray());
+    }
+
+    @Test
+    public void testSplit() {
+        IntSpanArithmetic.split(10, 10, 15, sink);
+        IntSpanArithmetic.split(10, 10, 5, sink);
+        IntSpanArithmetic.split(10, 10, 25, sink);
+        Assert.assertArrayEquals(new int[] { 10, 5, 15, 5, 10, 0, 10, 10, 10, 10, 20, 0 }, sink.toArray());
+    }
+
+    @Test
+    public void testShift() {
+        IntSpanArithmetic.shift(10, 10, -15, sink);
+        Assert.assertEquals(-5, sink.getOffset(0));
+        Assert.assertEquals(10, sink.getLength(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShiftOverflow() {
+        IntSpanArithmetic.shift(10, 10, Integer.MAX_VALUE - 15, sink);
+    }
+
+    @Test
+    public void testClamp() {
+        IntSpanArithmetic.clamp(0, 100, 10, 5, sink);
+        IntSpanArithmetic.clamp(0, 5, 10, 5, sink);
+        IntSpanArithmetic.clamp(50, 5, 10, 5, sink);
+        IntSpanArithmetic.clamp(12, 1, 10, 5, sink);
+        Assert.assertArrayEquals(new int[] { 10, 5, 10, 0, 15, 0, 12, 1 }, sink.toArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShiftLimit() {
+        IntSpanArithmetic.shift(0, 1, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testObjectResults() {
+        Assert.assertEquals(IntSpan.fromLength(15, 5), IntSpanArithmetic.intersect(10, 10, 15, 10));
+        Assert.assertEquals(IntSpan.EMPTY, IntSpanArithmetic.intersect(10, 5, 15, 10));
+        Assert.assertEquals(IntSpan.fromLength(10, 15), IntSpanArithmetic.hull(10, 10, 15, 10));
+        Assert.assertEquals(Arrays.asList(IntSpan.fromLength(10, 2), IntSpan.fromLength(15, 5)),
+                IntSpanArithmetic.subtract(10, 10, 12, 3));
+        Assert.assertTrue(IntSpanArithmetic.subtract(10, 10, 5, 20).isEmpty());
+        Assert.assertArrayEquals(new IntSpan[] { IntSpan.fromLength(10, 5), IntSpan.fromLength(15, 5) },
+                IntSpanArithmetic.split(10, 10, 15));
+        Assert.assertEquals(IntSpan.fromLength(-5, 10), IntSpanArithmetic.shift(10, 10, -15));
+        Assert.assertEquals(IntSpan.fromLength(10, 5), IntSpanArithmetic.clamp(0, 100, 10, 5));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testPackedIndex() {
+        sink.getOffset(0);
+    }
+}
@@ -17,6 +17,8 @@
  */
 package org.xenei.span;
 
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -125,4 +127,55 @@ public class IntSpanContractTest<T extends IntSpan> {
         Assert.assertFalse("Span after should not overlap", span.overlaps(span2));
     }
 
+    @ContractTest
+    public void testIntersectSubspan() {
+        final IntSpan span2 = IntSpan.fromEnd(span.getOffset() + 1, span.getEnd() + 5);
+        final IntSpan result = span.intersect(span2);
+        Assert.assertEquals(span.getOffset() + 1, result.getOffset());
+        Assert.assertEquals(span.getEnd(), result.getEnd());
+        Assert.assertEquals(0, span.intersect(IntSpan.fromLength(span.getEnd() + 1, 5)).getLength());
+    }
+
+    @ContractTest
+    public void testHull() {
+        final IntSpan result = span.hull(IntSpan.fromLength(span.getEnd() + 10, 2));
+        Assert.assertEquals(span.getOffset(), result.getOffset());
+        Assert.assertEquals(span.getEnd() + 11, result.getEnd());
+    }
+
+    @ContractTest
+    public void testSubtractMiddle() {
+        final List<IntSpan> result = span.subtract(IntSpan.fromLength(span.getOffset() + 1, 1));
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals(1, result.get(0).getLength());
+        Assert.assertEquals(span.getOffset() + 2, result.get(1).getOffset());
+        Assert.assertEquals(span.getEnd(), result.get(1).getEnd());
+    }
+
+    @ContractTest
+    public void testSplitShiftClamp() {
+        final IntSpan[] pieces = span.split(span.getOffset() + 1);
+        Assert.assertEquals(1, pieces[0].getLength());
+        Assert.assertEquals(span.getLength() - 1, pieces[1].getLength());
+        Assert.assertEquals(span.getOffset() + 3, span.shift(3).getOffset());
+        Assert.assertEquals(span.getLength(), span.shift(3).getLength());
+        final IntSpan clamped = span.clamp(IntSpan.fromLength(span.getOffset() + 1, 1));
+        Assert.assertEquals(span.getOffset() + 1, clamped.getOffset());
+        Assert.assertEquals(1, clamped.getLength());
+    }
+
+    @ContractTest
+    public void testCrossTypeOperations() {
+        final LongSpan inside = LongSpan.fromLength(span.getOffset() + 1, 1);
+        Assert.assertTrue(span.overlaps(inside));
+        Assert.assertTrue(span.contains(inside));
+        Assert.assertFalse(span.overlaps(LongSpan.fromLength(span.getEnd() + 1L, 5)));
+        Assert.assertFalse(span.contains(LongSpan.fromEnd(span.getOffset(), span.getEnd() + 1L)));
+        Assert.assertEquals(IntSpan.fromLength(span.getOffset() + 1, 1), span.intersect(inside));
+        Assert.assertEquals(span.subtract(inside.asIntSpan()), span.subtract(inside));
+        final LongSpan hull = span.hull(LongSpan.fromLength(Long.MAX_VALUE - 1, 1));
+        Assert.assertEquals(span.getOffset(), hull.getOffset());
+        Assert.assertEquals(Long.MAX_VALUE - 1, hull.getEnd());
+    }
+
 }
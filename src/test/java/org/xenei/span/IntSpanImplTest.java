@@ -77,4 +77,18 @@ public class IntSpanImplTest {
         Assert.assertFalse(span.contains(0));
         Assert.assertFalse(span.contains(10));
     }
+
+    @Test
+    public void testEquality() {
+        span = IntSpan.fromLength(1, 9);
+        Assert.assertEquals(span, IntSpan.fromEnd(1, 9));
+        Assert.assertEquals(span.hashCode(), IntSpan.fromEnd(1, 9).hashCode());
+        Assert.assertEquals(span, new MutableIntSpan(1, 9));
+        Assert.assertEquals(new MutableIntSpan(1, 9), span);
+        Assert.assertEquals(span.hashCode(), new MutableIntSpan(1, 9).hashCode());
+        Assert.assertNotEquals(span, IntSpan.fromLength(1, 8));
+        Assert.assertNotEquals(span, IntSpan.fromLength(2, 9));
+        Assert.assertNotEquals(IntSpan.fromLength(1, 0), IntSpan.fromLength(2, 0));
+        Assert.assertNotEquals(span, "span");
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanArithmeticTest {
+
+    private final LongSpanSink.Packed sink = new LongSpanSink.Packed(1);
+
+    @Test
+    public void testIntersect() {
+        Assert.assertTrue(LongSpanArithmetic.intersect(0, 10, 5, 10, sink));
+        Assert.assertArrayEquals(new long[] { 5, 5 }, sink.toArray());
+        sink.clear();
+        Assert.assertFalse(LongSpanArithmetic.intersect(0, 10, 10, 10, sink));
+        Assert.assertFalse(LongSpanArithmetic.intersect(0, 10, 5, 0, sink));
+        Assert.assertEquals(0, sink.size());
+    }
+
+    @Test
+    public void testHull() {
+        Assert.assertTrue(LongSpanArithmetic.hull(20, 5, 0, 2, sink));
+        Assert.assertTrue(LongSpanArithmetic.hull(0, 0, 7, 3, sink));
+        Assert.assertFalse(LongSpanArithmetic.hull(0, 0, 7, 0, sink));
+        Assert.assertArrayEquals(new long[] { 0, 25, 7, 3 }, sink.toArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHullOverflow() {
+        LongSpanArithmetic.hull(Long.MIN_VALUE, 1, Long.MAX_VALUE - 1, 1, sink);
+    }
+
+    @Test
+    public void testSubtract() {
+        Assert.assertEquals(2, LongSpanArithmetic.subtract(0, 10, 3, 2, sink));
+        Assert.assertEquals(1, LongSpanArithmetic.subtract(0, 10, -5, 7, sink));
+        Assert.assertEquals(1, LongSpanArithmetic.subtract(0, 10, 20, 7, sink));
+        Assert.assertEquals(0, LongSpanArithmetic.subtract(0, 10, -1, 12, sink));
+        Assert.assertEquals(0, LongSpanArithmetic.subtract(0, 0, -1, 12, sink));
+        Assert.assertArrayEquals(new long[] { 0, 3, 5, 5, 2, 8, 0, 10 }, sink.toArray());
+    }
+
+    @Test
+    public void testSplit() {
+        LongSpanArithmetic.split(10, 10, 15, sink);
+        LongSpanArithmetic.split(10, 10, 5, sink);
+        LongSpanArithmetic.split(10, 10, 25, sink);
+        Assert.assertArrayEquals(new long[] { 10, 5, 15, 5, 10, 0, 10, 10, 10, 10, 20, 0 }, sink.toArray());
+    }
+
+    @Test
+    public void testShift() {
+        LongSpanArithmetic.shift(10, 10, -15, sink);
+        Assert.assertEquals(-5, sink.getOffset(0));
+        Assert.assertEquals(10, sink.getLength(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShiftOverflow() {
+        LongSpanArithmetic.shift(10, 10, Long.MAX_VALUE - 15, sink);
+    }
+
+    @Test
+    public void testClamp() {
+        LongSpanArithmetic.clamp(0, 100, 10, 5, sink);
+        LongSpanArithmetic.clamp(0, 5, 10, 5, sink);
+        LongSpanArithmetic.clamp(50, 5, 10, 5, sink);
+        LongSpanArithmetic.clamp(12, 1, 10, 5, sink);
+        Assert.assertArrayEquals(new long[] { 10, 5, 10, 0, 15, 0, 12, 1 }, sink.toArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShiftLimit() {
+        LongSpanArithmetic.shift(0, 1, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testObjectResults() {
+        Assert.assertEquals(LongSpan.fromLength(15, 5), LongSpanArithmetic.intersect(10, 10, 15, 10));
+        Assert.assertEquals(LongSpan.EMPTY, LongSpanArithmetic.intersect(10, 5, 15, 10));
+        Assert.assertEquals(LongSpan.fromLength(10, 15), LongSpanArithmetic.hull(10, 10, 15, 10));
+        Assert.assertEquals(Arrays.asList(LongSpan.fromLength(10, 2), LongSpan.fromLength(15, 5)),
+                LongSpanArithmetic.subtract(10, 10, 12, 3));
+        Assert.assertTrue(LongSpanArithmetic.subtract(10, 10, 5, 20).isEmpty());
+        Assert.assertArrayEquals(new LongSpan[] { LongSpan.fromLength(10, 5), LongSpan.fromLength(15, 5) },
+                LongSpanArithmetic.split(10, 10, 15));
+        Assert.assertEquals(LongSpan.fromLength(-5, 10), LongSpanArithmetic.shift(10, 10, -15));
+        Assert.assertEquals(LongSpan.fromLength(10, 5), LongSpanArithmetic.clamp(0, 100, 10, 5));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testPackedIndex() {
+        sink.getOffset(0);
+    }
+}
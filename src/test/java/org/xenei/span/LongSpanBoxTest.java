@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanBoxTest {
+
+    private final LongSpanBox box = LongSpanBox.of(LongSpan.fromEnd(0, 9), LongSpan.fromEnd(100, 199));
+
+    @Test
+    public void testAxes() {
+        Assert.assertEquals(2, box.getDimensions());
+        Assert.assertEquals(LongSpan.fromEnd(100, 199), box.getAxis(1));
+        Assert.assertEquals(9, box.getEnd(0));
+        Assert.assertEquals(100, box.getLength(1));
+        Assert.assertFalse(box.isEmpty());
+        Assert.assertTrue(LongSpanBox.of(LongSpan.fromEnd(0, 9), LongSpan.fromLength(5, 0)).isEmpty());
+    }
+
+    @Test
+    public void testOverlaps() {
+        Assert.assertTrue(box.overlaps(LongSpanBox.of(LongSpan.fromEnd(9, 20), LongSpan.fromEnd(0, 100))));
+        Assert.assertFalse(box.overlaps(LongSpanBox.of(LongSpan.fromEnd(9, 20), LongSpan.fromEnd(0, 99))));
+        Assert.assertFalse(box.overlaps(LongSpanBox.of(LongSpan.fromEnd(10, 20), LongSpan.fromEnd(0, 100))));
+        Assert.assertFalse(box.overlaps(LongSpanBox.of(LongSpan.fromEnd(0, 9), LongSpan.fromLength(150, 0))));
+    }
+
+    @Test
+    public void testContains() {
+        Assert.assertTrue(box.contains(0, 199));
+        Assert.assertFalse(box.contains(10, 150));
+        Assert.assertTrue(box.overlaps(LongSpanBox.point(5, 150)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDimensionMismatch() {
+        box.contains(1, 2, 3);
+    }
+
+    @Test
+    public void testEquality() {
+        Assert.assertEquals(box, LongSpanBox.of(LongSpan.fromLength(0, 10), LongSpan.fromLength(100, 100)));
+        Assert.assertEquals(box.hashCode(),
+                LongSpanBox.of(LongSpan.fromLength(0, 10), LongSpan.fromLength(100, 100)).hashCode());
+        Assert.assertNotEquals(box, LongSpanBox.of(LongSpan.fromEnd(0, 9)));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanClustersTest {
+
+    @Test
+    public void testCluster() {
+        final int[] ids = LongSpanClusters.cluster(LongSpan.fromEnd(20, 25), LongSpan.fromEnd(0, 5),
+                LongSpan.fromEnd(5, 9), LongSpan.fromEnd(10, 12), LongSpan.fromLength(3, 0), LongSpan.fromEnd(24, 30),
+                LongSpan.fromEnd(8, 8));
+        Assert.assertArrayEquals(new int[] { 3, 0, 0, 2, 1, 3, 0 }, ids);
+        Assert.assertEquals(4, LongSpanClusters.clusterCount(ids));
+        Assert.assertEquals(0, LongSpanClusters.cluster().length);
+    }
+
+    private static int find(final int[] parent, final int i) {
+        int root = i;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        return root;
+    }
+
+    @Test
+    public void testMatchesPairwise() {
+        final Random random = new Random(14);
+        final LongSpan[] spans = new LongSpan[2000];
+        for (int i = 0; i < spans.length; i++) {
+            spans[i] = LongSpan.fromLength(random.nextInt(100000), random.nextInt(60));
+        }
+        final int[] parent = new int[spans.length];
+        for (int i = 0; i < spans.length; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < spans.length; i++) {
+            for (int j = i + 1; j < spans.length; j++) {
+                if ((spans[i].getLength() > 0) && (spans[j].getLength() > 0) && spans[i].overlaps(spans[j])) {
+                    parent[find(parent, i)] = find(parent, j);
+                }
+            }
+        }
+        final int[] ids = LongSpanClusters.cluster(spans);
+        for (int i = 0; i < spans.length; i++) {
+            for (int j = i + 1; j < spans.length; j++) {
+                Assert.assertEquals(find(parent, i) == find(parent, j), ids[i] == ids[j]);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        final Random random = new Random(15);
+        final int n = 300000;
+        final long[] offsets = new long[n];
+        final long[] lengths = new long[n];
+        for (int i = 0; i < n; i++) {
+            offsets[i] = random.nextInt(10_000_000);
+            lengths[i] = random.nextInt(10) == 0 ? 0 : random.nextInt(40) + 1;
+        }
+        // a long span that joins clusters across several partitions.
+        offsets[7] = 2_000_000;
+        lengths[7] = 3_000_000;
+        final int[] expected = LongSpanClusters.cluster(offsets, lengths);
+        final int[] actual = LongSpanClusters.parallelCluster(offsets, lengths);
+        Assert.assertArrayEquals(expected, actual);
+        Assert.assertEquals(LongSpanClusters.clusterCount(expected), LongSpanClusters.clusterCount(actual));
+    }
+}
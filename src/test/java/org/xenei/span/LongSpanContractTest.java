@@ -17,6 +17,8 @@
  */
 package org.xenei.span;
 
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -125,4 +127,51 @@ public class LongSpanContractTest<T extends LongSpan> {
         Assert.assertFalse("Span after should not overlap", span.overlaps(span2));
     }
 
+    @ContractTest
+    public void testIntersectSubspan() {
+        final LongSpan span2 = LongSpan.fromEnd(span.getOffset() + 1, span.getEnd() + 5);
+        final LongSpan result = span.intersect(span2);
+        Assert.assertEquals(span.getOffset() + 1, result.getOffset());
+        Assert.assertEquals(span.getEnd(), result.getEnd());
+        Assert.assertEquals(0, span.intersect(LongSpan.fromLength(span.getEnd() + 1, 5)).getLength());
+    }
+
+    @ContractTest
+    public void testHull() {
+        final LongSpan result = span.hull(LongSpan.fromLength(span.getEnd() + 10, 2));
+        Assert.assertEquals(span.getOffset(), result.getOffset());
+        Assert.assertEquals(span.getEnd() + 11, result.getEnd());
+    }
+
+    @ContractTest
+    public void testSubtractMiddle() {
+        final List<LongSpan> result = span.subtract(LongSpan.fromLength(span.getOffset() + 1, 1));
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals(1, result.get(0).getLength());
+        Assert.assertEquals(span.getOffset() + 2, result.get(1).getOffset());
+        Assert.assertEquals(span.getEnd(), result.get(1).getEnd());
+    }
+
+    @ContractTest
+    public void testSplitShiftClamp() {
+        final LongSpan[] pieces = span.split(span.getOffset() + 1);
+        Assert.assertEquals(1, pieces[0].getLength());
+        Assert.assertEquals(span.getLength() - 1, pieces[1].getLength());
+        Assert.assertEquals(span.getOffset() + 3, span.shift(3).getOffset());
+        Assert.assertEquals(span.getLength(), span.shift(3).getLength());
+        final LongSpan clamped = span.clamp(LongSpan.fromLength(span.getOffset() + 1, 1));
+        Assert.assertEquals(span.getOffset() + 1, clamped.getOffset());
+        Assert.assertEquals(1, clamped.getLength());
+    }
+
+    @ContractTest
+    public void testCrossTypeOperations() {
+        final IntSpan inside = IntSpan.fromLength((int) span.getOffset() + 1, 1);
+        Assert.assertTrue(span.overlaps(inside));
+        Assert.assertFalse(span.overlaps(IntSpan.fromLength((int) span.getEnd() + 1, 5)));
+        Assert.assertEquals(LongSpan.fromLength(span.getOffset() + 1, 1), span.intersect(inside));
+        Assert.assertEquals(span.hull(inside.asLongSpan()), span.hull(inside));
+        Assert.assertEquals(span.subtract(inside.asLongSpan()), span.subtract(inside));
+    }
+
 }
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanCoverageSketchTest {
+
+    @Test
+    public void testSmall() {
+        // buckets [0,9] [10,19] [20,29] [30,39]
+        final LongSpanCoverageSketch sketch = new LongSpanCoverageSketch(0, 10, 4);
+        sketch.add(LongSpan.fromEnd(5, 24));
+        sketch.add(LongSpan.fromEnd(10, 19));
+        sketch.add(LongSpan.fromEnd(100, 200));
+        sketch.add(LongSpan.fromLength(3, 0));
+        Assert.assertEquals(3, sketch.getCount());
+        Assert.assertEquals(1, sketch.getDroppedCount());
+
+        Assert.assertEquals(20, sketch.getCoveredLowerBound());
+        Assert.assertEquals(20, sketch.getCoveredUpperBound());
+        Assert.assertEquals(2, sketch.countOverlapping(LongSpan.fromEnd(12, 13)));
+        // widened to [20,29] so [5,24] is counted.
+        Assert.assertEquals(1, sketch.countOverlapping(LongSpan.fromEnd(26, 27)));
+        Assert.assertEquals(0, sketch.countOverlapping(LongSpan.fromEnd(30, 200)));
+
+        sketch.add(LongSpan.fromEnd(2, 3));
+        Assert.assertEquals(20, sketch.getCoveredLowerBound());
+        Assert.assertEquals(22, sketch.getCoveredUpperBound());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDomainTooLarge() {
+        new LongSpanCoverageSketch(0, Long.MAX_VALUE / 2, 4);
+    }
+
+    @Test
+    public void testBoundsHold() {
+        final Random random = new Random(13);
+        final long width = 64;
+        final LongSpanCoverageSketch sketch = new LongSpanCoverageSketch(0, width, 1000);
+        final LongSpanSet exact = new LongSpanSet();
+        final List<LongSpan> spans = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            final LongSpan span = LongSpan.fromLength(random.nextInt(70000) - 2000, random.nextInt(300) + 1);
+            sketch.add(span);
+            spans.add(span);
+            exact.add(LongSpan.fromLength(Math.max(0, span.getOffset()),
+                    Math.max(0, Math.min(64000, span.getOffset() + span.getLength()) - Math.max(0, span.getOffset()))));
+        }
+        Assert.assertTrue(sketch.getCoveredLowerBound() <= exact.getCoveredLength());
+        Assert.assertTrue(sketch.getCoveredUpperBound() >= exact.getCoveredLength());
+        for (int q = 0; q < 100; q++) {
+            final LongSpan query = LongSpan.fromLength(random.nextInt(64000), random.nextInt(500) + 1);
+            final LongSpan widened = LongSpan.fromEnd((query.getOffset() / width) * width,
+                    Math.min(63999, ((query.getEnd() / width) * width) + width - 1));
+            long expected = 0;
+            long widenedExpected = 0;
+            for (final LongSpan span : spans) {
+                expected += span.overlaps(query) ? 1 : 0;
+                widenedExpected += span.overlaps(widened) ? 1 : 0;
+            }
+            Assert.assertTrue(sketch.countOverlapping(query) >= expected);
+            Assert.assertEquals(widenedExpected, sketch.countOverlapping(query));
+        }
+    }
+
+    @Test
+    public void testMergeAndSerialize() throws IOException {
+        final Random random = new Random(17);
+        final LongSpanCoverageSketch all = new LongSpanCoverageSketch(-1000, 100, 50);
+        final LongSpanCoverageSketch a = new LongSpanCoverageSketch(-1000, 100, 50);
+        final LongSpanCoverageSketch b = new LongSpanCoverageSketch(-1000, 100, 50);
+        for (int i = 0; i < 1000; i++) {
+            final LongSpan span = LongSpan.fromLength(random.nextInt(6000) - 1500, random.nextInt(400));
+            all.add(span);
+            (i % 2 == 0 ? a : b).add(span);
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        b.writeTo(new DataOutputStream(bytes));
+        final LongSpanCoverageSketch copy = LongSpanCoverageSketch
+                .readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        a.merge(copy);
+        Assert.assertEquals(all.getCount(), a.getCount());
+        Assert.assertEquals(all.getDroppedCount(), a.getDroppedCount());
+        Assert.assertEquals(all.getCoveredLowerBound(), a.getCoveredLowerBound());
+        Assert.assertEquals(all.getCoveredUpperBound(), a.getCoveredUpperBound());
+        for (int q = -1000; q < 4000; q += 37) {
+            Assert.assertEquals(all.countOverlapping(LongSpan.fromLength(q, 50)),
+                    a.countOverlapping(LongSpan.fromLength(q, 50)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentDomains() {
+        new LongSpanCoverageSketch(0, 10, 4).merge(new LongSpanCoverageSketch(0, 10, 5));
+    }
+
+    @Test
+    public void testQueriesFollowUpdates() {
+        final LongSpanCoverageSketch sketch = new LongSpanCoverageSketch(0, 10, 10);
+        final LongSpan query = LongSpan.fromEnd(20, 29);
+        Assert.assertEquals(0, sketch.countOverlapping(query));
+        sketch.add(LongSpan.fromEnd(15, 25));
+        Assert.assertEquals(1, sketch.countOverlapping(query));
+        final LongSpanCoverageSketch other = new LongSpanCoverageSketch(0, 10, 10);
+        other.add(LongSpan.fromEnd(0, 99));
+        sketch.merge(other);
+        Assert.assertEquals(2, sketch.countOverlapping(query));
+        Assert.assertEquals(1, sketch.countOverlapping(LongSpan.fromEnd(90, 99)));
+    }
+
+    @Test
+    public void testSerializeManyBuckets() throws IOException {
+        final Random random = new Random(23);
+        final LongSpanCoverageSketch sketch = new LongSpanCoverageSketch(0, 10, 3000);
+        for (int i = 0; i < 5000; i++) {
+            sketch.add(LongSpan.fromLength(random.nextInt(30000), random.nextInt(100)));
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+        final LongSpanCoverageSketch copy = LongSpanCoverageSketch
+                .readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        Assert.assertEquals(3000, copy.getBucketCount());
+        Assert.assertEquals(sketch.getCoveredLowerBound(), copy.getCoveredLowerBound());
+        Assert.assertEquals(sketch.getCoveredUpperBound(), copy.getCoveredUpperBound());
+        for (int q = 0; q < 30000; q += 97) {
+            Assert.assertEquals(sketch.countOverlapping(LongSpan.fromLength(q, 50)),
+                    copy.countOverlapping(LongSpan.fromLength(q, 50)));
+        }
+    }
+
+    @Test
+    public void testReadRejectsCorruptHeader() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0);
+        out.writeLong(1);
+        out.writeInt(LongSpanCoverageSketch.MAX_BUCKET_COUNT);
+        out.writeLong(0);
+        out.writeLong(0);
+        out.writeLong(1);
+        try {
+            LongSpanCoverageSketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            Assert.fail("Should have thrown IOException");
+        } catch (final IOException expected) {
+            // truncated input fails without allocating the declared buckets.
+        }
+
+        bytes.reset();
+        out.writeLong(0);
+        out.writeLong(1);
+        out.writeInt(-1);
+        try {
+            LongSpanCoverageSketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            Assert.fail("Should have thrown IOException");
+        } catch (final IOException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanCoverageTreeTest {
+
+    @Test
+    public void testQueries() {
+        final LongSpanCoverageTree tree = new LongSpanCoverageTree(
+                Arrays.asList(LongSpan.fromEnd(0, 9), LongSpan.fromEnd(5, 14)));
+        tree.add(LongSpan.fromEnd(0, 9));
+        tree.add(LongSpan.fromEnd(5, 14));
+        tree.add(LongSpan.fromEnd(5, 14));
+        tree.add(LongSpan.fromEnd(30, 39));
+        Assert.assertFalse(tree.add(LongSpan.fromLength(7, 0)));
+        Assert.assertEquals(4, tree.size());
+
+        Assert.assertEquals(3, tree.countOverlapping(LongSpan.fromEnd(9, 9)));
+        Assert.assertEquals(3, tree.countOverlapping(LongSpan.fromEnd(10, 30)));
+        Assert.assertEquals(0, tree.countOverlapping(LongSpan.fromEnd(15, 29)));
+        Assert.assertEquals(25, tree.coveredLength());
+        Assert.assertEquals(6, tree.coveredLength(LongSpan.fromEnd(12, 32)));
+
+        Assert.assertTrue(tree.remove(LongSpan.fromEnd(5, 14)));
+        Assert.assertEquals(3, tree.countOverlapping(LongSpan.fromEnd(0, 100)));
+        Assert.assertEquals(25, tree.coveredLength());
+        Assert.assertTrue(tree.remove(LongSpan.fromEnd(5, 14)));
+        Assert.assertFalse(tree.remove(LongSpan.fromEnd(5, 14)));
+        Assert.assertEquals(20, tree.coveredLength());
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        final Random random = new Random(13);
+        final LongSpanCoverageTree tree = new LongSpanCoverageTree();
+        final List<LongSpan> spans = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            if (!spans.isEmpty() && (random.nextInt(3) == 0)) {
+                Assert.assertTrue(tree.remove(spans.remove(random.nextInt(spans.size()))));
+            } else {
+                final LongSpan span = LongSpan.fromLength(random.nextInt(5000), random.nextInt(100) + 1);
+                spans.add(span);
+                tree.add(span);
+            }
+            if ((i % 50) == 0) {
+                final LongSpan query = LongSpan.fromLength(random.nextInt(5200) - 100, random.nextInt(500) + 1);
+                long count = 0;
+                final BitSet all = new BitSet();
+                for (final LongSpan span : spans) {
+                    if (span.overlaps(query)) {
+                        count++;
+                    }
+                    all.set((int) span.getOffset(), (int) span.getEnd() + 1);
+                }
+                Assert.assertEquals(count, tree.countOverlapping(query));
+                Assert.assertEquals(all.cardinality(), tree.coveredLength());
+                final BitSet inQuery = (BitSet) all.clone();
+                inQuery.clear(0, (int) Math.max(0, query.getOffset()));
+                inQuery.clear((int) query.getEnd() + 1, 6000);
+                Assert.assertEquals(inQuery.cardinality(), tree.coveredLength(query));
+            }
+        }
+        Assert.assertEquals(spans.size(), tree.size());
+    }
+
+    @Test
+    public void testCoveredLengthOverflow() {
+        final LongSpanCoverageTree tree = new LongSpanCoverageTree();
+        tree.add(Long.MIN_VALUE, Long.MAX_VALUE);
+        Assert.assertEquals(Long.MAX_VALUE, tree.coveredLength());
+        tree.add(0, Long.MAX_VALUE);
+        Assert.assertEquals(Long.MAX_VALUE, tree.coveredLength(LongSpan.fromLength(0, Long.MAX_VALUE)));
+        try {
+            tree.coveredLength();
+            Assert.fail("Should have thrown ArithmeticException");
+        } catch (final ArithmeticException expected) {
+            // expected
+        }
+        // the same once the boundaries are registered and the spans indexed.
+        final LongSpanCoverageTree indexed = new LongSpanCoverageTree(Arrays
+                .asList(LongSpan.fromLength(Long.MIN_VALUE, Long.MAX_VALUE), LongSpan.fromLength(0, Long.MAX_VALUE)));
+        indexed.add(Long.MIN_VALUE, Long.MAX_VALUE);
+        indexed.add(0, Long.MAX_VALUE);
+        try {
+            indexed.coveredLength();
+            Assert.fail("Should have thrown ArithmeticException");
+        } catch (final ArithmeticException expected) {
+            // expected
+        }
+    }
+}
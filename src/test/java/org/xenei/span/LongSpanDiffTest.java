@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanDiffTest {
+
+    @Test
+    public void testDiff() {
+        final List<LongSpan> from = Arrays.asList(LongSpan.fromEnd(0, 9), LongSpan.fromEnd(5, 14),
+                LongSpan.fromEnd(20, 29), LongSpan.fromEnd(40, 49));
+        final List<LongSpan> to = Arrays.asList(LongSpan.fromEnd(0, 4), LongSpan.fromEnd(8, 24),
+                LongSpan.fromLength(30, 0), LongSpan.fromEnd(40, 49), LongSpan.fromEnd(60, 61));
+        final LongSpanSink.Packed added = new LongSpanSink.Packed(4);
+        final LongSpanSink.Packed removed = new LongSpanSink.Packed(4);
+        Assert.assertEquals(4, LongSpanDiff.diff(from, to, added, removed));
+        Assert.assertEquals(Arrays.asList(LongSpan.fromEnd(15, 19), LongSpan.fromEnd(60, 61)), added.toList());
+        Assert.assertEquals(Arrays.asList(LongSpan.fromEnd(5, 7), LongSpan.fromEnd(25, 29)), removed.toList());
+    }
+
+    @Test
+    public void testIdentical() {
+        final List<LongSpan> spans = Arrays.asList(LongSpan.fromEnd(0, 9), LongSpan.fromEnd(10, 19));
+        Assert.assertEquals(0, LongSpanDiff.diff(spans, Arrays.asList(LongSpan.fromEnd(0, 19)), (o, l) -> {
+            Assert.fail();
+        }, (o, l) -> {
+            Assert.fail();
+        }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsorted() {
+        LongSpanDiff.diff(Arrays.asList(LongSpan.fromEnd(10, 19), LongSpan.fromEnd(0, 5)), Arrays.asList(),
+                (o, l) -> {
+                }, (o, l) -> {
+                });
+    }
+
+    @Test
+    public void testWriteAndApply() throws IOException {
+        final Random random = new Random(23);
+        for (int round = 0; round < 20; round++) {
+            final LongSpanSet from = new LongSpanSet();
+            final LongSpanSet to = new LongSpanSet();
+            for (int i = 0; i < 200; i++) {
+                final LongSpan span = LongSpan.fromLength(random.nextInt(20000), random.nextInt(100));
+                final int choice = random.nextInt(3);
+                if (choice != 1) {
+                    from.add(span);
+                }
+                if (choice != 0) {
+                    to.add(span);
+                }
+            }
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final int records = LongSpanDiff.write(from, to, new DataOutputStream(bytes));
+            Assert.assertEquals((records * (1 + LongSpanCodec.BYTES)) + 1, bytes.size());
+
+            final LongSpanSet replica = new LongSpanSet(from);
+            Assert.assertEquals(records,
+                    LongSpanDiff.apply(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), replica));
+            Assert.assertEquals(to.toList(), replica.toList());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testApplyRejectsUnknownType() throws IOException {
+        LongSpanDiff.apply(new DataInputStream(new ByteArrayInputStream(new byte[] { 7 })), new LongSpanSet());
+    }
+}
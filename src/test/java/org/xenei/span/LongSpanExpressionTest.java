@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanExpressionTest {
+
+    private final LongSpanExpression a = LongSpanExpression.of(LongSpan.fromEnd(0, 9), LongSpan.fromEnd(5, 14),
+            LongSpan.fromEnd(15, 16), LongSpan.fromLength(18, 0), LongSpan.fromEnd(30, 39));
+    private final LongSpanExpression b = LongSpanExpression.of(LongSpan.fromEnd(10, 20), LongSpan.fromEnd(35, 50));
+
+    private static void assertSpans(final List<LongSpan> actual, final long... offsetEnds) {
+        Assert.assertEquals(offsetEnds.length / 2, actual.size());
+        for (int i = 0; i < actual.size(); i++) {
+            Assert.assertEquals(offsetEnds[i * 2], actual.get(i).getOffset());
+            Assert.assertEquals(offsetEnds[(i * 2) + 1], actual.get(i).getEnd());
+        }
+    }
+
+    @Test
+    public void testSourceMerges() {
+        assertSpans(a.toList(), 0, 16, 30, 39);
+        Assert.assertEquals(27, a.coveredLength());
+    }
+
+    @Test
+    public void testOperators() {
+        assertSpans(a.union(b).toList(), 0, 20, 30, 50);
+        assertSpans(a.intersect(b).toList(), 10, 16, 35, 39);
+        assertSpans(a.difference(b).toList(), 0, 9, 30, 34);
+        assertSpans(b.difference(a).toList(), 17, 20, 40, 50);
+        assertSpans(a.complement(LongSpan.fromEnd(-5, 45)).toList(), -5, -1, 17, 29, 40, 45);
+    }
+
+    @Test
+    public void testCursorValueEquality() {
+        final LongSpanExpression.Cursor cursor = a.cursor();
+        Assert.assertTrue(cursor.next());
+        final LongSpan expected = LongSpan.fromEnd(0, 16);
+        Assert.assertEquals(expected, cursor);
+        Assert.assertEquals(cursor, expected);
+        Assert.assertEquals(expected.hashCode(), cursor.hashCode());
+    }
+
+    @Test
+    public void testShortCircuit() {
+        Assert.assertFalse(a.isEmpty());
+        Assert.assertTrue(a.intersect(LongSpanExpression.of(LongSpan.fromEnd(20, 25))).isEmpty());
+        Assert.assertEquals(10, a.intersect(b).firstMatch().getOffset());
+        Assert.assertEquals(35, a.intersect(b).firstMatch(LongSpan.fromEnd(20, 100)).getOffset());
+        Assert.assertEquals(0, a.firstMatch(LongSpan.fromEnd(20, 25)).getLength());
+
+        // the right side must not be read once the left is exhausted.
+        final Iterable<LongSpan> failing = () -> new Iterator<LongSpan>() {
+            @Override
+            public boolean hasNext() {
+                throw new IllegalStateException("should not be read");
+            }
+
+            @Override
+            public LongSpan next() {
+                throw new IllegalStateException("should not be read");
+            }
+        };
+        Assert.assertTrue(LongSpanExpression.of().intersect(LongSpanExpression.of(failing)).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsorted() {
+        LongSpanExpression.of(LongSpan.fromEnd(5, 6), LongSpan.fromEnd(1, 2)).toList();
+    }
+
+    private static List<LongSpan> randomSpans(final Random random) {
+        final List<LongSpan> spans = new ArrayList<>();
+        long offset = 0;
+        for (int i = 0; i < 100; i++) {
+            offset += random.nextInt(20);
+            spans.add(LongSpan.fromLength(offset, random.nextInt(15)));
+        }
+        return spans;
+    }
+
+    private static BitSet bits(final List<LongSpan> spans) {
+        final BitSet result = new BitSet();
+        for (final LongSpan span : spans) {
+            result.set((int) span.getOffset(), (int) (span.getOffset() + span.getLength()));
+        }
+        return result;
+    }
+
+    @Test
+    public void testMatchesBitSet() {
+        final Random random = new Random(6);
+        for (int round = 0; round < 20; round++) {
+            final List<LongSpan> x = randomSpans(random);
+            final List<LongSpan> y = randomSpans(random);
+            final List<LongSpan> z = randomSpans(random);
+            final LongSpan bounds = LongSpan.fromLength(0, 3000);
+            // (X u Y) n !Z
+            final LongSpanExpression expr = LongSpanExpression.of(x).union(LongSpanExpression.of(y))
+                    .intersect(LongSpanExpression.of(z).complement(bounds));
+            final BitSet expected = bits(x);
+            expected.or(bits(y));
+            final BitSet notZ = bits(z);
+            notZ.flip(0, 3000);
+            expected.and(notZ);
+
+            final List<LongSpan> actual = expr.toList();
+            Assert.assertEquals(expected, bits(actual));
+            for (int i = 1; i < actual.size(); i++) {
+                Assert.assertTrue(actual.get(i).getOffset() > actual.get(i - 1).getEnd() + 1);
+            }
+            Assert.assertEquals(expected.cardinality(), expr.coveredLength());
+        }
+    }
+}
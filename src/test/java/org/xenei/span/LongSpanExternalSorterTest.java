@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LongSpanExternalSorterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] encode(final List<LongSpan> spans) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(bos);
+        for (final LongSpan span : spans) {
+            LongSpanCodec.write(dos, span);
+        }
+        return bos.toByteArray();
+    }
+
+    private static List<LongSpan> decode(final byte[] bytes) throws IOException {
+        final List<LongSpan> result = new ArrayList<>();
+        final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bytes));
+        while (dis.available() > 0) {
+            result.add(LongSpanCodec.read(dis));
+        }
+        return result;
+    }
+
+    private static List<LongSpan> randomSpans(final int count) {
+        final Random random = new Random(42);
+        final List<LongSpan> spans = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            spans.add(LongSpan.fromLength(random.nextInt(10000) - 5000, random.nextInt(20)));
+        }
+        return spans;
+    }
+
+    @Test
+    public void testSortMultiplePasses() throws IOException {
+        final List<LongSpan> spans = randomSpans(1000);
+        // budget for runs of 4 spans and a fan in of 2
+        final LongSpanExternalSorter sorter = new LongSpanExternalSorter(4 * 24, null);
+        Assert.assertEquals(4, sorter.getRunSize());
+        Assert.assertEquals(2, sorter.getFanIn());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assert.assertEquals(1000, sorter.sort(new ByteArrayInputStream(encode(spans)), out, false));
+
+        final List<LongSpan> sorted = decode(out.toByteArray());
+        Assert.assertEquals(1000, sorted.size());
+        for (int i = 1; i < sorted.size(); i++) {
+            final LongSpan prev = sorted.get(i - 1);
+            final LongSpan cur = sorted.get(i);
+            Assert.assertTrue(prev.getOffset() < cur.getOffset()
+                    || (prev.getOffset() == cur.getOffset() && prev.getLength() <= cur.getLength()));
+        }
+    }
+
+    @Test
+    public void testRunFilesDeleted() throws IOException {
+        final File dir = folder.newFolder();
+        final LongSpanExternalSorter sorter = new LongSpanExternalSorter(4 * 24, dir);
+        sorter.sort(new ByteArrayInputStream(encode(randomSpans(100))), new ByteArrayOutputStream(), false);
+        Assert.assertEquals(0, dir.list().length);
+
+        try {
+            sorter.sort(new ByteArrayInputStream(new byte[(LongSpanCodec.BYTES * 10) + 3]),
+                    new ByteArrayOutputStream(), false);
+            Assert.fail("Should have thrown IOException");
+        } catch (final IOException expected) {
+            // expected
+        }
+        Assert.assertEquals(0, dir.list().length);
+    }
+
+    @Test
+    public void testCoalesce() throws IOException {
+        final List<LongSpan> spans = new ArrayList<>();
+        spans.add(LongSpan.fromEnd(20, 25));
+        spans.add(LongSpan.fromEnd(0, 5));
+        spans.add(LongSpan.fromEnd(3, 9));
+        spans.add(LongSpan.fromLength(15, 0));
+        spans.add(LongSpan.fromEnd(10, 12));
+        spans.add(LongSpan.fromEnd(26, 26));
+        final LongSpanExternalSorter sorter = new LongSpanExternalSorter(2 * 24, null);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assert.assertEquals(2, sorter.sort(new ByteArrayInputStream(encode(spans)), out, true));
+
+        final List<LongSpan> result = decode(out.toByteArray());
+        Assert.assertEquals(0, result.get(0).getOffset());
+        Assert.assertEquals(12, result.get(0).getEnd());
+        Assert.assertEquals(20, result.get(1).getOffset());
+        Assert.assertEquals(26, result.get(1).getEnd());
+    }
+
+    @Test
+    public void testEmptyInput() throws IOException {
+        final LongSpanExternalSorter sorter = new LongSpanExternalSorter(1 << 20, null);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assert.assertEquals(0, sorter.sort(new ByteArrayInputStream(new byte[0]), out, true));
+        Assert.assertEquals(0, out.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testPartialRecord() throws IOException {
+        final LongSpanExternalSorter sorter = new LongSpanExternalSorter(1 << 20, null);
+        sorter.sort(new ByteArrayInputStream(new byte[LongSpanCodec.BYTES + 3]), new ByteArrayOutputStream(), false);
+    }
+
+    @Test
+    public void testCodecMatchesByteBuffer() throws IOException {
+        final LongSpan span = LongSpan.fromLength(-7, 300);
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        LongSpanCodec.write(new DataOutputStream(bos), span);
+        Assert.assertArrayEquals(span.asByteBuffer().array(), bos.toByteArray());
+    }
+}
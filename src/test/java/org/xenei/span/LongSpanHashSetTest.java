@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanHashSetTest {
+
+    @Test
+    public void testAddContainsRemove() {
+        final LongSpanHashSet set = new LongSpanHashSet();
+        Assert.assertTrue(set.add(LongSpan.fromLength(0, 0)));
+        Assert.assertFalse(set.add(0, 0));
+        Assert.assertTrue(set.add(LongSpan.fromEnd(5, 10)));
+        Assert.assertTrue(set.add(LongSpan.fromEnd(5, 11)));
+        Assert.assertEquals(3, set.size());
+        Assert.assertTrue(set.contains(LongSpan.fromEnd(5, 10)));
+        Assert.assertTrue(set.remove(LongSpan.fromEnd(5, 10)));
+        Assert.assertFalse(set.contains(5, 6));
+        Assert.assertTrue(set.contains(5, 7));
+        Assert.assertEquals(2, set.size());
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertFalse(set.contains(0, 0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testNegativeLength() {
+        new LongSpanHashSet().add(0, -1);
+    }
+
+    @Test
+    public void testMatchesHashSet() {
+        final Random random = new Random(11);
+        final LongSpanHashSet set = new LongSpanHashSet(4);
+        final Set<LongSpan> expected = new HashSet<>();
+        for (int i = 0; i < 200000; i++) {
+            final LongSpan span = LongSpan.fromLength(random.nextInt(2000), random.nextInt(20));
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(span), set.remove(span));
+            } else {
+                Assert.assertEquals(expected.add(span), set.add(span));
+            }
+        }
+        Assert.assertEquals(expected.size(), set.size());
+        final Set<LongSpan> actual = new HashSet<>();
+        set.forEach((offset, length) -> Assert.assertTrue(actual.add(LongSpan.fromLength(offset, length))));
+        Assert.assertEquals(expected, actual);
+    }
+}
@@ -77,4 +77,18 @@ public class LongSpanImplTest {
         Assert.assertFalse(span.contains(0));
         Assert.assertFalse(span.contains(10));
     }
+
+    @Test
+    public void testEquality() {
+        span = LongSpan.fromLength(1, 9);
+        Assert.assertEquals(span, LongSpan.fromEnd(1, 9));
+        Assert.assertEquals(span.hashCode(), LongSpan.fromEnd(1, 9).hashCode());
+        Assert.assertEquals(span, new MutableLongSpan(1, 9));
+        Assert.assertEquals(new MutableLongSpan(1, 9), span);
+        Assert.assertEquals(span.hashCode(), new MutableLongSpan(1, 9).hashCode());
+        Assert.assertNotEquals(span, LongSpan.fromLength(1, 8));
+        Assert.assertNotEquals(span, LongSpan.fromLength(2, 9));
+        Assert.assertNotEquals(LongSpan.fromLength(1, 0), LongSpan.fromLength(2, 0));
+        Assert.assertNotEquals(span, "span");
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LongSpanIndexFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LongSpanIntervalIndex randomIndex(final int size) {
+        final Random random = new Random(7);
+        final List<LongSpan> spans = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            spans.add(LongSpan.fromLength(random.nextInt(100000), random.nextInt(300)));
+        }
+        return LongSpanIntervalIndex.build(spans);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final LongSpanIntervalIndex index = randomIndex(5000);
+        final File file = folder.newFile();
+        LongSpanIndexFile.write(index, 64, file);
+
+        final LongSpanIndexFile mapped = LongSpanIndexFile.open(file);
+        Assert.assertEquals(index.size(), mapped.size());
+        Assert.assertEquals(64, mapped.getBlockSize());
+        Assert.assertEquals((5000 + 63) / 64, mapped.getBlockCount());
+        Assert.assertEquals(5000, mapped.getSegmentSummary().getCount());
+        for (int i = 0; i < index.size(); i++) {
+            Assert.assertEquals(index.getOffset(i), mapped.getOffset(i));
+            Assert.assertEquals(index.getEnd(i), mapped.getEnd(i));
+        }
+        final Random random = new Random(8);
+        for (int q = 0; q < 200; q++) {
+            final LongSpan query = LongSpan.fromLength(random.nextInt(110000) - 5000, random.nextInt(500) + 1);
+            Assert.assertEquals(index.overlapping(query).toString(), mapped.overlapping(query).toString());
+        }
+
+        final LongSpanZoneMap zoneMap = mapped.toZoneMap();
+        Assert.assertEquals(mapped.getBlockCount(), zoneMap.getBlockCount());
+        Assert.assertEquals(64, zoneMap.getBlockSummary(0).getCount());
+        Assert.assertEquals(index.getOffset(64), zoneMap.getBlockSummary(1).getMinOffset());
+    }
+
+    @Test
+    public void testEmptyIndex() throws IOException {
+        final File file = folder.newFile();
+        LongSpanIndexFile.write(LongSpanIntervalIndex.fromSorted(new long[0], new long[0]), 16, file);
+        final LongSpanIndexFile mapped = LongSpanIndexFile.open(file);
+        Assert.assertEquals(0, mapped.size());
+        Assert.assertEquals(0, mapped.getBlockCount());
+        Assert.assertEquals(0, mapped.countOverlapping(LongSpan.fromLength(0, 10)));
+    }
+
+    private void assertRejected(final File file) {
+        try {
+            LongSpanIndexFile.open(file);
+            Assert.fail("Should have thrown IOException");
+        } catch (final IOException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testValidation() throws IOException {
+        final File file = folder.newFile();
+        LongSpanIndexFile.write(randomIndex(100), 10, file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.writeInt(LongSpanIndexFile.VERSION + 1);
+        }
+        assertRejected(file);
+
+        LongSpanIndexFile.write(randomIndex(100), 10, file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 8);
+        }
+        assertRejected(file);
+
+        LongSpanIndexFile.write(randomIndex(100), 10, file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeInt(0);
+        }
+        assertRejected(file);
+
+        LongSpanIndexFile.write(randomIndex(100), 10, file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(32);
+            raf.writeLong(-1);
+        }
+        assertRejected(file);
+
+        LongSpanIndexFile.write(randomIndex(100), 10, file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(24);
+            raf.writeLong(Long.MAX_VALUE);
+        }
+        assertRejected(file);
+
+        LongSpanIndexFile.write(randomIndex(100), 10, file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(LongSpanIndexFile.HEADER_BYTES + (3 * 100 * Long.BYTES) + (3 * Long.BYTES));
+            raf.writeLong(Long.MAX_VALUE);
+        }
+        assertRejected(file);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanIntervalIndexTest {
+
+    @Test
+    public void testFromSorted() {
+        final LongSpanIntervalIndex index = LongSpanIntervalIndex.fromSorted(Arrays.asList(LongSpan.fromEnd(0, 100),
+                LongSpan.fromEnd(5, 9), LongSpan.fromLength(7, 0), LongSpan.fromEnd(20, 29), LongSpan.fromEnd(40, 45))
+                .iterator());
+        Assert.assertEquals(5, index.size());
+
+        final List<LongSpan> result = index.overlapping(LongSpan.fromEnd(7, 21));
+        Assert.assertEquals(3, result.size());
+        Assert.assertEquals(0, result.get(0).getOffset());
+        Assert.assertEquals(5, result.get(1).getOffset());
+        Assert.assertEquals(20, result.get(2).getOffset());
+
+        Assert.assertEquals(0, index.countOverlapping(LongSpan.fromEnd(101, 200)));
+        Assert.assertEquals(2, index.countOverlapping(LongSpan.fromEnd(45, 45)));
+        Assert.assertEquals(0, index.countOverlapping(LongSpan.fromLength(5, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromSortedRejectsUnsorted() {
+        LongSpanIntervalIndex.fromSorted(new long[] { 5, 1 }, new long[] { 1, 1 });
+    }
+
+    @Test
+    public void testEmpty() {
+        final LongSpanIntervalIndex index = LongSpanIntervalIndex.fromSorted(new long[0], new long[0]);
+        Assert.assertEquals(0, index.countOverlapping(LongSpan.fromEnd(0, 10)));
+    }
+
+    @Test
+    public void testBuildMatchesScan() {
+        final Random random = new Random(5);
+        final List<LongSpan> spans = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            spans.add(LongSpan.fromLength(random.nextInt(1_000_000), random.nextInt(random.nextBoolean() ? 50 : 5000)));
+        }
+        final LongSpanIntervalIndex index = LongSpanIntervalIndex.build(spans);
+        for (int i = 1; i < index.size(); i++) {
+            Assert.assertTrue(index.getOffset(i - 1) <= index.getOffset(i));
+        }
+        for (int q = 0; q < 100; q++) {
+            final LongSpan query = LongSpan.fromLength(random.nextInt(1_000_000), random.nextInt(1000) + 1);
+            int expected = 0;
+            for (final LongSpan span : spans) {
+                if (span.getLength() > 0 && span.overlaps(query)) {
+                    expected++;
+                }
+            }
+            Assert.assertEquals(expected, index.countOverlapping(query));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LongSpanJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private List<LongSpan> populate(final File dir) throws IOException {
+        try (LongSpanJournal journal = new LongSpanJournal(dir, 4, 1000)) {
+            journal.add(LongSpan.fromEnd(0, 9));
+            journal.add(LongSpan.fromEnd(20, 29));
+            journal.add(LongSpan.fromEnd(10, 12));
+            journal.remove(LongSpan.fromEnd(5, 6));
+            journal.add(LongSpan.fromEnd(40, 49));
+            return journal.getSpans();
+        }
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        final File dir = folder.newFolder();
+        final List<LongSpan> expected = populate(dir);
+        Assert.assertEquals("[0, 4][7, 12][20, 29][40, 49]", format(expected));
+        try (LongSpanJournal journal = new LongSpanJournal(dir)) {
+            Assert.assertEquals(format(expected), format(journal.getSpans()));
+            Assert.assertEquals(5, journal.getLogRecords());
+            Assert.assertTrue(journal.contains(8));
+            Assert.assertFalse(journal.contains(5));
+        }
+    }
+
+    private static String format(final List<LongSpan> spans) {
+        final StringBuilder sb = new StringBuilder();
+        for (final LongSpan span : spans) {
+            sb.append('[').append(span.getOffset()).append(", ").append(span.getEnd()).append(']');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testTornRecordTruncated() throws IOException {
+        final File dir = folder.newFolder();
+        populate(dir);
+        final File log = new File(dir, LongSpanJournal.LOG_FILE);
+        try (FileOutputStream out = new FileOutputStream(log, true)) {
+            out.write(new byte[] { LongSpanJournal.ADD, 0, 0, 0, 0, 0, 0, 0 });
+        }
+        try (LongSpanJournal journal = new LongSpanJournal(dir)) {
+            Assert.assertEquals(5, journal.getLogRecords());
+            Assert.assertEquals(5L * LongSpanJournal.RECORD_BYTES, log.length());
+            journal.add(LongSpan.fromEnd(100, 100));
+        }
+        try (LongSpanJournal journal = new LongSpanJournal(dir)) {
+            Assert.assertEquals(6, journal.getLogRecords());
+            Assert.assertTrue(journal.contains(100));
+        }
+    }
+
+    @Test
+    public void testCorruptRecordTruncated() throws IOException {
+        final File dir = folder.newFolder();
+        populate(dir);
+        final File log = new File(dir, LongSpanJournal.LOG_FILE);
+        try (RandomAccessFile raf = new RandomAccessFile(log, "rw")) {
+            // damage the offset of the fourth record.
+            raf.seek((3L * LongSpanJournal.RECORD_BYTES) + 5);
+            raf.write(0x7F);
+        }
+        try (LongSpanJournal journal = new LongSpanJournal(dir)) {
+            Assert.assertEquals(3, journal.getLogRecords());
+            Assert.assertEquals("[0, 12][20, 29]", format(journal.getSpans()));
+        }
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        final File dir = folder.newFolder();
+        final List<LongSpan> expected = populate(dir);
+        try (LongSpanJournal journal = new LongSpanJournal(dir)) {
+            journal.compact().get();
+            Assert.assertEquals(0, journal.getLogRecords());
+            Assert.assertTrue(new File(dir, LongSpanJournal.SNAPSHOT_FILE).exists());
+            Assert.assertFalse(new File(dir, LongSpanJournal.COMPACTING_FILE).exists());
+            journal.remove(LongSpan.fromEnd(40, 44));
+        }
+        try (LongSpanJournal journal = new LongSpanJournal(dir)) {
+            Assert.assertEquals(1, journal.getLogRecords());
+            Assert.assertEquals(format(expected).replace("[40, 49]", "[45, 49]"), format(journal.getSpans()));
+        }
+    }
+
+    @Test
+    public void testInterruptedCompaction() throws IOException {
+        final File dir = folder.newFolder();
+        final List<LongSpan> expected = populate(dir);
+        // simulate a crash after the journal was renamed but before the snapshot
+        // was written.
+        Files.move(new File(dir, LongSpanJournal.LOG_FILE).toPath(),
+                new File(dir, LongSpanJournal.COMPACTING_FILE).toPath());
+        try (LongSpanJournal journal = new LongSpanJournal(dir)) {
+            Assert.assertEquals(format(expected), format(journal.getSpans()));
+            Assert.assertFalse(new File(dir, LongSpanJournal.COMPACTING_FILE).exists());
+        }
+        try (LongSpanJournal journal = new LongSpanJournal(dir)) {
+            Assert.assertEquals(format(expected), format(journal.getSpans()));
+        }
+    }
+
+    @Test
+    public void testAutomaticCompaction() throws IOException {
+        final File dir = folder.newFolder();
+        final LongSpanSet expected = new LongSpanSet();
+        final Random random = new Random(9);
+        try (LongSpanJournal journal = new LongSpanJournal(dir, 16, 100)) {
+            for (int i = 0; i < 1000; i++) {
+                final long offset = random.nextInt(5000);
+                final long length = random.nextInt(50);
+                if (random.nextInt(3) == 0) {
+                    journal.remove(offset, length);
+                    expected.remove(offset, length);
+                } else {
+                    journal.add(offset, length);
+                    expected.add(offset, length);
+                }
+            }
+            Assert.assertTrue(journal.getLogRecords() < 1000);
+        }
+        try (LongSpanJournal journal = new LongSpanJournal(dir)) {
+            Assert.assertEquals(format(expected.toList()), format(journal.getSpans()));
+            Assert.assertEquals(expected.getCoveredLength(), journal.getCoveredLength());
+        }
+    }
+
+    @Test
+    public void testAutomaticCompactionFailureReported() throws IOException {
+        final File dir = folder.newFolder();
+        final File blocker = new File(dir, "spans.snapshot.tmp");
+        final LongSpanJournal journal = new LongSpanJournal(dir, 1, 2);
+        // a non empty directory where the snapshot is written makes compaction fail.
+        Assert.assertTrue(blocker.mkdir());
+        Assert.assertTrue(new File(blocker, "x").createNewFile());
+        journal.add(0, 10);
+        journal.add(20, 10);
+        try {
+            journal.close();
+            Assert.fail("Should have thrown IOException");
+        } catch (final IOException expected) {
+            // expected
+        }
+        Assert.assertTrue(new File(blocker, "x").delete());
+        Assert.assertTrue(blocker.delete());
+        try (LongSpanJournal reopened = new LongSpanJournal(dir)) {
+            Assert.assertEquals("[0, 9][20, 29]", format(reopened.getSpans()));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanLongHashMapTest {
+
+    @Test
+    public void testPutGet() {
+        final LongSpanLongHashMap map = new LongSpanLongHashMap();
+        Assert.assertTrue(map.put(LongSpan.fromEnd(1, 5), 7));
+        Assert.assertFalse(map.put(1, 5, 8));
+        Assert.assertEquals(8, map.get(LongSpan.fromLength(1, 5), -1));
+        Assert.assertEquals(-1, map.get(1, 4, -1));
+        Assert.assertEquals(3, map.addTo(2, 2, 3));
+        Assert.assertEquals(5, map.addTo(2, 2, 2));
+        Assert.assertTrue(map.remove(1, 5));
+        Assert.assertFalse(map.containsKey(1, 5));
+        Assert.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testMatchesHashMap() {
+        final Random random = new Random(12);
+        final LongSpanLongHashMap map = new LongSpanLongHashMap(0);
+        final Map<LongSpan, Long> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            final LongSpan span = LongSpan.fromLength(random.nextInt(1000) - 500, random.nextInt(10));
+            if (random.nextInt(4) == 0) {
+                Assert.assertEquals(expected.remove(span) != null, map.remove(span.getOffset(), span.getLength()));
+            } else {
+                expected.merge(span, 1L, Long::sum);
+                map.addTo(span.getOffset(), span.getLength(), 1);
+            }
+        }
+        Assert.assertEquals(expected.size(), map.size());
+        map.forEach((offset, length, value) -> Assert
+                .assertEquals(expected.get(LongSpan.fromLength(offset, length)), Long.valueOf(value)));
+    }
+}
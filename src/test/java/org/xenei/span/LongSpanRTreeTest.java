@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanRTreeTest {
+
+    private static LongSpanBox box(final long x, final long xEnd, final long y, final long yEnd) {
+        return LongSpanBox.of(LongSpan.fromEnd(x, xEnd), LongSpan.fromEnd(y, yEnd));
+    }
+
+    @Test
+    public void testQueries() {
+        final List<LongSpanBox> boxes = Arrays.asList(box(0, 9, 0, 9), box(5, 14, 5, 14), box(20, 29, 0, 9),
+                LongSpanBox.of(LongSpan.fromEnd(0, 100), LongSpan.fromLength(0, 0)));
+        final LongSpanRTree tree = LongSpanRTree.build(boxes, 2);
+        Assert.assertEquals(4, tree.size());
+        Assert.assertEquals(3, tree.getHeight());
+
+        final List<Integer> found = new ArrayList<>();
+        Assert.assertEquals(3, tree.overlapping(box(8, 25, 9, 9), found::add));
+        Collections.sort(found);
+        Assert.assertEquals(Arrays.asList(0, 1, 2), found);
+
+        Assert.assertEquals(2, tree.containing(7, 7).size());
+        Assert.assertEquals(box(20, 29, 0, 9), tree.containing(25, 5).get(0));
+        Assert.assertEquals(0, tree.countOverlapping(box(15, 19, 0, 100)));
+        Assert.assertEquals(0, tree.containing(50, 0).size());
+    }
+
+    @Test
+    public void testEmpty() {
+        final LongSpanRTree tree = LongSpanRTree.build(Collections.emptyList());
+        Assert.assertEquals(0, tree.getHeight());
+        Assert.assertEquals(0, tree.countOverlapping(box(0, 10, 0, 10)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMixedDimensions() {
+        LongSpanRTree.build(Arrays.asList(box(0, 1, 0, 1), LongSpanBox.point(1)));
+    }
+
+    @Test
+    public void testMatchesScan() {
+        final Random random = new Random(9);
+        for (final int dims : new int[] { 1, 2, 3 }) {
+            final List<LongSpanBox> boxes = new ArrayList<>();
+            for (int i = 0; i < 20000; i++) {
+                final LongSpan[] axes = new LongSpan[dims];
+                for (int d = 0; d < dims; d++) {
+                    axes[d] = LongSpan.fromLength(random.nextInt(100000), random.nextInt(2000));
+                }
+                boxes.add(LongSpanBox.of(axes));
+            }
+            final LongSpanRTree tree = LongSpanRTree.build(boxes);
+            for (int q = 0; q < 100; q++) {
+                final LongSpan[] axes = new LongSpan[dims];
+                final long[] point = new long[dims];
+                for (int d = 0; d < dims; d++) {
+                    axes[d] = LongSpan.fromLength(random.nextInt(100000), random.nextInt(5000) + 1);
+                    point[d] = random.nextInt(100000);
+                }
+                final LongSpanBox query = LongSpanBox.of(axes);
+                int expected = 0;
+                int expectedPoint = 0;
+                for (final LongSpanBox box : boxes) {
+                    expected += box.overlaps(query) ? 1 : 0;
+                    expectedPoint += box.contains(point) ? 1 : 0;
+                }
+                Assert.assertEquals(expected, tree.countOverlapping(query));
+                Assert.assertEquals(expectedPoint, tree.containing(point).size());
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanSetTest {
+
+    @Test
+    public void testAddMerges() {
+        final LongSpanSet set = new LongSpanSet();
+        Assert.assertTrue(set.add(LongSpan.fromEnd(10, 19)));
+        Assert.assertTrue(set.add(LongSpan.fromEnd(30, 39)));
+        Assert.assertFalse(set.add(LongSpan.fromEnd(12, 15)));
+        Assert.assertFalse(set.add(LongSpan.fromLength(50, 0)));
+        Assert.assertEquals(2, set.size());
+        Assert.assertTrue(set.add(LongSpan.fromEnd(20, 29)));
+        Assert.assertEquals(1, set.size());
+        Assert.assertEquals(30, set.getCoveredLength());
+        Assert.assertEquals(39, set.iterator().next().getEnd());
+    }
+
+    @Test
+    public void testRemoveSplits() {
+        final LongSpanSet set = new LongSpanSet();
+        set.add(LongSpan.fromEnd(0, 99));
+        Assert.assertTrue(set.remove(LongSpan.fromEnd(10, 19)));
+        Assert.assertFalse(set.remove(LongSpan.fromEnd(10, 19)));
+        Assert.assertEquals(2, set.size());
+        Assert.assertFalse(set.contains(15));
+        Assert.assertTrue(set.contains(20));
+        Assert.assertEquals(90, set.getCoveredLength());
+        Assert.assertTrue(set.remove(LongSpan.fromEnd(-5, 200)));
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertEquals(0, set.getCoveredLength());
+    }
+
+    @Test
+    public void testMatchesBitSet() {
+        final Random random = new Random(10);
+        final LongSpanSet set = new LongSpanSet();
+        final BitSet bits = new BitSet();
+        for (int i = 0; i < 5000; i++) {
+            final int offset = random.nextInt(2000);
+            final int length = random.nextInt(40);
+            if (random.nextInt(3) == 0) {
+                set.remove(offset, length);
+                bits.clear(offset, offset + length);
+            } else {
+                set.add(offset, length);
+                bits.set(offset, offset + length);
+            }
+        }
+        Assert.assertEquals(bits.cardinality(), set.getCoveredLength());
+        final BitSet actual = new BitSet();
+        long previousEnd = Long.MIN_VALUE;
+        for (final LongSpan span : set) {
+            Assert.assertTrue(span.getOffset() > previousEnd + 1);
+            previousEnd = span.getEnd();
+            actual.set((int) span.getOffset(), (int) span.getEnd() + 1);
+        }
+        Assert.assertEquals(bits, actual);
+    }
+}
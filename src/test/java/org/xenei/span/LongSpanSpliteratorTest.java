@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanSpliteratorTest {
+
+    @Test
+    public void testAlignedChunks() {
+        final List<LongSpan> chunks = LongSpan.fromEnd(5, 30).chunks(10, 1).collect(Collectors.toList());
+        Assert.assertEquals(4, chunks.size());
+        assertSpan(5, 9, chunks.get(0));
+        assertSpan(10, 19, chunks.get(1));
+        assertSpan(20, 29, chunks.get(2));
+        assertSpan(30, 30, chunks.get(3));
+    }
+
+    @Test
+    public void testChunkSizeRoundedToAlignment() {
+        final LongSpanSpliterator spliterator = new LongSpanSpliterator(LongSpan.fromLength(0, 100), 10, 16);
+        Assert.assertEquals(16, spliterator.getChunkSize());
+        Assert.assertEquals(7, spliterator.estimateSize());
+    }
+
+    @Test
+    public void testNegativeOffset() {
+        final List<LongSpan> chunks = LongSpan.fromEnd(-15, 4).chunks(10, 1).collect(Collectors.toList());
+        Assert.assertEquals(3, chunks.size());
+        assertSpan(-15, -11, chunks.get(0));
+        assertSpan(-10, -1, chunks.get(1));
+        assertSpan(0, 4, chunks.get(2));
+    }
+
+    @Test
+    public void testEmptySpan() {
+        Assert.assertEquals(0, LongSpan.EMPTY.chunks(10, 1).count());
+        Assert.assertEquals(0, LongSpan.EMPTY.positions().count());
+    }
+
+    @Test
+    public void testSplitEvenly() {
+        final LongSpanSpliterator spliterator = new LongSpanSpliterator(LongSpan.fromLength(0, 1000), 10, 1);
+        final Spliterator<LongSpan> prefix = spliterator.trySplit();
+        Assert.assertEquals(50, prefix.estimateSize());
+        Assert.assertEquals(50, spliterator.estimateSize());
+        final LongSpan[] first = new LongSpan[1];
+        spliterator.tryAdvance(s -> first[0] = s);
+        assertSpan(500, 509, first[0]);
+    }
+
+    @Test
+    public void testParallelCoversSpan() {
+        final LongSpan span = LongSpan.fromLength(3, 100_000);
+        final long total = LongSpanSpliterator.stream(span, 4096, 512, true).mapToLong(LongSpan::getLength).sum();
+        Assert.assertEquals(span.getLength(), total);
+    }
+
+    @Test
+    public void testPositions() {
+        final LongSpan span = LongSpan.fromLength(10, 1000);
+        Assert.assertEquals(1000, span.positions().parallel().count());
+        Assert.assertTrue(span.positions().spliterator().hasCharacteristics(Spliterator.SUBSIZED));
+        Assert.assertEquals(10, span.positions().min().getAsLong());
+        Assert.assertEquals(1009, span.positions().max().getAsLong());
+    }
+
+    @Test
+    public void testSpanAtLimit() {
+        final LongSpan span = LongSpan.fromLength(Long.MAX_VALUE - 20, 20);
+        final List<LongSpan> chunks = span.chunks(Long.MAX_VALUE / 2, 1).collect(Collectors.toList());
+        Assert.assertEquals(2, chunks.size());
+        assertSpan(span.getOffset(), Long.MAX_VALUE - 2, chunks.get(0));
+        assertSpan(Long.MAX_VALUE - 1, span.getEnd(), chunks.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidChunkSize() {
+        new LongSpanSpliterator(LongSpan.fromLength(0, 10), 0, 1);
+    }
+
+    private static void assertSpan(final long offset, final long end, final LongSpan span) {
+        Assert.assertEquals(offset, span.getOffset());
+        Assert.assertEquals(end, span.getEnd());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanTextReaderTest {
+
+    @Test
+    public void testOffsetLength() throws IOException {
+        try (LongSpanTextReader reader = new LongSpanTextReader(new StringReader("1,9\n\n -5 , 3\r\n"))) {
+            Assert.assertTrue(reader.next());
+            Assert.assertEquals(1, reader.getOffset());
+            Assert.assertEquals(9, reader.getLength());
+            Assert.assertEquals(9, reader.getEnd());
+            Assert.assertEquals(1, reader.getLineNumber());
+            Assert.assertTrue(reader.next());
+            Assert.assertEquals(-5, reader.getOffset());
+            Assert.assertEquals(3, reader.getLength());
+            Assert.assertEquals(3, reader.getLineNumber());
+            Assert.assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testOffsetEnd() throws IOException {
+        try (LongSpanTextReader reader = new LongSpanTextReader(CharBuffer.wrap("[1,9]\n[-10,-2]"))) {
+            Assert.assertTrue(reader.next());
+            Assert.assertEquals(1, reader.getOffset());
+            Assert.assertEquals(9, reader.getLength());
+            Assert.assertTrue(reader.next());
+            Assert.assertEquals(-10, reader.getOffset());
+            Assert.assertEquals(9, reader.getLength());
+            Assert.assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testToStringRoundTrip() throws IOException {
+        final LongSpan span = LongSpan.fromLength(Long.MIN_VALUE, 10);
+        final String text = span.toString() + "\n" + LongSpan.fromLength(5, 0).toString();
+        try (LongSpanTextReader reader = new LongSpanTextReader(new StringReader(text))) {
+            Assert.assertTrue(reader.next());
+            Assert.assertEquals(Long.MIN_VALUE, reader.getOffset());
+            Assert.assertEquals(10, reader.getLength());
+            Assert.assertTrue(reader.next());
+            Assert.assertEquals(5, reader.getOffset());
+            Assert.assertEquals(0, reader.getLength());
+            Assert.assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testByteChannel() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        final LongSpanTextWriter writer = new LongSpanTextWriter(sb, LongSpanTextWriter.Format.OFFSET_END);
+        for (int i = 0; i < 10000; i++) {
+            writer.write(i * 3L, i % 5);
+        }
+        final byte[] bytes = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        try (LongSpanTextReader reader = new LongSpanTextReader(
+                Channels.newChannel(new ByteArrayInputStream(bytes)))) {
+            for (int i = 0; i < 10000; i++) {
+                Assert.assertTrue(reader.next());
+                Assert.assertEquals(i * 3L, reader.getOffset());
+                Assert.assertEquals(i % 5, reader.getLength());
+            }
+            Assert.assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    public void testMalformed() throws IOException {
+        try (LongSpanTextReader reader = new LongSpanTextReader(new StringReader("1,2\n1;2\n"))) {
+            Assert.assertTrue(reader.next());
+            reader.next();
+            Assert.fail("Should have thrown IOException");
+        } catch (final IOException expected) {
+            Assert.assertTrue(expected.getMessage().contains("line 2"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNegativeLength() throws IOException {
+        try (LongSpanTextReader reader = new LongSpanTextReader(new StringReader("1,-2"))) {
+            reader.next();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testOverflow() throws IOException {
+        try (LongSpanTextReader reader = new LongSpanTextReader(new StringReader("9223372036854775808,1"))) {
+            reader.next();
+        }
+    }
+}
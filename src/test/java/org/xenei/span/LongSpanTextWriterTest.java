@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanTextWriterTest {
+
+    @Test
+    public void testOffsetLength() throws IOException {
+        final StringWriter out = new StringWriter();
+        final LongSpanTextWriter writer = new LongSpanTextWriter(out, LongSpanTextWriter.Format.OFFSET_LENGTH);
+        writer.write(LongSpan.fromLength(1, 9));
+        writer.write(Long.MIN_VALUE, 0);
+        Assert.assertEquals("1,9\n-9223372036854775808,0\n", out.toString());
+    }
+
+    @Test
+    public void testOffsetEnd() throws IOException {
+        final StringWriter out = new StringWriter();
+        final LongSpanTextWriter writer = new LongSpanTextWriter(out, LongSpanTextWriter.Format.OFFSET_END);
+        writer.write(LongSpan.fromLength(-10, 9));
+        writer.write(LongSpan.fromLength(5, 0));
+        Assert.assertEquals("[-10,-2]\n[5,-empty-]\n", out.toString());
+    }
+
+    @Test
+    public void testToString() {
+        Assert.assertEquals(LongSpan.Impl.class.getName() + "[1,9]", LongSpan.fromLength(1, 9).toString());
+        Assert.assertEquals(LongSpan.Impl.class.getName() + "[0,-empty-]", LongSpan.EMPTY.toString());
+        Assert.assertEquals(IntSpan.Impl.class.getName() + "[1,9]", IntSpan.fromLength(1, 9).toString());
+    }
+}
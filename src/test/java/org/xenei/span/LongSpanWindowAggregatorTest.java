@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanWindowAggregatorTest {
+
+    @Test
+    public void testSlidingWindow() {
+        final List<LongSpan> expired = new ArrayList<>();
+        final LongSpanWindowAggregator aggregator = new LongSpanWindowAggregator(10,
+                (offset, length) -> expired.add(LongSpan.fromLength(offset, length)));
+        Assert.assertTrue(aggregator.add(LongSpan.fromEnd(0, 3)));
+        Assert.assertTrue(aggregator.add(LongSpan.fromEnd(2, 5)));
+        Assert.assertTrue(aggregator.add(LongSpan.fromEnd(8, 8)));
+        Assert.assertFalse(aggregator.add(LongSpan.fromLength(8, 0)));
+        // window is [-1,8]
+        Assert.assertEquals(8, aggregator.getWatermark());
+        Assert.assertEquals(3, aggregator.getActiveCount());
+        Assert.assertEquals(7, aggregator.getCoveredLength());
+        Assert.assertEquals(3, aggregator.getNextExpiry());
+
+        // window is [4,13]
+        Assert.assertEquals(1, aggregator.advance(13));
+        Assert.assertEquals(1, expired.size());
+        Assert.assertEquals(0, expired.get(0).getOffset());
+        Assert.assertEquals(3, expired.get(0).getEnd());
+        Assert.assertEquals(2, aggregator.getActiveCount());
+        Assert.assertEquals(3, aggregator.getCoveredLength());
+
+        // a long span reaching past the watermark only counts up to it.
+        Assert.assertTrue(aggregator.add(LongSpan.fromEnd(12, 30)));
+        Assert.assertEquals(5, aggregator.getCoveredLength());
+        // late spans are merged and expired ones ignored.
+        Assert.assertTrue(aggregator.add(LongSpan.fromEnd(6, 7)));
+        Assert.assertEquals(7, aggregator.getCoveredLength());
+        Assert.assertFalse(aggregator.add(LongSpan.fromEnd(0, 3)));
+        Assert.assertEquals(0, aggregator.advance(10));
+        Assert.assertEquals(4, aggregator.getActiveCount());
+
+        Assert.assertEquals(4, aggregator.advance(100));
+        Assert.assertEquals(0, aggregator.getActiveCount());
+        Assert.assertEquals(Long.MAX_VALUE, aggregator.getNextExpiry());
+        Assert.assertEquals(0, aggregator.getCoveredLength());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadWindow() {
+        new LongSpanWindowAggregator(0);
+    }
+
+    @Test
+    public void testMatchesScan() {
+        final Random random = new Random(7);
+        final long window = 500;
+        final LongSpanWindowAggregator aggregator = new LongSpanWindowAggregator(window);
+        final List<LongSpan> added = new ArrayList<>();
+        long time = 0;
+        for (int i = 0; i < 3000; i++) {
+            time += random.nextInt(20);
+            // roughly ordered: some spans arrive up to 100 positions late.
+            final long offset = time - (random.nextInt(4) == 0 ? random.nextInt(100) : 0);
+            final LongSpan span = LongSpan.fromLength(offset, random.nextInt(random.nextBoolean() ? 10 : 200));
+            if (random.nextInt(10) == 0) {
+                aggregator.advance(aggregator.getWatermark() + random.nextInt(50));
+            }
+            if (aggregator.add(span)) {
+                added.add(span);
+            }
+            final long start = aggregator.getWindowStart();
+            final long end = aggregator.getWatermark();
+            int active = 0;
+            final boolean[] covered = new boolean[(int) window];
+            for (final LongSpan s : added) {
+                if (s.getEnd() >= start) {
+                    active++;
+                }
+                for (long p = Math.max(start, s.getOffset()); p <= Math.min(end, s.getEnd()); p++) {
+                    covered[(int) (p - start)] = true;
+                }
+            }
+            long expected = 0;
+            for (final boolean b : covered) {
+                expected += b ? 1 : 0;
+            }
+            Assert.assertEquals(active, aggregator.getActiveCount());
+            Assert.assertEquals(expected, aggregator.getCoveredLength());
+        }
+    }
+
+    @Test
+    public void testMinimumOffset() {
+        final LongSpanWindowAggregator aggregator = new LongSpanWindowAggregator(100);
+        aggregator.add(Long.MIN_VALUE, 10);
+        aggregator.add(Long.MIN_VALUE, 5);
+        aggregator.advance(Long.MIN_VALUE + 50);
+        Assert.assertEquals(10, aggregator.getCoveredLength());
+        aggregator.add(Long.MIN_VALUE + 10, 5);
+        aggregator.add(Long.MIN_VALUE + 20, 5);
+        Assert.assertEquals(20, aggregator.getCoveredLength());
+        aggregator.add(Long.MIN_VALUE, 30);
+        Assert.assertEquals(30, aggregator.getCoveredLength());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongSpanZoneMapTest {
+
+    private static LongSpanZoneMap build(final int blockSize, final LongSpan... spans) {
+        return LongSpanZoneMap.build(blockSize, Arrays.asList(spans).iterator());
+    }
+
+    @Test
+    public void testSummary() {
+        final LongSpanSummary summary = new LongSpanSummary.Builder().add(LongSpan.fromEnd(0, 9))
+                .add(LongSpan.fromEnd(5, 14)).add(LongSpan.fromLength(16, 0)).add(LongSpan.fromEnd(20, 24)).build();
+        Assert.assertEquals(4, summary.getCount());
+        Assert.assertEquals(0, summary.getMinOffset());
+        Assert.assertEquals(24, summary.getMaxEnd());
+        Assert.assertEquals(20, summary.getCoveredLength());
+        Assert.assertTrue(summary.mayOverlap(LongSpan.fromEnd(16, 18)));
+        Assert.assertFalse(summary.mayOverlap(LongSpan.fromEnd(25, 30)));
+        Assert.assertFalse(summary.covers(LongSpan.fromEnd(1, 3)));
+    }
+
+    @Test
+    public void testCovers() {
+        final LongSpanSummary summary = new LongSpanSummary.Builder().add(LongSpan.fromEnd(0, 9))
+                .add(LongSpan.fromEnd(10, 14)).build();
+        Assert.assertTrue(summary.covers(LongSpan.fromEnd(5, 12)));
+    }
+
+    @Test
+    public void testSummaryAtMinimumOffset() {
+        final LongSpanSummary summary = new LongSpanSummary.Builder().add(LongSpan.fromLength(Long.MIN_VALUE, 5))
+                .add(LongSpan.fromLength(Long.MIN_VALUE, 10)).build();
+        Assert.assertEquals(10, summary.getCoveredLength());
+    }
+
+    @Test
+    public void testEmptySummary() {
+        final LongSpanSummary summary = new LongSpanSummary.Builder().add(LongSpan.fromLength(5, 0)).build();
+        Assert.assertEquals(1, summary.getCount());
+        Assert.assertFalse(summary.mayOverlap(LongSpan.fromEnd(0, 10)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsortedInput() {
+        new LongSpanSummary.Builder().add(LongSpan.fromEnd(5, 9)).add(LongSpan.fromEnd(0, 3));
+    }
+
+    @Test
+    public void testCandidateBlocks() {
+        final LongSpanZoneMap map = build(2, LongSpan.fromEnd(0, 100), LongSpan.fromEnd(1, 2),
+                LongSpan.fromEnd(10, 12), LongSpan.fromEnd(13, 14), LongSpan.fromEnd(20, 22),
+                LongSpan.fromEnd(30, 31), LongSpan.fromEnd(200, 210));
+        Assert.assertEquals(4, map.getBlockCount());
+        Assert.assertEquals(7, map.getSegmentSummary().getCount());
+        // the long first span keeps block 0 in every query up to 100.
+        Assert.assertArrayEquals(new int[] { 0, 2 }, map.candidateBlocks(LongSpan.fromEnd(25, 30)));
+        Assert.assertArrayEquals(new int[] { 0, 1 }, map.candidateBlocks(LongSpan.fromEnd(11, 11)));
+        Assert.assertArrayEquals(new int[] { 3 }, map.candidateBlocks(LongSpan.fromEnd(150, 205)));
+        Assert.assertArrayEquals(new int[0], map.candidateBlocks(LongSpan.fromEnd(300, 305)));
+    }
+
+    @Test
+    public void testPlanner() {
+        final LongSpanQueryPlanner<String> planner = new LongSpanQueryPlanner<>();
+        planner.add("a", build(2, LongSpan.fromEnd(0, 9), LongSpan.fromEnd(10, 19)));
+        planner.add("b", build(2, LongSpan.fromEnd(100, 109), LongSpan.fromEnd(110, 119), LongSpan.fromEnd(150, 160)));
+        planner.add("c", build(2, LongSpan.fromEnd(15, 25)));
+
+        List<LongSpanQueryPlanner.Candidate<String>> plan = planner.plan(LongSpan.fromEnd(18, 20));
+        Assert.assertEquals(2, plan.size());
+        Assert.assertEquals("a", plan.get(0).getSegment());
+        Assert.assertEquals("c", plan.get(1).getSegment());
+
+        plan = planner.plan(LongSpan.fromEnd(155, 155));
+        Assert.assertEquals(1, plan.size());
+        Assert.assertEquals("b", plan.get(0).getSegment());
+        Assert.assertArrayEquals(new int[] { 1 }, plan.get(0).getBlocks());
+        Assert.assertEquals(2, plan.get(0).getFirstSpanIndex(1));
+
+        Assert.assertTrue(planner.plan(LongSpan.fromEnd(50, 60)).isEmpty());
+    }
+}
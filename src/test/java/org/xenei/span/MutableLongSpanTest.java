@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MutableLongSpanTest {
+
+    private final MutableLongSpan span = new MutableLongSpan();
+
+    @Test
+    public void testSetAndReuse() {
+        Assert.assertEquals(0, span.getLength());
+        span.set(5, 10);
+        Assert.assertEquals(14, span.getEnd());
+        Assert.assertTrue(span.overlaps(LongSpan.fromEnd(14, 20)));
+        span.setEnd(7);
+        Assert.assertEquals(3, span.getLength());
+        Assert.assertFalse(span.contains(8));
+        span.setFromEnd(-3, -3);
+        Assert.assertEquals(1, span.getLength());
+        span.set(LongSpan.fromLength(100, 4));
+        Assert.assertEquals(0, LongSpan.COMPARATOR_BY_LENGTH.compare(span, LongSpan.fromLength(0, 4)));
+    }
+
+    @Test
+    public void testFreeze() {
+        span.set(5, 10);
+        final LongSpan frozen = span.freeze();
+        span.set(50, 1);
+        Assert.assertEquals(5, frozen.getOffset());
+        Assert.assertEquals(10, frozen.getLength());
+        Assert.assertTrue(frozen instanceof LongSpan.Impl);
+    }
+
+    @Test
+    public void testAsSink() {
+        LongSpanArithmetic.intersect(0, 10, 5, 10, span);
+        Assert.assertEquals(5, span.getOffset());
+        Assert.assertEquals(9, span.getEnd());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testNegativeLength() {
+        span.set(5, 10).setEnd(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOverflow() {
+        span.set(Long.MAX_VALUE, 2);
+    }
+}
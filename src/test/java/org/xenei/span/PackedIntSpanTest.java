@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PackedIntSpanTest {
+
+    @Test
+    public void testPack() {
+        final long packed = PackedIntSpan.pack(-5, 10);
+        Assert.assertEquals(-5, PackedIntSpan.offset(packed));
+        Assert.assertEquals(10, PackedIntSpan.length(packed));
+        Assert.assertEquals(4, PackedIntSpan.end(packed));
+        Assert.assertEquals(packed, PackedIntSpan.fromEnd(-5, 4));
+        Assert.assertEquals(IntSpan.fromLength(-5, 10), PackedIntSpan.toIntSpan(packed));
+        Assert.assertEquals(packed, PackedIntSpan.pack(IntSpan.fromLength(-5, 10)));
+        Assert.assertEquals(IntSpan.toString(IntSpan.fromLength(-5, 10)), PackedIntSpan.toString(packed));
+        Assert.assertEquals(PackedIntSpan.EMPTY, PackedIntSpan.pack(IntSpan.EMPTY));
+        Assert.assertTrue(PackedIntSpan.isEmpty(PackedIntSpan.pack(7, 0)));
+
+        final long max = PackedIntSpan.pack(Integer.MAX_VALUE - 1, 1);
+        Assert.assertEquals(Integer.MAX_VALUE - 1, PackedIntSpan.end(max));
+        final long min = PackedIntSpan.pack(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        Assert.assertEquals(Integer.MIN_VALUE, PackedIntSpan.offset(min));
+        Assert.assertEquals(Integer.MAX_VALUE, PackedIntSpan.length(min));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testNegativeLength() {
+        PackedIntSpan.pack(0, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEndOverflow() {
+        PackedIntSpan.pack(Integer.MAX_VALUE, 1);
+    }
+
+    @Test
+    public void testMatchesIntSpan() {
+        final IntSpan[] spans = { IntSpan.fromEnd(0, 9), IntSpan.fromEnd(5, 14), IntSpan.fromEnd(10, 10),
+                IntSpan.fromEnd(-20, -1), IntSpan.fromEnd(2, 3), IntSpan.fromLength(3, 0) };
+        for (final IntSpan a : spans) {
+            final long pa = PackedIntSpan.pack(a);
+            Assert.assertEquals(a.contains(5), PackedIntSpan.contains(pa, 5));
+            for (final IntSpan b : spans) {
+                final long pb = PackedIntSpan.pack(b);
+                Assert.assertEquals(a.overlaps(b), PackedIntSpan.overlaps(pa, pb));
+                Assert.assertEquals(a.contains(b), PackedIntSpan.containsSpan(pa, pb));
+                Assert.assertEquals(Integer.signum(IntSpan.COMPARATOR_BY_OFFSET.compare(a, b)),
+                        Integer.signum(PackedIntSpan.compareByOffset(pa, pb)));
+                Assert.assertEquals(Integer.signum(IntSpan.COMPARATOR_BY_LENGTH.compare(a, b)),
+                        Integer.signum(PackedIntSpan.compareByLength(pa, pb)));
+            }
+        }
+    }
+
+    @Test
+    public void testNaturalOrder() {
+        final long[] packed = { PackedIntSpan.pack(5, 1), PackedIntSpan.pack(-5, 3), PackedIntSpan.pack(5, 0),
+                PackedIntSpan.pack(Integer.MIN_VALUE, 1) };
+        Arrays.sort(packed);
+        Assert.assertEquals(Integer.MIN_VALUE, PackedIntSpan.offset(packed[0]));
+        Assert.assertEquals(-5, PackedIntSpan.offset(packed[1]));
+        Assert.assertEquals(0, PackedIntSpan.length(packed[2]));
+        Assert.assertEquals(1, PackedIntSpan.length(packed[3]));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ShardedLongSpanIndexTest {
+
+    @Test
+    public void testOverlapping() {
+        final ShardedLongSpanIndex index = new ShardedLongSpanIndex(4, Double.POSITIVE_INFINITY);
+        index.add(LongSpan.fromEnd(0, 9));
+        index.add(LongSpan.fromEnd(5, 14));
+        index.add(LongSpan.fromEnd(20, 29));
+        index.add(LongSpan.fromLength(12, 0));
+        Assert.assertEquals(4, index.size());
+
+        final List<LongSpan> result = index.overlapping(LongSpan.fromEnd(10, 20));
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals(5, result.get(0).getOffset());
+        Assert.assertEquals(20, result.get(1).getOffset());
+        Assert.assertEquals(0, index.countOverlapping(LongSpan.fromEnd(15, 19)));
+    }
+
+    @Test
+    public void testSpansCrossingShards() {
+        final ShardedLongSpanIndex index = new ShardedLongSpanIndex(4, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < 100; i++) {
+            index.add(LongSpan.fromLength(i * 10, 5));
+        }
+        index.add(LongSpan.fromEnd(-5, 1000));
+        index.rebalance();
+        Assert.assertEquals(4, index.getShardCount());
+        for (final long shardSize : index.getShardSizes()) {
+            Assert.assertTrue(shardSize >= 20 && shardSize <= 30);
+        }
+        // the long span lives in the first shard but must be found by a query at the end.
+        Assert.assertEquals(2, index.countOverlapping(LongSpan.fromEnd(992, 993)));
+        Assert.assertEquals(1, index.countOverlapping(LongSpan.fromEnd(996, 998)));
+    }
+
+    @Test
+    public void testRemove() {
+        final ShardedLongSpanIndex index = new ShardedLongSpanIndex(2);
+        index.add(LongSpan.fromEnd(0, 9));
+        index.add(LongSpan.fromEnd(0, 4));
+        Assert.assertTrue(index.remove(LongSpan.fromEnd(0, 4)));
+        Assert.assertFalse(index.remove(LongSpan.fromEnd(0, 4)));
+        Assert.assertEquals(1, index.size());
+        Assert.assertEquals(9, index.overlapping(LongSpan.fromEnd(0, 0)).get(0).getEnd());
+    }
+
+    @Test
+    public void testAutomaticRebalance() {
+        final ShardedLongSpanIndex index = new ShardedLongSpanIndex(8);
+        for (int i = 0; i < 10000; i++) {
+            index.add(LongSpan.fromLength(i, 1));
+        }
+        long max = 0;
+        for (final long shardSize : index.getShardSizes()) {
+            max = Math.max(max, shardSize);
+        }
+        Assert.assertTrue("Largest shard " + max, max < 10000 / 2);
+        Assert.assertEquals(10, index.countOverlapping(LongSpan.fromLength(5000, 10)));
+    }
+
+    @Test
+    public void testSingleOffset() {
+        final ShardedLongSpanIndex index = new ShardedLongSpanIndex(4);
+        for (int i = 0; i < 1000; i++) {
+            index.add(LongSpan.fromLength(7, i + 1));
+        }
+        index.rebalance();
+        Assert.assertEquals(1000, index.countOverlapping(LongSpan.fromLength(7, 1)));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final ShardedLongSpanIndex index = new ShardedLongSpanIndex(8);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    final Random random = new Random(thread);
+                    for (int i = 0; i < 5000; i++) {
+                        index.add(LongSpan.fromLength((thread * 5000L) + i, 1));
+                        index.overlapping(LongSpan.fromLength(random.nextInt(20000), 10));
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(20000, index.size());
+        Assert.assertEquals(20000, index.countOverlapping(LongSpan.fromLength(0, 20000)));
+    }
+}
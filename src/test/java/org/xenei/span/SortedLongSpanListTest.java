@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SortedLongSpanListTest {
+
+    private final SortedLongSpanList list = SortedLongSpanList.of(LongSpan.fromEnd(30, 35), LongSpan.fromEnd(0, 9),
+            LongSpan.fromEnd(5, 12), LongSpan.fromEnd(20, 22), LongSpan.fromEnd(50, 60), LongSpan.fromEnd(23, 25));
+
+    @Test
+    public void testSorted() {
+        Assert.assertEquals(6, list.size());
+        Assert.assertEquals(0, list.getOffset(0));
+        Assert.assertEquals(5, list.getOffset(1));
+        Assert.assertEquals(50, list.get(5).getOffset());
+        Assert.assertEquals(60, list.getEnd(5));
+    }
+
+    @Test
+    public void testNextStartingAfter() {
+        Assert.assertEquals(1, list.nextStartingAfter(0));
+        Assert.assertEquals(3, list.nextStartingAfter(20));
+        Assert.assertEquals(0, list.nextStartingAfter(-100));
+        Assert.assertEquals(-1, list.nextStartingAfter(50));
+    }
+
+    @Test
+    public void testPreviousEndingBefore() {
+        Assert.assertEquals(-1, list.previousEndingBefore(9));
+        Assert.assertEquals(0, list.previousEndingBefore(10));
+        Assert.assertEquals(1, list.previousEndingBefore(20));
+        Assert.assertEquals(4, list.previousEndingBefore(50));
+        Assert.assertEquals(5, list.previousEndingBefore(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testLargestGap() {
+        // runs are [0,12] [20,25] [30,35] [50,60]
+        LongSpan gap = list.largestGap(LongSpan.fromEnd(-5, 100));
+        Assert.assertEquals(61, gap.getOffset());
+        Assert.assertEquals(100, gap.getEnd());
+
+        gap = list.largestGap(LongSpan.fromEnd(0, 55));
+        Assert.assertEquals(36, gap.getOffset());
+        Assert.assertEquals(49, gap.getEnd());
+
+        gap = list.largestGap(LongSpan.fromEnd(5, 31));
+        Assert.assertEquals(13, gap.getOffset());
+        Assert.assertEquals(19, gap.getEnd());
+
+        Assert.assertEquals(0, list.largestGap(LongSpan.fromEnd(1, 12)).getLength());
+        gap = list.largestGap(LongSpan.fromEnd(40, 45));
+        Assert.assertEquals(40, gap.getOffset());
+        Assert.assertEquals(6, gap.getLength());
+    }
+
+    @Test
+    public void testGaps() {
+        final SortedLongSpanList.GapCursor cursor = list.gaps(LongSpan.fromEnd(5, 52));
+        Assert.assertTrue(cursor.next());
+        Assert.assertEquals(13, cursor.getOffset());
+        Assert.assertEquals(19, cursor.getEnd());
+        Assert.assertTrue(cursor.next());
+        Assert.assertEquals(26, cursor.getOffset());
+        Assert.assertEquals(29, cursor.getEnd());
+        Assert.assertTrue(cursor.next());
+        Assert.assertEquals(36, cursor.getOffset());
+        Assert.assertEquals(49, cursor.getEnd());
+        Assert.assertFalse(cursor.next());
+        Assert.assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testGapsBeyondSpans() {
+        final SortedLongSpanList.GapCursor cursor = list.gaps(LongSpan.fromEnd(58, 70));
+        Assert.assertTrue(cursor.next());
+        Assert.assertEquals(61, cursor.getOffset());
+        Assert.assertEquals(70, cursor.getEnd());
+        Assert.assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testGapCursorValueEquality() {
+        final SortedLongSpanList.GapCursor cursor = list.gaps(LongSpan.fromEnd(58, 70));
+        Assert.assertTrue(cursor.next());
+        final LongSpan expected = LongSpan.fromEnd(61, 70);
+        Assert.assertEquals(expected, cursor);
+        Assert.assertEquals(cursor, expected);
+        Assert.assertEquals(expected.hashCode(), cursor.hashCode());
+    }
+
+    @Test
+    public void testLargestGapMatchesCursor() {
+        final Random random = new Random(3);
+        final LongSpan[] spans = new LongSpan[500];
+        for (int i = 0; i < spans.length; i++) {
+            spans[i] = LongSpan.fromLength(random.nextInt(10000), random.nextInt(30));
+        }
+        final SortedLongSpanList randomList = SortedLongSpanList.of(spans);
+        for (int i = 0; i < 200; i++) {
+            final long a = random.nextInt(11000) - 500;
+            final LongSpan bounds = LongSpan.fromLength(a, random.nextInt(3000) + 1);
+            long expected = 0;
+            final SortedLongSpanList.GapCursor cursor = randomList.gaps(bounds);
+            while (cursor.next()) {
+                expected = Math.max(expected, cursor.getLength());
+            }
+            Assert.assertEquals(expected, randomList.largestGap(bounds).getLength());
+        }
+    }
+
+    @Test
+    public void testIndexOf() {
+        Assert.assertEquals(1, list.indexOf(10));
+        Assert.assertEquals(1, list.indexOf(7));
+        Assert.assertEquals(0, list.indexOf(2));
+        Assert.assertEquals(-1, list.indexOf(15));
+        Assert.assertEquals(-1, list.indexOf(-1));
+        Assert.assertEquals(5, list.indexOf(60));
+        Assert.assertEquals(-1, list.indexOf(61));
+    }
+
+    @Test
+    public void testResolve() {
+        final long[] positions = { 61, 2, 15, 24, 7, -1, 50, 30 };
+        final int[] result = new int[positions.length];
+        Assert.assertEquals(5, list.resolve(positions, result));
+        Assert.assertArrayEquals(new int[] { -1, 0, -1, 3, 1, -1, 5, 4 }, result);
+        Assert.assertEquals(61, positions[0]);
+    }
+
+    @Test
+    public void testResolveMatchesIndexOf() {
+        final Random random = new Random(4);
+        final LongSpan[] spans = new LongSpan[1000];
+        for (int i = 0; i < spans.length; i++) {
+            spans[i] = LongSpan.fromLength(random.nextInt(100000), random.nextInt(200));
+        }
+        final SortedLongSpanList randomList = SortedLongSpanList.of(spans);
+        final long[] positions = new long[100000];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextInt(110000) - 5000;
+        }
+        final int[] result = new int[positions.length];
+        randomList.resolve(positions, result);
+        for (int i = 0; i < positions.length; i++) {
+            Assert.assertEquals(randomList.indexOf(positions[i]), result[i]);
+            if (result[i] >= 0) {
+                Assert.assertTrue(randomList.get(result[i]).contains(positions[i]));
+            }
+        }
+        Arrays.sort(positions);
+        randomList.resolve(positions, result);
+        for (int i = 0; i < positions.length; i++) {
+            Assert.assertEquals(randomList.indexOf(positions[i]), result[i]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromSortedRejectsUnsorted() {
+        SortedLongSpanList.fromSorted(new long[] { 5, 1 }, new long[] { 1, 1 });
+    }
+}
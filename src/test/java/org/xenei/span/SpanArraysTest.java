@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpanArraysTest {
+
+    private static void assertSorted(final int[] perm, final long[] offsets, final long[] lengths) {
+        for (int i = 1; i < perm.length; i++) {
+            final int a = perm[i - 1];
+            final int b = perm[i];
+            Assert.assertTrue(offsets[a] < offsets[b] || (offsets[a] == offsets[b] && lengths[a] <= lengths[b]));
+        }
+    }
+
+    @Test
+    public void testSort() {
+        final Random random = new Random(1);
+        final long[] offsets = new long[1000];
+        final long[] lengths = new long[1000];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = random.nextInt(100);
+            lengths[i] = random.nextInt(10);
+        }
+        final int[] perm = SpanArrays.identity(offsets.length);
+        SpanArrays.sort(perm, 0, perm.length, SpanArrays.byOffset(offsets, lengths));
+        assertSorted(perm, offsets, lengths);
+    }
+
+    @Test
+    public void testParallelSortIsStable() {
+        final Random random = new Random(2);
+        final long[] offsets = new long[100_000];
+        final long[] lengths = new long[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = random.nextInt(1000);
+        }
+        final int[] perm = SpanArrays.identity(offsets.length);
+        SpanArrays.parallelSort(perm, SpanArrays.byOffset(offsets, lengths));
+        assertSorted(perm, offsets, lengths);
+        for (int i = 1; i < perm.length; i++) {
+            if (offsets[perm[i - 1]] == offsets[perm[i]]) {
+                Assert.assertTrue(perm[i - 1] < perm[i]);
+            }
+        }
+    }
+}
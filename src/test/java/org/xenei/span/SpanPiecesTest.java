@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpanPiecesTest {
+
+    @Test
+    public void testCollect() {
+        final SpanPieces<LongSpan> pieces = SpanPieces.longSpans();
+        Assert.assertSame(LongSpan.EMPTY, pieces.single(LongSpan.EMPTY));
+        Assert.assertEquals(Collections.emptyList(), pieces.toList());
+        pieces.accept(5L, 10L);
+        Assert.assertEquals(LongSpan.fromLength(5, 10), pieces.single(LongSpan.EMPTY));
+        pieces.accept(20L, 1L);
+        Assert.assertEquals(Arrays.asList(LongSpan.fromLength(5, 10), LongSpan.fromLength(20, 1)), pieces.toList());
+        Assert.assertArrayEquals(new LongSpan[] { LongSpan.fromLength(5, 10), LongSpan.fromLength(20, 1) },
+                pieces.pair(new LongSpan[2]));
+    }
+
+    @Test
+    public void testNarrowing() {
+        final SpanPieces<IntSpan> pieces = SpanPieces.intSpans();
+        pieces.accept(-3L, 4L);
+        pieces.accept(7, 2);
+        Assert.assertEquals(Arrays.asList(IntSpan.fromLength(-3, 4), IntSpan.fromLength(7, 2)), pieces.toList());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTooManySpans() {
+        final SpanPieces<LongSpan> pieces = SpanPieces.longSpans();
+        pieces.accept(0L, 1L);
+        pieces.accept(1L, 1L);
+        pieces.accept(2L, 1L);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpanTest {
+
+    private final IntSpan intSpan = IntSpan.fromEnd(10, 19);
+    private final LongSpan longSpan = LongSpan.fromEnd(15, 30);
+
+    @Test
+    public void testPrimitiveAccess() {
+        Assert.assertEquals(10, Span.offsetOf(intSpan));
+        Assert.assertEquals(10, Span.lengthOf(intSpan));
+        Assert.assertEquals(19, Span.endOf(intSpan));
+        Assert.assertEquals(15, Span.offsetOf(longSpan));
+        Assert.assertEquals(30, Span.endOf(longSpan));
+    }
+
+    @Test
+    public void testOverlapsAndContains() {
+        Assert.assertTrue(Span.overlaps(intSpan, longSpan));
+        Assert.assertTrue(Span.overlaps(longSpan, intSpan));
+        Assert.assertFalse(Span.overlaps(intSpan, LongSpan.fromEnd(20, 30)));
+        Assert.assertTrue(Span.contains(longSpan, IntSpan.fromEnd(15, 30)));
+        Assert.assertFalse(Span.contains(longSpan, intSpan));
+        Assert.assertTrue(Span.contains(intSpan, LongSpan.fromEnd(12, 13)));
+    }
+
+    @Test
+    public void testComparator() {
+        final List<Span> spans = new ArrayList<>(Arrays.asList(longSpan, intSpan, LongSpan.fromLength(10, 5),
+                IntSpan.fromLength(-3, 1), LongSpan.fromLength(Long.MIN_VALUE, 1)));
+        spans.sort(Span.COMPARATOR);
+        Assert.assertEquals(Long.MIN_VALUE, Span.offsetOf(spans.get(0)));
+        Assert.assertEquals(-3, Span.offsetOf(spans.get(1)));
+        Assert.assertEquals(LongSpan.fromLength(10, 5), spans.get(2));
+        Assert.assertSame(intSpan, spans.get(3));
+        Assert.assertSame(longSpan, spans.get(4));
+        Assert.assertEquals(0, Span.compare(intSpan, intSpan.asLongSpan()));
+    }
+
+    @Test
+    public void testPrimitiveForms() {
+        Assert.assertFalse(Span.overlaps(31, 1, longSpan));
+        Assert.assertTrue(Span.overlaps(15, 1, intSpan));
+        Assert.assertTrue(Span.contains(0, 100, intSpan));
+        Assert.assertFalse(Span.contains(11, 100, intSpan));
+        Assert.assertTrue(Span.compare(10, 9, intSpan) < 0);
+        Assert.assertEquals(0, Span.compare(15, 16, longSpan));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownSpanType() {
+        Span.compare(intSpan, new Span() {
+        });
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.xenei.span;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpanViewsTest {
+
+    private final String text = "the quick brown fox jumps over the lazy dog";
+
+    @Test
+    public void testCharSequenceView() {
+        final CharSequence view = SpanViews.view(text, IntSpan.fromLength(4, 5));
+        Assert.assertEquals(5, view.length());
+        Assert.assertEquals('q', view.charAt(0));
+        Assert.assertEquals("quick", view.toString());
+        Assert.assertEquals("uic", view.subSequence(1, 4).toString());
+        Assert.assertEquals("", SpanViews.view(text, IntSpan.fromLength(43, 0)).toString());
+
+        final CharSequence[] views = SpanViews.view(text,
+                new IntSpan[] { IntSpan.fromEnd(0, 2), IntSpan.fromEnd(40, 42) });
+        Assert.assertEquals("the", views[0].toString());
+        Assert.assertEquals("dog", views[1].toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCharSequenceViewOutOfBounds() {
+        SpanViews.view(text, IntSpan.fromLength(40, 4));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCharAtOutOfBounds() {
+        SpanViews.view(text, IntSpan.fromLength(4, 5)).charAt(5);
+    }
+
+    @Test
+    public void testSlice() {
+        final ByteBuffer source = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        source.position(20);
+        final ByteBuffer slice = SpanViews.slice(source, IntSpan.fromLength(10, 5));
+        Assert.assertEquals(5, slice.remaining());
+        Assert.assertEquals('b', slice.get(0));
+        Assert.assertEquals(ByteOrder.LITTLE_ENDIAN, slice.order());
+        Assert.assertEquals(20, source.position());
+        // the slice shares the source bytes.
+        source.put(10, (byte) 'B');
+        Assert.assertEquals('B', slice.get(0));
+
+        final ByteBuffer[] slices = SpanViews.slice(source.asReadOnlyBuffer(),
+                new IntSpan[] { IntSpan.fromEnd(16, 18), IntSpan.fromLength(0, 0) });
+        Assert.assertEquals('f', slices[0].get(0));
+        Assert.assertTrue(slices[0].isReadOnly());
+        Assert.assertEquals(0, slices[1].remaining());
+    }
+
+    @Test
+    public void testCompare() {
+        final IntSpan the1 = IntSpan.fromEnd(0, 2);
+        final IntSpan the2 = IntSpan.fromEnd(31, 33);
+        final IntSpan lazy = IntSpan.fromEnd(35, 38);
+        final IntSpan th = IntSpan.fromEnd(0, 1);
+        Assert.assertEquals(0, SpanViews.compare(text, the1, text, the2));
+        Assert.assertTrue(SpanViews.compare(text, lazy, text, the1) < 0);
+        Assert.assertTrue(SpanViews.compare(text, th, text, the1) < 0);
+
+        final ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+        Assert.assertEquals(0, SpanViews.compare(bytes, the1, bytes, the2));
+        Assert.assertTrue(SpanViews.compare(bytes, the1, bytes, lazy) > 0);
+        Assert.assertEquals(Integer.signum(SpanViews.slice(bytes, th).compareTo(SpanViews.slice(bytes, the1))),
+                Integer.signum(SpanViews.compare(bytes, th, bytes, the1)));
+
+        final IntSpan[] spans = { lazy, the1, th, the2 };
+        Arrays.sort(spans, SpanViews.contentComparator(text));
+        Assert.assertSame(lazy, spans[0]);
+        Assert.assertSame(th, spans[1]);
+        Arrays.sort(spans, SpanViews.contentComparator(bytes));
+        Assert.assertSame(lazy, spans[0]);
+        Assert.assertSame(th, spans[1]);
+    }
+
+    @Test
+    public void testMap() throws IOException {
+        final File file = File.createTempFile("span", ".bin");
+        file.deleteOnExit();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write(text.getBytes(StandardCharsets.US_ASCII));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            final ByteBuffer fox = SpanViews.map(channel, LongSpan.fromLength(16, 3));
+            Assert.assertEquals(3, fox.remaining());
+            Assert.assertEquals('f', fox.get(0));
+
+            final ByteBuffer[] buffers = SpanViews.map(channel, new LongSpan[] { LongSpan.fromLength(40, 3),
+                    LongSpan.fromLength(4, 5), LongSpan.fromLength(100, 0) });
+            Assert.assertEquals('d', buffers[0].get(0));
+            Assert.assertEquals(3, buffers[0].remaining());
+            Assert.assertEquals('q', buffers[1].get(0));
+            Assert.assertEquals(5, buffers[1].remaining());
+            Assert.assertEquals(0, buffers[2].remaining());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMapTooLong() throws IOException {
+        SpanViews.map(null, LongSpan.fromLength(0, Integer.MAX_VALUE + 1L));
+    }
+}